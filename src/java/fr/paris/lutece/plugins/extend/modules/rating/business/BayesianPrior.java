@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2002-2014, Mairie de Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.extend.modules.rating.business;
+
+import fr.paris.lutece.portal.service.util.AppLogService;
+import fr.paris.lutece.portal.service.util.AppPropertiesService;
+
+
+/**
+ *
+ * BayesianPrior : the prior of the Bayesian average of the ratings, the mean
+ * vote value assumed for a resource without votes and the number of votes
+ * that prior weighs
+ *
+ */
+public final class BayesianPrior
+{
+    private static final String PROPERTY_BAYESIAN_PRIOR_MEAN = "extend-rating.ranking.bayesianPriorMean";
+    private static final String PROPERTY_BAYESIAN_PRIOR_WEIGHT = "extend-rating.ranking.bayesianPriorWeight";
+    private static final double DEFAULT_BAYESIAN_PRIOR_MEAN = 0;
+    private static final double DEFAULT_BAYESIAN_PRIOR_WEIGHT = 5;
+    private final double _dMean;
+    private final double _dWeight;
+
+    /**
+     * Constructor
+     * @param dMean the mean vote value
+     * @param dWeight the number of votes the mean weighs, negative values
+     *            being taken as 0
+     */
+    public BayesianPrior( double dMean, double dWeight )
+    {
+        _dMean = dMean;
+        _dWeight = Math.max( 0, dWeight );
+    }
+
+    /**
+     * Get the prior set in the properties of the plugin
+     * @return the prior
+     */
+    public static BayesianPrior getDefault(  )
+    {
+        return new BayesianPrior( getDoubleProperty( PROPERTY_BAYESIAN_PRIOR_MEAN, DEFAULT_BAYESIAN_PRIOR_MEAN ),
+            getDoubleProperty( PROPERTY_BAYESIAN_PRIOR_WEIGHT, DEFAULT_BAYESIAN_PRIOR_WEIGHT ) );
+    }
+
+    /**
+     * Get the mean vote value
+     * @return the mean
+     */
+    public double getMean(  )
+    {
+        return _dMean;
+    }
+
+    /**
+     * Get the number of votes the mean weighs
+     * @return the weight
+     */
+    public double getWeight(  )
+    {
+        return _dWeight;
+    }
+
+    /**
+     * Get a decimal property
+     * @param strKey the key of the property
+     * @param dDefault the value if the property is missing or invalid
+     * @return the value
+     */
+    private static double getDoubleProperty( String strKey, double dDefault )
+    {
+        String strValue = AppPropertiesService.getProperty( strKey );
+
+        try
+        {
+            return ( strValue != null ) ? Double.parseDouble( strValue ) : dDefault;
+        }
+        catch ( NumberFormatException e )
+        {
+            AppLogService.error( "Invalid value for " + strKey + " : " + strValue );
+
+            return dDefault;
+        }
+    }
+}
@@ -1,111 +1,199 @@
-/*
- * Copyright (c) 2002-2014, Mairie de Paris
- * All rights reserved.
- *
- * Redistribution and use in source and binary forms, with or without
- * modification, are permitted provided that the following conditions
- * are met:
- *
- *  1. Redistributions of source code must retain the above copyright notice
- *     and the following disclaimer.
- *
- *  2. Redistributions in binary form must reproduce the above copyright notice
- *     and the following disclaimer in the documentation and/or other materials
- *     provided with the distribution.
- *
- *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
- *     contributors may be used to endorse or promote products derived from
- *     this software without specific prior written permission.
- *
- * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
- * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
- * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
- * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
- * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
- * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
- * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
- * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
- * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
- * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
- * POSSIBILITY OF SUCH DAMAGE.
- *
- * License 1.0
- */
-package fr.paris.lutece.plugins.extend.modules.rating.business;
-
-import fr.paris.lutece.portal.service.plugin.Plugin;
-
-import java.util.List;
-
-
-/**
- * ICommentDAO.
- */
-public interface IRatingDAO
-{
-    /**
-     * Delete.
-     *
-     * @param nIdRating the n id rating
-     * @param plugin the plugin
-     */
-    void delete( int nIdRating, Plugin plugin );
-
-    /**
-     * Delete by id hub resource.
-     *
-     * @param strIdExtendableResource the str id extendable resource
-     * @param strExtendableResourceType the str extendable resource type
-     * @param plugin the plugin
-     */
-    void deleteByResource( String strIdExtendableResource, String strExtendableResourceType, Plugin plugin );
-
-    /**
-     * Insert.
-     *
-     * @param rating the rating
-     * @param plugin the plugin
-     */
-    void insert( Rating rating, Plugin plugin );
-
-    /**
-     * Load.
-     *
-     * @param nIdRating the n id rating
-     * @param plugin the plugin
-     * @return the rating
-     */
-    Rating load( int nIdRating, Plugin plugin );
-
-    /**
-     * Store.
-     *
-     * @param rating the rating
-     * @param plugin the plugin
-     */
-    void store( Rating rating, Plugin plugin );
-
-    /**
-     * Select by id hub resource.
-     *
-     * @param strIdExtendableResource the str id extendable resource
-     * @param strExtendableResourceType the str extendable resource type
-     * @param plugin the plugin
-     * @return the rating
-     */
-    Rating loadByResource( String strIdExtendableResource, String strExtendableResourceType, Plugin plugin );
-
-    /**
-     * Get the ids of resources ordered by their number of ratings
-     * @param strExtendableResourceType The type of resources to consider
-     * @param nItemsOffset The offset of the items to get, or 0 to get items
-     *            from the first one
-     * @param nMaxItemsNumber The maximum number of items to return, or 0 to get
-     *            every items
-     * @param plugin the plugin
-     * @return The list of ids of resources ordered by the number of associated
-     *         comments
-     */
-    List<Integer> findIdMostRatedResources( String strExtendableResourceType, int nItemsOffset, int nMaxItemsNumber,
-        Plugin plugin );
-}
+/*
+ * Copyright (c) 2002-2014, Mairie de Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.extend.modules.rating.business;
+
+import fr.paris.lutece.portal.service.plugin.Plugin;
+
+import java.util.Collection;
+import java.util.List;
+
+
+/**
+ * ICommentDAO.
+ */
+public interface IRatingDAO
+{
+    /**
+     * Delete.
+     *
+     * @param nIdRating the n id rating
+     * @param plugin the plugin
+     */
+    void delete( int nIdRating, Plugin plugin );
+
+    /**
+     * Delete by id hub resource.
+     *
+     * @param strIdExtendableResource the str id extendable resource
+     * @param strExtendableResourceType the str extendable resource type
+     * @param plugin the plugin
+     */
+    void deleteByResource( String strIdExtendableResource, String strExtendableResourceType, Plugin plugin );
+
+    /**
+     * Insert. The ranking scores are stored as computed on the rating by
+     * {@link Rating#computeScores(BayesianPrior)}.
+     *
+     * @param rating the rating
+     * @param plugin the plugin
+     */
+    void insert( Rating rating, Plugin plugin );
+
+    /**
+     * Load.
+     *
+     * @param nIdRating the n id rating
+     * @param plugin the plugin
+     * @return the rating
+     */
+    Rating load( int nIdRating, Plugin plugin );
+
+    /**
+     * Store the rating if it has not been updated since it has been loaded,
+     * that is if its version is still the one in the database. The version of
+     * the rating is incremented on success. The ranking scores are stored as
+     * computed on the rating by {@link Rating#computeScores(BayesianPrior)}.
+     *
+     * @param rating the rating
+     * @param plugin the plugin
+     * @return true if the rating has been stored, false if it has been
+     *         updated concurrently
+     */
+    boolean store( Rating rating, Plugin plugin );
+
+    /**
+     * Add the counters of a delta to the rating of a resource, in one
+     * statement so that concurrent deltas are never lost. The ranking scores
+     * are computed from the new counters in the same statement. The rating is
+     * created from the delta if the resource has none yet and the delta adds
+     * votes.
+     *
+     * @param ratingDelta the delta : the resource and the values to add to
+     *            each counter
+     * @param bayesianPrior the prior to compute the Bayesian score with
+     * @param plugin the plugin
+     * @return true if the rating has been updated or created, false if the
+     *         resource has no rating and the delta does not add any vote
+     */
+    boolean storeDelta( Rating ratingDelta, BayesianPrior bayesianPrior, Plugin plugin );
+
+    /**
+     * Select by id hub resource.
+     *
+     * @param strIdExtendableResource the str id extendable resource
+     * @param strExtendableResourceType the str extendable resource type
+     * @param plugin the plugin
+     * @return the rating
+     */
+    Rating loadByResource( String strIdExtendableResource, String strExtendableResourceType, Plugin plugin );
+
+    /**
+     * Load the ratings of several resources of a given type. The ids are
+     * queried by chunks, so that the list of ids may be of any size.
+     * @param listIdExtendableResources the ids of the extendable resources
+     * @param strExtendableResourceType the extendable resource type
+     * @param plugin the plugin
+     * @return the ratings of the resources that have one
+     */
+    List<Rating> loadByResources( Collection<String> listIdExtendableResources, String strExtendableResourceType,
+        Plugin plugin );
+
+    /**
+     * Get the ids of resources ordered by their number of ratings
+     * @param strExtendableResourceType The type of resources to consider
+     * @param nItemsOffset The offset of the items to get, or 0 to get items
+     *            from the first one
+     * @param nMaxItemsNumber The maximum number of items to return, or 0 to get
+     *            every items
+     * @param plugin the plugin
+     * @return The list of ids of resources ordered by the number of associated
+     *         comments
+     */
+    List<Integer> findIdMostRatedResources( String strExtendableResourceType, int nItemsOffset, int nMaxItemsNumber,
+        Plugin plugin );
+
+    /**
+     * Load a page of the ratings of a resource type ranked on a metric
+     * @param strExtendableResourceType the extendable resource type
+     * @param metric the metric
+     * @param nItemsOffset the number of best ratings to skip
+     * @param nMaxItemsNumber the maximum number of ratings to load
+     * @param plugin the plugin
+     * @return the ratings, the best first
+     */
+    List<Rating> loadByRanking( String strExtendableResourceType, RatingMetric metric, int nItemsOffset,
+        int nMaxItemsNumber, Plugin plugin );
+
+    /**
+     * Load the ratings of a resource type ranked on a metric that come after
+     * a given rating, by seeking in the index of the metric
+     * @param strExtendableResourceType the extendable resource type
+     * @param metric the metric
+     * @param lastRating the last rating already read, as loaded by this
+     *            method, or null to load the first ratings
+     * @param nMaxItemsNumber the maximum number of ratings to load
+     * @param plugin the plugin
+     * @return the ratings, the best first
+     */
+    List<Rating> loadByRankingAfter( String strExtendableResourceType, RatingMetric metric, Rating lastRating,
+        int nMaxItemsNumber, Plugin plugin );
+
+    /**
+     * Find the resource types that have ratings
+     * @param plugin the plugin
+     * @return the resource types
+     */
+    List<String> findResourceTypes( Plugin plugin );
+
+    /**
+     * Find the resources of a type that have a rating
+     * @param strExtendableResourceType the extendable resource type
+     * @param plugin the plugin
+     * @return the ids of the resources
+     */
+    List<String> findIdResources( String strExtendableResourceType, Plugin plugin );
+
+    /**
+     * Compute again the ranking scores of the ratings of several resources of
+     * a type from their counters, after a change of the prior of their
+     * Bayesian score. The ids are updated by chunks, so that the list of ids
+     * may be of any size.
+     * @param listIdExtendableResources the ids of the extendable resources
+     * @param strExtendableResourceType the extendable resource type
+     * @param bayesianPrior the prior to compute the Bayesian score with
+     * @param plugin the plugin
+     */
+    void updateScores( Collection<String> listIdExtendableResources, String strExtendableResourceType,
+        BayesianPrior bayesianPrior, Plugin plugin );
+}
@@ -1,74 +1,112 @@
-/*
- * Copyright (c) 2002-2014, Mairie de Paris
- * All rights reserved.
- *
- * Redistribution and use in source and binary forms, with or without
- * modification, are permitted provided that the following conditions
- * are met:
- *
- *  1. Redistributions of source code must retain the above copyright notice
- *     and the following disclaimer.
- *
- *  2. Redistributions in binary form must reproduce the above copyright notice
- *     and the following disclaimer in the documentation and/or other materials
- *     provided with the distribution.
- *
- *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
- *     contributors may be used to endorse or promote products derived from
- *     this software without specific prior written permission.
- *
- * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
- * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
- * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
- * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
- * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
- * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
- * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
- * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
- * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
- * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
- * POSSIBILITY OF SUCH DAMAGE.
- *
- * License 1.0
- */
-package fr.paris.lutece.plugins.extend.modules.rating.business;
-
-import fr.paris.lutece.portal.service.plugin.Plugin;
-
-
-/**
- * ICommentDAO.
- */
-public interface IRatingHistoryDAO
-{
-    /**
-     * Delete.
-     * @param nId the n id rating
-     * @param plugin the plugin
-     */
-    void remove( int nId, Plugin plugin );
-
-    /**
-     * Delete by resource
-     *
-     * @param strIdExtendableResource the str id extendable resource
-     * @param strExtendableResourceType the str extendable resource type
-     * @param plugin the plugin
-     */
-    void removeByResource( String strIdExtendableResource, String strExtendableResourceType, Plugin plugin );
-
-    /**
-     * Insert.
-     * @param ratingHistory the ratingHistory
-     * @param plugin the plugin
-     */
-    void create( RatingHistory ratingHistory, Plugin plugin );
-
-    /**
-     * Find a {@link RatingHistory}
-     * @param lIdHistoryExtenderId the extender id
-     * @param plugin the plugin
-     * @return the corresponding {@link RatingHistory}
-     */
-    RatingHistory findByHistoryExtenderId( long lIdHistoryExtenderId, Plugin plugin );
-}
+/*
+ * Copyright (c) 2002-2014, Mairie de Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.extend.modules.rating.business;
+
+import fr.paris.lutece.portal.service.plugin.Plugin;
+
+import java.sql.Timestamp;
+
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * ICommentDAO.
+ */
+public interface IRatingHistoryDAO
+{
+    /**
+     * Delete.
+     * @param nId the n id rating
+     * @param plugin the plugin
+     */
+    void remove( int nId, Plugin plugin );
+
+    /**
+     * Delete by resource
+     *
+     * @param strIdExtendableResource the str id extendable resource
+     * @param strExtendableResourceType the str extendable resource type
+     * @param plugin the plugin
+     */
+    void removeByResource( String strIdExtendableResource, String strExtendableResourceType, Plugin plugin );
+
+    /**
+     * Insert.
+     * @param ratingHistory the ratingHistory
+     * @param plugin the plugin
+     */
+    void create( RatingHistory ratingHistory, Plugin plugin );
+
+    /**
+     * Insert several rating histories with a JDBC batch
+     * @param listRatingHistories the rating histories
+     * @param plugin the plugin
+     */
+    void create( List<RatingHistory> listRatingHistories, Plugin plugin );
+
+    /**
+     * Compute the totals of the votes of a user on a resource for each date
+     * of vote, in one query
+     * @param strExtenderType the extender type
+     * @param strIdExtendableResource the id of the extendable resource
+     * @param strExtendableResourceType the extendable resource type
+     * @param strUserGuid the guid of the user
+     * @param plugin the plugin
+     * @return the totals by date of vote, as ratings whose counters are the
+     *         sums of the votes
+     */
+    Map<Timestamp, Rating> findTotalsByUser( String strExtenderType, String strIdExtendableResource,
+        String strExtendableResourceType, String strUserGuid, Plugin plugin );
+
+    /**
+     * Delete the votes of a user on a resource, and their extender
+     * histories, with set-based statements
+     * @param strExtenderType the extender type
+     * @param strIdExtendableResource the id of the extendable resource
+     * @param strExtendableResourceType the extendable resource type
+     * @param strUserGuid the guid of the user
+     * @param plugin the plugin
+     */
+    void removeByUser( String strExtenderType, String strIdExtendableResource, String strExtendableResourceType,
+        String strUserGuid, Plugin plugin );
+
+    /**
+     * Find a {@link RatingHistory}
+     * @param lIdHistoryExtenderId the extender id
+     * @param plugin the plugin
+     * @return the corresponding {@link RatingHistory}
+     */
+    RatingHistory findByHistoryExtenderId( long lIdHistoryExtenderId, Plugin plugin );
+}
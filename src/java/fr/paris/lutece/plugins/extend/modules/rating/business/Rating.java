@@ -1,201 +1,295 @@
-/*
- * Copyright (c) 2002-2014, Mairie de Paris
- * All rights reserved.
- *
- * Redistribution and use in source and binary forms, with or without
- * modification, are permitted provided that the following conditions
- * are met:
- *
- *  1. Redistributions of source code must retain the above copyright notice
- *     and the following disclaimer.
- *
- *  2. Redistributions in binary form must reproduce the above copyright notice
- *     and the following disclaimer in the documentation and/or other materials
- *     provided with the distribution.
- *
- *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
- *     contributors may be used to endorse or promote products derived from
- *     this software without specific prior written permission.
- *
- * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
- * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
- * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
- * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
- * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
- * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
- * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
- * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
- * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
- * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
- * POSSIBILITY OF SUCH DAMAGE.
- *
- * License 1.0
- */
-package fr.paris.lutece.plugins.extend.modules.rating.business;
-
-import javax.validation.constraints.NotNull;
-
-
-/**
- *
- * Rating
- *
- */
-public class Rating
-{
-    private int _nIdRating;
-    @NotNull
-    private String _strIdExtendableResource;
-    @NotNull
-    private String _strExtendableResourceType;
-    private int _nVoteCount;
-    private double _dScoreValue;
-    private int _nScorePositifsVotes;
-    private int _nScoreNegativesVotes;
-    
-
-    /**
-         * @return the nIdRating
-         */
-    public int getIdRating(  )
-    {
-        return _nIdRating;
-    }
-
-    /**
-     * @param nIdRating the nIdRating to set
-     */
-    public void setIdRating( int nIdRating )
-    {
-        _nIdRating = nIdRating;
-    }
-
-    /**
-    * @return the strIdExtendableResource
-    */
-    public String getIdExtendableResource(  )
-    {
-        return _strIdExtendableResource;
-    }
-
-    /**
-     * @param strIdExtendableResource the strIdExtendableResource to set
-     */
-    public void setIdExtendableResource( String strIdExtendableResource )
-    {
-        _strIdExtendableResource = strIdExtendableResource;
-    }
-
-    /**
-     * @return the extendableResourceType
-     */
-    public String getExtendableResourceType(  )
-    {
-        return _strExtendableResourceType;
-    }
-
-    /**
-     * @param strExtendableResourceType the extendableResourceType to set
-     */
-    public void setExtendableResourceType( String strExtendableResourceType )
-    {
-        _strExtendableResourceType = strExtendableResourceType;
-    }
-
-    /**
-     * @return the nVoteCount
-     */
-    public int getVoteCount(  )
-    {
-        return _nVoteCount;
-    }
-
-    /**
-     * @param nVoteCount the nVoteCount to set
-     */
-    public void setVoteCount( int nVoteCount )
-    {
-        _nVoteCount = nVoteCount;
-    }
-
-    /**
-     * @return the dScoreValue
-     */
-    public double getScoreValue(  )
-    {
-        return _dScoreValue;
-    }
-
-    /**
-     * @param dScoreValue the dScoreValue to set
-     */
-    public void setScoreValue( double dScoreValue )
-    {
-        _dScoreValue = dScoreValue;
-    }
-    
-    /**
-     * 
-     * @return
-     */
-    public int getScorePositifsVotes( ) 
-    {
-		return _nScorePositifsVotes;
-	}
-    /**
-     * 
-     * @param _nScorePositifVotes
-     */
-	public void setScorePositifsVotes( int _nScorePositifVotes ) 
-	{
-		this._nScorePositifsVotes = _nScorePositifVotes;
-	}
-	/**
-	 * 
-	 * @return
-	 */
-	public int getScoreNegativesVotes( ) 
-	{
-		return _nScoreNegativesVotes;
-	}
-
-	public void setScoreNegativesVotes( int nScoreNegativeVotes ) 
-	{
-		this._nScoreNegativesVotes = nScoreNegativeVotes;
-	}
-
-	/**
-     * Calculate the score (min : 1 - max : 4).
-     *
-     * @return the average score
-     */
-    public double getAverageScore(  )
-    {
-        double dScore = 0;
-
-        if ( _nVoteCount > 0 )
-        {
-            double averageScore = _dScoreValue / ( double ) _nVoteCount;
-            dScore =  Math.round( averageScore * 10 ) * 0.1;
-        }
-
-        return dScore;
-    }
-    
-    /**
-     *
-     * @return the average score calculated with 0.5 precision
-     */
-    public double getAverageScoreRoundToHalf(  )
-    {
-        double dScore = 0;
-
-        if ( _nVoteCount > 0 )
-        {
-            double averageScore = _dScoreValue / (double) _nVoteCount;
-            dScore =  Math.round( averageScore * 2 ) * 0.5;
-        }
-
-        return dScore;
-    }
-}
+/*
+ * Copyright (c) 2002-2014, Mairie de Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.extend.modules.rating.business;
+
+import javax.validation.constraints.NotNull;
+
+
+/**
+ *
+ * Rating
+ *
+ */
+public class Rating
+{
+    private int _nIdRating;
+    @NotNull
+    private String _strIdExtendableResource;
+    @NotNull
+    private String _strExtendableResourceType;
+    private int _nVoteCount;
+    private double _dScoreValue;
+    private int _nScorePositifsVotes;
+    private int _nScoreNegativesVotes;
+    private int _nVersion;
+    private double _dStoredAverageScore;
+    private double _dWilsonScore;
+    private double _dBayesianScore;
+    
+
+    /**
+         * @return the nIdRating
+         */
+    public int getIdRating(  )
+    {
+        return _nIdRating;
+    }
+
+    /**
+     * @param nIdRating the nIdRating to set
+     */
+    public void setIdRating( int nIdRating )
+    {
+        _nIdRating = nIdRating;
+    }
+
+    /**
+    * @return the strIdExtendableResource
+    */
+    public String getIdExtendableResource(  )
+    {
+        return _strIdExtendableResource;
+    }
+
+    /**
+     * @param strIdExtendableResource the strIdExtendableResource to set
+     */
+    public void setIdExtendableResource( String strIdExtendableResource )
+    {
+        _strIdExtendableResource = strIdExtendableResource;
+    }
+
+    /**
+     * @return the extendableResourceType
+     */
+    public String getExtendableResourceType(  )
+    {
+        return _strExtendableResourceType;
+    }
+
+    /**
+     * @param strExtendableResourceType the extendableResourceType to set
+     */
+    public void setExtendableResourceType( String strExtendableResourceType )
+    {
+        _strExtendableResourceType = strExtendableResourceType;
+    }
+
+    /**
+     * @return the nVoteCount
+     */
+    public int getVoteCount(  )
+    {
+        return _nVoteCount;
+    }
+
+    /**
+     * @param nVoteCount the nVoteCount to set
+     */
+    public void setVoteCount( int nVoteCount )
+    {
+        _nVoteCount = nVoteCount;
+    }
+
+    /**
+     * @return the dScoreValue
+     */
+    public double getScoreValue(  )
+    {
+        return _dScoreValue;
+    }
+
+    /**
+     * @param dScoreValue the dScoreValue to set
+     */
+    public void setScoreValue( double dScoreValue )
+    {
+        _dScoreValue = dScoreValue;
+    }
+    
+    /**
+     * 
+     * @return
+     */
+    public int getScorePositifsVotes( ) 
+    {
+		return _nScorePositifsVotes;
+	}
+    /**
+     * 
+     * @param _nScorePositifVotes
+     */
+	public void setScorePositifsVotes( int _nScorePositifVotes ) 
+	{
+		this._nScorePositifsVotes = _nScorePositifVotes;
+	}
+	/**
+	 * 
+	 * @return
+	 */
+	public int getScoreNegativesVotes( ) 
+	{
+		return _nScoreNegativesVotes;
+	}
+
+	public void setScoreNegativesVotes( int nScoreNegativeVotes ) 
+	{
+		this._nScoreNegativesVotes = nScoreNegativeVotes;
+	}
+
+    /**
+     * Get the version of the rating, incremented by each update. It is used
+     * to detect the concurrent updates.
+     * @return the version
+     */
+    public int getVersion(  )
+    {
+        return _nVersion;
+    }
+
+    /**
+     * @param nVersion the version to set
+     */
+    public void setVersion( int nVersion )
+    {
+        _nVersion = nVersion;
+    }
+
+    /**
+     * Get the average of the vote values, not rounded, as stored with the
+     * rating to rank the ratings
+     * @return the stored average score
+     */
+    public double getStoredAverageScore(  )
+    {
+        return _dStoredAverageScore;
+    }
+
+    /**
+     * @param dStoredAverageScore the stored average score to set
+     */
+    public void setStoredAverageScore( double dStoredAverageScore )
+    {
+        _dStoredAverageScore = dStoredAverageScore;
+    }
+
+    /**
+     * Get the lower bound of the Wilson score interval of the positive votes
+     * at 95% confidence, as stored with the rating
+     * @return the Wilson score, between 0 and 1
+     */
+    public double getWilsonScore(  )
+    {
+        return _dWilsonScore;
+    }
+
+    /**
+     * @param dWilsonScore the Wilson score to set
+     */
+    public void setWilsonScore( double dWilsonScore )
+    {
+        _dWilsonScore = dWilsonScore;
+    }
+
+    /**
+     * Get the Bayesian average of the vote values, as stored with the rating
+     * @return the Bayesian score
+     */
+    public double getBayesianScore(  )
+    {
+        return _dBayesianScore;
+    }
+
+    /**
+     * @param dBayesianScore the Bayesian score to set
+     */
+    public void setBayesianScore( double dBayesianScore )
+    {
+        _dBayesianScore = dBayesianScore;
+    }
+
+    /**
+     * Compute the stored average, Wilson and Bayesian scores from the
+     * counters, the same way as the database does when the rating is saved
+     * @param bayesianPrior the prior of the Bayesian average
+     */
+    public void computeScores( BayesianPrior bayesianPrior )
+    {
+        int nVotes = _nScorePositifsVotes + _nScoreNegativesVotes;
+        double dWeight = bayesianPrior.getWeight(  );
+
+        _dStoredAverageScore = ( _nVoteCount > 0 ) ? ( _dScoreValue / _nVoteCount ) : 0;
+        _dWilsonScore = ( nVotes > 0 )
+            ? ( ( _nScorePositifsVotes + 1.9208 ) -
+            ( 1.96 * Math.sqrt( ( ( (double) _nScorePositifsVotes * _nScoreNegativesVotes ) / nVotes ) + 0.9604 ) ) ) / ( nVotes +
+            3.8416 ) : 0;
+        _dBayesianScore = ( ( _nVoteCount + dWeight ) > 0 )
+            ? ( ( dWeight * bayesianPrior.getMean(  ) ) + _dScoreValue ) / ( _nVoteCount + dWeight ) : 0;
+    }
+
+	/**
+     * Calculate the score (min : 1 - max : 4).
+     *
+     * @return the average score
+     */
+    public double getAverageScore(  )
+    {
+        double dScore = 0;
+
+        if ( _nVoteCount > 0 )
+        {
+            double averageScore = _dScoreValue / ( double ) _nVoteCount;
+            dScore =  Math.round( averageScore * 10 ) * 0.1;
+        }
+
+        return dScore;
+    }
+    
+    /**
+     *
+     * @return the average score calculated with 0.5 precision
+     */
+    public double getAverageScoreRoundToHalf(  )
+    {
+        double dScore = 0;
+
+        if ( _nVoteCount > 0 )
+        {
+            double averageScore = _dScoreValue / (double) _nVoteCount;
+            dScore =  Math.round( averageScore * 2 ) * 0.5;
+        }
+
+        return dScore;
+    }
+}
@@ -1,293 +1,724 @@
-/*
- * Copyright (c) 2002-2014, Mairie de Paris
- * All rights reserved.
- *
- * Redistribution and use in source and binary forms, with or without
- * modification, are permitted provided that the following conditions
- * are met:
- *
- *  1. Redistributions of source code must retain the above copyright notice
- *     and the following disclaimer.
- *
- *  2. Redistributions in binary form must reproduce the above copyright notice
- *     and the following disclaimer in the documentation and/or other materials
- *     provided with the distribution.
- *
- *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
- *     contributors may be used to endorse or promote products derived from
- *     this software without specific prior written permission.
- *
- * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
- * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
- * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
- * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
- * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
- * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
- * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
- * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
- * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
- * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
- * POSSIBILITY OF SUCH DAMAGE.
- *
- * License 1.0
- */
-package fr.paris.lutece.plugins.extend.modules.rating.business;
-
-import fr.paris.lutece.plugins.extend.business.extender.ResourceExtenderDTOFilter;
-import fr.paris.lutece.portal.service.plugin.Plugin;
-import fr.paris.lutece.util.sql.DAOUtil;
-
-import java.util.ArrayList;
-import java.util.List;
-
-
-/**
- * This class provides Data Access methods for Rating objects.
- */
-public class RatingDAO implements IRatingDAO
-{
-    private static final String SQL_QUERY_NEW_PK = " SELECT max( id_rating ) FROM extend_rating ";
-    private static final String SQL_QUERY_INSERT = " INSERT INTO extend_rating ( id_rating, id_resource, resource_type, vote_count, " +
-        " score_value, score_positifs_votes, score_negatives_votes ) VALUES ( ?, ?, ?, ?, ?, ?, ? ) ";
-    private static final String SQL_QUERY_SELECT_ALL = " SELECT id_rating, id_resource, resource_type, vote_count, score_value, score_positifs_votes, score_negatives_votes " +
-        " FROM extend_rating ";
-    private static final String SQL_QUERY_SELECT = SQL_QUERY_SELECT_ALL + " WHERE id_rating = ? ";
-    private static final String SQL_QUERY_SELECT_BY_RESOURCE = SQL_QUERY_SELECT_ALL +
-        " WHERE id_resource = ? AND resource_type = ? ";
-    private static final String SQL_QUERY_DELETE = " DELETE FROM extend_rating WHERE id_rating = ? ";
-    private static final String SQL_QUERY_DELETE_BY_RESOURCE = " DELETE FROM extend_rating WHERE resource_type = ? ";
-    private static final String SQL_QUERY_FILTER_ID_RESOURCE = " AND id_resource = ? ";
-    private static final String SQL_QUERY_UPDATE = " UPDATE extend_rating SET id_resource = ?, resource_type = ?, vote_count = ?, score_value = ?, score_positifs_votes= ?, score_negatives_votes = ? WHERE id_rating = ?  ";
-    private static final String SQL_QUERY_SELECT_ID_MOST_RATED_RESOURCES = " SELECT DISTINCT(id_resource) FROM extend_rating WHERE resource_type = ? ORDER BY vote_count ";
-    private static final String SQL_LIMIT = " LIMIT ";
-    private static final String CONSTANT_COMMA = ",";
-    private static final String CONSTANT_QUESTION_MARK = "?";
-
-    /**
-     * Generates a new primary key.
-     *
-     * @param plugin the plugin
-     * @return The new primary key
-     */
-    private int newPrimaryKey( Plugin plugin )
-    {
-        DAOUtil daoUtil = new DAOUtil( SQL_QUERY_NEW_PK, plugin );
-        daoUtil.executeQuery(  );
-
-        int nKey = 1;
-
-        if ( daoUtil.next(  ) )
-        {
-            nKey = daoUtil.getInt( 1 ) + 1;
-        }
-
-        daoUtil.free(  );
-
-        return nKey;
-    }
-
-    /**
-     * {@inheritDoc}
-     */
-    @Override
-    public synchronized void insert( Rating rating, Plugin plugin )
-    {
-        int nNewPrimaryKey = newPrimaryKey( plugin );
-        DAOUtil daoUtil = new DAOUtil( SQL_QUERY_INSERT, plugin );
-        rating.setIdRating( nNewPrimaryKey );
-
-        int nIndex = 1;
-
-        daoUtil.setInt( nIndex++, rating.getIdRating(  ) );
-        daoUtil.setString( nIndex++, rating.getIdExtendableResource(  ) );
-        daoUtil.setString( nIndex++, rating.getExtendableResourceType(  ) );
-        daoUtil.setInt( nIndex++, rating.getVoteCount(  ) );
-        daoUtil.setDouble( nIndex++, rating.getScoreValue(  ) );
-        daoUtil.setInt( nIndex++, rating.getScorePositifsVotes(  ) );
-        daoUtil.setInt( nIndex, rating.getScoreNegativesVotes(  ) );
-
-        daoUtil.executeUpdate(  );
-        daoUtil.free(  );
-    }
-
-    /**
-     * {@inheritDoc}
-     */
-    @Override
-    public Rating load( int nIdRating, Plugin plugin )
-    {
-        DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT, plugin );
-        daoUtil.setInt( 1, nIdRating );
-        daoUtil.executeQuery(  );
-
-        Rating rating = null;
-
-        if ( daoUtil.next(  ) )
-        {
-            int nIndex = 1;
-            rating = new Rating(  );
-            rating.setIdRating( daoUtil.getInt( nIndex++ ) );
-            rating.setIdExtendableResource( daoUtil.getString( nIndex++ ) );
-            rating.setExtendableResourceType( daoUtil.getString( nIndex++ ) );
-            rating.setVoteCount( daoUtil.getInt( nIndex++ ) );
-            rating.setScoreValue( daoUtil.getDouble( nIndex++ ) );
-            rating.setScorePositifsVotes( daoUtil.getInt( nIndex++ ) );
-            rating.setScoreNegativesVotes( daoUtil.getInt( nIndex ) );
-        }
-
-        daoUtil.free(  );
-
-        return rating;
-    }
-
-    /**
-     * {@inheritDoc}
-     */
-    @Override
-    public void delete( int nIdRating, Plugin plugin )
-    {
-        DAOUtil daoUtil = new DAOUtil( SQL_QUERY_DELETE, plugin );
-        daoUtil.setInt( 1, nIdRating );
-
-        daoUtil.executeUpdate(  );
-        daoUtil.free(  );
-    }
-
-    /**
-     * {@inheritDoc}
-     */
-    @Override
-    public void deleteByResource( String strIdExtendableResource, String strExtendableResourceType, Plugin plugin )
-    {
-        int nIndex = 1;
-        StringBuilder sbSql = new StringBuilder( SQL_QUERY_DELETE_BY_RESOURCE );
-
-        if ( !ResourceExtenderDTOFilter.WILDCARD_ID_RESOURCE.equals( strIdExtendableResource ) )
-        {
-            sbSql.append( SQL_QUERY_FILTER_ID_RESOURCE );
-        }
-
-        DAOUtil daoUtil = new DAOUtil( sbSql.toString(  ), plugin );
-        daoUtil.setString( nIndex++, strExtendableResourceType );
-
-        if ( !ResourceExtenderDTOFilter.WILDCARD_ID_RESOURCE.equals( strIdExtendableResource ) )
-        {
-            daoUtil.setString( nIndex, strIdExtendableResource );
-        }
-
-        daoUtil.executeUpdate(  );
-        daoUtil.free(  );
-    }
-
-    /**
-     * {@inheritDoc}
-     */
-    @Override
-    public void store( Rating rating, Plugin plugin )
-    {
-        int nIndex = 1;
-        DAOUtil daoUtil = new DAOUtil( SQL_QUERY_UPDATE, plugin );
-        daoUtil.setString( nIndex++, rating.getIdExtendableResource(  ) );
-        daoUtil.setString( nIndex++, rating.getExtendableResourceType(  ) );
-        daoUtil.setInt( nIndex++, rating.getVoteCount(  ) );
-        daoUtil.setDouble( nIndex++, rating.getScoreValue(  ) );
-        daoUtil.setInt( nIndex++, rating.getScorePositifsVotes(  ) );
-        daoUtil.setInt( nIndex++, rating.getScoreNegativesVotes(  ) );
-
-        daoUtil.setInt( nIndex, rating.getIdRating(  ) );
-
-        daoUtil.executeUpdate(  );
-        daoUtil.free(  );
-    }
-
-    /**
-     * {@inheritDoc}
-     */
-    @Override
-    public Rating loadByResource( String strIdExtendableResource, String strExtendableResourceType, Plugin plugin )
-    {
-        Rating rating = null;
-
-        int nIndex = 1;
-        DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT_BY_RESOURCE, plugin );
-        daoUtil.setString( nIndex++, strIdExtendableResource );
-        daoUtil.setString( nIndex, strExtendableResourceType );
-        daoUtil.executeQuery(  );
-
-        if ( daoUtil.next(  ) )
-        {
-            nIndex = 1;
-
-            rating = new Rating(  );
-            rating.setIdRating( daoUtil.getInt( nIndex++ ) );
-            rating.setIdExtendableResource( daoUtil.getString( nIndex++ ) );
-            rating.setExtendableResourceType( daoUtil.getString( nIndex++ ) );
-            rating.setVoteCount( daoUtil.getInt( nIndex++ ) );
-            rating.setScoreValue( daoUtil.getDouble( nIndex++ ) );
-            rating.setScorePositifsVotes( daoUtil.getInt( nIndex++ ) );
-            rating.setScoreNegativesVotes( daoUtil.getInt( nIndex ) );
-        }
-
-        daoUtil.free(  );
-
-        return rating;
-    }
-
-    /**
-     * {@inheritDoc}
-     */
-    @Override
-    public List<Integer> findIdMostRatedResources( String strExtendableResourceType, int nItemsOffset,
-        int nMaxItemsNumber, Plugin plugin )
-    {
-        List<Integer> listIds;
-
-        if ( nMaxItemsNumber > 0 )
-        {
-            listIds = new ArrayList<Integer>( nMaxItemsNumber );
-        }
-        else
-        {
-            listIds = new ArrayList<Integer>(  );
-        }
-
-        StringBuilder sbSQL = new StringBuilder( SQL_QUERY_SELECT_ID_MOST_RATED_RESOURCES );
-
-        if ( nMaxItemsNumber > 0 )
-        {
-            sbSQL.append( SQL_LIMIT );
-
-            if ( nItemsOffset > 0 )
-            {
-                sbSQL.append( CONSTANT_QUESTION_MARK ).append( CONSTANT_COMMA );
-            }
-
-            sbSQL.append( CONSTANT_QUESTION_MARK );
-        }
-
-        int nIndex = 1;
-        DAOUtil daoUtil = new DAOUtil( sbSQL.toString(  ), plugin );
-        daoUtil.setString( nIndex++, strExtendableResourceType );
-
-        if ( nMaxItemsNumber > 0 )
-        {
-            if ( nItemsOffset > 0 )
-            {
-                daoUtil.setInt( nIndex++, nItemsOffset );
-            }
-
-            daoUtil.setInt( nIndex, nMaxItemsNumber );
-        }
-
-        daoUtil.executeQuery(  );
-
-        while ( daoUtil.next(  ) )
-        {
-            listIds.add( daoUtil.getInt( 1 ) );
-        }
-
-        daoUtil.free(  );
-
-        return listIds;
-    }
-}
+/*
+ * Copyright (c) 2002-2014, Mairie de Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.extend.modules.rating.business;
+
+import fr.paris.lutece.plugins.extend.business.extender.ResourceExtenderDTOFilter;
+import fr.paris.lutece.plugins.extend.modules.rating.business.key.IPrimaryKeyAllocator;
+import fr.paris.lutece.plugins.extend.modules.rating.business.util.SqlUpdateUtil;
+import fr.paris.lutece.portal.service.plugin.Plugin;
+import fr.paris.lutece.portal.service.util.AppException;
+import fr.paris.lutece.portal.service.util.AppLogService;
+import fr.paris.lutece.util.sql.DAOUtil;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+
+import javax.inject.Inject;
+
+
+/**
+ * This class provides Data Access methods for Rating objects.
+ */
+public class RatingDAO implements IRatingDAO
+{
+    private static final String SEQUENCE_RATING = "extend_rating";
+    private static final String SQL_QUERY_INSERT = " INSERT INTO extend_rating ( id_rating, id_resource, resource_type, vote_count, " +
+        " score_value, score_positifs_votes, score_negatives_votes, average_score, wilson_score, bayesian_score ) VALUES ( ?, ?, ?, ?, ?, ?, ?, ?, ?, ? ) ";
+    private static final String SQL_QUERY_SELECT_ALL = " SELECT id_rating, id_resource, resource_type, vote_count, score_value, score_positifs_votes, score_negatives_votes, version, " +
+        " average_score, wilson_score, bayesian_score FROM extend_rating ";
+    private static final String SQL_QUERY_SELECT = SQL_QUERY_SELECT_ALL + " WHERE id_rating = ? ";
+    private static final String SQL_QUERY_SELECT_BY_RESOURCE = SQL_QUERY_SELECT_ALL +
+        " WHERE id_resource = ? AND resource_type = ? ";
+    private static final String SQL_QUERY_SELECT_BY_RESOURCES = SQL_QUERY_SELECT_ALL +
+        " WHERE resource_type = ? AND id_resource IN ( ";
+    private static final String SQL_CLOSE_PARENTHESIS = " ) ";
+    private static final int CHUNK_SIZE = 100;
+    private static final String SQL_QUERY_DELETE = " DELETE FROM extend_rating WHERE id_rating = ? ";
+    private static final String SQL_QUERY_DELETE_BY_RESOURCE = " DELETE FROM extend_rating WHERE resource_type = ? ";
+    private static final String SQL_QUERY_FILTER_ID_RESOURCE = " AND id_resource = ? ";
+    private static final String SQL_QUERY_UPDATE = " UPDATE extend_rating SET id_resource = ?, resource_type = ?, vote_count = ?, score_value = ?, score_positifs_votes= ?, score_negatives_votes = ?, " +
+        " average_score = ?, wilson_score = ?, bayesian_score = ?, version = version + 1 WHERE id_rating = ? AND version = ? ";
+    private static final String SQL_NEW_VOTE_COUNT = " ( vote_count + ? ) ";
+    private static final String SQL_NEW_SCORE_VALUE = " ( score_value + ? ) ";
+    private static final String SQL_NEW_POSITIVES_VOTES = " ( score_positifs_votes + ? ) ";
+    private static final String SQL_NEW_NEGATIVES_VOTES = " ( score_negatives_votes + ? ) ";
+    private static final String SQL_SET_SCORES = " average_score = CASE WHEN " + SQL_NEW_VOTE_COUNT + " > 0 THEN " +
+        SQL_NEW_SCORE_VALUE + " / " + SQL_NEW_VOTE_COUNT + " ELSE 0 END, wilson_score = CASE WHEN " +
+        SQL_NEW_POSITIVES_VOTES + " + " + SQL_NEW_NEGATIVES_VOTES + " > 0 THEN ( " + SQL_NEW_POSITIVES_VOTES +
+        " + 1.9208 - 1.96 * SQRT( " + SQL_NEW_POSITIVES_VOTES + " * " + SQL_NEW_NEGATIVES_VOTES + " * 1.0 / ( " +
+        SQL_NEW_POSITIVES_VOTES + " + " + SQL_NEW_NEGATIVES_VOTES + " ) + 0.9604 ) ) / ( " + SQL_NEW_POSITIVES_VOTES +
+        " + " + SQL_NEW_NEGATIVES_VOTES + " + 3.8416 ) ELSE 0 END, bayesian_score = CASE WHEN " +
+        SQL_NEW_VOTE_COUNT + " + ? > 0 THEN ( ? * ? + " + SQL_NEW_SCORE_VALUE + " ) / ( " + SQL_NEW_VOTE_COUNT +
+        " + ? ) ELSE 0 END ";
+    private static final String SQL_QUERY_UPDATE_DELTA = " UPDATE extend_rating SET " + SQL_SET_SCORES +
+        ", vote_count = vote_count + ?, score_value = score_value + ?, score_positifs_votes = score_positifs_votes + ?, " +
+        " score_negatives_votes = score_negatives_votes + ?, version = version + 1 WHERE id_resource = ? AND resource_type = ? ";
+    private static final String SQL_QUERY_INSERT_IF_ABSENT = " INSERT INTO extend_rating ( id_rating, id_resource, resource_type, vote_count, " +
+        " score_value, score_positifs_votes, score_negatives_votes, average_score, wilson_score, bayesian_score ) " +
+        " VALUES ( ?, ?, ?, ?, ?, ?, ?, ?, ?, ? ) ";
+    private static final String SQL_QUERY_UPDATE_SCORES = " UPDATE extend_rating SET " + SQL_SET_SCORES +
+        ", version = version + 1 WHERE resource_type = ? AND id_resource IN ( ";
+    private static final String SQL_QUERY_SELECT_ID_RESOURCES = " SELECT id_resource FROM extend_rating WHERE resource_type = ? ";
+    private static final String SQL_QUERY_SELECT_ID_MOST_RATED_RESOURCES = " SELECT id_resource FROM extend_rating WHERE resource_type = ? ORDER BY vote_count DESC, id_rating DESC ";
+    private static final String SQL_QUERY_SELECT_BY_RANKING = SQL_QUERY_SELECT_ALL + " WHERE resource_type = ? ";
+    private static final String SQL_FILTER_AFTER_START = " AND ( ";
+    private static final String SQL_FILTER_AFTER_LOWER = " < ? OR ( ";
+    private static final String SQL_FILTER_AFTER_EQUAL = " = ? AND id_rating < ? ) ) ";
+    private static final String SQL_ORDER_BY = " ORDER BY ";
+    private static final String SQL_ORDER_BY_END = " DESC, id_rating DESC ";
+    private static final String SQL_QUERY_SELECT_RESOURCE_TYPES = " SELECT DISTINCT resource_type FROM extend_rating ";
+    private static final String SQL_COLUMN_VOTE_COUNT = "vote_count";
+    private static final String SQL_COLUMN_SCORE_VALUE = "score_value";
+    private static final String SQL_COLUMN_AVERAGE_SCORE = "average_score";
+    private static final String SQL_COLUMN_WILSON_SCORE = "wilson_score";
+    private static final String SQL_COLUMN_BAYESIAN_SCORE = "bayesian_score";
+    private static final String SQL_LIMIT = " LIMIT ";
+    private static final String CONSTANT_COMMA = ",";
+    private static final String CONSTANT_QUESTION_MARK = "?";
+    @Inject
+    private IPrimaryKeyAllocator _primaryKeyAllocator;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void insert( Rating rating, Plugin plugin )
+    {
+        rating.setIdRating( _primaryKeyAllocator.nextKey( SEQUENCE_RATING, plugin ) );
+
+        DAOUtil daoUtil = new DAOUtil( SQL_QUERY_INSERT, plugin );
+
+        int nIndex = 1;
+
+        daoUtil.setInt( nIndex++, rating.getIdRating(  ) );
+        daoUtil.setString( nIndex++, rating.getIdExtendableResource(  ) );
+        daoUtil.setString( nIndex++, rating.getExtendableResourceType(  ) );
+        daoUtil.setInt( nIndex++, rating.getVoteCount(  ) );
+        daoUtil.setDouble( nIndex++, rating.getScoreValue(  ) );
+        daoUtil.setInt( nIndex++, rating.getScorePositifsVotes(  ) );
+        daoUtil.setInt( nIndex++, rating.getScoreNegativesVotes(  ) );
+        daoUtil.setDouble( nIndex++, rating.getStoredAverageScore(  ) );
+        daoUtil.setDouble( nIndex++, rating.getWilsonScore(  ) );
+        daoUtil.setDouble( nIndex, rating.getBayesianScore(  ) );
+
+        daoUtil.executeUpdate(  );
+        daoUtil.free(  );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Rating load( int nIdRating, Plugin plugin )
+    {
+        DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT, plugin );
+        daoUtil.setInt( 1, nIdRating );
+        daoUtil.executeQuery(  );
+
+        Rating rating = null;
+
+        if ( daoUtil.next(  ) )
+        {
+            rating = getRating( daoUtil );
+        }
+
+        daoUtil.free(  );
+
+        return rating;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void delete( int nIdRating, Plugin plugin )
+    {
+        DAOUtil daoUtil = new DAOUtil( SQL_QUERY_DELETE, plugin );
+        daoUtil.setInt( 1, nIdRating );
+
+        daoUtil.executeUpdate(  );
+        daoUtil.free(  );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void deleteByResource( String strIdExtendableResource, String strExtendableResourceType, Plugin plugin )
+    {
+        int nIndex = 1;
+        StringBuilder sbSql = new StringBuilder( SQL_QUERY_DELETE_BY_RESOURCE );
+
+        if ( !ResourceExtenderDTOFilter.WILDCARD_ID_RESOURCE.equals( strIdExtendableResource ) )
+        {
+            sbSql.append( SQL_QUERY_FILTER_ID_RESOURCE );
+        }
+
+        DAOUtil daoUtil = new DAOUtil( sbSql.toString(  ), plugin );
+        daoUtil.setString( nIndex++, strExtendableResourceType );
+
+        if ( !ResourceExtenderDTOFilter.WILDCARD_ID_RESOURCE.equals( strIdExtendableResource ) )
+        {
+            daoUtil.setString( nIndex, strIdExtendableResource );
+        }
+
+        daoUtil.executeUpdate(  );
+        daoUtil.free(  );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean store( Rating rating, Plugin plugin )
+    {
+        Object[] params = 
+            {
+                rating.getIdExtendableResource(  ), rating.getExtendableResourceType(  ), rating.getVoteCount(  ),
+                rating.getScoreValue(  ), rating.getScorePositifsVotes(  ), rating.getScoreNegativesVotes(  ),
+                rating.getStoredAverageScore(  ), rating.getWilsonScore(  ), rating.getBayesianScore(  ),
+                rating.getIdRating(  ), rating.getVersion(  )
+            };
+
+        if ( SqlUpdateUtil.executeUpdate( SQL_QUERY_UPDATE, params, plugin ) == 0 )
+        {
+            // Updated by someone else since it has been loaded
+            return false;
+        }
+
+        rating.setVersion( rating.getVersion(  ) + 1 );
+
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean storeDelta( Rating ratingDelta, BayesianPrior bayesianPrior, Plugin plugin )
+    {
+        // The scores are assigned before the counters : MySQL evaluates the assignments from left to right, each
+        // one seeing the values assigned before it, while standard SQL evaluates them all on the former row.
+        // Computed from the former counters plus the delta, the scores are the same either way.
+        List<Object> listParams = getScoresParameters( ratingDelta, bayesianPrior );
+        listParams.add( ratingDelta.getVoteCount(  ) );
+        listParams.add( ratingDelta.getScoreValue(  ) );
+        listParams.add( ratingDelta.getScorePositifsVotes(  ) );
+        listParams.add( ratingDelta.getScoreNegativesVotes(  ) );
+        listParams.add( ratingDelta.getIdExtendableResource(  ) );
+        listParams.add( ratingDelta.getExtendableResourceType(  ) );
+
+        Object[] params = listParams.toArray(  );
+
+        while ( SqlUpdateUtil.executeUpdate( SQL_QUERY_UPDATE_DELTA, params, plugin ) == 0 )
+        {
+            if ( ratingDelta.getVoteCount(  ) <= 0 )
+            {
+                // Nothing to cancel on a resource that has no rating
+                return false;
+            }
+
+            if ( insertIfAbsent( ratingDelta, bayesianPrior, plugin ) )
+            {
+                break;
+            }
+
+            // The rating has just been created by a concurrent vote : add the delta to it
+        }
+
+        return true;
+    }
+
+    /**
+     * Create the rating of a resource from a delta, unless the resource
+     * already has one. The unique index on the resource rejects the row if a
+     * concurrent vote has just created the rating, so that two first votes
+     * never create two ratings.
+     * @param ratingDelta the delta
+     * @param bayesianPrior the prior to compute the Bayesian score with
+     * @param plugin the plugin
+     * @return true if the rating has been created, false if the resource
+     *         already had one
+     */
+    private boolean insertIfAbsent( Rating ratingDelta, BayesianPrior bayesianPrior, Plugin plugin )
+    {
+        Rating rating = new Rating(  );
+        rating.setVoteCount( ratingDelta.getVoteCount(  ) );
+        rating.setScoreValue( ratingDelta.getScoreValue(  ) );
+        rating.setScorePositifsVotes( ratingDelta.getScorePositifsVotes(  ) );
+        rating.setScoreNegativesVotes( ratingDelta.getScoreNegativesVotes(  ) );
+        rating.computeScores( bayesianPrior );
+
+        Object[] params = 
+            {
+                _primaryKeyAllocator.nextKey( SEQUENCE_RATING, plugin ), ratingDelta.getIdExtendableResource(  ),
+                ratingDelta.getExtendableResourceType(  ), rating.getVoteCount(  ), rating.getScoreValue(  ),
+                rating.getScorePositifsVotes(  ), rating.getScoreNegativesVotes(  ), rating.getStoredAverageScore(  ),
+                rating.getWilsonScore(  ), rating.getBayesianScore(  )
+            };
+
+        try
+        {
+            return SqlUpdateUtil.executeUpdate( SQL_QUERY_INSERT_IF_ABSENT, params, plugin ) > 0;
+        }
+        catch ( AppException e )
+        {
+            if ( SqlUpdateUtil.isConstraintViolation( e ) )
+            {
+                return false;
+            }
+
+            throw e;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<String> findIdResources( String strExtendableResourceType, Plugin plugin )
+    {
+        List<String> listIdExtendableResources = new ArrayList<String>(  );
+        DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT_ID_RESOURCES, plugin );
+        daoUtil.setString( 1, strExtendableResourceType );
+        daoUtil.executeQuery(  );
+
+        while ( daoUtil.next(  ) )
+        {
+            listIdExtendableResources.add( daoUtil.getString( 1 ) );
+        }
+
+        daoUtil.free(  );
+
+        return listIdExtendableResources;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void updateScores( Collection<String> listIdExtendableResources, String strExtendableResourceType,
+        BayesianPrior bayesianPrior, Plugin plugin )
+    {
+        // The scores are computed from the counters plus a delta of zero
+        List<Object> listScoresParams = getScoresParameters( new Rating(  ), bayesianPrior );
+        Iterator<String> iterator = listIdExtendableResources.iterator(  );
+
+        while ( iterator.hasNext(  ) )
+        {
+            List<Object> listParams = new ArrayList<Object>( listScoresParams );
+            listParams.add( strExtendableResourceType );
+
+            StringBuilder sbSQL = new StringBuilder( SQL_QUERY_UPDATE_SCORES );
+
+            for ( int i = 0; ( i < CHUNK_SIZE ) && iterator.hasNext(  ); i++ )
+            {
+                if ( i > 0 )
+                {
+                    sbSQL.append( CONSTANT_COMMA );
+                }
+
+                sbSQL.append( CONSTANT_QUESTION_MARK );
+                listParams.add( iterator.next(  ) );
+            }
+
+            sbSQL.append( SQL_CLOSE_PARENTHESIS );
+            SqlUpdateUtil.executeUpdate( sbSQL.toString(  ), listParams.toArray(  ), plugin );
+        }
+    }
+
+    /**
+     * Get the parameters of the assignments of the ranking scores computed
+     * from the counters plus a delta : the average, the lower bound of the
+     * Wilson score interval of the positive votes at 95% confidence, and the
+     * Bayesian average
+     * @param ratingDelta the delta
+     * @param bayesianPrior the prior of the Bayesian average
+     * @return the parameters, in the order of the assignments
+     */
+    private static List<Object> getScoresParameters( Rating ratingDelta, BayesianPrior bayesianPrior )
+    {
+        Integer nVoteCount = ratingDelta.getVoteCount(  );
+        Double dScoreValue = ratingDelta.getScoreValue(  );
+        Integer nPositivesVotes = ratingDelta.getScorePositifsVotes(  );
+        Integer nNegativesVotes = ratingDelta.getScoreNegativesVotes(  );
+        Double dWeight = bayesianPrior.getWeight(  );
+        List<Object> listParams = new ArrayList<Object>(  );
+
+        // Average score
+        listParams.add( nVoteCount );
+        listParams.add( dScoreValue );
+        listParams.add( nVoteCount );
+
+        // Wilson score
+        listParams.add( nPositivesVotes );
+        listParams.add( nNegativesVotes );
+        listParams.add( nPositivesVotes );
+        listParams.add( nPositivesVotes );
+        listParams.add( nNegativesVotes );
+        listParams.add( nPositivesVotes );
+        listParams.add( nNegativesVotes );
+        listParams.add( nPositivesVotes );
+        listParams.add( nNegativesVotes );
+
+        // Bayesian score
+        listParams.add( nVoteCount );
+        listParams.add( dWeight );
+        listParams.add( dWeight );
+        listParams.add( bayesianPrior.getMean(  ) );
+        listParams.add( dScoreValue );
+        listParams.add( nVoteCount );
+        listParams.add( dWeight );
+
+        return listParams;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Rating loadByResource( String strIdExtendableResource, String strExtendableResourceType, Plugin plugin )
+    {
+        Rating rating = null;
+
+        int nIndex = 1;
+        DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT_BY_RESOURCE, plugin );
+        daoUtil.setString( nIndex++, strIdExtendableResource );
+        daoUtil.setString( nIndex, strExtendableResourceType );
+        daoUtil.executeQuery(  );
+
+        if ( daoUtil.next(  ) )
+        {
+            rating = getRating( daoUtil );
+        }
+
+        daoUtil.free(  );
+
+        return rating;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Rating> loadByResources( Collection<String> listIdExtendableResources,
+        String strExtendableResourceType, Plugin plugin )
+    {
+        List<Rating> listRatings = new ArrayList<Rating>( listIdExtendableResources.size(  ) );
+        Iterator<String> iterator = listIdExtendableResources.iterator(  );
+
+        while ( iterator.hasNext(  ) )
+        {
+            List<String> listChunk = new ArrayList<String>( CHUNK_SIZE );
+
+            while ( iterator.hasNext(  ) && ( listChunk.size(  ) < CHUNK_SIZE ) )
+            {
+                listChunk.add( iterator.next(  ) );
+            }
+
+            StringBuilder sbSQL = new StringBuilder( SQL_QUERY_SELECT_BY_RESOURCES );
+
+            for ( int i = 0; i < listChunk.size(  ); i++ )
+            {
+                if ( i > 0 )
+                {
+                    sbSQL.append( CONSTANT_COMMA );
+                }
+
+                sbSQL.append( CONSTANT_QUESTION_MARK );
+            }
+
+            sbSQL.append( SQL_CLOSE_PARENTHESIS );
+
+            int nIndex = 1;
+            DAOUtil daoUtil = new DAOUtil( sbSQL.toString(  ), plugin );
+            daoUtil.setString( nIndex++, strExtendableResourceType );
+
+            for ( String strIdExtendableResource : listChunk )
+            {
+                daoUtil.setString( nIndex++, strIdExtendableResource );
+            }
+
+            daoUtil.executeQuery(  );
+
+            while ( daoUtil.next(  ) )
+            {
+                listRatings.add( getRating( daoUtil ) );
+            }
+
+            daoUtil.free(  );
+        }
+
+        return listRatings;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Integer> findIdMostRatedResources( String strExtendableResourceType, int nItemsOffset,
+        int nMaxItemsNumber, Plugin plugin )
+    {
+        List<Integer> listIds;
+
+        if ( nMaxItemsNumber > 0 )
+        {
+            listIds = new ArrayList<Integer>( nMaxItemsNumber );
+        }
+        else
+        {
+            listIds = new ArrayList<Integer>(  );
+        }
+
+        StringBuilder sbSQL = new StringBuilder( SQL_QUERY_SELECT_ID_MOST_RATED_RESOURCES );
+
+        if ( nMaxItemsNumber > 0 )
+        {
+            sbSQL.append( SQL_LIMIT );
+
+            if ( nItemsOffset > 0 )
+            {
+                sbSQL.append( CONSTANT_QUESTION_MARK ).append( CONSTANT_COMMA );
+            }
+
+            sbSQL.append( CONSTANT_QUESTION_MARK );
+        }
+
+        int nIndex = 1;
+        DAOUtil daoUtil = new DAOUtil( sbSQL.toString(  ), plugin );
+        daoUtil.setString( nIndex++, strExtendableResourceType );
+
+        if ( nMaxItemsNumber > 0 )
+        {
+            if ( nItemsOffset > 0 )
+            {
+                daoUtil.setInt( nIndex++, nItemsOffset );
+            }
+
+            daoUtil.setInt( nIndex, nMaxItemsNumber );
+        }
+
+        daoUtil.executeQuery(  );
+
+        while ( daoUtil.next(  ) )
+        {
+            String strIdResource = daoUtil.getString( 1 );
+
+            try
+            {
+                listIds.add( Integer.parseInt( strIdResource ) );
+            }
+            catch ( NumberFormatException e )
+            {
+                AppLogService.debug( "Resource " + strExtendableResourceType + " " + strIdResource +
+                    " ignored : its id is not a number" );
+            }
+        }
+
+        daoUtil.free(  );
+
+        return listIds;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Rating> loadByRanking( String strExtendableResourceType, RatingMetric metric, int nItemsOffset,
+        int nMaxItemsNumber, Plugin plugin )
+    {
+        List<Rating> listRatings = new ArrayList<Rating>( nMaxItemsNumber );
+        StringBuilder sbSQL = new StringBuilder( SQL_QUERY_SELECT_BY_RANKING );
+        sbSQL.append( SQL_ORDER_BY ).append( getColumn( metric ) ).append( SQL_ORDER_BY_END ).append( SQL_LIMIT );
+
+        if ( nItemsOffset > 0 )
+        {
+            sbSQL.append( CONSTANT_QUESTION_MARK ).append( CONSTANT_COMMA );
+        }
+
+        sbSQL.append( CONSTANT_QUESTION_MARK );
+
+        int nIndex = 1;
+        DAOUtil daoUtil = new DAOUtil( sbSQL.toString(  ), plugin );
+        daoUtil.setString( nIndex++, strExtendableResourceType );
+
+        if ( nItemsOffset > 0 )
+        {
+            daoUtil.setInt( nIndex++, nItemsOffset );
+        }
+
+        daoUtil.setInt( nIndex, nMaxItemsNumber );
+        daoUtil.executeQuery(  );
+
+        while ( daoUtil.next(  ) )
+        {
+            listRatings.add( getRating( daoUtil ) );
+        }
+
+        daoUtil.free(  );
+
+        return listRatings;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Rating> loadByRankingAfter( String strExtendableResourceType, RatingMetric metric,
+        Rating lastRating, int nMaxItemsNumber, Plugin plugin )
+    {
+        List<Rating> listRatings = new ArrayList<Rating>( nMaxItemsNumber );
+        String strColumn = getColumn( metric );
+        StringBuilder sbSQL = new StringBuilder( SQL_QUERY_SELECT_BY_RANKING );
+
+        if ( lastRating != null )
+        {
+            // Seek to the ratings that rank after the last one, with the index of the metric
+            sbSQL.append( SQL_FILTER_AFTER_START ).append( strColumn ).append( SQL_FILTER_AFTER_LOWER );
+            sbSQL.append( strColumn ).append( SQL_FILTER_AFTER_EQUAL );
+        }
+
+        sbSQL.append( SQL_ORDER_BY ).append( strColumn ).append( SQL_ORDER_BY_END ).append( SQL_LIMIT );
+        sbSQL.append( CONSTANT_QUESTION_MARK );
+
+        int nIndex = 1;
+        DAOUtil daoUtil = new DAOUtil( sbSQL.toString(  ), plugin );
+        daoUtil.setString( nIndex++, strExtendableResourceType );
+
+        if ( lastRating != null )
+        {
+            // The values of the last rating are bound as the database returned them, never computed again
+            if ( metric == RatingMetric.VOTE_COUNT )
+            {
+                daoUtil.setInt( nIndex++, lastRating.getVoteCount(  ) );
+                daoUtil.setInt( nIndex++, lastRating.getVoteCount(  ) );
+            }
+            else
+            {
+                daoUtil.setDouble( nIndex++, metric.getValue( lastRating ) );
+                daoUtil.setDouble( nIndex++, metric.getValue( lastRating ) );
+            }
+
+            daoUtil.setInt( nIndex++, lastRating.getIdRating(  ) );
+        }
+
+        daoUtil.setInt( nIndex, nMaxItemsNumber );
+        daoUtil.executeQuery(  );
+
+        while ( daoUtil.next(  ) )
+        {
+            listRatings.add( getRating( daoUtil ) );
+        }
+
+        daoUtil.free(  );
+
+        return listRatings;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<String> findResourceTypes( Plugin plugin )
+    {
+        List<String> listResourceTypes = new ArrayList<String>(  );
+        DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT_RESOURCE_TYPES, plugin );
+        daoUtil.executeQuery(  );
+
+        while ( daoUtil.next(  ) )
+        {
+            listResourceTypes.add( daoUtil.getString( 1 ) );
+        }
+
+        daoUtil.free(  );
+
+        return listResourceTypes;
+    }
+
+    /**
+     * Get the column that holds the value of a metric. The ratings are ranked
+     * on it, then on their rating id, both descending so that the
+     * (resource_type, column, id_rating) index serves the ranking. The
+     * integer rating id orders the ties the same way in every database,
+     * whatever the collation of the resource ids.
+     * @param metric the metric
+     * @return the column
+     */
+    private static String getColumn( RatingMetric metric )
+    {
+        switch ( metric )
+        {
+            case SCORE_VALUE:
+                return SQL_COLUMN_SCORE_VALUE;
+
+            case AVERAGE_SCORE:
+                return SQL_COLUMN_AVERAGE_SCORE;
+
+            case WILSON_SCORE:
+                return SQL_COLUMN_WILSON_SCORE;
+
+            case BAYESIAN_SCORE:
+                return SQL_COLUMN_BAYESIAN_SCORE;
+
+            default:
+                return SQL_COLUMN_VOTE_COUNT;
+        }
+    }
+
+    /**
+     * Build a rating from the current row of a query on all the columns
+     * @param daoUtil the daoUtil
+     * @return the rating
+     */
+    private static Rating getRating( DAOUtil daoUtil )
+    {
+        int nIndex = 1;
+        Rating rating = new Rating(  );
+        rating.setIdRating( daoUtil.getInt( nIndex++ ) );
+        rating.setIdExtendableResource( daoUtil.getString( nIndex++ ) );
+        rating.setExtendableResourceType( daoUtil.getString( nIndex++ ) );
+        rating.setVoteCount( daoUtil.getInt( nIndex++ ) );
+        rating.setScoreValue( daoUtil.getDouble( nIndex++ ) );
+        rating.setScorePositifsVotes( daoUtil.getInt( nIndex++ ) );
+        rating.setScoreNegativesVotes( daoUtil.getInt( nIndex++ ) );
+        rating.setVersion( daoUtil.getInt( nIndex++ ) );
+        rating.setStoredAverageScore( daoUtil.getDouble( nIndex++ ) );
+        rating.setWilsonScore( daoUtil.getDouble( nIndex++ ) );
+        rating.setBayesianScore( daoUtil.getDouble( nIndex ) );
+
+        return rating;
+    }
+}
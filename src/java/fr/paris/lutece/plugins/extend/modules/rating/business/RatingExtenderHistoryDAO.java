@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2002-2014, Mairie de Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.extend.modules.rating.business;
+
+import fr.paris.lutece.plugins.extend.business.extender.history.ResourceExtenderHistory;
+import fr.paris.lutece.plugins.extend.modules.rating.business.key.IPrimaryKeyAllocator;
+import fr.paris.lutece.portal.service.plugin.Plugin;
+import fr.paris.lutece.util.sql.DAOUtil;
+
+import java.util.List;
+
+import javax.inject.Inject;
+
+
+/**
+ * This class writes the extender histories of the votes in bulk. The other
+ * histories are created by plugin-extend, which takes the highest id plus
+ * one : the ids of a bulk are reserved above the highest id, so that both
+ * never give the same id.
+ */
+public class RatingExtenderHistoryDAO implements IRatingExtenderHistoryDAO
+{
+    private static final String SEQUENCE_EXTENDER_HISTORY = "extend_resource_extender_history";
+    private static final int BATCH_SIZE = 500;
+    private static final String SQL_QUERY_MAX_ID = " SELECT MAX( id_history ) FROM extend_resource_extender_history ";
+    private static final String SQL_QUERY_INSERT = " INSERT INTO extend_resource_extender_history ( id_history, extender_type, id_resource, resource_type, user_guid, ip_address, date_creation ) " +
+        " VALUES ( ?, ?, ?, ?, ?, ?, ? ) ";
+    @Inject
+    private IPrimaryKeyAllocator _primaryKeyAllocator;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void create( List<ResourceExtenderHistory> listHistories, Plugin plugin )
+    {
+        if ( listHistories.isEmpty(  ) )
+        {
+            return;
+        }
+
+        long lIdHistory = _primaryKeyAllocator.reserveKeys( SEQUENCE_EXTENDER_HISTORY, listHistories.size(  ),
+                findMaxId( plugin ) + 1, plugin );
+        DAOUtil daoUtil = new DAOUtil( SQL_QUERY_INSERT, plugin );
+        int nBatchCount = 0;
+
+        for ( ResourceExtenderHistory history : listHistories )
+        {
+            history.setIdHistory( lIdHistory++ );
+
+            int nIndex = 1;
+            daoUtil.setLong( nIndex++, history.getIdHistory(  ) );
+            daoUtil.setString( nIndex++, history.getExtenderType(  ) );
+            daoUtil.setString( nIndex++, history.getIdExtendableResource(  ) );
+            daoUtil.setString( nIndex++, history.getExtendableResourceType(  ) );
+            daoUtil.setString( nIndex++, history.getUserGuid(  ) );
+            daoUtil.setString( nIndex++, history.getIpAddress(  ) );
+            daoUtil.setTimestamp( nIndex, history.getDateCreation(  ) );
+            daoUtil.addBatch(  );
+
+            if ( ++nBatchCount == BATCH_SIZE )
+            {
+                daoUtil.executeBatch(  );
+                nBatchCount = 0;
+            }
+        }
+
+        if ( nBatchCount > 0 )
+        {
+            daoUtil.executeBatch(  );
+        }
+
+        daoUtil.free(  );
+    }
+
+    /**
+     * Find the highest id of the extender histories
+     * @param plugin the plugin
+     * @return the highest id, 0 if there is no history
+     */
+    private static int findMaxId( Plugin plugin )
+    {
+        DAOUtil daoUtil = new DAOUtil( SQL_QUERY_MAX_ID, plugin );
+        daoUtil.executeQuery(  );
+
+        int nMaxId = 0;
+
+        if ( daoUtil.next(  ) )
+        {
+            nMaxId = daoUtil.getInt( 1 );
+        }
+
+        daoUtil.free(  );
+
+        return nMaxId;
+    }
+}
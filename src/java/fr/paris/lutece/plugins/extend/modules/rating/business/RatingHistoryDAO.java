@@ -1,134 +1,235 @@
-/*
- * Copyright (c) 2002-2014, Mairie de Paris
- * All rights reserved.
- *
- * Redistribution and use in source and binary forms, with or without
- * modification, are permitted provided that the following conditions
- * are met:
- *
- *  1. Redistributions of source code must retain the above copyright notice
- *     and the following disclaimer.
- *
- *  2. Redistributions in binary form must reproduce the above copyright notice
- *     and the following disclaimer in the documentation and/or other materials
- *     provided with the distribution.
- *
- *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
- *     contributors may be used to endorse or promote products derived from
- *     this software without specific prior written permission.
- *
- * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
- * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
- * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
- * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
- * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
- * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
- * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
- * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
- * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
- * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
- * POSSIBILITY OF SUCH DAMAGE.
- *
- * License 1.0
- */
-package fr.paris.lutece.plugins.extend.modules.rating.business;
-
-import fr.paris.lutece.portal.service.plugin.Plugin;
-import fr.paris.lutece.util.sql.DAOUtil;
-
-
-/**
- * This class provides Data Access methods for Rating objects.
- */
-public class RatingHistoryDAO implements IRatingHistoryDAO
-{
-    private static final String SQL_QUERY_NEW_PK = " SELECT max( id_vote_history ) FROM extend_rating_vote_history ";
-    private static final String SQL_QUERY_INSERT = " INSERT INTO extend_rating_vote_history ( id_vote_history, id_extender_history, vote_value ) " +
-        " VALUES ( ?, ?, ? ) ";
-    private static final String SQL_QUERY_FIND_BY_EXTENDER_HISTORY_ID = " SELECT id_vote_history, id_extender_history, vote_value FROM extend_rating_vote_history WHERE id_extender_history = ?";
-    private static final String SQL_QUERY_DELETE_BY_RESOURCE = " DELETE FROM extend_rating_vote_history WHERE id_vote_history " +
-        "IN (SELECT id_history FROM extend_resource_extender_history WHERE extender_type = ? AND resource_type = ?)";
-    private static final String SQL_QUERY_DELETE = " DELETE FROM extend_rating_vote_history WHERE id_vote_history = ? ";
-
-    /**
-     * Generates a new primary key.
-     *
-     * @param plugin the plugin
-     * @return The new primary key
-     */
-    private int newPrimaryKey( Plugin plugin )
-    {
-        DAOUtil daoUtil = new DAOUtil( SQL_QUERY_NEW_PK, plugin );
-        daoUtil.executeQuery(  );
-
-        int nKey = 1;
-
-        if ( daoUtil.next(  ) )
-        {
-            nKey = daoUtil.getInt( 1 ) + 1;
-        }
-
-        daoUtil.free(  );
-
-        return nKey;
-    }
-
-    @Override
-    public void remove( int nId, Plugin plugin )
-    {
-        DAOUtil daoUtil = new DAOUtil( SQL_QUERY_DELETE, plugin );
-        daoUtil.setInt( 1, nId );
-        daoUtil.executeUpdate(  );
-        daoUtil.free(  );
-    }
-
-    @Override
-    public void removeByResource( String strIdExtendableResource, String strExtendableResourceType, Plugin plugin )
-    {
-        DAOUtil daoUtil = new DAOUtil( SQL_QUERY_DELETE_BY_RESOURCE, plugin );
-        daoUtil.setString( 1, strIdExtendableResource );
-        daoUtil.setString( 2, strExtendableResourceType );
-        daoUtil.executeUpdate(  );
-        daoUtil.free(  );
-    }
-
-    @Override
-    public void create( RatingHistory ratingHistory, Plugin plugin )
-    {
-        ratingHistory.setIdRatingHistory( newPrimaryKey( plugin ) );
-
-        DAOUtil daoUtil = new DAOUtil( SQL_QUERY_INSERT, plugin );
-        int nIndex = 1;
-
-        daoUtil.setInt( nIndex++, ratingHistory.getIdRatingHistory(  ) );
-        daoUtil.setLong( nIndex++, ratingHistory.getIdExtenderHistory(  ) );
-        daoUtil.setDouble( nIndex++, ratingHistory.getVoteValue(  ) );
-
-        daoUtil.executeUpdate(  );
-        daoUtil.free(  );
-    }
-
-    @Override
-    public RatingHistory findByHistoryExtenderId( long lIdHistoryExtenderId, Plugin plugin )
-    {
-        DAOUtil daoUtil = new DAOUtil( SQL_QUERY_FIND_BY_EXTENDER_HISTORY_ID, plugin );
-
-        daoUtil.setLong( 1, lIdHistoryExtenderId );
-
-        daoUtil.executeQuery(  );
-
-        RatingHistory ratingHistory = null;
-
-        if ( daoUtil.next(  ) )
-        {
-            ratingHistory = new RatingHistory(  );
-            ratingHistory.setIdRatingHistory( daoUtil.getInt( 1 ) );
-            ratingHistory.setIdExtenderHistory( daoUtil.getLong( 2 ) );
-            ratingHistory.setVoteValue( daoUtil.getDouble( 3 ) );
-        }
-
-        daoUtil.free(  );
-
-        return ratingHistory;
-    }
-}
+/*
+ * Copyright (c) 2002-2014, Mairie de Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.extend.modules.rating.business;
+
+import fr.paris.lutece.plugins.extend.modules.rating.business.key.IPrimaryKeyAllocator;
+import fr.paris.lutece.portal.service.plugin.Plugin;
+import fr.paris.lutece.util.sql.DAOUtil;
+
+import java.sql.Timestamp;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import javax.inject.Inject;
+
+
+/**
+ * This class provides Data Access methods for Rating objects.
+ */
+public class RatingHistoryDAO implements IRatingHistoryDAO
+{
+    private static final String SEQUENCE_RATING_HISTORY = "extend_rating_vote_history";
+    private static final int BATCH_SIZE = 500;
+    private static final String SQL_QUERY_INSERT = " INSERT INTO extend_rating_vote_history ( id_vote_history, id_extender_history, vote_value ) " +
+        " VALUES ( ?, ?, ? ) ";
+    private static final String SQL_QUERY_FIND_BY_EXTENDER_HISTORY_ID = " SELECT id_vote_history, id_extender_history, vote_value FROM extend_rating_vote_history WHERE id_extender_history = ?";
+    private static final String SQL_QUERY_DELETE_BY_RESOURCE = " DELETE FROM extend_rating_vote_history WHERE id_vote_history " +
+        "IN (SELECT id_history FROM extend_resource_extender_history WHERE extender_type = ? AND resource_type = ?)";
+    private static final String SQL_QUERY_DELETE = " DELETE FROM extend_rating_vote_history WHERE id_vote_history = ? ";
+    private static final String SQL_FILTER_USER_HISTORIES = " SELECT id_history FROM extend_resource_extender_history " +
+        " WHERE extender_type = ? AND id_resource = ? AND resource_type = ? AND user_guid = ? ";
+    private static final String SQL_QUERY_SELECT_TOTALS_BY_USER = " SELECT eh.date_creation, COUNT(*), SUM( vh.vote_value ), " +
+        " SUM( CASE WHEN vh.vote_value = 1 THEN 1 ELSE 0 END ), SUM( CASE WHEN vh.vote_value = 1 THEN 0 ELSE 1 END ) " +
+        " FROM extend_rating_vote_history vh, extend_resource_extender_history eh " +
+        " WHERE vh.id_extender_history = eh.id_history AND eh.extender_type = ? AND eh.id_resource = ? " +
+        " AND eh.resource_type = ? AND eh.user_guid = ? GROUP BY eh.date_creation ";
+    private static final String SQL_QUERY_DELETE_BY_USER = " DELETE FROM extend_rating_vote_history WHERE id_extender_history IN ( " +
+        SQL_FILTER_USER_HISTORIES + " ) ";
+    private static final String SQL_QUERY_DELETE_EXTENDER_HISTORIES_BY_USER = " DELETE FROM extend_resource_extender_history " +
+        " WHERE extender_type = ? AND id_resource = ? AND resource_type = ? AND user_guid = ? ";
+    @Inject
+    private IPrimaryKeyAllocator _primaryKeyAllocator;
+
+    @Override
+    public void remove( int nId, Plugin plugin )
+    {
+        DAOUtil daoUtil = new DAOUtil( SQL_QUERY_DELETE, plugin );
+        daoUtil.setInt( 1, nId );
+        daoUtil.executeUpdate(  );
+        daoUtil.free(  );
+    }
+
+    @Override
+    public void removeByResource( String strIdExtendableResource, String strExtendableResourceType, Plugin plugin )
+    {
+        DAOUtil daoUtil = new DAOUtil( SQL_QUERY_DELETE_BY_RESOURCE, plugin );
+        daoUtil.setString( 1, strIdExtendableResource );
+        daoUtil.setString( 2, strExtendableResourceType );
+        daoUtil.executeUpdate(  );
+        daoUtil.free(  );
+    }
+
+    @Override
+    public void create( RatingHistory ratingHistory, Plugin plugin )
+    {
+        ratingHistory.setIdRatingHistory( _primaryKeyAllocator.nextKey( SEQUENCE_RATING_HISTORY, plugin ) );
+
+        DAOUtil daoUtil = new DAOUtil( SQL_QUERY_INSERT, plugin );
+        int nIndex = 1;
+
+        daoUtil.setInt( nIndex++, ratingHistory.getIdRatingHistory(  ) );
+        daoUtil.setLong( nIndex++, ratingHistory.getIdExtenderHistory(  ) );
+        daoUtil.setDouble( nIndex++, ratingHistory.getVoteValue(  ) );
+
+        daoUtil.executeUpdate(  );
+        daoUtil.free(  );
+    }
+
+    @Override
+    public void create( List<RatingHistory> listRatingHistories, Plugin plugin )
+    {
+        if ( listRatingHistories.isEmpty(  ) )
+        {
+            return;
+        }
+
+        DAOUtil daoUtil = new DAOUtil( SQL_QUERY_INSERT, plugin );
+        int nBatchCount = 0;
+
+        for ( RatingHistory ratingHistory : listRatingHistories )
+        {
+            ratingHistory.setIdRatingHistory( _primaryKeyAllocator.nextKey( SEQUENCE_RATING_HISTORY, plugin ) );
+
+            int nIndex = 1;
+            daoUtil.setInt( nIndex++, ratingHistory.getIdRatingHistory(  ) );
+            daoUtil.setLong( nIndex++, ratingHistory.getIdExtenderHistory(  ) );
+            daoUtil.setDouble( nIndex++, ratingHistory.getVoteValue(  ) );
+            daoUtil.addBatch(  );
+
+            if ( ++nBatchCount == BATCH_SIZE )
+            {
+                daoUtil.executeBatch(  );
+                nBatchCount = 0;
+            }
+        }
+
+        if ( nBatchCount > 0 )
+        {
+            daoUtil.executeBatch(  );
+        }
+
+        daoUtil.free(  );
+    }
+
+    @Override
+    public Map<Timestamp, Rating> findTotalsByUser( String strExtenderType, String strIdExtendableResource,
+        String strExtendableResourceType, String strUserGuid, Plugin plugin )
+    {
+        DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT_TOTALS_BY_USER, plugin );
+        setUserHistoriesFilter( daoUtil, strExtenderType, strIdExtendableResource, strExtendableResourceType,
+            strUserGuid );
+        daoUtil.executeQuery(  );
+
+        Map<Timestamp, Rating> mapTotals = new TreeMap<Timestamp, Rating>(  );
+
+        while ( daoUtil.next(  ) )
+        {
+            int nIndex = 1;
+            Timestamp dateVote = daoUtil.getTimestamp( nIndex++ );
+            Rating total = new Rating(  );
+            total.setIdExtendableResource( strIdExtendableResource );
+            total.setExtendableResourceType( strExtendableResourceType );
+            total.setVoteCount( daoUtil.getInt( nIndex++ ) );
+            total.setScoreValue( daoUtil.getDouble( nIndex++ ) );
+            total.setScorePositifsVotes( daoUtil.getInt( nIndex++ ) );
+            total.setScoreNegativesVotes( daoUtil.getInt( nIndex ) );
+            mapTotals.put( dateVote, total );
+        }
+
+        daoUtil.free(  );
+
+        return mapTotals;
+    }
+
+    @Override
+    public void removeByUser( String strExtenderType, String strIdExtendableResource,
+        String strExtendableResourceType, String strUserGuid, Plugin plugin )
+    {
+        DAOUtil daoUtil = new DAOUtil( SQL_QUERY_DELETE_BY_USER, plugin );
+        setUserHistoriesFilter( daoUtil, strExtenderType, strIdExtendableResource, strExtendableResourceType,
+            strUserGuid );
+        daoUtil.executeUpdate(  );
+        daoUtil.free(  );
+
+        daoUtil = new DAOUtil( SQL_QUERY_DELETE_EXTENDER_HISTORIES_BY_USER, plugin );
+        setUserHistoriesFilter( daoUtil, strExtenderType, strIdExtendableResource, strExtendableResourceType,
+            strUserGuid );
+        daoUtil.executeUpdate(  );
+        daoUtil.free(  );
+    }
+
+    /**
+     * Set the parameters of the filter on the extender histories of a user
+     * @param daoUtil the DAOUtil
+     * @param strExtenderType the extender type
+     * @param strIdExtendableResource the id of the extendable resource
+     * @param strExtendableResourceType the extendable resource type
+     * @param strUserGuid the guid of the user
+     */
+    private static void setUserHistoriesFilter( DAOUtil daoUtil, String strExtenderType,
+        String strIdExtendableResource, String strExtendableResourceType, String strUserGuid )
+    {
+        int nIndex = 1;
+        daoUtil.setString( nIndex++, strExtenderType );
+        daoUtil.setString( nIndex++, strIdExtendableResource );
+        daoUtil.setString( nIndex++, strExtendableResourceType );
+        daoUtil.setString( nIndex, strUserGuid );
+    }
+
+    @Override
+    public RatingHistory findByHistoryExtenderId( long lIdHistoryExtenderId, Plugin plugin )
+    {
+        DAOUtil daoUtil = new DAOUtil( SQL_QUERY_FIND_BY_EXTENDER_HISTORY_ID, plugin );
+
+        daoUtil.setLong( 1, lIdHistoryExtenderId );
+
+        daoUtil.executeQuery(  );
+
+        RatingHistory ratingHistory = null;
+
+        if ( daoUtil.next(  ) )
+        {
+            ratingHistory = new RatingHistory(  );
+            ratingHistory.setIdRatingHistory( daoUtil.getInt( 1 ) );
+            ratingHistory.setIdExtenderHistory( daoUtil.getLong( 2 ) );
+            ratingHistory.setVoteValue( daoUtil.getDouble( 3 ) );
+        }
+
+        daoUtil.free(  );
+
+        return ratingHistory;
+    }
+}
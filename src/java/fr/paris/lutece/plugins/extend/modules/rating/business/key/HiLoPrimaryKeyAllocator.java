@@ -0,0 +1,245 @@
+/*
+ * Copyright (c) 2002-2014, Mairie de Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.extend.modules.rating.business.key;
+
+import fr.paris.lutece.portal.service.plugin.Plugin;
+import fr.paris.lutece.portal.service.util.AppException;
+import fr.paris.lutece.portal.service.util.AppLogService;
+import fr.paris.lutece.portal.service.util.AppPropertiesService;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+
+/**
+ *
+ * HiLoPrimaryKeyAllocator : reserves blocks of keys in the table
+ * extend_rating_sequence and hands them out from memory. A block is reserved
+ * in its own committed transaction, so that a rollback of the caller never
+ * gives the same keys twice.
+ *
+ */
+public class HiLoPrimaryKeyAllocator implements IPrimaryKeyAllocator
+{
+    private static final String PROPERTY_BLOCK_SIZE = "extend-rating.primaryKeyAllocator.blockSize";
+    private static final int DEFAULT_BLOCK_SIZE = 50;
+    private static final String SQL_QUERY_RESERVE_BLOCK = " UPDATE extend_rating_sequence " +
+        " SET next_value = CASE WHEN next_value < ? THEN ? ELSE next_value END + ? WHERE sequence_name = ? ";
+    private static final String SQL_QUERY_SELECT_NEXT_VALUE = " SELECT next_value FROM extend_rating_sequence WHERE sequence_name = ? ";
+    private final ConcurrentMap<String, KeyBlock> _mapBlocks = new ConcurrentHashMap<String, KeyBlock>(  );
+    private final int _nBlockSize;
+
+    /**
+     * Constructor : the size of the blocks is read from the properties
+     */
+    public HiLoPrimaryKeyAllocator(  )
+    {
+        this( AppPropertiesService.getPropertyInt( PROPERTY_BLOCK_SIZE, DEFAULT_BLOCK_SIZE ) );
+    }
+
+    /**
+     * Constructor
+     * @param nBlockSize the number of keys reserved at once
+     */
+    public HiLoPrimaryKeyAllocator( int nBlockSize )
+    {
+        _nBlockSize = Math.max( 1, nBlockSize );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int nextKey( String strSequenceName, Plugin plugin )
+    {
+        KeyBlock block = _mapBlocks.get( strSequenceName );
+
+        if ( block == null )
+        {
+            KeyBlock newBlock = new KeyBlock(  );
+            block = _mapBlocks.putIfAbsent( strSequenceName, newBlock );
+
+            if ( block == null )
+            {
+                block = newBlock;
+            }
+        }
+
+        synchronized ( block )
+        {
+            if ( block._nNextKey > block._nLastKey )
+            {
+                block._nNextKey = reserveBlock( strSequenceName, _nBlockSize, 0, plugin );
+                block._nLastKey = ( block._nNextKey + _nBlockSize ) - 1;
+            }
+
+            return block._nNextKey++;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int reserveKeys( String strSequenceName, int nKeyCount, int nMinKey, Plugin plugin )
+    {
+        return reserveBlock( strSequenceName, nKeyCount, nMinKey, plugin );
+    }
+
+    /**
+     * Reserve a block of keys in the database
+     * @param strSequenceName the name of the sequence
+     * @param nKeyCount the number of keys of the block
+     * @param nMinKey the lowest key of the block
+     * @param plugin the plugin
+     * @return the first key of the reserved block
+     */
+    private int reserveBlock( String strSequenceName, int nKeyCount, int nMinKey, Plugin plugin )
+    {
+        Connection connection = plugin.getConnectionService(  ).getConnection(  );
+        PreparedStatement statement = null;
+        ResultSet resultSet = null;
+        boolean bAutoCommit = true;
+
+        try
+        {
+            bAutoCommit = connection.getAutoCommit(  );
+            connection.setAutoCommit( false );
+
+            // The update locks the sequence row until the commit
+            statement = connection.prepareStatement( SQL_QUERY_RESERVE_BLOCK );
+            statement.setInt( 1, nMinKey );
+            statement.setInt( 2, nMinKey );
+            statement.setInt( 3, nKeyCount );
+            statement.setString( 4, strSequenceName );
+
+            if ( statement.executeUpdate(  ) == 0 )
+            {
+                throw new AppException( "Sequence " + strSequenceName + " not found in extend_rating_sequence" );
+            }
+
+            statement.close(  );
+
+            statement = connection.prepareStatement( SQL_QUERY_SELECT_NEXT_VALUE );
+            statement.setString( 1, strSequenceName );
+            resultSet = statement.executeQuery(  );
+            resultSet.next(  );
+
+            int nFirstKey = resultSet.getInt( 1 ) - nKeyCount;
+            connection.commit(  );
+
+            return nFirstKey;
+        }
+        catch ( SQLException e )
+        {
+            rollback( connection );
+            throw new AppException( e.getMessage(  ), e );
+        }
+        catch ( RuntimeException e )
+        {
+            rollback( connection );
+            throw e;
+        }
+        finally
+        {
+            close( resultSet, statement );
+
+            try
+            {
+                connection.setAutoCommit( bAutoCommit );
+            }
+            catch ( SQLException e )
+            {
+                AppLogService.error( e.getMessage(  ), e );
+            }
+
+            plugin.getConnectionService(  ).freeConnection( connection );
+        }
+    }
+
+    /**
+     * Rollback a connection, logging any error
+     * @param connection the connection
+     */
+    private static void rollback( Connection connection )
+    {
+        try
+        {
+            connection.rollback(  );
+        }
+        catch ( SQLException e )
+        {
+            AppLogService.error( e.getMessage(  ), e );
+        }
+    }
+
+    /**
+     * Close a result set and its statement, logging any error
+     * @param resultSet the result set, may be null
+     * @param statement the statement, may be null
+     */
+    private static void close( ResultSet resultSet, PreparedStatement statement )
+    {
+        try
+        {
+            if ( resultSet != null )
+            {
+                resultSet.close(  );
+            }
+
+            if ( statement != null )
+            {
+                statement.close(  );
+            }
+        }
+        catch ( SQLException e )
+        {
+            AppLogService.error( e.getMessage(  ), e );
+        }
+    }
+
+    /**
+     * Keys of a sequence reserved by this webapp
+     */
+    private static final class KeyBlock
+    {
+        private int _nNextKey = 1;
+        private int _nLastKey;
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2002-2014, Mairie de Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.extend.modules.rating.business.key;
+
+import fr.paris.lutece.portal.service.plugin.Plugin;
+
+
+/**
+ * IPrimaryKeyAllocator : provides the primary keys of the rating tables.
+ */
+public interface IPrimaryKeyAllocator
+{
+    /**
+     * Get a new primary key. Keys are unique for a given sequence across every
+     * webapp sharing the database.
+     *
+     * @param strSequenceName the name of the sequence
+     * @param plugin the plugin
+     * @return the new primary key
+     */
+    int nextKey( String strSequenceName, Plugin plugin );
+
+    /**
+     * Reserve consecutive primary keys at once, none of them lower than a
+     * given key. Used for the tables whose keys are also given by another
+     * plugin, which takes the highest key plus one.
+     *
+     * @param strSequenceName the name of the sequence
+     * @param nKeyCount the number of keys
+     * @param nMinKey the lowest key that can be reserved
+     * @param plugin the plugin
+     * @return the first reserved key
+     */
+    int reserveKeys( String strSequenceName, int nKeyCount, int nMinKey, Plugin plugin );
+}
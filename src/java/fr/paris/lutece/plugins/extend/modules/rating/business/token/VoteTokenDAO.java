@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2002-2014, Mairie de Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.extend.modules.rating.business.token;
+
+import fr.paris.lutece.portal.service.plugin.Plugin;
+import fr.paris.lutece.util.sql.DAOUtil;
+
+import java.sql.Timestamp;
+
+
+/**
+ * This class provides Data Access methods for the used vote tokens.
+ */
+public class VoteTokenDAO implements IVoteTokenDAO
+{
+    private static final String SQL_QUERY_SELECT = " SELECT vote_token FROM extend_rating_vote_token WHERE vote_token = ? ";
+    private static final String SQL_QUERY_INSERT = " INSERT INTO extend_rating_vote_token ( vote_token, date_use ) VALUES ( ?, ? ) ";
+    private static final String SQL_QUERY_DELETE = " DELETE FROM extend_rating_vote_token WHERE vote_token = ? ";
+    private static final String SQL_QUERY_DELETE_OLDER_THAN = " DELETE FROM extend_rating_vote_token WHERE date_use < ? ";
+
+    @Override
+    public boolean exists( String strToken, Plugin plugin )
+    {
+        DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT, plugin );
+        daoUtil.setString( 1, strToken );
+        daoUtil.executeQuery(  );
+
+        boolean bExists = daoUtil.next(  );
+        daoUtil.free(  );
+
+        return bExists;
+    }
+
+    @Override
+    public void insert( String strToken, Timestamp dateUse, Plugin plugin )
+    {
+        DAOUtil daoUtil = new DAOUtil( SQL_QUERY_INSERT, plugin );
+        daoUtil.setString( 1, strToken );
+        daoUtil.setTimestamp( 2, dateUse );
+        daoUtil.executeUpdate(  );
+        daoUtil.free(  );
+    }
+
+    @Override
+    public void delete( String strToken, Plugin plugin )
+    {
+        DAOUtil daoUtil = new DAOUtil( SQL_QUERY_DELETE, plugin );
+        daoUtil.setString( 1, strToken );
+        daoUtil.executeUpdate(  );
+        daoUtil.free(  );
+    }
+
+    @Override
+    public void deleteOlderThan( Timestamp dateLimit, Plugin plugin )
+    {
+        DAOUtil daoUtil = new DAOUtil( SQL_QUERY_DELETE_OLDER_THAN, plugin );
+        daoUtil.setTimestamp( 1, dateLimit );
+        daoUtil.executeUpdate(  );
+        daoUtil.free(  );
+    }
+}
@@ -1,127 +1,237 @@
-/*
- * Copyright (c) 2002-2014, Mairie de Paris
- * All rights reserved.
- *
- * Redistribution and use in source and binary forms, with or without
- * modification, are permitted provided that the following conditions
- * are met:
- *
- *  1. Redistributions of source code must retain the above copyright notice
- *     and the following disclaimer.
- *
- *  2. Redistributions in binary form must reproduce the above copyright notice
- *     and the following disclaimer in the documentation and/or other materials
- *     provided with the distribution.
- *
- *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
- *     contributors may be used to endorse or promote products derived from
- *     this software without specific prior written permission.
- *
- * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
- * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
- * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
- * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
- * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
- * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
- * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
- * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
- * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
- * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
- * POSSIBILITY OF SUCH DAMAGE.
- *
- * License 1.0
- */
-package fr.paris.lutece.plugins.extend.modules.rating.business.type;
-
-import javax.validation.constraints.NotNull;
-
-
-/**
- *
- * VoteType
- *
- */
-public class VoteType
-{
-    private int _nIdVoteType;
-    @NotNull
-    private String _strTitle;
-    private String _strTemplateName;
-    private String _strTemplateContent;
-
-    /**
-     * Gets the id vote type.
-     *
-     * @return the id vote type
-     */
-    public int getIdVoteType(  )
-    {
-        return _nIdVoteType;
-    }
-
-    /**
-     * Sets the id vote type.
-     *
-     * @param nIdVoteType the new id vote type
-     */
-    public void setIdVoteType( int nIdVoteType )
-    {
-        _nIdVoteType = nIdVoteType;
-    }
-
-    /**
-     * Gets the title.
-     *
-     * @return the title
-     */
-    public String getTitle(  )
-    {
-        return _strTitle;
-    }
-
-    /**
-     * Sets the title.
-     *
-     * @param strTitle the new title
-     */
-    public void setTitle( String strTitle )
-    {
-        _strTitle = strTitle;
-    }
-
-    /**
-     * Gets the template file name.
-     *
-     * @return the template file name
-     */
-    public String getTemplateName(  )
-    {
-        return _strTemplateName;
-    }
-
-    /**
-     * Sets the template file name.
-     *
-     * @param strTemplateName the new template file name
-     */
-    public void setTemplateName( String strTemplateName )
-    {
-        _strTemplateName = strTemplateName;
-    }
-
-    /**
-     * @return the strTemplateContent
-     */
-    public String getTemplateContent(  )
-    {
-        return _strTemplateContent;
-    }
-
-    /**
-     * @param strTemplateContent the strTemplateContent to set
-     */
-    public void setTemplateContent( String strTemplateContent )
-    {
-        _strTemplateContent = strTemplateContent;
-    }
-}
+/*
+ * Copyright (c) 2002-2014, Mairie de Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.extend.modules.rating.business.type;
+
+import fr.paris.lutece.plugins.extend.modules.rating.business.BayesianPrior;
+
+import javax.validation.constraints.NotNull;
+
+
+/**
+ *
+ * VoteType
+ *
+ */
+public class VoteType
+{
+    private int _nIdVoteType;
+    @NotNull
+    private String _strTitle;
+    private String _strTemplateName;
+    private String _strTemplateContent;
+    private double _dBayesianPriorMean;
+    private double _dBayesianPriorWeight;
+    private double _dMinVoteValue;
+    private double _dMaxVoteValue;
+
+    /**
+     * Gets the id vote type.
+     *
+     * @return the id vote type
+     */
+    public int getIdVoteType(  )
+    {
+        return _nIdVoteType;
+    }
+
+    /**
+     * Sets the id vote type.
+     *
+     * @param nIdVoteType the new id vote type
+     */
+    public void setIdVoteType( int nIdVoteType )
+    {
+        _nIdVoteType = nIdVoteType;
+    }
+
+    /**
+     * Gets the title.
+     *
+     * @return the title
+     */
+    public String getTitle(  )
+    {
+        return _strTitle;
+    }
+
+    /**
+     * Sets the title.
+     *
+     * @param strTitle the new title
+     */
+    public void setTitle( String strTitle )
+    {
+        _strTitle = strTitle;
+    }
+
+    /**
+     * Gets the template file name.
+     *
+     * @return the template file name
+     */
+    public String getTemplateName(  )
+    {
+        return _strTemplateName;
+    }
+
+    /**
+     * Sets the template file name.
+     *
+     * @param strTemplateName the new template file name
+     */
+    public void setTemplateName( String strTemplateName )
+    {
+        _strTemplateName = strTemplateName;
+    }
+
+    /**
+     * @return the strTemplateContent
+     */
+    public String getTemplateContent(  )
+    {
+        return _strTemplateContent;
+    }
+
+    /**
+     * @param strTemplateContent the strTemplateContent to set
+     */
+    public void setTemplateContent( String strTemplateContent )
+    {
+        _strTemplateContent = strTemplateContent;
+    }
+
+    /**
+     * Gets the mean vote value assumed for a resource without votes, to
+     * compute the Bayesian score of the ratings.
+     *
+     * @return the mean vote value
+     */
+    public double getBayesianPriorMean(  )
+    {
+        return _dBayesianPriorMean;
+    }
+
+    /**
+     * Sets the mean vote value assumed for a resource without votes.
+     *
+     * @param dBayesianPriorMean the new mean vote value
+     */
+    public void setBayesianPriorMean( double dBayesianPriorMean )
+    {
+        _dBayesianPriorMean = dBayesianPriorMean;
+    }
+
+    /**
+     * Gets the number of votes the mean vote value weighs.
+     *
+     * @return the weight of the mean vote value
+     */
+    public double getBayesianPriorWeight(  )
+    {
+        return _dBayesianPriorWeight;
+    }
+
+    /**
+     * Gets the lowest vote value of the vote type.
+     *
+     * @return the lowest vote value
+     */
+    public double getMinVoteValue(  )
+    {
+        return _dMinVoteValue;
+    }
+
+    /**
+     * Sets the lowest vote value of the vote type.
+     *
+     * @param dMinVoteValue the new lowest vote value
+     */
+    public void setMinVoteValue( double dMinVoteValue )
+    {
+        _dMinVoteValue = dMinVoteValue;
+    }
+
+    /**
+     * Gets the highest vote value of the vote type.
+     *
+     * @return the highest vote value
+     */
+    public double getMaxVoteValue(  )
+    {
+        return _dMaxVoteValue;
+    }
+
+    /**
+     * Sets the highest vote value of the vote type.
+     *
+     * @param dMaxVoteValue the new highest vote value
+     */
+    public void setMaxVoteValue( double dMaxVoteValue )
+    {
+        _dMaxVoteValue = dMaxVoteValue;
+    }
+
+    /**
+     * Check if a value is a vote value of the vote type.
+     *
+     * @param dVoteValue the value
+     * @return true if the value is a finite number between the lowest and the
+     *         highest vote values
+     */
+    public boolean isValidVoteValue( double dVoteValue )
+    {
+        return !Double.isNaN( dVoteValue ) && !Double.isInfinite( dVoteValue ) && ( dVoteValue >= _dMinVoteValue ) &&
+        ( dVoteValue <= _dMaxVoteValue );
+    }
+
+    /**
+     * Sets the number of votes the mean vote value weighs.
+     *
+     * @param dBayesianPriorWeight the new weight of the mean vote value
+     */
+    public void setBayesianPriorWeight( double dBayesianPriorWeight )
+    {
+        _dBayesianPriorWeight = dBayesianPriorWeight;
+    }
+
+    /**
+     * Gets the prior of the Bayesian score of the ratings of this vote type.
+     *
+     * @return the prior
+     */
+    public BayesianPrior getBayesianPrior(  )
+    {
+        return new BayesianPrior( _dBayesianPriorMean, _dBayesianPriorWeight );
+    }
+}
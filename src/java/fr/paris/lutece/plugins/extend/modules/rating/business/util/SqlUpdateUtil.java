@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2002-2014, Mairie de Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.extend.modules.rating.business.util;
+
+import fr.paris.lutece.portal.service.database.AppConnectionService;
+import fr.paris.lutece.portal.service.plugin.Plugin;
+import fr.paris.lutece.portal.service.util.AppException;
+import fr.paris.lutece.portal.service.util.AppLogService;
+
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+import javax.sql.DataSource;
+
+
+/**
+ *
+ * SqlUpdateUtil : executes the updates whose number of affected rows is
+ * needed, which DAOUtil does not give. The connection is obtained like
+ * DAOUtil does, so the update takes part in the current transaction.
+ *
+ */
+public final class SqlUpdateUtil
+{
+    // SQL states of the integrity constraint violations, such as a duplicate key
+    private static final String SQL_STATE_CLASS_INTEGRITY_CONSTRAINT = "23";
+
+    /**
+     * Private constructor
+     */
+    private SqlUpdateUtil(  )
+    {
+    }
+
+    /**
+     * Execute an update
+     * @param strSql the SQL statement
+     * @param params the parameters of the statement
+     * @param plugin the plugin
+     * @return the number of affected rows
+     */
+    public static int executeUpdate( String strSql, Object[] params, Plugin plugin )
+    {
+        boolean bTransactional = TransactionSynchronizationManager.isSynchronizationActive(  );
+        DataSource dataSource = null;
+        Connection connection;
+
+        if ( bTransactional )
+        {
+            dataSource = AppConnectionService.getPoolManager(  ).getDataSource( plugin.getDbPoolName(  ) );
+            connection = DataSourceUtils.getConnection( dataSource );
+        }
+        else
+        {
+            connection = plugin.getConnectionService(  ).getConnection(  );
+        }
+
+        PreparedStatement statement = null;
+
+        try
+        {
+            statement = connection.prepareStatement( strSql );
+
+            for ( int i = 0; i < params.length; i++ )
+            {
+                statement.setObject( i + 1, params[i] );
+            }
+
+            return statement.executeUpdate(  );
+        }
+        catch ( SQLException e )
+        {
+            throw new AppException( e.getMessage(  ) + " (SQL Statement : " + strSql + ")", e );
+        }
+        finally
+        {
+            if ( statement != null )
+            {
+                try
+                {
+                    statement.close(  );
+                }
+                catch ( SQLException e )
+                {
+                    AppLogService.error( e.getMessage(  ), e );
+                }
+            }
+
+            if ( bTransactional )
+            {
+                DataSourceUtils.releaseConnection( connection, dataSource );
+            }
+            else
+            {
+                plugin.getConnectionService(  ).freeConnection( connection );
+            }
+        }
+    }
+
+    /**
+     * Tell whether an update failed because it broke an integrity constraint,
+     * for instance because the row it inserts already exists
+     * @param e the exception thrown by {@link #executeUpdate(String, Object[], Plugin)}
+     * @return true if the update broke an integrity constraint
+     */
+    public static boolean isConstraintViolation( AppException e )
+    {
+        Throwable cause = e.getCause(  );
+
+        if ( !( cause instanceof SQLException ) )
+        {
+            return false;
+        }
+
+        String strSqlState = ( (SQLException) cause ).getSQLState(  );
+
+        return ( strSqlState != null ) && strSqlState.startsWith( SQL_STATE_CLASS_INTEGRITY_CONSTRAINT );
+    }
+}
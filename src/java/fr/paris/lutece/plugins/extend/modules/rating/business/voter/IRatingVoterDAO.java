@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2002-2014, Mairie de Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.extend.modules.rating.business.voter;
+
+import fr.paris.lutece.portal.service.plugin.Plugin;
+
+import java.util.Collection;
+import java.util.List;
+
+
+/**
+ * IRatingVoterDAO.
+ */
+public interface IRatingVoterDAO
+{
+    /**
+     * Load the votes of a voter on a resource
+     * @param strIdExtendableResource the id of the extendable resource
+     * @param strExtendableResourceType the extendable resource type
+     * @param strVoterKey the key of the voter
+     * @param plugin the plugin
+     * @return the votes of the voter, or null if the voter has not voted yet
+     */
+    RatingVoter load( String strIdExtendableResource, String strExtendableResourceType, String strVoterKey,
+        Plugin plugin );
+
+    /**
+     * Load the votes of a voter on some resources of a type
+     * @param strExtendableResourceType the extendable resource type
+     * @param strVoterKey the key of the voter
+     * @param listIdExtendableResources the ids of the extendable resources
+     * @param plugin the plugin
+     * @return the votes of the voter, one item per resource the voter has
+     *         voted on
+     */
+    List<RatingVoter> loadByVoter( String strExtendableResourceType, String strVoterKey,
+        Collection<String> listIdExtendableResources, Plugin plugin );
+
+    /**
+     * Count the votes of a voter on all the resources of a type
+     * @param strExtendableResourceType the extendable resource type
+     * @param strVoterKey the key of the voter
+     * @param plugin the plugin
+     * @return the number of votes
+     */
+    int countVotes( String strExtendableResourceType, String strVoterKey, Plugin plugin );
+
+    /**
+     * Read the keys of all the voters, once per resource type
+     * @param handler the handler of the keys
+     * @param plugin the plugin
+     */
+    void selectVoterKeys( IVoterKeyHandler handler, Plugin plugin );
+
+    /**
+     * Add votes to the votes of a voter on a resource. The last vote value
+     * and date are replaced, the vote count is added.
+     * @param voter the votes to add
+     * @param plugin the plugin
+     */
+    void addVotes( RatingVoter voter, Plugin plugin );
+
+    /**
+     * Take back votes from the votes of a voter on a resource. The row is
+     * deleted if no vote is left. The last vote value and date are kept.
+     * @param voter the votes to take back
+     * @param plugin the plugin
+     */
+    void removeVotes( RatingVoter voter, Plugin plugin );
+
+    /**
+     * Delete the votes of a voter on a resource
+     * @param strIdExtendableResource the id of the extendable resource
+     * @param strExtendableResourceType the extendable resource type
+     * @param strVoterKey the key of the voter
+     * @param plugin the plugin
+     * @return true if the voter had voted on the resource, false otherwise
+     */
+    boolean delete( String strIdExtendableResource, String strExtendableResourceType, String strVoterKey,
+        Plugin plugin );
+
+    /**
+     * Delete the votes of all the voters on a resource
+     * @param strIdExtendableResource the id of the extendable resource, or
+     *            the wildcard id for every resource of the type
+     * @param strExtendableResourceType the extendable resource type
+     * @param plugin the plugin
+     */
+    void deleteByResource( String strIdExtendableResource, String strExtendableResourceType, Plugin plugin );
+}
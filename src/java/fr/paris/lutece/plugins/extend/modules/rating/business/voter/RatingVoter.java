@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) 2002-2014, Mairie de Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.extend.modules.rating.business.voter;
+
+import java.sql.Timestamp;
+
+
+/**
+ *
+ * RatingVoter : the votes of a voter on a resource. The voter is identified
+ * by its user guid, or by its IP address if it is not connected.
+ *
+ */
+public class RatingVoter
+{
+    private String _strIdExtendableResource;
+    private String _strExtendableResourceType;
+    private String _strVoterKey;
+    private double _dLastVoteValue;
+    private Timestamp _dateLastVote;
+    private int _nVoteCount;
+
+    /**
+     * @return the id of the extendable resource
+     */
+    public String getIdExtendableResource(  )
+    {
+        return _strIdExtendableResource;
+    }
+
+    /**
+     * @param strIdExtendableResource the id of the extendable resource to set
+     */
+    public void setIdExtendableResource( String strIdExtendableResource )
+    {
+        _strIdExtendableResource = strIdExtendableResource;
+    }
+
+    /**
+     * @return the extendable resource type
+     */
+    public String getExtendableResourceType(  )
+    {
+        return _strExtendableResourceType;
+    }
+
+    /**
+     * @param strExtendableResourceType the extendable resource type to set
+     */
+    public void setExtendableResourceType( String strExtendableResourceType )
+    {
+        _strExtendableResourceType = strExtendableResourceType;
+    }
+
+    /**
+     * @return the key of the voter : its user guid or its IP address
+     */
+    public String getVoterKey(  )
+    {
+        return _strVoterKey;
+    }
+
+    /**
+     * @param strVoterKey the key of the voter to set
+     */
+    public void setVoterKey( String strVoterKey )
+    {
+        _strVoterKey = strVoterKey;
+    }
+
+    /**
+     * @return the value of the last vote
+     */
+    public double getLastVoteValue(  )
+    {
+        return _dLastVoteValue;
+    }
+
+    /**
+     * @param dLastVoteValue the value of the last vote to set
+     */
+    public void setLastVoteValue( double dLastVoteValue )
+    {
+        _dLastVoteValue = dLastVoteValue;
+    }
+
+    /**
+     * @return the date of the last vote
+     */
+    public Timestamp getDateLastVote(  )
+    {
+        return _dateLastVote;
+    }
+
+    /**
+     * @param dateLastVote the date of the last vote to set
+     */
+    public void setDateLastVote( Timestamp dateLastVote )
+    {
+        _dateLastVote = dateLastVote;
+    }
+
+    /**
+     * @return the number of votes
+     */
+    public int getVoteCount(  )
+    {
+        return _nVoteCount;
+    }
+
+    /**
+     * @param nVoteCount the number of votes to set
+     */
+    public void setVoteCount( int nVoteCount )
+    {
+        _nVoteCount = nVoteCount;
+    }
+}
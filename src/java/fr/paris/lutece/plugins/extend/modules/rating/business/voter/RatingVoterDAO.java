@@ -0,0 +1,315 @@
+/*
+ * Copyright (c) 2002-2014, Mairie de Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.extend.modules.rating.business.voter;
+
+import fr.paris.lutece.plugins.extend.business.extender.ResourceExtenderDTOFilter;
+import fr.paris.lutece.plugins.extend.modules.rating.business.util.SqlUpdateUtil;
+import fr.paris.lutece.portal.service.plugin.Plugin;
+import fr.paris.lutece.portal.service.util.AppException;
+import fr.paris.lutece.util.sql.DAOUtil;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+
+
+/**
+ * This class provides Data Access methods for RatingVoter objects.
+ */
+public class RatingVoterDAO implements IRatingVoterDAO
+{
+    private static final String SQL_QUERY_SELECT_ALL = " SELECT id_resource, resource_type, voter_key, last_vote_value, last_vote_date, vote_count " +
+        " FROM extend_rating_voter ";
+    private static final String SQL_QUERY_SELECT = SQL_QUERY_SELECT_ALL +
+        " WHERE id_resource = ? AND resource_type = ? AND voter_key = ? ";
+    private static final String SQL_QUERY_SELECT_BY_VOTER = SQL_QUERY_SELECT_ALL +
+        " WHERE resource_type = ? AND voter_key = ? AND id_resource IN ( ";
+    private static final String SQL_QUERY_COUNT_VOTES = " SELECT SUM( vote_count ) FROM extend_rating_voter WHERE resource_type = ? AND voter_key = ? ";
+    private static final String SQL_CLOSE_PARENTHESIS = " ) ";
+    private static final String CONSTANT_COMMA = ",";
+    private static final String CONSTANT_QUESTION_MARK = "?";
+    private static final int CHUNK_SIZE = 100;
+    private static final String SQL_QUERY_SELECT_VOTER_KEYS = " SELECT DISTINCT resource_type, voter_key FROM extend_rating_voter ";
+    private static final String SQL_QUERY_INSERT = " INSERT INTO extend_rating_voter ( id_resource, resource_type, voter_key, last_vote_value, last_vote_date, vote_count ) " +
+        " VALUES ( ?, ?, ?, ?, ?, ? ) ";
+    private static final String SQL_QUERY_UPDATE_ADD_VOTES = " UPDATE extend_rating_voter SET last_vote_value = ?, last_vote_date = ?, vote_count = vote_count + ? " +
+        " WHERE id_resource = ? AND resource_type = ? AND voter_key = ? ";
+    private static final String SQL_QUERY_UPDATE_REMOVE_VOTES = " UPDATE extend_rating_voter SET vote_count = vote_count - ? " +
+        " WHERE id_resource = ? AND resource_type = ? AND voter_key = ? ";
+    private static final String SQL_QUERY_DELETE = " DELETE FROM extend_rating_voter WHERE id_resource = ? AND resource_type = ? AND voter_key = ? ";
+    private static final String SQL_QUERY_DELETE_WITHOUT_VOTES = SQL_QUERY_DELETE + " AND vote_count <= 0 ";
+    private static final String SQL_QUERY_DELETE_BY_RESOURCE = " DELETE FROM extend_rating_voter WHERE resource_type = ? ";
+    private static final String SQL_QUERY_FILTER_ID_RESOURCE = " AND id_resource = ? ";
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public RatingVoter load( String strIdExtendableResource, String strExtendableResourceType, String strVoterKey,
+        Plugin plugin )
+    {
+        int nIndex = 1;
+        DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT, plugin );
+        daoUtil.setString( nIndex++, strIdExtendableResource );
+        daoUtil.setString( nIndex++, strExtendableResourceType );
+        daoUtil.setString( nIndex, strVoterKey );
+        daoUtil.executeQuery(  );
+
+        RatingVoter voter = null;
+
+        if ( daoUtil.next(  ) )
+        {
+            voter = getRatingVoter( daoUtil );
+        }
+
+        daoUtil.free(  );
+
+        return voter;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<RatingVoter> loadByVoter( String strExtendableResourceType, String strVoterKey,
+        Collection<String> listIdExtendableResources, Plugin plugin )
+    {
+        List<RatingVoter> listVoters = new ArrayList<RatingVoter>(  );
+        Iterator<String> iterator = listIdExtendableResources.iterator(  );
+
+        while ( iterator.hasNext(  ) )
+        {
+            List<String> listChunk = new ArrayList<String>( CHUNK_SIZE );
+
+            while ( iterator.hasNext(  ) && ( listChunk.size(  ) < CHUNK_SIZE ) )
+            {
+                listChunk.add( iterator.next(  ) );
+            }
+
+            StringBuilder sbSQL = new StringBuilder( SQL_QUERY_SELECT_BY_VOTER );
+
+            for ( int i = 0; i < listChunk.size(  ); i++ )
+            {
+                if ( i > 0 )
+                {
+                    sbSQL.append( CONSTANT_COMMA );
+                }
+
+                sbSQL.append( CONSTANT_QUESTION_MARK );
+            }
+
+            sbSQL.append( SQL_CLOSE_PARENTHESIS );
+
+            int nIndex = 1;
+            DAOUtil daoUtil = new DAOUtil( sbSQL.toString(  ), plugin );
+            daoUtil.setString( nIndex++, strExtendableResourceType );
+            daoUtil.setString( nIndex++, strVoterKey );
+
+            for ( String strIdExtendableResource : listChunk )
+            {
+                daoUtil.setString( nIndex++, strIdExtendableResource );
+            }
+
+            daoUtil.executeQuery(  );
+
+            while ( daoUtil.next(  ) )
+            {
+                listVoters.add( getRatingVoter( daoUtil ) );
+            }
+
+            daoUtil.free(  );
+        }
+
+        return listVoters;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int countVotes( String strExtendableResourceType, String strVoterKey, Plugin plugin )
+    {
+        DAOUtil daoUtil = new DAOUtil( SQL_QUERY_COUNT_VOTES, plugin );
+        daoUtil.setString( 1, strExtendableResourceType );
+        daoUtil.setString( 2, strVoterKey );
+        daoUtil.executeQuery(  );
+
+        int nVoteCount = 0;
+
+        if ( daoUtil.next(  ) )
+        {
+            // The sum is null if the voter has not voted on the type
+            nVoteCount = daoUtil.getInt( 1 );
+        }
+
+        daoUtil.free(  );
+
+        return nVoteCount;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void selectVoterKeys( IVoterKeyHandler handler, Plugin plugin )
+    {
+        DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT_VOTER_KEYS, plugin );
+        daoUtil.executeQuery(  );
+
+        while ( daoUtil.next(  ) )
+        {
+            handler.handle( daoUtil.getString( 1 ), daoUtil.getString( 2 ) );
+        }
+
+        daoUtil.free(  );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void addVotes( RatingVoter voter, Plugin plugin )
+    {
+        Object[] params = 
+            {
+                voter.getLastVoteValue(  ), voter.getDateLastVote(  ), voter.getVoteCount(  ),
+                voter.getIdExtendableResource(  ), voter.getExtendableResourceType(  ), voter.getVoterKey(  )
+            };
+
+        Object[] paramsInsert = 
+            {
+                voter.getIdExtendableResource(  ), voter.getExtendableResourceType(  ), voter.getVoterKey(  ),
+                voter.getLastVoteValue(  ), voter.getDateLastVote(  ), voter.getVoteCount(  )
+            };
+
+        while ( SqlUpdateUtil.executeUpdate( SQL_QUERY_UPDATE_ADD_VOTES, params, plugin ) == 0 )
+        {
+            // First vote of the voter on the resource
+            try
+            {
+                SqlUpdateUtil.executeUpdate( SQL_QUERY_INSERT, paramsInsert, plugin );
+
+                return;
+            }
+            catch ( AppException e )
+            {
+                if ( !SqlUpdateUtil.isConstraintViolation( e ) )
+                {
+                    throw e;
+                }
+
+                // The row has just been created by a concurrent vote of the voter : add the votes to it
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void removeVotes( RatingVoter voter, Plugin plugin )
+    {
+        Object[] params = 
+            {
+                voter.getVoteCount(  ), voter.getIdExtendableResource(  ), voter.getExtendableResourceType(  ),
+                voter.getVoterKey(  )
+            };
+
+        if ( SqlUpdateUtil.executeUpdate( SQL_QUERY_UPDATE_REMOVE_VOTES, params, plugin ) > 0 )
+        {
+            Object[] paramsDelete = 
+                {
+                    voter.getIdExtendableResource(  ), voter.getExtendableResourceType(  ), voter.getVoterKey(  )
+                };
+            SqlUpdateUtil.executeUpdate( SQL_QUERY_DELETE_WITHOUT_VOTES, paramsDelete, plugin );
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean delete( String strIdExtendableResource, String strExtendableResourceType, String strVoterKey,
+        Plugin plugin )
+    {
+        Object[] params = { strIdExtendableResource, strExtendableResourceType, strVoterKey };
+
+        return SqlUpdateUtil.executeUpdate( SQL_QUERY_DELETE, params, plugin ) > 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void deleteByResource( String strIdExtendableResource, String strExtendableResourceType, Plugin plugin )
+    {
+        StringBuilder sbSql = new StringBuilder( SQL_QUERY_DELETE_BY_RESOURCE );
+
+        if ( !ResourceExtenderDTOFilter.WILDCARD_ID_RESOURCE.equals( strIdExtendableResource ) )
+        {
+            sbSql.append( SQL_QUERY_FILTER_ID_RESOURCE );
+        }
+
+        DAOUtil daoUtil = new DAOUtil( sbSql.toString(  ), plugin );
+        daoUtil.setString( 1, strExtendableResourceType );
+
+        if ( !ResourceExtenderDTOFilter.WILDCARD_ID_RESOURCE.equals( strIdExtendableResource ) )
+        {
+            daoUtil.setString( 2, strIdExtendableResource );
+        }
+
+        daoUtil.executeUpdate(  );
+        daoUtil.free(  );
+    }
+
+    /**
+     * Build a voter from the current row of a query on all the columns
+     * @param daoUtil the daoUtil
+     * @return the voter
+     */
+    private static RatingVoter getRatingVoter( DAOUtil daoUtil )
+    {
+        int nIndex = 1;
+        RatingVoter voter = new RatingVoter(  );
+        voter.setIdExtendableResource( daoUtil.getString( nIndex++ ) );
+        voter.setExtendableResourceType( daoUtil.getString( nIndex++ ) );
+        voter.setVoterKey( daoUtil.getString( nIndex++ ) );
+        voter.setLastVoteValue( daoUtil.getDouble( nIndex++ ) );
+        voter.setDateLastVote( daoUtil.getTimestamp( nIndex++ ) );
+        voter.setVoteCount( daoUtil.getInt( nIndex ) );
+
+        return voter;
+    }
+}
@@ -1,77 +1,119 @@
-/*
- * Copyright (c) 2002-2014, Mairie de Paris
- * All rights reserved.
- *
- * Redistribution and use in source and binary forms, with or without
- * modification, are permitted provided that the following conditions
- * are met:
- *
- *  1. Redistributions of source code must retain the above copyright notice
- *     and the following disclaimer.
- *
- *  2. Redistributions in binary form must reproduce the above copyright notice
- *     and the following disclaimer in the documentation and/or other materials
- *     provided with the distribution.
- *
- *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
- *     contributors may be used to endorse or promote products derived from
- *     this software without specific prior written permission.
- *
- * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
- * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
- * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
- * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
- * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
- * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
- * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
- * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
- * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
- * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
- * POSSIBILITY OF SUCH DAMAGE.
- *
- * License 1.0
- */
-package fr.paris.lutece.plugins.extend.modules.rating.service;
-
-import fr.paris.lutece.plugins.extend.modules.rating.business.RatingHistory;
-
-import org.springframework.transaction.annotation.Transactional;
-
-
-/**
- * IRatingService.
- */
-public interface IRatingHistoryService
-{
-    /**
-     * Delete.
-     *
-     * @param nId the n id rating
-     */
-    @Transactional( RatingPlugin.TRANSACTION_MANAGER )
-    void remove( int nId );
-
-    /**
-     * Delete by resource
-     *
-     * @param strIdExtendableResource the str id extendable resource
-     * @param strExtendableResourceType the str extendable resource type
-     */
-    @Transactional( RatingPlugin.TRANSACTION_MANAGER )
-    void removeByResource( String strIdExtendableResource, String strExtendableResourceType );
-
-    /**
-     * Insert.
-     * @param ratingHistory the ratingHistory
-     */
-    @Transactional( RatingPlugin.TRANSACTION_MANAGER )
-    void create( RatingHistory ratingHistory );
-
-    /**
-     * Find a {@link RatingHistory}
-     * @param lIdHistoryExtenderId the extender id
-     * @return the corresponding {@link RatingHistory}
-     */
-    @Transactional( RatingPlugin.TRANSACTION_MANAGER )
-    RatingHistory findByHistoryExtenderId( long lIdHistoryExtenderId );
-}
+/*
+ * Copyright (c) 2002-2014, Mairie de Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.extend.modules.rating.service;
+
+import fr.paris.lutece.plugins.extend.business.extender.history.ResourceExtenderHistory;
+import fr.paris.lutece.plugins.extend.modules.rating.business.Rating;
+import fr.paris.lutece.plugins.extend.modules.rating.business.RatingHistory;
+
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * IRatingService.
+ */
+public interface IRatingHistoryService
+{
+    /**
+     * Delete.
+     *
+     * @param nId the n id rating
+     */
+    @Transactional( RatingPlugin.TRANSACTION_MANAGER )
+    void remove( int nId );
+
+    /**
+     * Delete by resource
+     *
+     * @param strIdExtendableResource the str id extendable resource
+     * @param strExtendableResourceType the str extendable resource type
+     */
+    @Transactional( RatingPlugin.TRANSACTION_MANAGER )
+    void removeByResource( String strIdExtendableResource, String strExtendableResourceType );
+
+    /**
+     * Insert.
+     * @param ratingHistory the ratingHistory
+     */
+    @Transactional( RatingPlugin.TRANSACTION_MANAGER )
+    void create( RatingHistory ratingHistory );
+
+    /**
+     * Insert several rating histories in one database round-trip
+     * @param listRatingHistories the rating histories
+     */
+    @Transactional( RatingPlugin.TRANSACTION_MANAGER )
+    void create( List<RatingHistory> listRatingHistories );
+
+    /**
+     * Insert several extender histories of votes in one database round-trip
+     * @param listHistories the extender histories
+     */
+    @Transactional( RatingPlugin.TRANSACTION_MANAGER )
+    void createExtenderHistories( List<ResourceExtenderHistory> listHistories );
+
+    /**
+     * Compute the totals of the votes of a user on a resource for each date
+     * of vote
+     * @param strIdExtendableResource the id of the extendable resource
+     * @param strExtendableResourceType the extendable resource type
+     * @param strUserGuid the guid of the user
+     * @return the totals by date of vote, as ratings whose counters are the
+     *         sums of the votes
+     */
+    Map<Timestamp, Rating> findTotalsByUser( String strIdExtendableResource, String strExtendableResourceType,
+        String strUserGuid );
+
+    /**
+     * Delete the votes of a user on a resource and their extender histories
+     * @param strIdExtendableResource the id of the extendable resource
+     * @param strExtendableResourceType the extendable resource type
+     * @param strUserGuid the guid of the user
+     */
+    @Transactional( RatingPlugin.TRANSACTION_MANAGER )
+    void removeByUser( String strIdExtendableResource, String strExtendableResourceType, String strUserGuid );
+
+    /**
+     * Find a {@link RatingHistory}
+     * @param lIdHistoryExtenderId the extender id
+     * @return the corresponding {@link RatingHistory}
+     */
+    @Transactional( RatingPlugin.TRANSACTION_MANAGER )
+    RatingHistory findByHistoryExtenderId( long lIdHistoryExtenderId );
+}
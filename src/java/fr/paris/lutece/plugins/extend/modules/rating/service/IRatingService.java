@@ -1,134 +1,278 @@
-/*
- * Copyright (c) 2002-2014, Mairie de Paris
- * All rights reserved.
- *
- * Redistribution and use in source and binary forms, with or without
- * modification, are permitted provided that the following conditions
- * are met:
- *
- *  1. Redistributions of source code must retain the above copyright notice
- *     and the following disclaimer.
- *
- *  2. Redistributions in binary form must reproduce the above copyright notice
- *     and the following disclaimer in the documentation and/or other materials
- *     provided with the distribution.
- *
- *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
- *     contributors may be used to endorse or promote products derived from
- *     this software without specific prior written permission.
- *
- * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
- * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
- * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
- * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
- * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
- * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
- * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
- * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
- * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
- * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
- * POSSIBILITY OF SUCH DAMAGE.
- *
- * License 1.0
- */
-package fr.paris.lutece.plugins.extend.modules.rating.service;
-
-import fr.paris.lutece.plugins.extend.modules.rating.business.Rating;
-import fr.paris.lutece.portal.service.security.LuteceUser;
-
-import org.springframework.transaction.annotation.Transactional;
-
-import java.util.List;
-
-import javax.servlet.http.HttpServletRequest;
-
-
-/**
- * IRatingService.
- */
-public interface IRatingService
-{
-    /**
-     * Delete.
-     *
-     * @param nIdRating the n id rating
-     */
-    @Transactional( RatingPlugin.TRANSACTION_MANAGER )
-    void remove( int nIdRating );
-
-    /**
-     * Delete by resource
-     *
-     * @param strIdExtendableResource the str id extendable resource
-     * @param strExtendableResourceType the str extendable resource type
-     */
-    @Transactional( RatingPlugin.TRANSACTION_MANAGER )
-    void removeByResource( String strIdExtendableResource, String strExtendableResourceType );
-
-    /**
-     * Insert.
-     *
-     * @param rating the rating
-     */
-    @Transactional( RatingPlugin.TRANSACTION_MANAGER )
-    void create( Rating rating );
-
-    /**
-     * Store.
-     *
-     * @param rating the rating
-     */
-    @Transactional( RatingPlugin.TRANSACTION_MANAGER )
-    void update( Rating rating );
-
-    /**
-     * Increment vote.
-     *
-     * @param strIdExtendableResource the str id extendable resource
-     * @param strExtendableResourceType the str extendable resource type
-     * @param dVoteValue the vote value
-     * @param request the request
-     */
-    @Transactional( RatingPlugin.TRANSACTION_MANAGER )
-    void doVote( String strIdExtendableResource, String strExtendableResourceType, double dVoteValue,
-        HttpServletRequest request );
-
-    /**
-     * Do cancel the vote of a user
-     * @param user The user
-     * @param strIdExtendableResource The id of the extendable resource
-     * @param strExtendableResourceType The extendable resource type
-     * @param request The request
-     */
-    void doCancelVote( LuteceUser user, String strIdExtendableResource, String strExtendableResourceType );
-
-    /**
-     * Load.
-     *
-     * @param nIdRating the n id rating
-     * @return the rating
-     */
-    Rating findByPrimaryKey( int nIdRating );
-
-    /**
-     * Select by resource.
-     *
-     * @param strIdExtendableResource the str id extendable resource
-     * @param strExtendableResourceType the str extendable resource type
-     * @return the rating
-     */
-    Rating findByResource( String strIdExtendableResource, String strExtendableResourceType );
-
-    /**
-     * Get the ids of resources ordered by their number of ratings
-     * @param strExtendableResourceType The type of resources to consider
-     * @param nItemsOffset The offset of the items to get, or 0 to get items
-     *            from the first one
-     * @param nMaxItemsNumber The maximum number of items to return, or 0 to get
-     *            every items
-     * @return The list of ids of resources ordered by the number of associated
-     *         comments
-     */
-    public List<Integer> findIdMostRatedResources( String strExtendableResourceType, int nItemsOffset,
-        int nMaxItemsNumber );
-}
+/*
+ * Copyright (c) 2002-2014, Mairie de Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.extend.modules.rating.service;
+
+import fr.paris.lutece.plugins.extend.modules.rating.business.Rating;
+import fr.paris.lutece.plugins.extend.modules.rating.business.RatingMetric;
+import fr.paris.lutece.plugins.extend.modules.rating.business.type.VoteType;
+import fr.paris.lutece.plugins.extend.modules.rating.service.ingestion.VoteCommand;
+import fr.paris.lutece.plugins.extend.modules.rating.service.trending.TrendingWindow;
+import fr.paris.lutece.portal.service.security.LuteceUser;
+
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import javax.servlet.http.HttpServletRequest;
+
+
+/**
+ * IRatingService.
+ */
+public interface IRatingService
+{
+    /**
+     * Delete.
+     *
+     * @param nIdRating the n id rating
+     */
+    @Transactional( RatingPlugin.TRANSACTION_MANAGER )
+    void remove( int nIdRating );
+
+    /**
+     * Delete by resource
+     *
+     * @param strIdExtendableResource the str id extendable resource
+     * @param strExtendableResourceType the str extendable resource type
+     */
+    @Transactional( RatingPlugin.TRANSACTION_MANAGER )
+    void removeByResource( String strIdExtendableResource, String strExtendableResourceType );
+
+    /**
+     * Insert.
+     *
+     * @param rating the rating
+     */
+    @Transactional( RatingPlugin.TRANSACTION_MANAGER )
+    void create( Rating rating );
+
+    /**
+     * Store the rating if it has not been updated since it has been loaded.
+     *
+     * @param rating the rating
+     * @throws ConcurrentRatingUpdateException if the rating has been updated
+     *             concurrently : nothing is stored
+     */
+    @Transactional( RatingPlugin.TRANSACTION_MANAGER )
+    void update( Rating rating );
+
+    /**
+     * Update the rating of a resource with optimistic locking : the rating is
+     * loaded, modified and stored again as long as it is updated concurrently,
+     * up to a maximum number of attempts. Each attempt runs in its own
+     * transaction, so this method must not be called within a transaction.
+     *
+     * @param strIdExtendableResource the id of the extendable resource
+     * @param strExtendableResourceType the extendable resource type
+     * @param updater the modification of the rating
+     * @return the updated rating, or null if the resource has no rating
+     */
+    Rating update( String strIdExtendableResource, String strExtendableResourceType, IRatingUpdater updater );
+
+    /**
+     * Increment vote.
+     *
+     * @param strIdExtendableResource the str id extendable resource
+     * @param strExtendableResourceType the str extendable resource type
+     * @param dVoteValue the vote value
+     * @param request the request
+     */
+    @Transactional( RatingPlugin.TRANSACTION_MANAGER )
+    void doVote( String strIdExtendableResource, String strExtendableResourceType, double dVoteValue,
+        HttpServletRequest request );
+
+    /**
+     * Count a vote in the votes of its voter before the vote itself is
+     * processed, so that the eligibility checks see it at once. The vote is
+     * then marked so that its processing does not count it again.
+     * @param voteCommand the vote
+     */
+    void addVoterVote( VoteCommand voteCommand );
+
+    /**
+     * Take back a vote from the votes of its voter, when the vote counted by
+     * {@link #addVoterVote(VoteCommand)} could not be processed, so that the
+     * voter can vote again
+     * @param voteCommand the vote
+     */
+    void removeVoterVote( VoteCommand voteCommand );
+
+    /**
+     * Process a batch of votes received by the asynchronous ingestion in a
+     * single transaction. The votes already counted in the votes of their
+     * voter are not counted again.
+     * @param listVoteCommands the votes
+     */
+    @Transactional( RatingPlugin.TRANSACTION_MANAGER )
+    void doVotes( List<VoteCommand> listVoteCommands );
+
+    /**
+     * Add deltas to the counters of several ratings in a single transaction.
+     * The ratings that do not exist yet are created.
+     * @param listRatingDeltas the deltas, as ratings whose counters are the
+     *            values to add
+     */
+    @Transactional( RatingPlugin.TRANSACTION_MANAGER )
+    void doAddDeltas( Collection<Rating> listRatingDeltas );
+
+    /**
+     * Do cancel the vote of a user
+     * @param user The user
+     * @param strIdExtendableResource The id of the extendable resource
+     * @param strExtendableResourceType The extendable resource type
+     * @param request The request
+     */
+    void doCancelVote( LuteceUser user, String strIdExtendableResource, String strExtendableResourceType );
+
+    /**
+     * Write the rating deltas buffered by the write-behind mode
+     */
+    @Transactional( RatingPlugin.TRANSACTION_MANAGER )
+    void flushPendingDeltas(  );
+
+    /**
+     * Load.
+     *
+     * @param nIdRating the n id rating
+     * @return the rating
+     */
+    Rating findByPrimaryKey( int nIdRating );
+
+    /**
+     * Select by resource.
+     *
+     * @param strIdExtendableResource the str id extendable resource
+     * @param strExtendableResourceType the str extendable resource type
+     * @return the rating
+     */
+    Rating findByResource( String strIdExtendableResource, String strExtendableResourceType );
+
+    /**
+     * Select the ratings of several resources of a given type at once, for
+     * the pages that list resources.
+     *
+     * @param listIdExtendableResources the ids of the extendable resources
+     * @param strExtendableResourceType the extendable resource type
+     * @return the ratings, keyed on the id of their resource. The resources
+     *         that have no rating are not in the map
+     */
+    Map<String, Rating> findByResources( Collection<String> listIdExtendableResources,
+        String strExtendableResourceType );
+
+    /**
+     * Get the ids of resources ordered by their number of ratings
+     * @param strExtendableResourceType The type of resources to consider
+     * @param nItemsOffset The offset of the items to get, or 0 to get items
+     *            from the first one
+     * @param nMaxItemsNumber The maximum number of items to return, or 0 to get
+     *            every items
+     * @return The list of ids of resources ordered by the number of associated
+     *         comments
+     */
+    public List<Integer> findIdMostRatedResources( String strExtendableResourceType, int nItemsOffset,
+        int nMaxItemsNumber );
+
+    /**
+     * Get the best ratings of a resource type on a metric. The first ones are
+     * read from the leaderboard kept in memory, without any query.
+     * @param strExtendableResourceType The type of resources to consider
+     * @param metric The metric the ratings are ranked on
+     * @param nItemsOffset The offset of the items to get, or 0 to get items
+     *            from the first one
+     * @param nMaxItemsNumber The maximum number of items to return
+     * @return The ratings, the best first. They are shared and must not be
+     *         modified.
+     */
+    List<Rating> findTopRated( String strExtendableResourceType, RatingMetric metric, int nItemsOffset,
+        int nMaxItemsNumber );
+
+    /**
+     * Get a page of the ratings of a resource type ranked on a metric, read
+     * from the database with the index of the metric
+     * @param strExtendableResourceType The type of resources to consider
+     * @param metric The metric the ratings are ranked on
+     * @param nItemsOffset The offset of the items to get, or 0 to get items
+     *            from the first one
+     * @param nMaxItemsNumber The maximum number of items to return
+     * @return The ratings, the best first
+     */
+    List<Rating> findByRanking( String strExtendableResourceType, RatingMetric metric, int nItemsOffset,
+        int nMaxItemsNumber );
+
+    /**
+     * Get the next page of the ratings of a resource type ranked on a metric.
+     * The page starts right after the last rating of the previous page, found
+     * in the index of the metric, so that the cost of a page does not grow
+     * with its rank as an offset does.
+     * @param strExtendableResourceType The type of resources to consider
+     * @param metric The metric the ratings are ranked on
+     * @param lastRating The last rating of the previous page, as returned by
+     *            this method, or null to get the first page
+     * @param nMaxItemsNumber The maximum number of items to return
+     * @return The ratings, the best first
+     */
+    List<Rating> findByRankingAfter( String strExtendableResourceType, RatingMetric metric, Rating lastRating,
+        int nMaxItemsNumber );
+
+    /**
+     * Get the resources of a type that got the most votes over a recent
+     * period, counted in memory from the votes made by this webapp since it
+     * started
+     * @param strExtendableResourceType The type of resources to consider
+     * @param window The period, ending now
+     * @param nMaxItemsNumber The maximum number of items to return
+     * @return The resources, the most voted first, as ratings whose counters
+     *         are the number of votes over the period and the sum of their
+     *         values
+     */
+    List<Rating> findTrending( String strExtendableResourceType, TrendingWindow window, int nMaxItemsNumber );
+
+    /**
+     * Compute again the ranking scores of the ratings of the resources of a
+     * vote type, after a change of the prior of its Bayesian score
+     * @param voteType The vote type, with its new prior
+     */
+    @Transactional( RatingPlugin.TRANSACTION_MANAGER )
+    void updateScores( VoteType voteType );
+
+    /**
+     * Find the vote type of a resource, set by its extender configuration
+     * @param strIdExtendableResource The extendable resource id
+     * @param strExtendableResourceType The extendable resource type
+     * @return The vote type, or null if the resource has no configuration
+     */
+    VoteType findVoteType( String strIdExtendableResource, String strExtendableResourceType );
+}
@@ -1,78 +1,116 @@
-/*
- * Copyright (c) 2002-2014, Mairie de Paris
- * All rights reserved.
- *
- * Redistribution and use in source and binary forms, with or without
- * modification, are permitted provided that the following conditions
- * are met:
- *
- *  1. Redistributions of source code must retain the above copyright notice
- *     and the following disclaimer.
- *
- *  2. Redistributions in binary form must reproduce the above copyright notice
- *     and the following disclaimer in the documentation and/or other materials
- *     provided with the distribution.
- *
- *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
- *     contributors may be used to endorse or promote products derived from
- *     this software without specific prior written permission.
- *
- * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
- * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
- * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
- * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
- * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
- * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
- * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
- * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
- * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
- * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
- * POSSIBILITY OF SUCH DAMAGE.
- *
- * License 1.0
- */
-package fr.paris.lutece.plugins.extend.modules.rating.service;
-
-import fr.paris.lutece.plugins.extend.modules.rating.business.IRatingHistoryDAO;
-import fr.paris.lutece.plugins.extend.modules.rating.business.RatingHistory;
-
-import javax.inject.Inject;
-
-
-/**
- *
- * RatingService
- *
- */
-public class RatingHistoryService implements IRatingHistoryService
-{
-    /** The Constant BEAN_SERVICE. */
-    public static final String BEAN_SERVICE = "extend-rating.ratingHistoryService";
-    @Inject
-    private IRatingHistoryDAO _ratingHistoryDAO;
-
-    @Override
-    public void remove( int nId )
-    {
-        _ratingHistoryDAO.remove( nId, RatingPlugin.getPlugin(  ) );
-    }
-
-    @Override
-    public void removeByResource( String strIdExtendableResource, String strExtendableResourceType )
-    {
-        _ratingHistoryDAO.removeByResource( strIdExtendableResource, strExtendableResourceType,
-            RatingPlugin.getPlugin(  ) );
-    }
-
-    @Override
-    public void create( RatingHistory ratingHistory )
-    {
-        _ratingHistoryDAO.create( ratingHistory, RatingPlugin.getPlugin(  ) );
-    }
-
-    @Override
-    public RatingHistory findByHistoryExtenderId( long lIdHistoryExtenderId )
-    {
-        return _ratingHistoryDAO.findByHistoryExtenderId( lIdHistoryExtenderId, RatingPlugin.getPlugin(  ) );
-    }
-}
+/*
+ * Copyright (c) 2002-2014, Mairie de Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.extend.modules.rating.service;
+
+import fr.paris.lutece.plugins.extend.business.extender.history.ResourceExtenderHistory;
+import fr.paris.lutece.plugins.extend.modules.rating.business.IRatingExtenderHistoryDAO;
+import fr.paris.lutece.plugins.extend.modules.rating.business.IRatingHistoryDAO;
+import fr.paris.lutece.plugins.extend.modules.rating.business.Rating;
+import fr.paris.lutece.plugins.extend.modules.rating.business.RatingHistory;
+import fr.paris.lutece.plugins.extend.modules.rating.service.extender.RatingResourceExtender;
+
+import java.sql.Timestamp;
+
+import java.util.List;
+import java.util.Map;
+
+import javax.inject.Inject;
+
+
+/**
+ *
+ * RatingService
+ *
+ */
+public class RatingHistoryService implements IRatingHistoryService
+{
+    /** The Constant BEAN_SERVICE. */
+    public static final String BEAN_SERVICE = "extend-rating.ratingHistoryService";
+    @Inject
+    private IRatingHistoryDAO _ratingHistoryDAO;
+    @Inject
+    private IRatingExtenderHistoryDAO _ratingExtenderHistoryDAO;
+
+    @Override
+    public void remove( int nId )
+    {
+        _ratingHistoryDAO.remove( nId, RatingPlugin.getPlugin(  ) );
+    }
+
+    @Override
+    public void removeByResource( String strIdExtendableResource, String strExtendableResourceType )
+    {
+        _ratingHistoryDAO.removeByResource( strIdExtendableResource, strExtendableResourceType,
+            RatingPlugin.getPlugin(  ) );
+    }
+
+    @Override
+    public void create( RatingHistory ratingHistory )
+    {
+        _ratingHistoryDAO.create( ratingHistory, RatingPlugin.getPlugin(  ) );
+    }
+
+    @Override
+    public void create( List<RatingHistory> listRatingHistories )
+    {
+        _ratingHistoryDAO.create( listRatingHistories, RatingPlugin.getPlugin(  ) );
+    }
+
+    @Override
+    public void createExtenderHistories( List<ResourceExtenderHistory> listHistories )
+    {
+        _ratingExtenderHistoryDAO.create( listHistories, RatingPlugin.getPlugin(  ) );
+    }
+
+    @Override
+    public Map<Timestamp, Rating> findTotalsByUser( String strIdExtendableResource,
+        String strExtendableResourceType, String strUserGuid )
+    {
+        return _ratingHistoryDAO.findTotalsByUser( RatingResourceExtender.RESOURCE_EXTENDER, strIdExtendableResource,
+            strExtendableResourceType, strUserGuid, RatingPlugin.getPlugin(  ) );
+    }
+
+    @Override
+    public void removeByUser( String strIdExtendableResource, String strExtendableResourceType, String strUserGuid )
+    {
+        _ratingHistoryDAO.removeByUser( RatingResourceExtender.RESOURCE_EXTENDER, strIdExtendableResource,
+            strExtendableResourceType, strUserGuid, RatingPlugin.getPlugin(  ) );
+    }
+
+    @Override
+    public RatingHistory findByHistoryExtenderId( long lIdHistoryExtenderId )
+    {
+        return _ratingHistoryDAO.findByHistoryExtenderId( lIdHistoryExtenderId, RatingPlugin.getPlugin(  ) );
+    }
+}
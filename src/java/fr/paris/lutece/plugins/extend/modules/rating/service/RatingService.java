@@ -1,246 +1,819 @@
-/*
- * Copyright (c) 2002-2014, Mairie de Paris
- * All rights reserved.
- *
- * Redistribution and use in source and binary forms, with or without
- * modification, are permitted provided that the following conditions
- * are met:
- *
- *  1. Redistributions of source code must retain the above copyright notice
- *     and the following disclaimer.
- *
- *  2. Redistributions in binary form must reproduce the above copyright notice
- *     and the following disclaimer in the documentation and/or other materials
- *     provided with the distribution.
- *
- *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
- *     contributors may be used to endorse or promote products derived from
- *     this software without specific prior written permission.
- *
- * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
- * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
- * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
- * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
- * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
- * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
- * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
- * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
- * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
- * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
- * POSSIBILITY OF SUCH DAMAGE.
- *
- * License 1.0
- */
-package fr.paris.lutece.plugins.extend.modules.rating.service;
-
-import fr.paris.lutece.plugins.extend.business.extender.history.ResourceExtenderHistory;
-import fr.paris.lutece.plugins.extend.business.extender.history.ResourceExtenderHistoryFilter;
-import fr.paris.lutece.plugins.extend.modules.rating.business.IRatingDAO;
-import fr.paris.lutece.plugins.extend.modules.rating.business.Rating;
-import fr.paris.lutece.plugins.extend.modules.rating.business.RatingHistory;
-import fr.paris.lutece.plugins.extend.modules.rating.service.extender.RatingResourceExtender;
-import fr.paris.lutece.plugins.extend.service.extender.history.IResourceExtenderHistoryService;
-import fr.paris.lutece.portal.service.security.LuteceUser;
-import org.apache.commons.collections.CollectionUtils;
-import org.springframework.transaction.annotation.Transactional;
-import java.util.List;
-import javax.inject.Inject;
-import javax.servlet.http.HttpServletRequest;
- 
-
-/**
- *
- * RatingService
- *
- */
-public class RatingService implements IRatingService
-{
-    /** The Constant BEAN_SERVICE. */
-    public static final String BEAN_SERVICE = "extend-rating.ratingService";
-    @Inject
-    private IRatingDAO _ratingDAO;
-    @Inject
-    private IResourceExtenderHistoryService _resourceExtenderHistoryService;
-    @Inject
-    private IRatingHistoryService _ratingHistoryService;
-
-    /**
-     * {@inheritDoc}
-     */
-    @Override
-    @Transactional( RatingPlugin.TRANSACTION_MANAGER )
-    public void create( Rating rating )
-    {
-        _ratingDAO.insert( rating, RatingPlugin.getPlugin(  ) );
-        
-        RatingListenerService.createRating( rating.getExtendableResourceType( ), rating.getIdExtendableResource( ) );
-    }
-
-    /**
-     * {@inheritDoc}
-     */
-    @Override
-    @Transactional( RatingPlugin.TRANSACTION_MANAGER )
-    public void update( Rating rating )
-    {
-        _ratingDAO.store( rating, RatingPlugin.getPlugin(  ) );
-        RatingListenerService.createRating( rating.getExtendableResourceType( ), rating.getIdExtendableResource( ) );
-    }
-
-    /**
-     * {@inheritDoc}
-     */
-    @Override
-    @Transactional( RatingPlugin.TRANSACTION_MANAGER )
-   synchronized public void doVote( String strIdExtendableResource, String strExtendableResourceType, double nVoteValue,
-        HttpServletRequest request )
-    {
-    	Rating rating = findByResource( strIdExtendableResource, strExtendableResourceType );
-
-        // Create the rating if not exists
-        if ( rating == null )
-        {
-            rating = new Rating(  );
-            rating.setIdExtendableResource( strIdExtendableResource );
-            rating.setExtendableResourceType( strExtendableResourceType );
-            rating.setVoteCount( 1 );
-            rating.setScoreValue( nVoteValue );
-            if ( nVoteValue == 1 )
-            {
-            	rating.setScorePositifsVotes( rating.getScorePositifsVotes( ) + 1 );
-            }
-            else
-            {
-            	rating.setScoreNegativesVotes( rating.getScoreNegativesVotes( ) + 1 );
-            }
-            create( rating );
-        }
-        else
-        {
-            rating.setVoteCount( rating.getVoteCount(  ) + 1 );
-            rating.setScoreValue( rating.getScoreValue(  ) + nVoteValue );
-            if ( nVoteValue == 1 )
-            {
-            	rating.setScorePositifsVotes( rating.getScorePositifsVotes( ) + 1 );
-            }
-            else
-            {
-            	rating.setScoreNegativesVotes( rating.getScoreNegativesVotes( ) + 1 );
-            }
-            update( rating );
-        }
-        
-        ResourceExtenderHistory history = _resourceExtenderHistoryService.create( RatingResourceExtender.RESOURCE_EXTENDER,
-                strIdExtendableResource, strExtendableResourceType, request );
-
-        RatingHistory ratingHistory = new RatingHistory(  );
-        ratingHistory.setIdExtenderHistory( history.getIdHistory(  ) );
-        ratingHistory.setVoteValue( nVoteValue );
-        _ratingHistoryService.create( ratingHistory );
-        
-        RatingListenerService.createRating( rating.getExtendableResourceType( ), rating.getIdExtendableResource( ) );
-    }
-
-    /**
-     * {@inheritDoc}
-     */
-    @Override
-    @Transactional( RatingPlugin.TRANSACTION_MANAGER )
-    synchronized  public void doCancelVote( LuteceUser user, String strIdExtendableResource, String strExtendableResourceType )
-    {
-        ResourceExtenderHistoryFilter resourceExtenderHistoryFilter = new ResourceExtenderHistoryFilter(  );
-        resourceExtenderHistoryFilter.setUserGuid( user.getName(  ) );
-        resourceExtenderHistoryFilter.setIdExtendableResource( strIdExtendableResource );
-        resourceExtenderHistoryFilter.setExtendableResourceType( strExtendableResourceType );
-        resourceExtenderHistoryFilter.setExtenderType( RatingResourceExtender.RESOURCE_EXTENDER );
-        
-        List<ResourceExtenderHistory> histories = _resourceExtenderHistoryService.findByFilter( resourceExtenderHistoryFilter );
-        boolean bDecrementCount = false ;
-        
-        if ( CollectionUtils.isNotEmpty( histories ) )
-        {
-        	for(ResourceExtenderHistory history : histories)
-        	{
-        		RatingHistory ratingHistory = _ratingHistoryService.findByHistoryExtenderId( history.getIdHistory(  ) );
-	            if ( ratingHistory != null )
-	            {
-		            _ratingHistoryService.remove( ratingHistory.getIdRatingHistory(  ) );
-		            
-		            Rating rating = findByResource( strIdExtendableResource, strExtendableResourceType );
-		            rating.setVoteCount( rating.getVoteCount(  ) - 1 );
-		            rating.setScoreValue( rating.getScoreValue(  ) - ratingHistory.getVoteValue(  ) );
-		            if ( ! bDecrementCount && ratingHistory.getVoteValue( ) > 0 )
-		            {
-		            	rating.setScorePositifsVotes( rating.getScorePositifsVotes( ) - 1 );
-		            	bDecrementCount = true ; 
-		            }
-		            if ( ! bDecrementCount && ratingHistory.getVoteValue( ) < 0 )
-		            {
-		            	rating.setScoreNegativesVotes( rating.getScoreNegativesVotes( ) - 1 );
-		            	bDecrementCount = true ; 
-		            }
-		            update( rating );
-		            
-		            if ( RatingListenerService.hasListener( ) )
-		            {
-		            	RatingListenerService.deleteRating( rating.getExtendableResourceType( ), rating.getIdExtendableResource( ),  user );
-		            }
-	            }
-	            _resourceExtenderHistoryService.remove( Integer.valueOf( "" + history.getIdHistory(  ) ) );
-	            	         
-        	}
-        }
-    }
-
-    /**
-     * {@inheritDoc}
-     */
-    @Override
-    @Transactional( RatingPlugin.TRANSACTION_MANAGER )
-    public void remove( int nIdRating )
-    {
-    	
-        _ratingDAO.delete( nIdRating, RatingPlugin.getPlugin(  ) );
-    }
-
-    /**
-     * {@inheritDoc}
-     */
-    @Override
-    @Transactional( RatingPlugin.TRANSACTION_MANAGER )
-    public void removeByResource( String strIdExtendableResource, String strExtendableResourceType )
-    {
-        _ratingDAO.deleteByResource( strIdExtendableResource, strExtendableResourceType, RatingPlugin.getPlugin(  ) );
-    }
-
-    // GET
-
-    /**
-     * {@inheritDoc}
-     */
-    @Override
-    public Rating findByPrimaryKey( int nIdRating )
-    {
-        return _ratingDAO.load( nIdRating, RatingPlugin.getPlugin(  ) );
-    }
-
-    /**
-     * {@inheritDoc}
-     */
-    @Override
-    public Rating findByResource( String strIdExtendableResource, String strExtendableResourceType )
-    {
-        return _ratingDAO.loadByResource( strIdExtendableResource, strExtendableResourceType, RatingPlugin.getPlugin(  ) );
-    }
-
-    /**
-     * {@inheritDoc}
-     */
-    @Override
-    public List<Integer> findIdMostRatedResources( String strExtendableResourceType, int nItemsOffset,
-        int nMaxItemsNumber )
-    {
-        return _ratingDAO.findIdMostRatedResources( strExtendableResourceType, nItemsOffset, nMaxItemsNumber,
-            RatingPlugin.getPlugin(  ) );
-    }
-}
+/*
+ * Copyright (c) 2002-2014, Mairie de Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.extend.modules.rating.service;
+
+import fr.paris.lutece.plugins.extend.business.extender.ResourceExtenderDTOFilter;
+import fr.paris.lutece.plugins.extend.business.extender.history.ResourceExtenderHistory;
+import fr.paris.lutece.plugins.extend.modules.rating.business.BayesianPrior;
+import fr.paris.lutece.plugins.extend.modules.rating.business.IRatingDAO;
+import fr.paris.lutece.plugins.extend.modules.rating.business.Rating;
+import fr.paris.lutece.plugins.extend.modules.rating.business.RatingHistory;
+import fr.paris.lutece.plugins.extend.modules.rating.business.RatingMetric;
+import fr.paris.lutece.plugins.extend.modules.rating.business.config.RatingExtenderConfig;
+import fr.paris.lutece.plugins.extend.modules.rating.business.type.VoteType;
+import fr.paris.lutece.plugins.extend.modules.rating.business.voter.RatingVoter;
+import fr.paris.lutece.plugins.extend.modules.rating.service.buffer.RatingWriteBehindService;
+import fr.paris.lutece.plugins.extend.modules.rating.service.cache.RatingCacheService;
+import fr.paris.lutece.plugins.extend.modules.rating.service.cache.RatingCacheService.CachedRating;
+import fr.paris.lutece.plugins.extend.modules.rating.service.cache.RatingConfigCacheService;
+import fr.paris.lutece.plugins.extend.modules.rating.service.cache.VoteTypeCacheService;
+import fr.paris.lutece.plugins.extend.modules.rating.service.extender.RatingResourceExtender;
+import fr.paris.lutece.plugins.extend.modules.rating.service.ingestion.VoteCommand;
+import fr.paris.lutece.plugins.extend.modules.rating.service.leaderboard.RatingLeaderboardService;
+import fr.paris.lutece.plugins.extend.modules.rating.service.trending.RatingTrendingService;
+import fr.paris.lutece.plugins.extend.modules.rating.service.trending.TrendingWindow;
+import fr.paris.lutece.plugins.extend.modules.rating.service.voter.IRatingVoterService;
+import fr.paris.lutece.plugins.extend.service.extender.history.IResourceExtenderHistoryService;
+import fr.paris.lutece.portal.service.security.LuteceUser;
+import fr.paris.lutece.portal.service.spring.SpringContextService;
+import fr.paris.lutece.portal.service.util.AppException;
+import fr.paris.lutece.portal.service.util.AppLogService;
+import fr.paris.lutece.portal.service.util.AppPropertiesService;
+import org.springframework.transaction.annotation.Transactional;
+import java.sql.Timestamp;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.inject.Inject;
+import javax.servlet.http.HttpServletRequest;
+ 
+
+/**
+ *
+ * RatingService : the votes are added to the counters of the ratings by
+ * atomic statements, without any lock in the webapp, so that a transaction
+ * never waits for another one while holding a database connection. A cancel
+ * deletes the votes of its voter first : a concurrent cancel of the same
+ * votes waits for that row in the database, then finds nothing to cancel.
+ *
+ */
+public class RatingService implements IRatingService
+{
+    /** The Constant BEAN_SERVICE. */
+    public static final String BEAN_SERVICE = "extend-rating.ratingService";
+    private static final String PROPERTY_MAX_ATTEMPTS = "extend-rating.optimisticLock.maxAttempts";
+    private static final int DEFAULT_MAX_ATTEMPTS = 5;
+    private static final Comparator<Rating> COMPARATOR_RESOURCE = new Comparator<Rating>(  )
+        {
+            @Override
+            public int compare( Rating rating1, Rating rating2 )
+            {
+                int nCompare = rating1.getExtendableResourceType(  ).compareTo( rating2.getExtendableResourceType(  ) );
+
+                return ( nCompare != 0 ) ? nCompare
+                                         : rating1.getIdExtendableResource(  )
+                                                  .compareTo( rating2.getIdExtendableResource(  ) );
+            }
+        };
+    @Inject
+    private IRatingDAO _ratingDAO;
+    @Inject
+    private IResourceExtenderHistoryService _resourceExtenderHistoryService;
+    @Inject
+    private IRatingHistoryService _ratingHistoryService;
+    @Inject
+    private RatingWriteBehindService _ratingWriteBehindService;
+    @Inject
+    private IRatingVoterService _ratingVoterService;
+    @Inject
+    private RatingCacheService _ratingCacheService;
+    @Inject
+    private RatingLeaderboardService _ratingLeaderboardService;
+    @Inject
+    private RatingTrendingService _ratingTrendingService;
+    @Inject
+    private RatingConfigCacheService _ratingConfigCacheService;
+    @Inject
+    private VoteTypeCacheService _voteTypeCacheService;
+    private final BayesianPrior _defaultBayesianPrior = BayesianPrior.getDefault(  );
+    private final int _nMaxAttempts = Math.max( 1,
+            AppPropertiesService.getPropertyInt( PROPERTY_MAX_ATTEMPTS, DEFAULT_MAX_ATTEMPTS ) );
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional( RatingPlugin.TRANSACTION_MANAGER )
+    public void create( Rating rating )
+    {
+        rating.computeScores( getBayesianPrior( rating.getIdExtendableResource(  ),
+                rating.getExtendableResourceType(  ) ) );
+        _ratingDAO.insert( rating, RatingPlugin.getPlugin(  ) );
+        _ratingCacheService.remove( rating.getIdExtendableResource(  ), rating.getExtendableResourceType(  ) );
+        _ratingLeaderboardService.update( rating );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional( RatingPlugin.TRANSACTION_MANAGER )
+    public void update( Rating rating )
+    {
+        rating.computeScores( getBayesianPrior( rating.getIdExtendableResource(  ),
+                rating.getExtendableResourceType(  ) ) );
+
+        if ( !_ratingDAO.store( rating, RatingPlugin.getPlugin(  ) ) )
+        {
+            throw new ConcurrentRatingUpdateException( "The rating of the resource " +
+                rating.getExtendableResourceType(  ) + " " + rating.getIdExtendableResource(  ) +
+                " has been updated since it has been loaded" );
+        }
+
+        _ratingCacheService.remove( rating.getIdExtendableResource(  ), rating.getExtendableResourceType(  ) );
+        _ratingLeaderboardService.update( rating );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Rating update( String strIdExtendableResource, String strExtendableResourceType, IRatingUpdater updater )
+    {
+        // Each attempt is a transaction of its own, so that the next one reads the committed rating
+        IRatingService ratingService = SpringContextService.getBean( BEAN_SERVICE );
+
+        for ( int nAttempt = 1; nAttempt <= _nMaxAttempts; nAttempt++ )
+        {
+            Rating rating = _ratingDAO.loadByResource( strIdExtendableResource, strExtendableResourceType,
+                    RatingPlugin.getPlugin(  ) );
+
+            if ( rating == null )
+            {
+                return null;
+            }
+
+            updater.update( rating );
+
+            try
+            {
+                ratingService.update( rating );
+
+                return rating;
+            }
+            catch ( ConcurrentRatingUpdateException e )
+            {
+                AppLogService.debug( "Concurrent update of the rating of the resource " + strExtendableResourceType +
+                    " " + strIdExtendableResource + ", attempt " + nAttempt );
+            }
+        }
+
+        throw new AppException( "Unable to update the rating of the resource " + strExtendableResourceType + " " +
+            strIdExtendableResource + " : too many concurrent updates" );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional( RatingPlugin.TRANSACTION_MANAGER )
+    public void doVote( String strIdExtendableResource, String strExtendableResourceType, double nVoteValue,
+        HttpServletRequest request )
+    {
+        ResourceExtenderHistory history = _resourceExtenderHistoryService.create( RatingResourceExtender.RESOURCE_EXTENDER,
+                strIdExtendableResource, strExtendableResourceType, request );
+        doVoteInHistory( strIdExtendableResource, strExtendableResourceType, nVoteValue, history );
+        addVoterVote( strIdExtendableResource, strExtendableResourceType, _ratingVoterService.getVoterKey( request ),
+            nVoteValue, new Timestamp( System.currentTimeMillis(  ) ) );
+    }
+
+    /**
+     * Add a vote to the rating of a resource and to its history
+     * @param strIdExtendableResource the id of the extendable resource
+     * @param strExtendableResourceType the extendable resource type
+     * @param nVoteValue the vote value
+     * @param history the extender history of the vote
+     */
+    private void doVoteInHistory( String strIdExtendableResource, String strExtendableResourceType, double nVoteValue,
+        ResourceExtenderHistory history )
+    {
+        Rating ratingDelta = createDelta( strIdExtendableResource, strExtendableResourceType, nVoteValue, 1 );
+        storeDelta( ratingDelta );
+        _ratingTrendingService.add( ratingDelta, System.currentTimeMillis(  ) );
+
+        RatingHistory ratingHistory = new RatingHistory(  );
+        ratingHistory.setIdExtenderHistory( history.getIdHistory(  ) );
+        ratingHistory.setVoteValue( nVoteValue );
+        _ratingHistoryService.create( ratingHistory );
+        
+        RatingListenerService.createRating( strExtendableResourceType, strIdExtendableResource );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void addVoterVote( VoteCommand voteCommand )
+    {
+        addVoterVote( voteCommand.getIdExtendableResource(  ), voteCommand.getExtendableResourceType(  ),
+            _ratingVoterService.getVoterKey( voteCommand.getUserGuid(  ), voteCommand.getIpAddress(  ) ),
+            voteCommand.getVoteValue(  ), voteCommand.getDateVote(  ) );
+        voteCommand.setVoterRecorded( true );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void removeVoterVote( VoteCommand voteCommand )
+    {
+        RatingVoter voter = new RatingVoter(  );
+        voter.setIdExtendableResource( voteCommand.getIdExtendableResource(  ) );
+        voter.setExtendableResourceType( voteCommand.getExtendableResourceType(  ) );
+        voter.setVoterKey( _ratingVoterService.getVoterKey( voteCommand.getUserGuid(  ),
+                voteCommand.getIpAddress(  ) ) );
+        voter.setVoteCount( 1 );
+        _ratingVoterService.removeVotes( voter );
+        voteCommand.setVoterRecorded( false );
+    }
+
+    /**
+     * Record a vote in the votes of its voter
+     * @param strIdExtendableResource the id of the extendable resource
+     * @param strExtendableResourceType the extendable resource type
+     * @param strVoterKey the key of the voter
+     * @param dVoteValue the vote value
+     * @param dateVote the date of the vote
+     */
+    private void addVoterVote( String strIdExtendableResource, String strExtendableResourceType, String strVoterKey,
+        double dVoteValue, Timestamp dateVote )
+    {
+        RatingVoter voter = new RatingVoter(  );
+        voter.setIdExtendableResource( strIdExtendableResource );
+        voter.setExtendableResourceType( strExtendableResourceType );
+        voter.setVoterKey( strVoterKey );
+        voter.setLastVoteValue( dVoteValue );
+        voter.setDateLastVote( dateVote );
+        voter.setVoteCount( 1 );
+        _ratingVoterService.addVotes( voter );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional( RatingPlugin.TRANSACTION_MANAGER )
+    public void doVotes( List<VoteCommand> listVoteCommands )
+    {
+        List<RatingHistory> listRatingHistories = new ArrayList<RatingHistory>( listVoteCommands.size(  ) );
+        List<Rating> listRatingDeltas = new ArrayList<Rating>( listVoteCommands.size(  ) );
+
+        for ( VoteCommand voteCommand : listVoteCommands )
+        {
+            ResourceExtenderHistory history = new ResourceExtenderHistory(  );
+            history.setExtenderType( RatingResourceExtender.RESOURCE_EXTENDER );
+            history.setIdExtendableResource( voteCommand.getIdExtendableResource(  ) );
+            history.setExtendableResourceType( voteCommand.getExtendableResourceType(  ) );
+            history.setUserGuid( voteCommand.getUserGuid(  ) );
+            history.setIpAddress( voteCommand.getIpAddress(  ) );
+            history.setDateCreation( voteCommand.getDateVote(  ) );
+            _resourceExtenderHistoryService.create( history );
+
+            Rating ratingDelta = createDelta( voteCommand.getIdExtendableResource(  ),
+                    voteCommand.getExtendableResourceType(  ), voteCommand.getVoteValue(  ), 1 );
+            listRatingDeltas.add( ratingDelta );
+            _ratingTrendingService.add( ratingDelta, voteCommand.getDateVote(  ).getTime(  ) );
+
+            RatingHistory ratingHistory = new RatingHistory(  );
+            ratingHistory.setIdExtenderHistory( history.getIdHistory(  ) );
+            ratingHistory.setVoteValue( voteCommand.getVoteValue(  ) );
+            listRatingHistories.add( ratingHistory );
+
+            if ( !voteCommand.isVoterRecorded(  ) )
+            {
+                addVoterVote( voteCommand.getIdExtendableResource(  ), voteCommand.getExtendableResourceType(  ),
+                    _ratingVoterService.getVoterKey( voteCommand.getUserGuid(  ), voteCommand.getIpAddress(  ) ),
+                    voteCommand.getVoteValue(  ), voteCommand.getDateVote(  ) );
+            }
+        }
+
+        storeDeltasInOrder( listRatingDeltas );
+        _ratingHistoryService.create( listRatingHistories );
+
+        for ( VoteCommand voteCommand : listVoteCommands )
+        {
+            RatingListenerService.createRating( voteCommand.getExtendableResourceType(  ),
+                voteCommand.getIdExtendableResource(  ) );
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional( RatingPlugin.TRANSACTION_MANAGER )
+    public void doAddDeltas( Collection<Rating> listRatingDeltas )
+    {
+        storeDeltasInOrder( listRatingDeltas );
+
+        for ( Rating ratingDelta : listRatingDeltas )
+        {
+            RatingListenerService.createRating( ratingDelta.getExtendableResourceType(  ),
+                ratingDelta.getIdExtendableResource(  ) );
+        }
+    }
+
+    /**
+     * Apply the deltas of several ratings, ordered on their resource : two
+     * transactions updating the same ratings lock their rows in the same
+     * order, so that they wait for each other instead of deadlocking
+     * @param listRatingDeltas the deltas
+     */
+    private void storeDeltasInOrder( Collection<Rating> listRatingDeltas )
+    {
+        List<Rating> listSortedDeltas = new ArrayList<Rating>( listRatingDeltas );
+        Collections.sort( listSortedDeltas, COMPARATOR_RESOURCE );
+
+        for ( Rating ratingDelta : listSortedDeltas )
+        {
+            storeDelta( ratingDelta );
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional( RatingPlugin.TRANSACTION_MANAGER )
+    public void doCancelVote( LuteceUser user, String strIdExtendableResource, String strExtendableResourceType )
+    {
+        // Deleting the row of the voter locks it in the database until the end of the transaction : a concurrent
+        // cancel of the same votes waits for it, then deletes nothing and stops there
+        if ( !_ratingVoterService.remove( strIdExtendableResource, strExtendableResourceType, user.getName(  ) ) )
+        {
+            return;
+        }
+
+        Map<Timestamp, Rating> mapTotals = _ratingHistoryService.findTotalsByUser( strIdExtendableResource,
+                strExtendableResourceType, user.getName(  ) );
+        _ratingHistoryService.removeByUser( strIdExtendableResource, strExtendableResourceType, user.getName(  ) );
+
+        Rating ratingDelta = new Rating(  );
+        ratingDelta.setIdExtendableResource( strIdExtendableResource );
+        ratingDelta.setExtendableResourceType( strExtendableResourceType );
+
+        for ( Map.Entry<Timestamp, Rating> entry : mapTotals.entrySet(  ) )
+        {
+            Rating total = entry.getValue(  );
+            Rating ratingDateDelta = new Rating(  );
+            ratingDateDelta.setIdExtendableResource( strIdExtendableResource );
+            ratingDateDelta.setExtendableResourceType( strExtendableResourceType );
+            ratingDateDelta.setVoteCount( -total.getVoteCount(  ) );
+            ratingDateDelta.setScoreValue( -total.getScoreValue(  ) );
+            ratingDateDelta.setScorePositifsVotes( -total.getScorePositifsVotes(  ) );
+            ratingDateDelta.setScoreNegativesVotes( -total.getScoreNegativesVotes(  ) );
+
+            // The votes are removed from the trending windows at the time they were made, if they still count them
+            _ratingTrendingService.add( ratingDateDelta, entry.getKey(  ).getTime(  ) );
+
+            ratingDelta.setVoteCount( ratingDelta.getVoteCount(  ) + ratingDateDelta.getVoteCount(  ) );
+            ratingDelta.setScoreValue( ratingDelta.getScoreValue(  ) + ratingDateDelta.getScoreValue(  ) );
+            ratingDelta.setScorePositifsVotes( ratingDelta.getScorePositifsVotes(  ) +
+                ratingDateDelta.getScorePositifsVotes(  ) );
+            ratingDelta.setScoreNegativesVotes( ratingDelta.getScoreNegativesVotes(  ) +
+                ratingDateDelta.getScoreNegativesVotes(  ) );
+        }
+
+        if ( ratingDelta.getVoteCount(  ) < 0 )
+        {
+            storeDelta( ratingDelta );
+
+            if ( RatingListenerService.hasListener(  ) )
+            {
+                RatingListenerService.deleteRating( strExtendableResourceType, strIdExtendableResource, user );
+            }
+        }
+    }
+
+    /**
+     * Build the delta of the counters of a rating for one vote
+     * @param strIdExtendableResource the id of the extendable resource
+     * @param strExtendableResourceType the extendable resource type
+     * @param dVoteValue the vote value
+     * @param nSign 1 to add the vote, -1 to cancel it
+     * @return the delta, as a rating whose counters are the values to add
+     */
+    public static Rating createDelta( String strIdExtendableResource, String strExtendableResourceType,
+        double dVoteValue, int nSign )
+    {
+        Rating ratingDelta = new Rating(  );
+        ratingDelta.setIdExtendableResource( strIdExtendableResource );
+        ratingDelta.setExtendableResourceType( strExtendableResourceType );
+        ratingDelta.setVoteCount( nSign );
+        ratingDelta.setScoreValue( nSign * dVoteValue );
+
+        if ( dVoteValue == 1 )
+        {
+            ratingDelta.setScorePositifsVotes( nSign );
+        }
+        else
+        {
+            ratingDelta.setScoreNegativesVotes( nSign );
+        }
+
+        return ratingDelta;
+    }
+
+    /**
+     * Apply a delta to the counters of a rating, or buffer it if the
+     * write-behind mode is enabled
+     * @param ratingDelta the delta
+     */
+    private void storeDelta( Rating ratingDelta )
+    {
+        if ( _ratingWriteBehindService.isEnabled(  ) )
+        {
+            _ratingWriteBehindService.add( ratingDelta );
+        }
+        else
+        {
+            persistDelta( ratingDelta );
+        }
+    }
+
+    /**
+     * Apply a delta to the counters of a rating in the database. The rating is
+     * created with the delta as initial values if it does not exist yet. If
+     * another webapp creates it at the same time, the delta is applied again
+     * on the created rating.
+     * @param ratingDelta the delta
+     */
+    private void persistDelta( Rating ratingDelta )
+    {
+        _ratingCacheService.remove( ratingDelta.getIdExtendableResource(  ), ratingDelta.getExtendableResourceType(  ) );
+
+        BayesianPrior bayesianPrior = getBayesianPrior( ratingDelta.getIdExtendableResource(  ),
+                ratingDelta.getExtendableResourceType(  ) );
+
+        // Updates the rating, or creates it on the first vote on the resource
+        _ratingDAO.storeDelta( ratingDelta, bayesianPrior, RatingPlugin.getPlugin(  ) );
+        _ratingLeaderboardService.applyDelta( ratingDelta, bayesianPrior );
+    }
+
+    /**
+     * Get the prior of the Bayesian score of the rating of a resource : the
+     * one of the vote type of the resource, or the default one if the vote
+     * type cannot be found
+     * @param strIdExtendableResource the id of the extendable resource
+     * @param strExtendableResourceType the extendable resource type
+     * @return the prior
+     */
+    private BayesianPrior getBayesianPrior( String strIdExtendableResource, String strExtendableResourceType )
+    {
+        VoteType voteType = findVoteType( strIdExtendableResource, strExtendableResourceType );
+
+        return ( voteType != null ) ? voteType.getBayesianPrior(  ) : _defaultBayesianPrior;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public VoteType findVoteType( String strIdExtendableResource, String strExtendableResourceType )
+    {
+        RatingExtenderConfig config = _ratingConfigCacheService.getConfig( strIdExtendableResource,
+                strExtendableResourceType );
+
+        return ( config != null ) ? _voteTypeCacheService.getVoteType( config.getIdVoteType(  ) ) : null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional( RatingPlugin.TRANSACTION_MANAGER )
+    public void updateScores( VoteType voteType )
+    {
+        BayesianPrior bayesianPrior = voteType.getBayesianPrior(  );
+
+        for ( String strExtendableResourceType : _ratingDAO.findResourceTypes( RatingPlugin.getPlugin(  ) ) )
+        {
+            Map<String, RatingExtenderConfig> mapConfigs = _ratingConfigCacheService.getConfigs( _ratingDAO.findIdResources( 
+                        strExtendableResourceType, RatingPlugin.getPlugin(  ) ), strExtendableResourceType );
+            List<String> listIdExtendableResources = new ArrayList<String>(  );
+
+            for ( Map.Entry<String, RatingExtenderConfig> entry : mapConfigs.entrySet(  ) )
+            {
+                if ( entry.getValue(  ).getIdVoteType(  ) == voteType.getIdVoteType(  ) )
+                {
+                    listIdExtendableResources.add( entry.getKey(  ) );
+                }
+            }
+
+            if ( !listIdExtendableResources.isEmpty(  ) )
+            {
+                _ratingDAO.updateScores( listIdExtendableResources, strExtendableResourceType, bayesianPrior,
+                    RatingPlugin.getPlugin(  ) );
+                _ratingLeaderboardService.invalidate( strExtendableResourceType );
+            }
+        }
+
+        _ratingCacheService.removeAll(  );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional( RatingPlugin.TRANSACTION_MANAGER )
+    public void flushPendingDeltas(  )
+    {
+        for ( Rating ratingDelta : _ratingWriteBehindService.startFlush(  ) )
+        {
+            persistDelta( ratingDelta );
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional( RatingPlugin.TRANSACTION_MANAGER )
+    public void remove( int nIdRating )
+    {
+        Rating rating = _ratingDAO.load( nIdRating, RatingPlugin.getPlugin(  ) );
+
+        if ( rating != null )
+        {
+            _ratingDAO.delete( nIdRating, RatingPlugin.getPlugin(  ) );
+            _ratingCacheService.remove( rating.getIdExtendableResource(  ), rating.getExtendableResourceType(  ) );
+            _ratingLeaderboardService.remove( rating.getIdExtendableResource(  ),
+                rating.getExtendableResourceType(  ) );
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional( RatingPlugin.TRANSACTION_MANAGER )
+    public void removeByResource( String strIdExtendableResource, String strExtendableResourceType )
+    {
+        _ratingDAO.deleteByResource( strIdExtendableResource, strExtendableResourceType, RatingPlugin.getPlugin(  ) );
+
+        if ( ResourceExtenderDTOFilter.WILDCARD_ID_RESOURCE.equals( strIdExtendableResource ) )
+        {
+            _ratingCacheService.removeAll(  );
+            _ratingLeaderboardService.invalidate( strExtendableResourceType );
+            _ratingTrendingService.removeAll( strExtendableResourceType );
+        }
+        else
+        {
+            _ratingCacheService.remove( strIdExtendableResource, strExtendableResourceType );
+            _ratingLeaderboardService.remove( strIdExtendableResource, strExtendableResourceType );
+            _ratingTrendingService.remove( strIdExtendableResource, strExtendableResourceType );
+        }
+    }
+
+    // GET
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Rating findByPrimaryKey( int nIdRating )
+    {
+        return _ratingDAO.load( nIdRating, RatingPlugin.getPlugin(  ) );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Rating findByResource( String strIdExtendableResource, String strExtendableResourceType )
+    {
+        Rating rating;
+        CachedRating cachedRating = _ratingCacheService.get( strIdExtendableResource, strExtendableResourceType );
+
+        if ( cachedRating != null )
+        {
+            rating = cachedRating.getRating(  );
+        }
+        else
+        {
+            rating = _ratingDAO.loadByResource( strIdExtendableResource, strExtendableResourceType,
+                    RatingPlugin.getPlugin(  ) );
+            _ratingCacheService.put( strIdExtendableResource, strExtendableResourceType, rating );
+        }
+
+        return addPendingDelta( rating, strIdExtendableResource, strExtendableResourceType );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Map<String, Rating> findByResources( Collection<String> listIdExtendableResources,
+        String strExtendableResourceType )
+    {
+        Map<String, Rating> mapRatings = new HashMap<String, Rating>(  );
+        Set<String> setMissingIds = new HashSet<String>(  );
+
+        for ( String strIdExtendableResource : listIdExtendableResources )
+        {
+            CachedRating cachedRating = _ratingCacheService.get( strIdExtendableResource, strExtendableResourceType );
+
+            if ( cachedRating == null )
+            {
+                setMissingIds.add( strIdExtendableResource );
+            }
+            else if ( cachedRating.getRating(  ) != null )
+            {
+                mapRatings.put( strIdExtendableResource, cachedRating.getRating(  ) );
+            }
+        }
+
+        if ( !setMissingIds.isEmpty(  ) )
+        {
+            for ( Rating rating : _ratingDAO.loadByResources( setMissingIds, strExtendableResourceType,
+                    RatingPlugin.getPlugin(  ) ) )
+            {
+                mapRatings.put( rating.getIdExtendableResource(  ), rating );
+            }
+
+            for ( String strIdExtendableResource : setMissingIds )
+            {
+                _ratingCacheService.put( strIdExtendableResource, strExtendableResourceType,
+                    mapRatings.get( strIdExtendableResource ) );
+            }
+        }
+
+        if ( _ratingWriteBehindService.isEnabled(  ) )
+        {
+            for ( String strIdExtendableResource : listIdExtendableResources )
+            {
+                Rating rating = addPendingDelta( mapRatings.get( strIdExtendableResource ), strIdExtendableResource,
+                        strExtendableResourceType );
+
+                if ( rating != null )
+                {
+                    mapRatings.put( strIdExtendableResource, rating );
+                }
+                else
+                {
+                    mapRatings.remove( strIdExtendableResource );
+                }
+            }
+        }
+
+        return mapRatings;
+    }
+
+    /**
+     * Add the delta waiting for the write-behind flush to the stored rating of
+     * a resource
+     * @param rating the stored rating, or null if the resource has no rating
+     *            stored yet
+     * @param strIdExtendableResource the id of the extendable resource
+     * @param strExtendableResourceType the extendable resource type
+     * @return the rating, or null if the resource has no rating
+     */
+    private Rating addPendingDelta( Rating rating, String strIdExtendableResource, String strExtendableResourceType )
+    {
+        if ( _ratingWriteBehindService.isEnabled(  ) )
+        {
+            Rating ratingDelta = _ratingWriteBehindService.getPendingDelta( strIdExtendableResource,
+                    strExtendableResourceType );
+
+            if ( ratingDelta != null )
+            {
+                if ( rating == null )
+                {
+                    // Not flushed yet
+                    return ( ratingDelta.getVoteCount(  ) > 0 ) ? ratingDelta : null;
+                }
+
+                rating.setVoteCount( rating.getVoteCount(  ) + ratingDelta.getVoteCount(  ) );
+                rating.setScoreValue( rating.getScoreValue(  ) + ratingDelta.getScoreValue(  ) );
+                rating.setScorePositifsVotes( rating.getScorePositifsVotes(  ) + ratingDelta.getScorePositifsVotes(  ) );
+                rating.setScoreNegativesVotes( rating.getScoreNegativesVotes(  ) +
+                    ratingDelta.getScoreNegativesVotes(  ) );
+            }
+        }
+
+        return rating;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Integer> findIdMostRatedResources( String strExtendableResourceType, int nItemsOffset,
+        int nMaxItemsNumber )
+    {
+        List<Rating> listRatings = ( nMaxItemsNumber > 0 )
+            ? _ratingLeaderboardService.findTop( strExtendableResourceType, RatingMetric.VOTE_COUNT, nItemsOffset,
+                nMaxItemsNumber ) : null;
+
+        if ( listRatings == null )
+        {
+            return _ratingDAO.findIdMostRatedResources( strExtendableResourceType, nItemsOffset, nMaxItemsNumber,
+                RatingPlugin.getPlugin(  ) );
+        }
+
+        List<Integer> listIds = new ArrayList<Integer>( listRatings.size(  ) );
+
+        for ( Rating rating : listRatings )
+        {
+            try
+            {
+                listIds.add( Integer.parseInt( rating.getIdExtendableResource(  ) ) );
+            }
+            catch ( NumberFormatException e )
+            {
+                AppLogService.debug( "Resource " + strExtendableResourceType + " " +
+                    rating.getIdExtendableResource(  ) + " ignored : its id is not a number" );
+            }
+        }
+
+        return listIds;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Rating> findTopRated( String strExtendableResourceType, RatingMetric metric, int nItemsOffset,
+        int nMaxItemsNumber )
+    {
+        List<Rating> listRatings = _ratingLeaderboardService.findTop( strExtendableResourceType, metric,
+                nItemsOffset, nMaxItemsNumber );
+
+        if ( listRatings == null )
+        {
+            // Beyond the leaderboard : the ratings are ranked by the database
+            listRatings = findByRanking( strExtendableResourceType, metric, nItemsOffset, nMaxItemsNumber );
+        }
+
+        return listRatings;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Rating> findByRankingAfter( String strExtendableResourceType, RatingMetric metric, Rating lastRating,
+        int nMaxItemsNumber )
+    {
+        return _ratingDAO.loadByRankingAfter( strExtendableResourceType, metric, lastRating, nMaxItemsNumber,
+            RatingPlugin.getPlugin(  ) );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Rating> findTrending( String strExtendableResourceType, TrendingWindow window, int nMaxItemsNumber )
+    {
+        return _ratingTrendingService.findTrending( strExtendableResourceType, window, nMaxItemsNumber );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Rating> findByRanking( String strExtendableResourceType, RatingMetric metric, int nItemsOffset,
+        int nMaxItemsNumber )
+    {
+        return _ratingDAO.loadByRanking( strExtendableResourceType, metric, nItemsOffset, nMaxItemsNumber,
+            RatingPlugin.getPlugin(  ) );
+    }
+}
@@ -0,0 +1,446 @@
+/*
+ * Copyright (c) 2002-2014, Mairie de Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.extend.modules.rating.service.buffer;
+
+import fr.paris.lutece.plugins.extend.modules.rating.business.Rating;
+import fr.paris.lutece.plugins.extend.modules.rating.service.IRatingService;
+import fr.paris.lutece.portal.service.util.AppLogService;
+import fr.paris.lutece.portal.service.util.AppPropertiesService;
+
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.inject.Inject;
+
+
+/**
+ *
+ * RatingWriteBehindService : accumulates the deltas of the ratings in memory
+ * and writes them to the database by batches. Votes on a hot resource then
+ * cost one row update per flush instead of one per vote.
+ *
+ */
+public class RatingWriteBehindService
+{
+    /** The Constant BEAN_SERVICE. */
+    public static final String BEAN_SERVICE = "extend-rating.ratingWriteBehindService";
+    private static final String PROPERTY_ENABLED = "extend-rating.writeBehind.enabled";
+    private static final String PROPERTY_FLUSH_INTERVAL = "extend-rating.writeBehind.flushInterval";
+    private static final String PROPERTY_FLUSH_THRESHOLD = "extend-rating.writeBehind.flushThreshold";
+    private static final int DEFAULT_FLUSH_INTERVAL = 5000;
+    private static final int DEFAULT_FLUSH_THRESHOLD = 1000;
+    private static final String THREAD_NAME = "extend-rating-write-behind";
+    private static final String CONSTANT_KEY_SEPARATOR = "_";
+    private final ConcurrentMap<String, PendingDelta> _mapPendingDeltas = new ConcurrentHashMap<String, PendingDelta>(  );
+    private final ConcurrentMap<String, PendingDelta> _mapFlushingDeltas = new ConcurrentHashMap<String, PendingDelta>(  );
+    private final AtomicInteger _nPendingVotes = new AtomicInteger(  );
+    private final AtomicBoolean _bFlushScheduled = new AtomicBoolean(  );
+    private boolean _bEnabled;
+    private int _nFlushThreshold;
+    private ScheduledExecutorService _executor;
+
+    // Injected rather than looked up : the last flush runs while the context is destroyed
+    @Inject
+    private IRatingService _ratingService;
+
+    /**
+     * Start the periodic flush if the write-behind mode is enabled
+     */
+    public void init(  )
+    {
+        _bEnabled = AppPropertiesService.getPropertyBoolean( PROPERTY_ENABLED, false );
+        _nFlushThreshold = AppPropertiesService.getPropertyInt( PROPERTY_FLUSH_THRESHOLD, DEFAULT_FLUSH_THRESHOLD );
+
+        if ( _bEnabled )
+        {
+            long lFlushInterval = AppPropertiesService.getPropertyInt( PROPERTY_FLUSH_INTERVAL, DEFAULT_FLUSH_INTERVAL );
+            _executor = Executors.newSingleThreadScheduledExecutor( new ThreadFactory(  )
+                    {
+                        @Override
+                        public Thread newThread( Runnable runnable )
+                        {
+                            Thread thread = new Thread( runnable, THREAD_NAME );
+                            thread.setDaemon( true );
+
+                            return thread;
+                        }
+                    } );
+            _executor.scheduleWithFixedDelay( new Runnable(  )
+                {
+                    @Override
+                    public void run(  )
+                    {
+                        flush(  );
+                    }
+                }, lFlushInterval, lFlushInterval, TimeUnit.MILLISECONDS );
+        }
+    }
+
+    /**
+     * Stop the periodic flush and write the remaining deltas
+     */
+    public void shutdown(  )
+    {
+        if ( _executor != null )
+        {
+            _executor.shutdown(  );
+
+            try
+            {
+                _executor.awaitTermination( DEFAULT_FLUSH_INTERVAL, TimeUnit.MILLISECONDS );
+            }
+            catch ( InterruptedException e )
+            {
+                Thread.currentThread(  ).interrupt(  );
+            }
+
+            flush(  );
+        }
+    }
+
+    /**
+     * Check if the write-behind mode is enabled
+     * @return true if the deltas must be buffered, false if they must be
+     *         written immediately
+     */
+    public boolean isEnabled(  )
+    {
+        return _bEnabled;
+    }
+
+    /**
+     * Add a delta to the pending deltas of its resource. If a transaction is
+     * active, the delta is added once it is committed.
+     * @param ratingDelta the delta
+     */
+    public void add( final Rating ratingDelta )
+    {
+        if ( TransactionSynchronizationManager.isSynchronizationActive(  ) )
+        {
+            TransactionSynchronizationManager.registerSynchronization( new TransactionSynchronizationAdapter(  )
+                {
+                    @Override
+                    public void afterCommit(  )
+                    {
+                        addPendingDelta( ratingDelta, 1 );
+                    }
+                } );
+        }
+        else
+        {
+            addPendingDelta( ratingDelta, 1 );
+        }
+    }
+
+    /**
+     * Add a delta to the pending deltas of its resource
+     * @param ratingDelta the delta
+     * @param nNbVotes the number of votes the delta sums up
+     */
+    private void addPendingDelta( Rating ratingDelta, int nNbVotes )
+    {
+        String strKey = getKey( ratingDelta.getIdExtendableResource(  ), ratingDelta.getExtendableResourceType(  ) );
+
+        while ( true )
+        {
+            PendingDelta pendingDelta = _mapPendingDeltas.get( strKey );
+
+            if ( pendingDelta == null )
+            {
+                PendingDelta newPendingDelta = new PendingDelta( ratingDelta.getIdExtendableResource(  ),
+                        ratingDelta.getExtendableResourceType(  ) );
+                pendingDelta = _mapPendingDeltas.putIfAbsent( strKey, newPendingDelta );
+
+                if ( pendingDelta == null )
+                {
+                    pendingDelta = newPendingDelta;
+                }
+            }
+
+            if ( pendingDelta.add( ratingDelta, nNbVotes ) )
+            {
+                break;
+            }
+
+            // The delta has been taken by a flush in the meantime
+            _mapPendingDeltas.remove( strKey, pendingDelta );
+        }
+
+        if ( ( _nPendingVotes.addAndGet( nNbVotes ) >= _nFlushThreshold ) && ( _executor != null ) &&
+                _bFlushScheduled.compareAndSet( false, true ) )
+        {
+            _executor.execute( new Runnable(  )
+                {
+                    @Override
+                    public void run(  )
+                    {
+                        flush(  );
+                    }
+                } );
+        }
+    }
+
+    /**
+     * Get the deltas of a resource that are not yet committed in the database
+     * @param strIdExtendableResource the id of the extendable resource
+     * @param strExtendableResourceType the extendable resource type
+     * @return the sum of the pending deltas, or null if there is none
+     */
+    public Rating getPendingDelta( String strIdExtendableResource, String strExtendableResourceType )
+    {
+        String strKey = getKey( strIdExtendableResource, strExtendableResourceType );
+        PendingDelta pendingDelta = _mapPendingDeltas.get( strKey );
+
+        if ( pendingDelta != null )
+        {
+            synchronized ( pendingDelta )
+            {
+                // A closed pending delta is already in the flushing deltas
+                if ( !pendingDelta.isClosed(  ) )
+                {
+                    Rating ratingPending = pendingDelta.toRating(  );
+                    PendingDelta flushingDelta = _mapFlushingDeltas.get( strKey );
+
+                    if ( flushingDelta != null )
+                    {
+                        addDelta( ratingPending, flushingDelta.toRating(  ) );
+                    }
+
+                    return ratingPending;
+                }
+            }
+        }
+
+        PendingDelta flushingDelta = _mapFlushingDeltas.get( strKey );
+
+        return ( flushingDelta != null ) ? flushingDelta.toRating(  ) : null;
+    }
+
+    /**
+     * Take the pending deltas to write them in the database. They stay
+     * visible to {@link #getPendingDelta(String, String)} until the
+     * transaction that writes them is committed.
+     * @return the deltas to write
+     */
+    public List<Rating> startFlush(  )
+    {
+        List<Rating> listDeltas = new ArrayList<Rating>(  );
+        final List<String> listKeys = new ArrayList<String>(  );
+
+        for ( String strKey : _mapPendingDeltas.keySet(  ) )
+        {
+            PendingDelta pendingDelta = _mapPendingDeltas.get( strKey );
+
+            if ( pendingDelta != null )
+            {
+                Rating ratingDelta;
+
+                synchronized ( pendingDelta )
+                {
+                    ratingDelta = pendingDelta.close(  );
+                    _mapFlushingDeltas.put( strKey, pendingDelta );
+                }
+
+                _mapPendingDeltas.remove( strKey, pendingDelta );
+                _nPendingVotes.addAndGet( -pendingDelta.getNbVotes(  ) );
+                listDeltas.add( ratingDelta );
+                listKeys.add( strKey );
+            }
+        }
+
+        if ( TransactionSynchronizationManager.isSynchronizationActive(  ) )
+        {
+            // Once in the database, the deltas must not be counted twice by the readers
+            TransactionSynchronizationManager.registerSynchronization( new TransactionSynchronizationAdapter(  )
+                {
+                    @Override
+                    public void afterCommit(  )
+                    {
+                        for ( String strKey : listKeys )
+                        {
+                            _mapFlushingDeltas.remove( strKey );
+                        }
+                    }
+                } );
+        }
+
+        return listDeltas;
+    }
+
+    /**
+     * Write the pending deltas in the database
+     */
+    private void flush(  )
+    {
+        _bFlushScheduled.set( false );
+
+        try
+        {
+            _ratingService.flushPendingDeltas(  );
+        }
+        catch ( RuntimeException e )
+        {
+            AppLogService.error( "Unable to write the pending rating deltas : " + e.getMessage(  ), e );
+
+            // Give the deltas back for the next flush, with the number of votes they sum up
+            for ( String strKey : _mapFlushingDeltas.keySet(  ) )
+            {
+                PendingDelta flushingDelta = _mapFlushingDeltas.remove( strKey );
+
+                if ( flushingDelta != null )
+                {
+                    addPendingDelta( flushingDelta.toRating(  ), flushingDelta.getNbVotes(  ) );
+                }
+            }
+        }
+    }
+
+    /**
+     * Add the counters of a delta to another one
+     * @param rating the delta to update
+     * @param ratingDelta the delta to add
+     */
+    private static void addDelta( Rating rating, Rating ratingDelta )
+    {
+        rating.setVoteCount( rating.getVoteCount(  ) + ratingDelta.getVoteCount(  ) );
+        rating.setScoreValue( rating.getScoreValue(  ) + ratingDelta.getScoreValue(  ) );
+        rating.setScorePositifsVotes( rating.getScorePositifsVotes(  ) + ratingDelta.getScorePositifsVotes(  ) );
+        rating.setScoreNegativesVotes( rating.getScoreNegativesVotes(  ) + ratingDelta.getScoreNegativesVotes(  ) );
+    }
+
+    /**
+     * Get the key of a resource
+     * @param strIdExtendableResource the id of the extendable resource
+     * @param strExtendableResourceType the extendable resource type
+     * @return the key
+     */
+    private static String getKey( String strIdExtendableResource, String strExtendableResourceType )
+    {
+        return strExtendableResourceType + CONSTANT_KEY_SEPARATOR + strIdExtendableResource;
+    }
+
+    /**
+     * Deltas of a resource waiting for the next flush
+     */
+    private static final class PendingDelta
+    {
+        private final Rating _rating = new Rating(  );
+        private int _nNbVotes;
+        private boolean _bClosed;
+
+        /**
+         * Constructor
+         * @param strIdExtendableResource the id of the extendable resource
+         * @param strExtendableResourceType the extendable resource type
+         */
+        PendingDelta( String strIdExtendableResource, String strExtendableResourceType )
+        {
+            _rating.setIdExtendableResource( strIdExtendableResource );
+            _rating.setExtendableResourceType( strExtendableResourceType );
+        }
+
+        /**
+         * Add a delta
+         * @param ratingDelta the delta
+         * @param nNbVotes the number of votes the delta sums up
+         * @return false if the pending delta is already taken by a flush
+         */
+        synchronized boolean add( Rating ratingDelta, int nNbVotes )
+        {
+            if ( _bClosed )
+            {
+                return false;
+            }
+
+            addDelta( _rating, ratingDelta );
+            _nNbVotes += nNbVotes;
+
+            return true;
+        }
+
+        /**
+         * Close the pending delta before its flush
+         * @return the sum of the deltas
+         */
+        synchronized Rating close(  )
+        {
+            _bClosed = true;
+
+            return toRating(  );
+        }
+
+        /**
+         * Check if the pending delta is already taken by a flush
+         * @return true if it is closed
+         */
+        synchronized boolean isClosed(  )
+        {
+            return _bClosed;
+        }
+
+        /**
+         * Get the number of deltas added
+         * @return the number of deltas
+         */
+        synchronized int getNbVotes(  )
+        {
+            return _nNbVotes;
+        }
+
+        /**
+         * Get a copy of the sum of the deltas
+         * @return the sum of the deltas
+         */
+        synchronized Rating toRating(  )
+        {
+            Rating rating = new Rating(  );
+            rating.setIdExtendableResource( _rating.getIdExtendableResource(  ) );
+            rating.setExtendableResourceType( _rating.getExtendableResourceType(  ) );
+            addDelta( rating, _rating );
+
+            return rating;
+        }
+    }
+}
@@ -0,0 +1,215 @@
+/*
+ * Copyright (c) 2002-2014, Mairie de Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.extend.modules.rating.service.cache;
+
+import fr.paris.lutece.plugins.extend.modules.rating.business.Rating;
+import fr.paris.lutece.portal.service.cache.AbstractCacheableService;
+
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+
+/**
+ *
+ * RatingCacheService : cache of the ratings of the resources, keyed on the
+ * extendable resource. The resources that have no rating are cached too.
+ * The size and the time to live of the cache are set in the cache
+ * management of the back office, like any other Lutece cache.
+ *
+ */
+public class RatingCacheService extends AbstractCacheableService
+{
+    /** The Constant BEAN_SERVICE. */
+    public static final String BEAN_SERVICE = "extend-rating.ratingCacheService";
+    private static final String SERVICE_NAME = "Extend Rating Cache Service";
+    private static final String KEY_SEPARATOR = "|";
+    private static final String NO_RATING = "extend-rating.noRating";
+
+    /**
+     * Constructor
+     */
+    public RatingCacheService(  )
+    {
+        initCache(  );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getName(  )
+    {
+        return SERVICE_NAME;
+    }
+
+    /**
+     * Get the cached rating of a resource
+     * @param strIdExtendableResource the id of the extendable resource
+     * @param strExtendableResourceType the extendable resource type
+     * @return the result of the lookup, or null if the resource is not cached
+     */
+    public CachedRating get( String strIdExtendableResource, String strExtendableResourceType )
+    {
+        Object value = getFromCache( getKey( strIdExtendableResource, strExtendableResourceType ) );
+
+        if ( value == null )
+        {
+            return null;
+        }
+
+        // The cached rating is copied so that callers can not alter it
+        return new CachedRating( ( value instanceof Rating ) ? copy( (Rating) value ) : null );
+    }
+
+    /**
+     * Cache the rating of a resource
+     * @param strIdExtendableResource the id of the extendable resource
+     * @param strExtendableResourceType the extendable resource type
+     * @param rating the rating, or null if the resource has no rating
+     */
+    public void put( String strIdExtendableResource, String strExtendableResourceType, Rating rating )
+    {
+        putInCache( getKey( strIdExtendableResource, strExtendableResourceType ),
+            ( rating != null ) ? copy( rating ) : NO_RATING );
+    }
+
+    /**
+     * Remove the rating of a resource from the cache. If a transaction is
+     * active, the rating is removed again once it is completed, so that a
+     * rating read by another thread before the commit is not kept.
+     * @param strIdExtendableResource the id of the extendable resource
+     * @param strExtendableResourceType the extendable resource type
+     */
+    public void remove( String strIdExtendableResource, String strExtendableResourceType )
+    {
+        final String strKey = getKey( strIdExtendableResource, strExtendableResourceType );
+        removeKey( strKey );
+
+        if ( TransactionSynchronizationManager.isSynchronizationActive(  ) )
+        {
+            TransactionSynchronizationManager.registerSynchronization( new TransactionSynchronizationAdapter(  )
+                {
+                    @Override
+                    public void afterCompletion( int nStatus )
+                    {
+                        removeKey( strKey );
+                    }
+                } );
+        }
+    }
+
+    /**
+     * Remove all the ratings from the cache, once the current transaction is
+     * completed if a transaction is active
+     */
+    public void removeAll(  )
+    {
+        resetCache(  );
+
+        if ( TransactionSynchronizationManager.isSynchronizationActive(  ) )
+        {
+            TransactionSynchronizationManager.registerSynchronization( new TransactionSynchronizationAdapter(  )
+                {
+                    @Override
+                    public void afterCompletion( int nStatus )
+                    {
+                        resetCache(  );
+                    }
+                } );
+        }
+    }
+
+    /**
+     * Get the cache key of a resource
+     * @param strIdExtendableResource the id of the extendable resource
+     * @param strExtendableResourceType the extendable resource type
+     * @return the key
+     */
+    private static String getKey( String strIdExtendableResource, String strExtendableResourceType )
+    {
+        return strExtendableResourceType + KEY_SEPARATOR + strIdExtendableResource;
+    }
+
+    /**
+     * Copy a rating
+     * @param rating the rating
+     * @return the copy
+     */
+    private static Rating copy( Rating rating )
+    {
+        Rating copy = new Rating(  );
+        copy.setIdRating( rating.getIdRating(  ) );
+        copy.setIdExtendableResource( rating.getIdExtendableResource(  ) );
+        copy.setExtendableResourceType( rating.getExtendableResourceType(  ) );
+        copy.setVoteCount( rating.getVoteCount(  ) );
+        copy.setScoreValue( rating.getScoreValue(  ) );
+        copy.setScorePositifsVotes( rating.getScorePositifsVotes(  ) );
+        copy.setScoreNegativesVotes( rating.getScoreNegativesVotes(  ) );
+        copy.setVersion( rating.getVersion(  ) );
+        copy.setStoredAverageScore( rating.getStoredAverageScore(  ) );
+        copy.setWilsonScore( rating.getWilsonScore(  ) );
+        copy.setBayesianScore( rating.getBayesianScore(  ) );
+
+        return copy;
+    }
+
+    /**
+     *
+     * CachedRating : result of a cache lookup, which tells a cached resource
+     * without rating from a resource that is not cached
+     *
+     */
+    public static final class CachedRating
+    {
+        private final Rating _rating;
+
+        /**
+         * Constructor
+         * @param rating the rating, or null if the resource has no rating
+         */
+        private CachedRating( Rating rating )
+        {
+            _rating = rating;
+        }
+
+        /**
+         * Get the rating
+         * @return the rating, or null if the resource has no rating
+         */
+        public Rating getRating(  )
+        {
+            return _rating;
+        }
+    }
+}
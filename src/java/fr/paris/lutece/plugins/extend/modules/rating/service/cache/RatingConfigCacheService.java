@@ -0,0 +1,196 @@
+/*
+ * Copyright (c) 2002-2014, Mairie de Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.extend.modules.rating.service.cache;
+
+import fr.paris.lutece.plugins.extend.business.extender.ResourceExtenderDTO;
+import fr.paris.lutece.plugins.extend.business.extender.ResourceExtenderDTOFilter;
+import fr.paris.lutece.plugins.extend.modules.rating.business.config.RatingExtenderConfig;
+import fr.paris.lutece.plugins.extend.modules.rating.service.extender.RatingResourceExtender;
+import fr.paris.lutece.plugins.extend.modules.rating.util.constants.RatingConstants;
+import fr.paris.lutece.plugins.extend.service.extender.IResourceExtenderService;
+import fr.paris.lutece.plugins.extend.service.extender.config.IResourceExtenderConfigService;
+import fr.paris.lutece.portal.service.cache.AbstractCacheableService;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+
+
+/**
+ *
+ * RatingConfigCacheService : cache of the rating configurations of the
+ * resources, as resolved by the configuration service (the configuration of
+ * the resource, or the one of the wildcard extender), and of the activation
+ * state of the rating extenders of each resource type.
+ * The whole cache is emptied when a rating extender or its configuration is
+ * created, modified or removed from this webapp. The changes made by other
+ * webapps, or the activation of an extender from the extend plugin, are seen
+ * once the entries expire.
+ *
+ */
+public class RatingConfigCacheService extends AbstractCacheableService
+{
+    /** The Constant BEAN_SERVICE. */
+    public static final String BEAN_SERVICE = "extend-rating.ratingConfigCacheService";
+    private static final String SERVICE_NAME = "Extend Rating Config Cache Service";
+    private static final String KEY_CONFIG = "config|";
+    private static final String KEY_ACTIVE = "active|";
+    private static final String KEY_SEPARATOR = "|";
+    private static final String NO_CONFIG = "extend-rating.noConfig";
+    @Inject
+    @Named( RatingConstants.BEAN_CONFIG_SERVICE )
+    private IResourceExtenderConfigService _configService;
+    @Inject
+    private IResourceExtenderService _extenderService;
+
+    /**
+     * Constructor
+     */
+    public RatingConfigCacheService(  )
+    {
+        initCache(  );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getName(  )
+    {
+        return SERVICE_NAME;
+    }
+
+    /**
+     * Get the rating configuration of a resource. The returned configuration
+     * is shared and must not be modified.
+     * @param strIdExtendableResource the id of the extendable resource
+     * @param strExtendableResourceType the extendable resource type
+     * @return the configuration, or null if the resource has none
+     */
+    public RatingExtenderConfig getConfig( String strIdExtendableResource, String strExtendableResourceType )
+    {
+        String strKey = KEY_CONFIG + strExtendableResourceType + KEY_SEPARATOR + strIdExtendableResource;
+        Object value = getFromCache( strKey );
+
+        if ( value == null )
+        {
+            RatingExtenderConfig config = _configService.find( RatingResourceExtender.RESOURCE_EXTENDER,
+                    strIdExtendableResource, strExtendableResourceType );
+            putInCache( strKey, ( config != null ) ? config : NO_CONFIG );
+
+            return config;
+        }
+
+        return ( value instanceof RatingExtenderConfig ) ? (RatingExtenderConfig) value : null;
+    }
+
+    /**
+     * Get the rating configurations of several resources of a type, as
+     * {@link #getConfig(String, String)} does for each of them : the
+     * configurations missing from the cache are resolved by the configuration
+     * service. The returned configurations are shared and must not be
+     * modified.
+     * @param listIdExtendableResources the ids of the extendable resources
+     * @param strExtendableResourceType the extendable resource type
+     * @return the configurations keyed on the id of their resource, without
+     *         the resources having none
+     */
+    public Map<String, RatingExtenderConfig> getConfigs( Collection<String> listIdExtendableResources,
+        String strExtendableResourceType )
+    {
+        Map<String, RatingExtenderConfig> mapConfigs = new HashMap<String, RatingExtenderConfig>(  );
+
+        for ( String strIdExtendableResource : listIdExtendableResources )
+        {
+            RatingExtenderConfig config = getConfig( strIdExtendableResource, strExtendableResourceType );
+
+            if ( config != null )
+            {
+                mapConfigs.put( strIdExtendableResource, config );
+            }
+        }
+
+        return mapConfigs;
+    }
+
+    /**
+     * Tell whether all the rating extenders of a resource type are active
+     * @param strExtendableResourceType the extendable resource type
+     * @return true if no rating extender of the type is disabled
+     */
+    public boolean isActive( String strExtendableResourceType )
+    {
+        String strKey = KEY_ACTIVE + strExtendableResourceType;
+        Boolean bActive = (Boolean) getFromCache( strKey );
+
+        if ( bActive == null )
+        {
+            ResourceExtenderDTOFilter extenderFilter = new ResourceExtenderDTOFilter(  );
+            extenderFilter.setFilterExtendableResourceType( strExtendableResourceType );
+            extenderFilter.setFilterExtenderType( RatingResourceExtender.RESOURCE_EXTENDER );
+
+            List<ResourceExtenderDTO> extenders = _extenderService.findByFilter( extenderFilter );
+            bActive = Boolean.TRUE;
+
+            if ( extenders != null )
+            {
+                for ( ResourceExtenderDTO extender : extenders )
+                {
+                    if ( !extender.isIsActive(  ) )
+                    {
+                        bActive = Boolean.FALSE;
+
+                        break;
+                    }
+                }
+            }
+
+            putInCache( strKey, bActive );
+        }
+
+        return bActive;
+    }
+
+    /**
+     * Remove all the configurations and activation states from the cache
+     */
+    public void removeAll(  )
+    {
+        resetCache(  );
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2002-2014, Mairie de Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.extend.modules.rating.service.cache;
+
+import fr.paris.lutece.portal.service.cache.AbstractCacheableService;
+
+
+/**
+ *
+ * RatingFragmentCacheService : cache of the rating widgets rendered for the
+ * anonymous visitors. The key of a widget holds everything the render depends
+ * on, including the rating itself, so that a vote makes the next render use
+ * a new entry.
+ *
+ */
+public class RatingFragmentCacheService extends AbstractCacheableService
+{
+    /** The Constant BEAN_SERVICE. */
+    public static final String BEAN_SERVICE = "extend-rating.ratingFragmentCacheService";
+    private static final String SERVICE_NAME = "Extend Rating Fragment Cache Service";
+
+    /**
+     * Constructor
+     */
+    public RatingFragmentCacheService(  )
+    {
+        initCache(  );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getName(  )
+    {
+        return SERVICE_NAME;
+    }
+
+    /**
+     * Get a rendered widget
+     * @param strKey the key of the widget
+     * @return the HTML of the widget, or null if it is not cached
+     */
+    public String getHtml( String strKey )
+    {
+        return (String) getFromCache( strKey );
+    }
+
+    /**
+     * Cache a rendered widget
+     * @param strKey the key of the widget
+     * @param strHtml the HTML of the widget
+     */
+    public void putHtml( String strKey, String strHtml )
+    {
+        putInCache( strKey, strHtml );
+    }
+
+    /**
+     * Remove all the widgets from the cache
+     */
+    public void removeAll(  )
+    {
+        resetCache(  );
+    }
+}
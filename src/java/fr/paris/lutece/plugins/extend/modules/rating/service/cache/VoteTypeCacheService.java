@@ -0,0 +1,190 @@
+/*
+ * Copyright (c) 2002-2014, Mairie de Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.extend.modules.rating.service.cache;
+
+import fr.paris.lutece.plugins.extend.modules.rating.business.type.VoteType;
+import fr.paris.lutece.plugins.extend.modules.rating.service.type.IVoteTypeService;
+import fr.paris.lutece.portal.service.cache.AbstractCacheableService;
+import fr.paris.lutece.portal.service.i18n.I18nService;
+import fr.paris.lutece.portal.service.template.AppTemplateService;
+import fr.paris.lutece.portal.service.util.AppException;
+import fr.paris.lutece.portal.service.util.AppPropertiesService;
+import fr.paris.lutece.util.html.HtmlTemplate;
+
+import freemarker.template.Configuration;
+import freemarker.template.Template;
+import freemarker.template.TemplateException;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import java.util.Locale;
+import java.util.Map;
+
+import javax.inject.Inject;
+
+
+/**
+ *
+ * VoteTypeCacheService : cache of the vote types with their template content,
+ * and of their templates once parsed by FreeMarker, per locale.
+ * The parsed templates are only cached if enabled in the plugin properties :
+ * they are parsed with a FreeMarker configuration of their own, which uses the
+ * number format of Lutece but neither the settings nor the macros auto
+ * included by the core. Otherwise, the templates are rendered by the core.
+ *
+ */
+public class VoteTypeCacheService extends AbstractCacheableService
+{
+    /** The Constant BEAN_SERVICE. */
+    public static final String BEAN_SERVICE = "extend-rating.voteTypeCacheService";
+    private static final String SERVICE_NAME = "Extend Rating Vote Type Cache Service";
+    private static final String PROPERTY_TEMPLATE_CACHE_ENABLED = "extend-rating.voteTypeTemplateCache.enabled";
+    private static final String PROPERTY_ENCODING = "lutece.encoding";
+    private static final String DEFAULT_ENCODING = "UTF-8";
+    private static final String NUMBER_FORMAT_PATTERN = "0.######";
+    private static final String KEY_VOTE_TYPE = "voteType|";
+    private static final String KEY_TEMPLATE = "template|";
+    private static final String KEY_SEPARATOR = "|";
+    private final boolean _bTemplateCacheEnabled = AppPropertiesService.getPropertyBoolean( PROPERTY_TEMPLATE_CACHE_ENABLED,
+            false );
+    private Configuration _configuration;
+    @Inject
+    private IVoteTypeService _voteTypeService;
+
+    /**
+     * Constructor
+     */
+    public VoteTypeCacheService(  )
+    {
+        if ( _bTemplateCacheEnabled )
+        {
+            _configuration = new Configuration(  );
+            _configuration.setNumberFormat( NUMBER_FORMAT_PATTERN );
+            _configuration.setDefaultEncoding( AppPropertiesService.getProperty( PROPERTY_ENCODING, DEFAULT_ENCODING ) );
+        }
+
+        initCache(  );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getName(  )
+    {
+        return SERVICE_NAME;
+    }
+
+    /**
+     * Get a vote type with its template content. The returned vote type is
+     * shared and must not be modified.
+     * @param nIdVoteType the id of the vote type
+     * @return the vote type, or null if it does not exist
+     */
+    public VoteType getVoteType( int nIdVoteType )
+    {
+        String strKey = KEY_VOTE_TYPE + nIdVoteType;
+        VoteType voteType = (VoteType) getFromCache( strKey );
+
+        if ( voteType == null )
+        {
+            voteType = _voteTypeService.findByPrimaryKey( nIdVoteType, true );
+
+            if ( voteType != null )
+            {
+                putInCache( strKey, voteType );
+            }
+        }
+
+        return voteType;
+    }
+
+    /**
+     * Render the template of a vote type
+     * @param voteType the vote type, with its template content
+     * @param locale the locale
+     * @param model the model
+     * @return the rendered template
+     */
+    public HtmlTemplate getTemplate( VoteType voteType, Locale locale, Map<String, Object> model )
+    {
+        if ( !_bTemplateCacheEnabled )
+        {
+            return AppTemplateService.getTemplateFromStringFtl( voteType.getTemplateContent(  ), locale, model );
+        }
+
+        String strKey = KEY_TEMPLATE + voteType.getIdVoteType(  ) + KEY_SEPARATOR + locale;
+        StringWriter writer = new StringWriter(  );
+
+        try
+        {
+            Template template = (Template) getFromCache( strKey );
+
+            if ( template == null )
+            {
+                template = new Template( voteType.getTemplateName(  ),
+                        new StringReader( voteType.getTemplateContent(  ) ), _configuration );
+
+                if ( locale != null )
+                {
+                    template.setLocale( locale );
+                }
+
+                putInCache( strKey, template );
+            }
+
+            template.process( model, writer );
+        }
+        catch ( IOException e )
+        {
+            throw new AppException( e.getMessage(  ), e );
+        }
+        catch ( TemplateException e )
+        {
+            throw new AppException( e.getMessage(  ), e );
+        }
+
+        return new HtmlTemplate( I18nService.localize( writer.toString(  ), locale ) );
+    }
+
+    /**
+     * Remove all the vote types and their templates from the cache
+     */
+    public void removeAll(  )
+    {
+        resetCache(  );
+    }
+}
@@ -1,132 +1,168 @@
-/*
- * Copyright (c) 2002-2014, Mairie de Paris
- * All rights reserved.
- *
- * Redistribution and use in source and binary forms, with or without
- * modification, are permitted provided that the following conditions
- * are met:
- *
- *  1. Redistributions of source code must retain the above copyright notice
- *     and the following disclaimer.
- *
- *  2. Redistributions in binary form must reproduce the above copyright notice
- *     and the following disclaimer in the documentation and/or other materials
- *     provided with the distribution.
- *
- *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
- *     contributors may be used to endorse or promote products derived from
- *     this software without specific prior written permission.
- *
- * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
- * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
- * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
- * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
- * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
- * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
- * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
- * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
- * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
- * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
- * POSSIBILITY OF SUCH DAMAGE.
- *
- * License 1.0
- */
-package fr.paris.lutece.plugins.extend.modules.rating.service.extender;
-
-import fr.paris.lutece.plugins.extend.business.extender.ResourceExtenderDTO;
-import fr.paris.lutece.plugins.extend.modules.rating.business.config.RatingExtenderConfig;
-import fr.paris.lutece.plugins.extend.modules.rating.service.IRatingHistoryService;
-import fr.paris.lutece.plugins.extend.modules.rating.service.IRatingService;
-import fr.paris.lutece.plugins.extend.modules.rating.service.RatingService;
-import fr.paris.lutece.plugins.extend.modules.rating.util.constants.RatingConstants;
-import fr.paris.lutece.plugins.extend.service.extender.AbstractResourceExtender;
-import fr.paris.lutece.plugins.extend.service.extender.config.IResourceExtenderConfigService;
-
-import org.apache.commons.lang.StringUtils;
-
-import javax.inject.Inject;
-import javax.inject.Named;
-
-import javax.servlet.http.HttpServletRequest;
-
-
-/**
- * RatingResourceExtender
- */
-public class RatingResourceExtender extends AbstractResourceExtender
-{
-    /** The Constant RESOURCE_EXTENDER. */
-    public static final String RESOURCE_EXTENDER = "rating";
-    @Inject
-    @Named( RatingConstants.BEAN_CONFIG_SERVICE )
-    private IResourceExtenderConfigService _configService;
-    @Inject
-    @Named( RatingService.BEAN_SERVICE )
-    private IRatingService _ratingService;
-    @Inject
-    private IRatingHistoryService _ratingHistoryService;
-
-    /**
-     * {@inheritDoc}
-     */
-    @Override
-    public boolean isInvoked( String strExtenderType )
-    {
-        if ( StringUtils.isNotBlank( strExtenderType ) )
-        {
-            return getKey(  ).equals( strExtenderType );
-        }
-
-        return false;
-    }
-
-    /**
-     * {@inheritDoc}
-     */
-    @Override
-    public String getContent( String strIdExtendableResource, String strExtendableResourceType, String strParameters,
-        HttpServletRequest request )
-    {
-        return getResourceExtenderComponent(  )
-                   .getPageAddOn( strIdExtendableResource, strExtendableResourceType, strParameters, request );
-    }
-
-    /**
-     * {@inheritDoc}
-     */
-    @Override
-    public void doCreateResourceAddOn( ResourceExtenderDTO extender )
-    {
-        // Default values
-        RatingExtenderConfig config = new RatingExtenderConfig(  );
-        config.setIdExtender( extender.getIdExtender(  ) );
-
-        RatingExtenderConfig defaultConfig = _configService.find( -1 );
-
-        if ( defaultConfig != null )
-        {
-            config.setIdMailingList( defaultConfig.getIdMailingList(  ) );
-            config.setIdVoteType( defaultConfig.getIdVoteType(  ) );
-            config.setNbDaysToVote( defaultConfig.getNbDaysToVote(  ) );
-            config.setUniqueVote( defaultConfig.isUniqueVote(  ) );
-        }
-
-        _configService.create( config );
-    }
-
-    /**
-     * {@inheritDoc}
-     */
-    @Override
-    public void doDeleteResourceAddOn( ResourceExtenderDTO extender )
-    {
-        if ( extender.getIdExtender(  ) > 0 )
-        {
-            _configService.remove( extender.getIdExtender(  ) );
-        }
-
-        _ratingService.removeByResource( extender.getIdExtendableResource(  ), extender.getExtendableResourceType(  ) );
-        _ratingHistoryService.removeByResource( extender.getIdExtendableResource(  ),
-            extender.getExtendableResourceType(  ) );
-    }
-}
+/*
+ * Copyright (c) 2002-2014, Mairie de Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.extend.modules.rating.service.extender;
+
+import fr.paris.lutece.plugins.extend.business.extender.ResourceExtenderDTO;
+import fr.paris.lutece.plugins.extend.modules.rating.business.config.RatingExtenderConfig;
+import fr.paris.lutece.plugins.extend.modules.rating.service.IRatingHistoryService;
+import fr.paris.lutece.plugins.extend.modules.rating.service.IRatingService;
+import fr.paris.lutece.plugins.extend.modules.rating.service.RatingService;
+import fr.paris.lutece.plugins.extend.modules.rating.service.cache.RatingConfigCacheService;
+import fr.paris.lutece.plugins.extend.modules.rating.service.voter.IRatingVoterService;
+import fr.paris.lutece.plugins.extend.modules.rating.util.constants.RatingConstants;
+import fr.paris.lutece.plugins.extend.modules.rating.web.component.RatingResourceExtenderComponent;
+import fr.paris.lutece.plugins.extend.service.extender.AbstractResourceExtender;
+import fr.paris.lutece.plugins.extend.service.extender.config.IResourceExtenderConfigService;
+
+import org.apache.commons.lang.StringUtils;
+
+import java.util.Collection;
+import java.util.Map;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+
+import javax.servlet.http.HttpServletRequest;
+
+
+/**
+ * RatingResourceExtender
+ */
+public class RatingResourceExtender extends AbstractResourceExtender
+{
+    /** The Constant RESOURCE_EXTENDER. */
+    public static final String RESOURCE_EXTENDER = "rating";
+    @Inject
+    @Named( RatingConstants.BEAN_CONFIG_SERVICE )
+    private IResourceExtenderConfigService _configService;
+    @Inject
+    @Named( RatingService.BEAN_SERVICE )
+    private IRatingService _ratingService;
+    @Inject
+    private IRatingHistoryService _ratingHistoryService;
+    @Inject
+    private IRatingVoterService _ratingVoterService;
+    @Inject
+    private RatingConfigCacheService _ratingConfigCacheService;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isInvoked( String strExtenderType )
+    {
+        if ( StringUtils.isNotBlank( strExtenderType ) )
+        {
+            return getKey(  ).equals( strExtenderType );
+        }
+
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getContent( String strIdExtendableResource, String strExtendableResourceType, String strParameters,
+        HttpServletRequest request )
+    {
+        return getResourceExtenderComponent(  )
+                   .getPageAddOn( strIdExtendableResource, strExtendableResourceType, strParameters, request );
+    }
+
+    /**
+     * Get at once the contents of several resources of a type, as a listing
+     * page does, rather than calling
+     * {@link #getContent(String, String, String, HttpServletRequest)} for
+     * each of them. The extender markers parsed by the extend plugin still
+     * go through getContent one by one : a listing gets the batch render by
+     * calling this method itself.
+     * @param listIdExtendableResources the ids of the extendable resources
+     * @param strExtendableResourceType the extendable resource type
+     * @param strParameters the parameters, the same for all the resources
+     * @param request the HTTP request
+     * @return the contents keyed on the id of their resource, in the order of
+     *         the given ids
+     */
+    public Map<String, String> getContents( Collection<String> listIdExtendableResources,
+        String strExtendableResourceType, String strParameters, HttpServletRequest request )
+    {
+        return ( (RatingResourceExtenderComponent) getResourceExtenderComponent(  ) ).getPageAddOns( listIdExtendableResources,
+            strExtendableResourceType, strParameters, request );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void doCreateResourceAddOn( ResourceExtenderDTO extender )
+    {
+        // Default values
+        RatingExtenderConfig config = new RatingExtenderConfig(  );
+        config.setIdExtender( extender.getIdExtender(  ) );
+
+        RatingExtenderConfig defaultConfig = _configService.find( -1 );
+
+        if ( defaultConfig != null )
+        {
+            config.setIdMailingList( defaultConfig.getIdMailingList(  ) );
+            config.setIdVoteType( defaultConfig.getIdVoteType(  ) );
+            config.setNbDaysToVote( defaultConfig.getNbDaysToVote(  ) );
+            config.setUniqueVote( defaultConfig.isUniqueVote(  ) );
+        }
+
+        _configService.create( config );
+        _ratingConfigCacheService.removeAll(  );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void doDeleteResourceAddOn( ResourceExtenderDTO extender )
+    {
+        if ( extender.getIdExtender(  ) > 0 )
+        {
+            _configService.remove( extender.getIdExtender(  ) );
+        }
+
+        _ratingConfigCacheService.removeAll(  );
+
+        _ratingService.removeByResource( extender.getIdExtendableResource(  ), extender.getExtendableResourceType(  ) );
+        _ratingHistoryService.removeByResource( extender.getIdExtendableResource(  ),
+            extender.getExtendableResourceType(  ) );
+        _ratingVoterService.removeByResource( extender.getIdExtendableResource(  ),
+            extender.getExtendableResourceType(  ) );
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2002-2014, Mairie de Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.extend.modules.rating.service.importer;
+
+import fr.paris.lutece.plugins.extend.modules.rating.service.RatingPlugin;
+import fr.paris.lutece.plugins.extend.modules.rating.service.ingestion.VoteCommand;
+
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.Reader;
+
+import java.util.List;
+
+
+/**
+ * IRatingVoteImportService.
+ */
+public interface IRatingVoteImportService
+{
+    /** The CSV format. */
+    String FORMAT_CSV = "csv";
+
+    /** The JSON format. */
+    String FORMAT_JSON = "json";
+
+    /**
+     * Import votes from a stream. The votes are read and written by batches,
+     * the counters of the ratings are updated once per resource at the end of
+     * the import, in transactions grouping the resources of a lock stripe.
+     * Invalid votes are logged and skipped.
+     * @param reader the reader of the votes
+     * @param strFormat the format of the votes : {@link #FORMAT_CSV} or
+     *            {@link #FORMAT_JSON}
+     * @return the number of imported votes
+     * @throws IOException if the votes cannot be read
+     */
+    int importVotes( Reader reader, String strFormat )
+        throws IOException;
+
+    /**
+     * Write the histories of a batch of imported votes
+     * @param listVoteCommands the votes
+     */
+    @Transactional( RatingPlugin.TRANSACTION_MANAGER )
+    void importBatch( List<VoteCommand> listVoteCommands );
+}
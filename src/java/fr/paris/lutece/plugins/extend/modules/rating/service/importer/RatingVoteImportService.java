@@ -0,0 +1,541 @@
+/*
+ * Copyright (c) 2002-2014, Mairie de Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.extend.modules.rating.service.importer;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import au.com.bytecode.opencsv.CSVReader;
+
+import fr.paris.lutece.plugins.extend.business.extender.history.ResourceExtenderHistory;
+import fr.paris.lutece.plugins.extend.modules.rating.business.Rating;
+import fr.paris.lutece.plugins.extend.modules.rating.business.RatingHistory;
+import fr.paris.lutece.plugins.extend.modules.rating.business.type.VoteType;
+import fr.paris.lutece.plugins.extend.modules.rating.business.voter.RatingVoter;
+import fr.paris.lutece.plugins.extend.modules.rating.service.IRatingHistoryService;
+import fr.paris.lutece.plugins.extend.modules.rating.service.IRatingService;
+import fr.paris.lutece.plugins.extend.modules.rating.service.RatingService;
+import fr.paris.lutece.plugins.extend.modules.rating.service.extender.RatingResourceExtender;
+import fr.paris.lutece.plugins.extend.modules.rating.service.ingestion.VoteCommand;
+import fr.paris.lutece.plugins.extend.modules.rating.service.lock.RatingLockService;
+import fr.paris.lutece.plugins.extend.modules.rating.service.voter.IRatingVoterService;
+import fr.paris.lutece.portal.service.spring.SpringContextService;
+import fr.paris.lutece.portal.service.util.AppLogService;
+import fr.paris.lutece.portal.service.util.AppPropertiesService;
+
+import org.apache.commons.lang.StringUtils;
+
+import java.io.IOException;
+import java.io.Reader;
+
+import java.sql.Timestamp;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import javax.inject.Inject;
+
+
+/**
+ *
+ * RatingVoteImportService : bulk import of votes, for instance from another
+ * polling system. The votes are streamed, so the memory used only depends on
+ * the size of a batch and on the number of rated resources.
+ * <br />
+ * A CSV line holds the columns
+ * <code>resource_type,id_resource,user_guid,ip_address,vote_value,date_vote</code>
+ * , the first record is skipped if it is this header. The fields may be
+ * quoted as described by RFC 4180. A JSON file is an array (or a sequence) of
+ * objects with the same keys. The date is either a timestamp
+ * <code>yyyy-mm-dd hh:mm:ss</code> or a number of milliseconds since the
+ * epoch.
+ * <br />
+ * The extender histories are written in bulk, with ids reserved above the
+ * ones given by plugin-extend, so the import may run while the extenders are
+ * used. A vote whose value is not a vote value of the vote type of its
+ * resource is skipped.
+ *
+ */
+public class RatingVoteImportService implements IRatingVoteImportService
+{
+    /** The Constant BEAN_SERVICE. */
+    public static final String BEAN_SERVICE = "extend-rating.ratingVoteImportService";
+    private static final String PROPERTY_BATCH_SIZE = "extend-rating.import.batchSize";
+    private static final int DEFAULT_BATCH_SIZE = 1000;
+    private static final String KEY_RESOURCE_TYPE = "resource_type";
+    private static final String KEY_ID_RESOURCE = "id_resource";
+    private static final String KEY_USER_GUID = "user_guid";
+    private static final String KEY_IP_ADDRESS = "ip_address";
+    private static final String KEY_VOTE_VALUE = "vote_value";
+    private static final String KEY_DATE_VOTE = "date_vote";
+    private static final char CSV_SEPARATOR = ',';
+    private static final int CSV_COLUMNS = 6;
+    private static final String KEY_SEPARATOR = "|";
+    @Inject
+    private IRatingHistoryService _ratingHistoryService;
+    @Inject
+    private IRatingVoterService _ratingVoterService;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int importVotes( Reader reader, String strFormat )
+        throws IOException
+    {
+        VoteReader voteReader = FORMAT_JSON.equals( strFormat ) ? new JsonVoteReader( reader )
+                                                                : new CsvVoteReader( reader );
+
+        // Transactions are only applied through the Spring proxy of the service
+        IRatingVoteImportService importService = SpringContextService.getBean( BEAN_SERVICE );
+        IRatingService ratingService = SpringContextService.getBean( RatingService.BEAN_SERVICE );
+        int nBatchSize = Math.max( 1, AppPropertiesService.getPropertyInt( PROPERTY_BATCH_SIZE, DEFAULT_BATCH_SIZE ) );
+        List<VoteCommand> listVoteCommands = new ArrayList<VoteCommand>( nBatchSize );
+        Map<String, Rating> mapDeltas = new HashMap<String, Rating>(  );
+        int nImportedCount = 0;
+        int nSkippedCount = 0;
+
+        try
+        {
+            while ( voteReader.hasNext(  ) )
+            {
+                VoteCommand voteCommand;
+
+                try
+                {
+                    voteCommand = voteReader.next(  );
+                }
+                catch ( IllegalArgumentException e )
+                {
+                    nSkippedCount++;
+                    AppLogService.error( "Invalid vote skipped by the import : " + e.getMessage(  ) );
+
+                    continue;
+                }
+
+                VoteType voteType = ratingService.findVoteType( voteCommand.getIdExtendableResource(  ),
+                        voteCommand.getExtendableResourceType(  ) );
+
+                if ( ( voteType != null ) && !voteType.isValidVoteValue( voteCommand.getVoteValue(  ) ) )
+                {
+                    nSkippedCount++;
+                    AppLogService.error( "Invalid vote skipped by the import : vote value " +
+                        voteCommand.getVoteValue(  ) + " out of the range of the vote type " + voteType.getTitle(  ) +
+                        " for " + voteCommand.getExtendableResourceType(  ) + " " +
+                        voteCommand.getIdExtendableResource(  ) );
+
+                    continue;
+                }
+
+                listVoteCommands.add( voteCommand );
+
+                if ( listVoteCommands.size(  ) == nBatchSize )
+                {
+                    nImportedCount += writeBatch( importService, listVoteCommands, mapDeltas );
+                }
+            }
+
+            nImportedCount += writeBatch( importService, listVoteCommands, mapDeltas );
+        }
+        finally
+        {
+            // The counters of the batches already written are updated even if the import failed
+            addDeltas( ratingService, mapDeltas.values(  ), nBatchSize );
+
+            AppLogService.info( "Import of votes : " + nImportedCount + " votes imported, " + nSkippedCount +
+                " votes skipped" );
+        }
+
+        return nImportedCount;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void importBatch( List<VoteCommand> listVoteCommands )
+    {
+        List<ResourceExtenderHistory> listHistories = new ArrayList<ResourceExtenderHistory>( listVoteCommands.size(  ) );
+
+        for ( VoteCommand voteCommand : listVoteCommands )
+        {
+            ResourceExtenderHistory history = new ResourceExtenderHistory(  );
+            history.setExtenderType( RatingResourceExtender.RESOURCE_EXTENDER );
+            history.setIdExtendableResource( voteCommand.getIdExtendableResource(  ) );
+            history.setExtendableResourceType( voteCommand.getExtendableResourceType(  ) );
+            history.setUserGuid( voteCommand.getUserGuid(  ) );
+            history.setIpAddress( voteCommand.getIpAddress(  ) );
+            history.setDateCreation( voteCommand.getDateVote(  ) );
+            listHistories.add( history );
+        }
+
+        _ratingHistoryService.createExtenderHistories( listHistories );
+
+        List<RatingHistory> listRatingHistories = new ArrayList<RatingHistory>( listVoteCommands.size(  ) );
+
+        for ( int i = 0; i < listVoteCommands.size(  ); i++ )
+        {
+            RatingHistory ratingHistory = new RatingHistory(  );
+            ratingHistory.setIdExtenderHistory( listHistories.get( i ).getIdHistory(  ) );
+            ratingHistory.setVoteValue( listVoteCommands.get( i ).getVoteValue(  ) );
+            listRatingHistories.add( ratingHistory );
+        }
+
+        _ratingHistoryService.create( listRatingHistories );
+
+        // The votes of a voter on a resource are recorded once per batch
+        Map<String, RatingVoter> mapVoters = new HashMap<String, RatingVoter>(  );
+
+        for ( VoteCommand voteCommand : listVoteCommands )
+        {
+            String strVoterKey = _ratingVoterService.getVoterKey( voteCommand.getUserGuid(  ),
+                    voteCommand.getIpAddress(  ) );
+            String strKey = voteCommand.getExtendableResourceType(  ) + KEY_SEPARATOR +
+                voteCommand.getIdExtendableResource(  ) + KEY_SEPARATOR + strVoterKey;
+            RatingVoter voter = mapVoters.get( strKey );
+
+            if ( voter == null )
+            {
+                voter = new RatingVoter(  );
+                voter.setIdExtendableResource( voteCommand.getIdExtendableResource(  ) );
+                voter.setExtendableResourceType( voteCommand.getExtendableResourceType(  ) );
+                voter.setVoterKey( strVoterKey );
+                mapVoters.put( strKey, voter );
+            }
+
+            voter.setVoteCount( voter.getVoteCount(  ) + 1 );
+
+            if ( ( voter.getDateLastVote(  ) == null ) || !voteCommand.getDateVote(  ).before( voter.getDateLastVote(  ) ) )
+            {
+                voter.setLastVoteValue( voteCommand.getVoteValue(  ) );
+                voter.setDateLastVote( voteCommand.getDateVote(  ) );
+            }
+        }
+
+        for ( RatingVoter voter : mapVoters.values(  ) )
+        {
+            _ratingVoterService.addVotes( voter );
+        }
+    }
+
+    /**
+     * Add the deltas of the imported votes to the counters of the ratings.
+     * The deltas are grouped by stripe and committed in chunks, so that a
+     * transaction only locks the rows of a few resources and the votes on the
+     * other resources are not held up.
+     * @param ratingService the rating service
+     * @param listRatingDeltas the deltas of the resources
+     * @param nChunkSize the maximum number of deltas of a transaction
+     */
+    private static void addDeltas( IRatingService ratingService, Collection<Rating> listRatingDeltas, int nChunkSize )
+    {
+        Map<Integer, List<Rating>> mapGroups = new TreeMap<Integer, List<Rating>>(  );
+
+        for ( Rating ratingDelta : listRatingDeltas )
+        {
+            Integer nStripe = RatingLockService.getStripe( ratingDelta.getIdExtendableResource(  ),
+                    ratingDelta.getExtendableResourceType(  ) );
+            List<Rating> listGroup = mapGroups.get( nStripe );
+
+            if ( listGroup == null )
+            {
+                listGroup = new ArrayList<Rating>(  );
+                mapGroups.put( nStripe, listGroup );
+            }
+
+            listGroup.add( ratingDelta );
+        }
+
+        for ( List<Rating> listGroup : mapGroups.values(  ) )
+        {
+            for ( int nStart = 0; nStart < listGroup.size(  ); nStart += nChunkSize )
+            {
+                List<Rating> listChunk = listGroup.subList( nStart, Math.min( nStart + nChunkSize, listGroup.size(  ) ) );
+
+                try
+                {
+                    ratingService.doAddDeltas( listChunk );
+                }
+                catch ( RuntimeException e )
+                {
+                    // The other chunks are still written
+                    for ( Rating ratingDelta : listChunk )
+                    {
+                        AppLogService.error( "Unable to update the rating of the imported resource " +
+                            ratingDelta.getExtendableResourceType(  ) + " " + ratingDelta.getIdExtendableResource(  ) +
+                            " : " + e.getMessage(  ), e );
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Write a batch of votes, then add them to the deltas of the resources
+     * @param importService the proxy of the import service
+     * @param listVoteCommands the votes of the batch, cleared once written
+     * @param mapDeltas the deltas of the resources
+     * @return the number of written votes
+     */
+    private static int writeBatch( IRatingVoteImportService importService, List<VoteCommand> listVoteCommands,
+        Map<String, Rating> mapDeltas )
+    {
+        if ( listVoteCommands.isEmpty(  ) )
+        {
+            return 0;
+        }
+
+        importService.importBatch( listVoteCommands );
+
+        for ( VoteCommand voteCommand : listVoteCommands )
+        {
+            String strKey = voteCommand.getExtendableResourceType(  ) + KEY_SEPARATOR +
+                voteCommand.getIdExtendableResource(  );
+            Rating ratingVote = RatingService.createDelta( voteCommand.getIdExtendableResource(  ),
+                    voteCommand.getExtendableResourceType(  ), voteCommand.getVoteValue(  ), 1 );
+            Rating ratingDelta = mapDeltas.get( strKey );
+
+            if ( ratingDelta == null )
+            {
+                mapDeltas.put( strKey, ratingVote );
+            }
+            else
+            {
+                ratingDelta.setVoteCount( ratingDelta.getVoteCount(  ) + ratingVote.getVoteCount(  ) );
+                ratingDelta.setScoreValue( ratingDelta.getScoreValue(  ) + ratingVote.getScoreValue(  ) );
+                ratingDelta.setScorePositifsVotes( ratingDelta.getScorePositifsVotes(  ) +
+                    ratingVote.getScorePositifsVotes(  ) );
+                ratingDelta.setScoreNegativesVotes( ratingDelta.getScoreNegativesVotes(  ) +
+                    ratingVote.getScoreNegativesVotes(  ) );
+            }
+        }
+
+        int nCount = listVoteCommands.size(  );
+        listVoteCommands.clear(  );
+
+        return nCount;
+    }
+
+    /**
+     * Build a vote from its values
+     * @param strResourceType the resource type
+     * @param strIdResource the id of the resource
+     * @param strUserGuid the guid of the voter, may be empty
+     * @param strIpAddress the IP address of the voter, may be empty
+     * @param strVoteValue the vote value
+     * @param strDateVote the date of the vote
+     * @return the vote
+     * @throws IllegalArgumentException if a value is invalid
+     */
+    private static VoteCommand createVoteCommand( String strResourceType, String strIdResource, String strUserGuid,
+        String strIpAddress, String strVoteValue, String strDateVote )
+    {
+        if ( StringUtils.isBlank( strResourceType ) || StringUtils.isBlank( strIdResource ) ||
+                StringUtils.isBlank( strVoteValue ) )
+        {
+            throw new IllegalArgumentException( "missing resource or vote value for " + strResourceType + " " +
+                strIdResource );
+        }
+
+        VoteCommand voteCommand = new VoteCommand(  );
+        voteCommand.setExtendableResourceType( strResourceType.trim(  ) );
+        voteCommand.setIdExtendableResource( strIdResource.trim(  ) );
+        voteCommand.setUserGuid( StringUtils.trimToEmpty( strUserGuid ) );
+        voteCommand.setIpAddress( StringUtils.trimToEmpty( strIpAddress ) );
+        voteCommand.setVoteValue( Double.parseDouble( strVoteValue.trim(  ) ) );
+
+        if ( Double.isNaN( voteCommand.getVoteValue(  ) ) || Double.isInfinite( voteCommand.getVoteValue(  ) ) )
+        {
+            throw new IllegalArgumentException( "invalid vote value " + strVoteValue + " for " + strResourceType +
+                " " + strIdResource );
+        }
+
+        if ( StringUtils.isBlank( strDateVote ) )
+        {
+            voteCommand.setDateVote( new Timestamp( System.currentTimeMillis(  ) ) );
+        }
+        else if ( StringUtils.isNumeric( strDateVote.trim(  ) ) )
+        {
+            voteCommand.setDateVote( new Timestamp( Long.parseLong( strDateVote.trim(  ) ) ) );
+        }
+        else
+        {
+            voteCommand.setDateVote( Timestamp.valueOf( strDateVote.trim(  ) ) );
+        }
+
+        return voteCommand;
+    }
+
+    /**
+     * Reader of the votes of an import file
+     */
+    private interface VoteReader
+    {
+        /**
+         * Check if there are votes left
+         * @return true if there is another vote
+         * @throws IOException if the file cannot be read
+         */
+        boolean hasNext(  ) throws IOException;
+
+        /**
+         * Read the next vote
+         * @return the vote
+         * @throws IOException if the file cannot be read
+         * @throws IllegalArgumentException if the vote is invalid
+         */
+        VoteCommand next(  ) throws IOException;
+    }
+
+    /**
+     * Reader of the votes of a CSV file. Quoted fields may hold separators,
+     * quotes written twice and line breaks.
+     */
+    private static final class CsvVoteReader implements VoteReader
+    {
+        private final CSVReader _reader;
+        private String[] _record;
+        private boolean _bFirstRecord = true;
+
+        /**
+         * Constructor
+         * @param reader the reader of the file
+         */
+        CsvVoteReader( Reader reader )
+        {
+            _reader = new CSVReader( reader, CSV_SEPARATOR );
+        }
+
+        @Override
+        public boolean hasNext(  ) throws IOException
+        {
+            while ( _record == null )
+            {
+                String[] record = _reader.readNext(  );
+
+                if ( record == null )
+                {
+                    return false;
+                }
+
+                boolean bHeader = _bFirstRecord && KEY_RESOURCE_TYPE.equals( record[0].trim(  ) );
+                _bFirstRecord = false;
+
+                // An empty line is read as a single empty field
+                if ( !bHeader && ( ( record.length > 1 ) || StringUtils.isNotBlank( record[0] ) ) )
+                {
+                    _record = record;
+                }
+            }
+
+            return true;
+        }
+
+        @Override
+        public VoteCommand next(  ) throws IOException
+        {
+            String[] columns = _record;
+            _record = null;
+
+            if ( columns.length != CSV_COLUMNS )
+            {
+                throw new IllegalArgumentException( "wrong number of columns in record " +
+                    StringUtils.join( columns, CSV_SEPARATOR ) );
+            }
+
+            try
+            {
+                return createVoteCommand( columns[0], columns[1], columns[2], columns[3], columns[4], columns[5] );
+            }
+            catch ( IllegalArgumentException e )
+            {
+                throw new IllegalArgumentException( e.getMessage(  ) + " in record " +
+                    StringUtils.join( columns, CSV_SEPARATOR ), e );
+            }
+        }
+    }
+
+    /**
+     * Reader of the votes of a JSON file
+     */
+    private static final class JsonVoteReader implements VoteReader
+    {
+        private final MappingIterator<ObjectNode> _iterator;
+
+        /**
+         * Constructor
+         * @param reader the reader of the file
+         * @throws IOException if the file cannot be read
+         */
+        JsonVoteReader( Reader reader ) throws IOException
+        {
+            _iterator = new ObjectMapper(  ).reader( ObjectNode.class ).readValues( reader );
+        }
+
+        @Override
+        public boolean hasNext(  ) throws IOException
+        {
+            return _iterator.hasNextValue(  );
+        }
+
+        @Override
+        public VoteCommand next(  ) throws IOException
+        {
+            ObjectNode node = _iterator.nextValue(  );
+
+            return createVoteCommand( getText( node, KEY_RESOURCE_TYPE ), getText( node, KEY_ID_RESOURCE ),
+                getText( node, KEY_USER_GUID ), getText( node, KEY_IP_ADDRESS ), getText( node, KEY_VOTE_VALUE ),
+                getText( node, KEY_DATE_VOTE ) );
+        }
+
+        /**
+         * Get the text of a field of a JSON object
+         * @param node the JSON object
+         * @param strKey the key of the field
+         * @return the text of the field, or null if it is missing
+         */
+        private static String getText( ObjectNode node, String strKey )
+        {
+            JsonNode field = node.get( strKey );
+
+            return ( ( field == null ) || field.isNull(  ) ) ? null : field.asText(  );
+        }
+    }
+}
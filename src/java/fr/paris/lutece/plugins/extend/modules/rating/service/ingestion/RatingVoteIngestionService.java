@@ -0,0 +1,454 @@
+/*
+ * Copyright (c) 2002-2014, Mairie de Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.extend.modules.rating.service.ingestion;
+
+import fr.paris.lutece.plugins.extend.modules.rating.service.IRatingService;
+import fr.paris.lutece.plugins.extend.modules.rating.service.lock.RatingLockService;
+import fr.paris.lutece.portal.service.security.LuteceUser;
+import fr.paris.lutece.portal.service.security.SecurityService;
+import fr.paris.lutece.portal.service.util.AppLogService;
+import fr.paris.lutece.portal.service.util.AppPropertiesService;
+
+import java.sql.Timestamp;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.inject.Inject;
+
+import javax.servlet.http.HttpServletRequest;
+
+
+/**
+ *
+ * RatingVoteIngestionService : asynchronous processing of the votes. The
+ * front office only validates a vote, counts it in the votes of its voter and
+ * puts it in a bounded queue. Worker threads drain the queue by batches and
+ * process the votes of each stripe of a batch in a single transaction.
+ * The figures of the queue are logged periodically.
+ *
+ */
+public class RatingVoteIngestionService
+{
+    /** The Constant BEAN_SERVICE. */
+    public static final String BEAN_SERVICE = "extend-rating.ratingVoteIngestionService";
+    private static final String PROPERTY_ENABLED = "extend-rating.asyncVote.enabled";
+    private static final String PROPERTY_QUEUE_CAPACITY = "extend-rating.asyncVote.queueCapacity";
+    private static final String PROPERTY_WORKERS = "extend-rating.asyncVote.workers";
+    private static final String PROPERTY_BATCH_SIZE = "extend-rating.asyncVote.batchSize";
+    private static final String PROPERTY_STATISTICS_INTERVAL = "extend-rating.asyncVote.statisticsInterval";
+    private static final int DEFAULT_QUEUE_CAPACITY = 10000;
+    private static final int DEFAULT_WORKERS = 2;
+    private static final int DEFAULT_BATCH_SIZE = 100;
+    private static final int DEFAULT_STATISTICS_INTERVAL = 60000;
+    private static final long POLL_TIMEOUT = 1000;
+    private static final String THREAD_NAME = "extend-rating-vote-worker-";
+    private final AtomicLong _lSubmittedCount = new AtomicLong(  );
+    private final AtomicLong _lRejectedCount = new AtomicLong(  );
+    private final AtomicLong _lProcessedCount = new AtomicLong(  );
+    private final AtomicLong _lFailedCount = new AtomicLong(  );
+    private final AtomicLong _lLastStatisticsTime = new AtomicLong(  );
+    private final List<Thread> _listWorkers = new ArrayList<Thread>(  );
+    private BlockingQueue<VoteCommand> _queue;
+    private int _nBatchSize;
+    private long _lStatisticsInterval;
+    private volatile boolean _bRunning;
+    @Inject
+    private IRatingService _ratingService;
+
+    /**
+     * Start the workers if the asynchronous mode is enabled
+     */
+    public void init(  )
+    {
+        if ( !AppPropertiesService.getPropertyBoolean( PROPERTY_ENABLED, false ) )
+        {
+            return;
+        }
+
+        _queue = new ArrayBlockingQueue<VoteCommand>( Math.max( 1,
+                    AppPropertiesService.getPropertyInt( PROPERTY_QUEUE_CAPACITY, DEFAULT_QUEUE_CAPACITY ) ) );
+        _nBatchSize = Math.max( 1, AppPropertiesService.getPropertyInt( PROPERTY_BATCH_SIZE, DEFAULT_BATCH_SIZE ) );
+        _lStatisticsInterval = AppPropertiesService.getPropertyInt( PROPERTY_STATISTICS_INTERVAL,
+                DEFAULT_STATISTICS_INTERVAL );
+        _lLastStatisticsTime.set( System.currentTimeMillis(  ) );
+        _bRunning = true;
+
+        int nWorkers = Math.max( 1, AppPropertiesService.getPropertyInt( PROPERTY_WORKERS, DEFAULT_WORKERS ) );
+
+        for ( int i = 0; i < nWorkers; i++ )
+        {
+            Thread worker = new Thread( new Runnable(  )
+                    {
+                        @Override
+                        public void run(  )
+                        {
+                            processQueue(  );
+                        }
+                    }, THREAD_NAME + i );
+            worker.setDaemon( true );
+            worker.start(  );
+            _listWorkers.add( worker );
+        }
+    }
+
+    /**
+     * Stop the workers once the queue is empty
+     */
+    public void shutdown(  )
+    {
+        _bRunning = false;
+
+        for ( Thread worker : _listWorkers )
+        {
+            try
+            {
+                worker.join(  );
+            }
+            catch ( InterruptedException e )
+            {
+                Thread.currentThread(  ).interrupt(  );
+
+                return;
+            }
+        }
+
+        if ( _queue != null )
+        {
+            logStatistics(  );
+        }
+    }
+
+    /**
+     * Check if the asynchronous mode is enabled
+     * @return true if the votes are processed by the workers
+     */
+    public boolean isEnabled(  )
+    {
+        return _queue != null;
+    }
+
+    /**
+     * Put a vote in the queue. The vote is first counted in the votes of its
+     * voter, so that a second vote sent before it is processed is refused by
+     * the eligibility checks. The vote is refused if the asynchronous mode is
+     * disabled or if the queue is full, the caller must then process it
+     * itself.
+     * @param strIdExtendableResource the id of the extendable resource
+     * @param strExtendableResourceType the extendable resource type
+     * @param dVoteValue the vote value
+     * @param request the request of the voter
+     * @return true if the vote has been queued, false otherwise
+     */
+    public boolean submit( String strIdExtendableResource, String strExtendableResourceType, double dVoteValue,
+        HttpServletRequest request )
+    {
+        if ( !_bRunning )
+        {
+            return false;
+        }
+
+        if ( _queue.remainingCapacity(  ) == 0 )
+        {
+            // Backpressure : the queue is full
+            _lRejectedCount.incrementAndGet(  );
+
+            return false;
+        }
+
+        VoteCommand voteCommand = new VoteCommand(  );
+        voteCommand.setIdExtendableResource( strIdExtendableResource );
+        voteCommand.setExtendableResourceType( strExtendableResourceType );
+        voteCommand.setVoteValue( dVoteValue );
+        voteCommand.setIpAddress( request.getRemoteAddr(  ) );
+        voteCommand.setDateVote( new Timestamp( System.currentTimeMillis(  ) ) );
+
+        if ( SecurityService.isAuthenticationEnable(  ) )
+        {
+            LuteceUser user = SecurityService.getInstance(  ).getRegisteredUser( request );
+
+            if ( user != null )
+            {
+                voteCommand.setUserGuid( user.getName(  ) );
+            }
+        }
+
+        _ratingService.addVoterVote( voteCommand );
+
+        if ( _queue.offer( voteCommand ) )
+        {
+            _lSubmittedCount.incrementAndGet(  );
+
+            return true;
+        }
+
+        // The queue has been filled in the meantime : the vote, already counted for its voter, is processed now
+        _lRejectedCount.incrementAndGet(  );
+
+        try
+        {
+            _ratingService.doVotes( Collections.singletonList( voteCommand ) );
+        }
+        catch ( RuntimeException e )
+        {
+            _ratingService.removeVoterVote( voteCommand );
+
+            throw e;
+        }
+
+        return true;
+    }
+
+    /**
+     * Get the number of votes waiting in the queue
+     * @return the queue depth
+     */
+    public int getQueueDepth(  )
+    {
+        return ( _queue != null ) ? _queue.size(  ) : 0;
+    }
+
+    /**
+     * Get the number of votes that can still be queued
+     * @return the remaining capacity of the queue
+     */
+    public int getQueueRemainingCapacity(  )
+    {
+        return ( _queue != null ) ? _queue.remainingCapacity(  ) : 0;
+    }
+
+    /**
+     * Get the number of votes queued since the start
+     * @return the number of queued votes
+     */
+    public long getSubmittedCount(  )
+    {
+        return _lSubmittedCount.get(  );
+    }
+
+    /**
+     * Get the number of votes refused because the queue was full. These votes
+     * have been processed synchronously.
+     * @return the number of refused votes
+     */
+    public long getRejectedCount(  )
+    {
+        return _lRejectedCount.get(  );
+    }
+
+    /**
+     * Get the number of votes processed by the workers
+     * @return the number of processed votes
+     */
+    public long getProcessedCount(  )
+    {
+        return _lProcessedCount.get(  );
+    }
+
+    /**
+     * Get the number of votes the workers failed to process
+     * @return the number of failed votes
+     */
+    public long getFailedCount(  )
+    {
+        return _lFailedCount.get(  );
+    }
+
+    /**
+     * Drain the queue until the service is stopped and the queue is empty
+     */
+    private void processQueue(  )
+    {
+        List<VoteCommand> listVoteCommands = new ArrayList<VoteCommand>( _nBatchSize );
+
+        while ( _bRunning || !_queue.isEmpty(  ) )
+        {
+            try
+            {
+                logStatisticsIfDue(  );
+
+                VoteCommand voteCommand = _queue.poll( POLL_TIMEOUT, TimeUnit.MILLISECONDS );
+
+                if ( voteCommand == null )
+                {
+                    continue;
+                }
+
+                listVoteCommands.add( voteCommand );
+                _queue.drainTo( listVoteCommands, _nBatchSize - 1 );
+                processBatch( listVoteCommands );
+            }
+            catch ( InterruptedException e )
+            {
+                Thread.currentThread(  ).interrupt(  );
+
+                return;
+            }
+            finally
+            {
+                listVoteCommands.clear(  );
+            }
+        }
+    }
+
+    /**
+     * Process a batch of votes. The votes are grouped by stripe and each
+     * group is committed on its own, so that a transaction only locks the
+     * rows of a few resources and does not hold up the votes on the others.
+     * @param listVoteCommands the votes
+     */
+    private void processBatch( List<VoteCommand> listVoteCommands )
+    {
+        Map<Integer, List<VoteCommand>> mapGroups = new TreeMap<Integer, List<VoteCommand>>(  );
+
+        for ( VoteCommand voteCommand : listVoteCommands )
+        {
+            Integer nStripe = RatingLockService.getStripe( voteCommand.getIdExtendableResource(  ),
+                    voteCommand.getExtendableResourceType(  ) );
+            List<VoteCommand> listGroup = mapGroups.get( nStripe );
+
+            if ( listGroup == null )
+            {
+                listGroup = new ArrayList<VoteCommand>(  );
+                mapGroups.put( nStripe, listGroup );
+            }
+
+            listGroup.add( voteCommand );
+        }
+
+        for ( List<VoteCommand> listGroup : mapGroups.values(  ) )
+        {
+            processGroup( listGroup );
+        }
+    }
+
+    /**
+     * Process the votes of a stripe in one transaction. If the
+     * transaction fails, the votes are processed one by one so that a single
+     * faulty vote does not discard the whole group. A vote that still fails is
+     * taken back from the votes of its voter.
+     * @param listVoteCommands the votes
+     */
+    private void processGroup( List<VoteCommand> listVoteCommands )
+    {
+        try
+        {
+            _ratingService.doVotes( listVoteCommands );
+            _lProcessedCount.addAndGet( listVoteCommands.size(  ) );
+        }
+        catch ( RuntimeException e )
+        {
+            AppLogService.error( "Unable to process a batch of votes : " + e.getMessage(  ), e );
+
+            for ( VoteCommand voteCommand : listVoteCommands )
+            {
+                try
+                {
+                    _ratingService.doVotes( Collections.singletonList( voteCommand ) );
+                    _lProcessedCount.incrementAndGet(  );
+                }
+                catch ( RuntimeException ex )
+                {
+                    _lFailedCount.incrementAndGet(  );
+                    AppLogService.error( "Unable to process the vote on the resource " +
+                        voteCommand.getExtendableResourceType(  ) + " " + voteCommand.getIdExtendableResource(  ) +
+                        " : " + ex.getMessage(  ), ex );
+                    takeBackVoterVote( voteCommand );
+                }
+            }
+        }
+    }
+
+    /**
+     * Take back a vote that could not be processed from the votes of its
+     * voter, so that the voter is not refused a new vote
+     * @param voteCommand the vote
+     */
+    private void takeBackVoterVote( VoteCommand voteCommand )
+    {
+        if ( !voteCommand.isVoterRecorded(  ) )
+        {
+            return;
+        }
+
+        try
+        {
+            _ratingService.removeVoterVote( voteCommand );
+        }
+        catch ( RuntimeException e )
+        {
+            AppLogService.error( "Unable to take back the vote on the resource " +
+                voteCommand.getExtendableResourceType(  ) + " " + voteCommand.getIdExtendableResource(  ) +
+                " from its voter : " + e.getMessage(  ), e );
+        }
+    }
+
+    /**
+     * Log the figures of the queue if the interval since the last log has
+     * elapsed. Only one worker logs them.
+     */
+    private void logStatisticsIfDue(  )
+    {
+        if ( _lStatisticsInterval <= 0 )
+        {
+            return;
+        }
+
+        long lNow = System.currentTimeMillis(  );
+        long lLastTime = _lLastStatisticsTime.get(  );
+
+        if ( ( ( lNow - lLastTime ) >= _lStatisticsInterval ) &&
+                _lLastStatisticsTime.compareAndSet( lLastTime, lNow ) )
+        {
+            logStatistics(  );
+        }
+    }
+
+    /**
+     * Log the figures of the queue
+     */
+    private void logStatistics(  )
+    {
+        AppLogService.info( "Asynchronous votes : queue depth " + getQueueDepth(  ) + ", remaining capacity " +
+            getQueueRemainingCapacity(  ) + ", submitted " + getSubmittedCount(  ) + ", rejected " +
+            getRejectedCount(  ) + ", processed " + getProcessedCount(  ) + ", failed " + getFailedCount(  ) );
+    }
+}
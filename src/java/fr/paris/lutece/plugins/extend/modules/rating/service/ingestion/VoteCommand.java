@@ -0,0 +1,167 @@
+/*
+ * Copyright (c) 2002-2014, Mairie de Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.extend.modules.rating.service.ingestion;
+
+import java.sql.Timestamp;
+
+
+/**
+ *
+ * VoteCommand : a vote accepted by the front office and waiting to be
+ * processed. It holds everything the vote needs from the HTTP request.
+ *
+ */
+public class VoteCommand
+{
+    private String _strIdExtendableResource;
+    private String _strExtendableResourceType;
+    private double _dVoteValue;
+    private String _strUserGuid;
+    private String _strIpAddress;
+    private Timestamp _dateVote;
+    private boolean _bVoterRecorded;
+
+    /**
+     * @return the id of the extendable resource
+     */
+    public String getIdExtendableResource(  )
+    {
+        return _strIdExtendableResource;
+    }
+
+    /**
+     * @param strIdExtendableResource the id of the extendable resource to set
+     */
+    public void setIdExtendableResource( String strIdExtendableResource )
+    {
+        _strIdExtendableResource = strIdExtendableResource;
+    }
+
+    /**
+     * @return the extendable resource type
+     */
+    public String getExtendableResourceType(  )
+    {
+        return _strExtendableResourceType;
+    }
+
+    /**
+     * @param strExtendableResourceType the extendable resource type to set
+     */
+    public void setExtendableResourceType( String strExtendableResourceType )
+    {
+        _strExtendableResourceType = strExtendableResourceType;
+    }
+
+    /**
+     * @return the vote value
+     */
+    public double getVoteValue(  )
+    {
+        return _dVoteValue;
+    }
+
+    /**
+     * @param dVoteValue the vote value to set
+     */
+    public void setVoteValue( double dVoteValue )
+    {
+        _dVoteValue = dVoteValue;
+    }
+
+    /**
+     * @return the guid of the user, or null for an anonymous vote
+     */
+    public String getUserGuid(  )
+    {
+        return _strUserGuid;
+    }
+
+    /**
+     * @param strUserGuid the guid of the user to set
+     */
+    public void setUserGuid( String strUserGuid )
+    {
+        _strUserGuid = strUserGuid;
+    }
+
+    /**
+     * @return the IP address of the voter
+     */
+    public String getIpAddress(  )
+    {
+        return _strIpAddress;
+    }
+
+    /**
+     * @param strIpAddress the IP address of the voter to set
+     */
+    public void setIpAddress( String strIpAddress )
+    {
+        _strIpAddress = strIpAddress;
+    }
+
+    /**
+     * @return the date of the vote
+     */
+    public Timestamp getDateVote(  )
+    {
+        return _dateVote;
+    }
+
+    /**
+     * @param dateVote the date of the vote to set
+     */
+    public void setDateVote( Timestamp dateVote )
+    {
+        _dateVote = dateVote;
+    }
+
+    /**
+     * @return true if the vote is already counted in the votes of its voter
+     */
+    public boolean isVoterRecorded(  )
+    {
+        return _bVoterRecorded;
+    }
+
+    /**
+     * @param bVoterRecorded true if the vote is already counted in the votes
+     *            of its voter
+     */
+    public void setVoterRecorded( boolean bVoterRecorded )
+    {
+        _bVoterRecorded = bVoterRecorded;
+    }
+}
@@ -0,0 +1,484 @@
+/*
+ * Copyright (c) 2002-2014, Mairie de Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.extend.modules.rating.service.leaderboard;
+
+import fr.paris.lutece.plugins.extend.modules.rating.business.BayesianPrior;
+import fr.paris.lutece.plugins.extend.modules.rating.business.IRatingDAO;
+import fr.paris.lutece.plugins.extend.modules.rating.business.Rating;
+import fr.paris.lutece.plugins.extend.modules.rating.business.RatingMetric;
+import fr.paris.lutece.plugins.extend.modules.rating.service.RatingPlugin;
+import fr.paris.lutece.portal.service.init.StartUpService;
+import fr.paris.lutece.portal.service.util.AppLogService;
+import fr.paris.lutece.portal.service.util.AppPropertiesService;
+
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.inject.Inject;
+
+
+/**
+ *
+ * RatingLeaderboardService : the best ratings of each resource type on each
+ * metric, kept in memory. They are loaded at startup and updated in memory
+ * after each change of a rating made by this webapp, so that the "most rated"
+ * lists are read without sorting the ratings table. A list is loaded again
+ * when it does not know enough ratings any more, and when it is older than
+ * its time to live, so that the votes made by other webapps sharing the
+ * database are seen.
+ *
+ */
+public class RatingLeaderboardService implements StartUpService
+{
+    /** The Constant BEAN_SERVICE. */
+    public static final String BEAN_SERVICE = "extend-rating.ratingLeaderboardService";
+    private static final String SERVICE_NAME = "Extend Rating Leaderboard Service";
+    private static final String PROPERTY_ENABLED = "extend-rating.leaderboard.enabled";
+    private static final String PROPERTY_SIZE = "extend-rating.leaderboard.size";
+    private static final String PROPERTY_TIME_TO_LIVE = "extend-rating.leaderboard.timeToLive";
+    private static final int DEFAULT_SIZE = 100;
+    private static final int DEFAULT_TIME_TO_LIVE = 300;
+    private static final String KEY_SEPARATOR = "|";
+    private final boolean _bEnabled = AppPropertiesService.getPropertyBoolean( PROPERTY_ENABLED, true );
+    private final int _nSize = Math.max( 1, AppPropertiesService.getPropertyInt( PROPERTY_SIZE, DEFAULT_SIZE ) );
+    private final long _lTimeToLive = AppPropertiesService.getPropertyInt( PROPERTY_TIME_TO_LIVE, DEFAULT_TIME_TO_LIVE ) * 1000L;
+    private final ConcurrentMap<String, RatingTopK> _mapTopKs = new ConcurrentHashMap<String, RatingTopK>(  );
+    @Inject
+    private IRatingDAO _ratingDAO;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getName(  )
+    {
+        return SERVICE_NAME;
+    }
+
+    /**
+     * Load the best ratings of every resource type
+     */
+    @Override
+    public void process(  )
+    {
+        if ( !_bEnabled )
+        {
+            return;
+        }
+
+        long lStart = System.currentTimeMillis(  );
+        List<String> listResourceTypes = _ratingDAO.findResourceTypes( RatingPlugin.getPlugin(  ) );
+
+        for ( String strExtendableResourceType : listResourceTypes )
+        {
+            for ( RatingMetric metric : RatingMetric.values(  ) )
+            {
+                load( getTopK( strExtendableResourceType, metric ), strExtendableResourceType, metric );
+            }
+        }
+
+        AppLogService.info( "Rating leaderboards built for " + listResourceTypes.size(  ) + " resource types in " +
+            ( System.currentTimeMillis(  ) - lStart ) + " ms" );
+    }
+
+    /**
+     * Get the best ratings of a resource type on a metric
+     * @param strExtendableResourceType the extendable resource type
+     * @param metric the metric
+     * @param nItemsOffset the number of best ratings to skip
+     * @param nMaxItemsNumber the maximum number of ratings to return
+     * @return the ratings, the best first, or null if the leaderboards are
+     *         disabled or do not hold that many ratings : they must then be
+     *         read from the database. The ratings are shared and must not be
+     *         modified.
+     */
+    public List<Rating> findTop( String strExtendableResourceType, RatingMetric metric, int nItemsOffset,
+        int nMaxItemsNumber )
+    {
+        if ( !_bEnabled || ( ( nItemsOffset + nMaxItemsNumber ) > _nSize ) )
+        {
+            return null;
+        }
+
+        RatingTopK topK = getTopK( strExtendableResourceType, metric );
+        List<Rating> listRatings = null;
+
+        if ( ( System.currentTimeMillis(  ) - topK.getLoadTime(  ) ) <= _lTimeToLive )
+        {
+            listRatings = topK.getTop( nItemsOffset, nMaxItemsNumber );
+        }
+
+        if ( listRatings == null )
+        {
+            load( topK, strExtendableResourceType, metric );
+            listRatings = topK.getTop( nItemsOffset, nMaxItemsNumber );
+        }
+
+        return listRatings;
+    }
+
+    /**
+     * Update the leaderboards with the new rating of a resource, once the
+     * current transaction is committed
+     * @param rating the new rating, with its stored scores
+     */
+    public void update( Rating rating )
+    {
+        Rating ratingCopy = new Rating(  );
+        ratingCopy.setIdRating( rating.getIdRating(  ) );
+        ratingCopy.setIdExtendableResource( rating.getIdExtendableResource(  ) );
+        ratingCopy.setExtendableResourceType( rating.getExtendableResourceType(  ) );
+        ratingCopy.setVoteCount( rating.getVoteCount(  ) );
+        ratingCopy.setScoreValue( rating.getScoreValue(  ) );
+        ratingCopy.setScorePositifsVotes( rating.getScorePositifsVotes(  ) );
+        ratingCopy.setScoreNegativesVotes( rating.getScoreNegativesVotes(  ) );
+        ratingCopy.setVersion( rating.getVersion(  ) );
+        ratingCopy.setStoredAverageScore( rating.getStoredAverageScore(  ) );
+        ratingCopy.setWilsonScore( rating.getWilsonScore(  ) );
+        ratingCopy.setBayesianScore( rating.getBayesianScore(  ) );
+        addChange( new RatingChange( ratingCopy, null ) );
+    }
+
+    /**
+     * Update the leaderboards with a delta added to the counters of the
+     * rating of a resource, once the current transaction is committed. The
+     * delta is applied to the ratings held in memory : the rating is only
+     * read if the resource is not held and the delta may bring it up to the
+     * best ones.
+     * @param ratingDelta the delta
+     * @param bayesianPrior the prior the Bayesian score of the rating is
+     *            computed with
+     */
+    public void applyDelta( Rating ratingDelta, BayesianPrior bayesianPrior )
+    {
+        addChange( new RatingChange( ratingDelta, bayesianPrior ) );
+    }
+
+    /**
+     * Remove the rating of a resource from the leaderboards, once the current
+     * transaction is committed
+     * @param strIdExtendableResource the id of the extendable resource
+     * @param strExtendableResourceType the extendable resource type
+     */
+    public void remove( String strIdExtendableResource, String strExtendableResourceType )
+    {
+        // A rating without vote is not held
+        Rating rating = new Rating(  );
+        rating.setIdExtendableResource( strIdExtendableResource );
+        rating.setExtendableResourceType( strExtendableResourceType );
+        addChange( new RatingChange( rating, null ) );
+    }
+
+    /**
+     * Forget the best ratings of a resource type, once the current
+     * transaction is completed. They are loaded again when next read.
+     * @param strExtendableResourceType the extendable resource type
+     */
+    public void invalidate( final String strExtendableResourceType )
+    {
+        if ( !_bEnabled )
+        {
+            return;
+        }
+
+        invalidateTopKs( strExtendableResourceType );
+
+        if ( TransactionSynchronizationManager.isSynchronizationActive(  ) )
+        {
+            TransactionSynchronizationManager.registerSynchronization( new TransactionSynchronizationAdapter(  )
+                {
+                    @Override
+                    public void afterCompletion( int nStatus )
+                    {
+                        invalidateTopKs( strExtendableResourceType );
+                    }
+                } );
+        }
+    }
+
+    /**
+     * Apply a change to the leaderboards, once the current transaction is
+     * committed. The changes of a transaction are applied together, in order.
+     * @param change the change
+     */
+    private void addChange( RatingChange change )
+    {
+        if ( !_bEnabled )
+        {
+            return;
+        }
+
+        if ( !TransactionSynchronizationManager.isSynchronizationActive(  ) )
+        {
+            applyChanges( Collections.singletonList( change ) );
+
+            return;
+        }
+
+        @SuppressWarnings( "unchecked" )
+        List<RatingChange> listPendingChanges = (List<RatingChange>) TransactionSynchronizationManager.getResource( this );
+
+        if ( listPendingChanges == null )
+        {
+            final List<RatingChange> listChanges = new ArrayList<RatingChange>(  );
+            TransactionSynchronizationManager.bindResource( this, listChanges );
+            TransactionSynchronizationManager.registerSynchronization( new TransactionSynchronizationAdapter(  )
+                {
+                    @Override
+                    public void afterCompletion( int nStatus )
+                    {
+                        TransactionSynchronizationManager.unbindResourceIfPossible( RatingLeaderboardService.this );
+
+                        if ( nStatus == STATUS_COMMITTED )
+                        {
+                            applyChanges( listChanges );
+                        }
+                    }
+                } );
+            listPendingChanges = listChanges;
+        }
+
+        listPendingChanges.add( change );
+    }
+
+    /**
+     * Apply changes to the leaderboards. The ratings of the resources that
+     * are not held and that a delta may bring up to the best ones are read
+     * together, and replace the held ones afterwards.
+     * @param listChanges the changes
+     */
+    private void applyChanges( List<RatingChange> listChanges )
+    {
+        Map<String, Set<String>> mapResourcesToRead = new HashMap<String, Set<String>>(  );
+
+        for ( RatingChange change : listChanges )
+        {
+            Rating rating = change.getRating(  );
+
+            for ( RatingMetric metric : RatingMetric.values(  ) )
+            {
+                RatingTopK topK = _mapTopKs.get( getKey( rating.getExtendableResourceType(  ), metric ) );
+
+                if ( topK == null )
+                {
+                    continue;
+                }
+
+                if ( !change.isDelta(  ) )
+                {
+                    topK.update( rating );
+                }
+                else if ( !topK.applyDelta( rating, change.getBayesianPrior(  ) ) )
+                {
+                    addResource( mapResourcesToRead, rating.getIdExtendableResource(  ),
+                        rating.getExtendableResourceType(  ) );
+                }
+            }
+        }
+
+        for ( Entry<String, Set<String>> entry : mapResourcesToRead.entrySet(  ) )
+        {
+            for ( Rating rating : _ratingDAO.loadByResources( entry.getValue(  ), entry.getKey(  ),
+                    RatingPlugin.getPlugin(  ) ) )
+            {
+                for ( RatingMetric metric : RatingMetric.values(  ) )
+                {
+                    RatingTopK topK = _mapTopKs.get( getKey( entry.getKey(  ), metric ) );
+
+                    if ( topK != null )
+                    {
+                        topK.update( rating );
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Forget the best ratings of a resource type on every metric
+     * @param strExtendableResourceType the extendable resource type
+     */
+    private void invalidateTopKs( String strExtendableResourceType )
+    {
+        for ( RatingMetric metric : RatingMetric.values(  ) )
+        {
+            RatingTopK topK = _mapTopKs.get( getKey( strExtendableResourceType, metric ) );
+
+            if ( topK != null )
+            {
+                topK.invalidate(  );
+            }
+        }
+    }
+
+    /**
+     * Load the best ratings of a resource type on a metric from the database.
+     * Twice the size of the leaderboard is held, so that the ratings that go
+     * down do not require to load them again at once.
+     * @param topK the structure to load
+     * @param strExtendableResourceType the extendable resource type
+     * @param metric the metric
+     */
+    private void load( RatingTopK topK, String strExtendableResourceType, RatingMetric metric )
+    {
+        topK.load( _ratingDAO.loadByRanking( strExtendableResourceType, metric, 0, getCapacity(  ),
+                RatingPlugin.getPlugin(  ) ) );
+    }
+
+    /**
+     * Get the structure of the best ratings of a resource type on a metric,
+     * created empty if needed
+     * @param strExtendableResourceType the extendable resource type
+     * @param metric the metric
+     * @return the structure
+     */
+    private RatingTopK getTopK( String strExtendableResourceType, RatingMetric metric )
+    {
+        String strKey = getKey( strExtendableResourceType, metric );
+        RatingTopK topK = _mapTopKs.get( strKey );
+
+        if ( topK == null )
+        {
+            RatingTopK newTopK = new RatingTopK( metric, getCapacity(  ) );
+            topK = _mapTopKs.putIfAbsent( strKey, newTopK );
+
+            if ( topK == null )
+            {
+                topK = newTopK;
+            }
+        }
+
+        return topK;
+    }
+
+    /**
+     * Get the number of ratings held for each resource type and metric
+     * @return the number of ratings
+     */
+    private int getCapacity(  )
+    {
+        return 2 * _nSize;
+    }
+
+    /**
+     * Get the key of a structure
+     * @param strExtendableResourceType the extendable resource type
+     * @param metric the metric
+     * @return the key
+     */
+    private static String getKey( String strExtendableResourceType, RatingMetric metric )
+    {
+        return strExtendableResourceType + KEY_SEPARATOR + metric.name(  );
+    }
+
+    /**
+     * Add a resource to a set of resources keyed on their type
+     * @param mapResources the resources
+     * @param strIdExtendableResource the id of the extendable resource
+     * @param strExtendableResourceType the extendable resource type
+     */
+    private static void addResource( Map<String, Set<String>> mapResources, String strIdExtendableResource,
+        String strExtendableResourceType )
+    {
+        Set<String> setIds = mapResources.get( strExtendableResourceType );
+
+        if ( setIds == null )
+        {
+            setIds = new HashSet<String>(  );
+            mapResources.put( strExtendableResourceType, setIds );
+        }
+
+        setIds.add( strIdExtendableResource );
+    }
+
+    /**
+     * A change of the rating of a resource : its new rating, or a delta
+     * added to its counters
+     */
+    private static final class RatingChange
+    {
+        private final Rating _rating;
+        private final BayesianPrior _bayesianPrior;
+
+        /**
+         * Constructor
+         * @param rating the new rating or the delta
+         * @param bayesianPrior the prior to compute the Bayesian score with
+         *            if the rating is a delta, null if it is a new rating
+         */
+        RatingChange( Rating rating, BayesianPrior bayesianPrior )
+        {
+            _rating = rating;
+            _bayesianPrior = bayesianPrior;
+        }
+
+        /**
+         * Get the new rating or the delta
+         * @return the rating
+         */
+        Rating getRating(  )
+        {
+            return _rating;
+        }
+
+        /**
+         * Tell whether the rating is a delta
+         * @return true if the rating is a delta
+         */
+        boolean isDelta(  )
+        {
+            return _bayesianPrior != null;
+        }
+
+        /**
+         * Get the prior to compute the Bayesian score of a delta with
+         * @return the prior, or null if the rating is not a delta
+         */
+        BayesianPrior getBayesianPrior(  )
+        {
+            return _bayesianPrior;
+        }
+    }
+}
@@ -0,0 +1,339 @@
+/*
+ * Copyright (c) 2002-2014, Mairie de Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.extend.modules.rating.service.leaderboard;
+
+import fr.paris.lutece.plugins.extend.modules.rating.business.BayesianPrior;
+import fr.paris.lutece.plugins.extend.modules.rating.business.Rating;
+import fr.paris.lutece.plugins.extend.modules.rating.business.RatingMetric;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+
+/**
+ *
+ * RatingTopK : the best ratings of a resource type on a metric, kept sorted
+ * in the order of the database : the value descending, then the rating id
+ * descending. It holds at most a given number of ratings. The resources that
+ * are not held are known to come after a floor position in that order, so the
+ * held ratings up to the floor are the true best ones. When a held rating goes
+ * past the floor, or is removed, the structure may not know enough ratings
+ * any more to answer and must be loaded again.
+ *
+ */
+public class RatingTopK
+{
+    private final RatingMetric _metric;
+    private final int _nCapacity;
+    private final TreeSet<Rating> _setRatings;
+    private final Map<String, Rating> _mapRatings = new HashMap<String, Rating>(  );
+    private double _dFloor;
+    private int _nFloorIdRating;
+    private boolean _bFloor;
+    private boolean _bLoaded;
+    private long _lLoadTime;
+
+    /**
+     * Constructor
+     * @param metric the metric the ratings are ranked on
+     * @param nCapacity the maximum number of ratings held
+     */
+    public RatingTopK( final RatingMetric metric, int nCapacity )
+    {
+        _metric = metric;
+        _nCapacity = nCapacity;
+        _setRatings = new TreeSet<Rating>( new Comparator<Rating>(  )
+                {
+                    @Override
+                    public int compare( Rating rating1, Rating rating2 )
+                    {
+                        return comparePositions( metric.getValue( rating1 ), rating1.getIdRating(  ),
+                            metric.getValue( rating2 ), rating2.getIdRating(  ) );
+                    }
+                } );
+    }
+
+    /**
+     * Replace the held ratings by the best ratings of the resource type
+     * @param listRatings the best ratings of the resource type, the best
+     *            first, as many as the capacity if the type has enough ratings
+     */
+    public synchronized void load( List<Rating> listRatings )
+    {
+        _setRatings.clear(  );
+        _mapRatings.clear(  );
+
+        for ( Rating rating : listRatings )
+        {
+            _setRatings.add( rating );
+            _mapRatings.put( rating.getIdExtendableResource(  ), rating );
+        }
+
+        // If the type has fewer ratings than the capacity, all of them are held
+        if ( listRatings.size(  ) < _nCapacity )
+        {
+            _dFloor = Double.NEGATIVE_INFINITY;
+            _bFloor = false;
+        }
+        else
+        {
+            Rating lastRating = listRatings.get( listRatings.size(  ) - 1 );
+            _dFloor = _metric.getValue( lastRating );
+            _nFloorIdRating = lastRating.getIdRating(  );
+            _bFloor = true;
+        }
+
+        _bLoaded = true;
+        _lLoadTime = System.currentTimeMillis(  );
+    }
+
+    /**
+     * Get the time the ratings were last loaded
+     * @return the time in milliseconds, or 0 if they were never loaded
+     */
+    public synchronized long getLoadTime(  )
+    {
+        return _bLoaded ? _lLoadTime : 0;
+    }
+
+    /**
+     * Forget the held ratings : the structure must be loaded again
+     */
+    public synchronized void invalidate(  )
+    {
+        _setRatings.clear(  );
+        _mapRatings.clear(  );
+        _bLoaded = false;
+    }
+
+    /**
+     * Update the rating of a resource
+     * @param rating the new rating of the resource, with its scores, or a
+     *            rating without vote if it has been removed
+     */
+    public synchronized void update( Rating rating )
+    {
+        if ( !_bLoaded )
+        {
+            return;
+        }
+
+        Rating oldRating = _mapRatings.remove( rating.getIdExtendableResource(  ) );
+
+        if ( oldRating != null )
+        {
+            _setRatings.remove( oldRating );
+        }
+
+        if ( ( rating.getVoteCount(  ) <= 0 ) || isAfterFloor( _metric.getValue( rating ), rating.getIdRating(  ) ) )
+        {
+            // The resource is not held, and the floor stays before it
+            return;
+        }
+
+        _setRatings.add( rating );
+        _mapRatings.put( rating.getIdExtendableResource(  ), rating );
+
+        if ( _setRatings.size(  ) > _nCapacity )
+        {
+            Rating lastRating = _setRatings.pollLast(  );
+            _mapRatings.remove( lastRating.getIdExtendableResource(  ) );
+
+            double dValue = _metric.getValue( lastRating );
+
+            if ( !_bFloor || ( comparePositions( dValue, lastRating.getIdRating(  ), _dFloor, _nFloorIdRating ) < 0 ) )
+            {
+                // The resources that are not held now come after the dropped one
+                _dFloor = dValue;
+                _nFloorIdRating = lastRating.getIdRating(  );
+                _bFloor = true;
+            }
+        }
+    }
+
+    /**
+     * Add a delta to the counters of the rating of a resource, without
+     * reading the rating. The delta is applied to the held rating of the
+     * resource. If the resource is not held, its rating is unknown : the
+     * delta is ignored if it cannot bring the resource up to the floor. A
+     * resource without rating gets its id from the database, so its first
+     * rating must be read too.
+     * @param ratingDelta the delta
+     * @param bayesianPrior the prior to compute the Bayesian score with
+     * @return false if the resource is not held and the delta may bring it
+     *         up to the floor : its new rating must then be read and given to
+     *         {@link #update(Rating)}
+     */
+    public synchronized boolean applyDelta( Rating ratingDelta, BayesianPrior bayesianPrior )
+    {
+        if ( !_bLoaded )
+        {
+            return true;
+        }
+
+        Rating heldRating = _mapRatings.get( ratingDelta.getIdExtendableResource(  ) );
+
+        if ( heldRating == null )
+        {
+            // If all the ratings of the type are held, the resource had none : its new rating has an id to read
+            return _bFloor && !mayReachFloor( ratingDelta );
+        }
+
+        Rating rating = new Rating(  );
+        rating.setIdRating( heldRating.getIdRating(  ) );
+        rating.setIdExtendableResource( heldRating.getIdExtendableResource(  ) );
+        rating.setExtendableResourceType( heldRating.getExtendableResourceType(  ) );
+        rating.setVoteCount( heldRating.getVoteCount(  ) + ratingDelta.getVoteCount(  ) );
+        rating.setScoreValue( heldRating.getScoreValue(  ) + ratingDelta.getScoreValue(  ) );
+        rating.setScorePositifsVotes( heldRating.getScorePositifsVotes(  ) + ratingDelta.getScorePositifsVotes(  ) );
+        rating.setScoreNegativesVotes( heldRating.getScoreNegativesVotes(  ) +
+            ratingDelta.getScoreNegativesVotes(  ) );
+        rating.setVersion( heldRating.getVersion(  ) + 1 );
+        rating.computeScores( bayesianPrior );
+        update( rating );
+
+        return true;
+    }
+
+    /**
+     * Get the best ratings
+     * @param nItemsOffset the number of best ratings to skip
+     * @param nMaxItemsNumber the maximum number of ratings to return
+     * @return the ratings, the best first, or null if the structure does not
+     *         know enough ratings to answer and must be loaded again. The
+     *         ratings are shared and must not be modified.
+     */
+    public synchronized List<Rating> getTop( int nItemsOffset, int nMaxItemsNumber )
+    {
+        if ( !_bLoaded )
+        {
+            return null;
+        }
+
+        List<Rating> listRatings = new ArrayList<Rating>( nMaxItemsNumber );
+        Iterator<Rating> iterator = _setRatings.iterator(  );
+        int nIndex = 0;
+
+        while ( iterator.hasNext(  ) && ( listRatings.size(  ) < nMaxItemsNumber ) )
+        {
+            Rating rating = iterator.next(  );
+
+            if ( isAfterFloor( _metric.getValue( rating ), rating.getIdRating(  ) ) )
+            {
+                // A resource that is not held may come before this one
+                return null;
+            }
+
+            if ( nIndex++ >= nItemsOffset )
+            {
+                listRatings.add( rating );
+            }
+        }
+
+        if ( ( listRatings.size(  ) < nMaxItemsNumber ) && _bFloor )
+        {
+            // Some resources that are not held may follow
+            return null;
+        }
+
+        return listRatings;
+    }
+
+    /**
+     * Tell whether a position comes after the floor : a resource that is not
+     * held may come before it
+     * @param dValue the value of the metric
+     * @param nIdRating the id of the rating
+     * @return true if the position comes after the floor
+     */
+    private boolean isAfterFloor( double dValue, int nIdRating )
+    {
+        return _bFloor && ( comparePositions( dValue, nIdRating, _dFloor, _nFloorIdRating ) > 0 );
+    }
+
+    /**
+     * Tell whether a delta may bring a resource that is not held, so that
+     * comes after the floor, up to the floor. The new value of a mean is
+     * between its old value and the mean of the delta.
+     * @param ratingDelta the delta
+     * @return true if the resource may reach the floor
+     */
+    private boolean mayReachFloor( Rating ratingDelta )
+    {
+        switch ( _metric )
+        {
+            case VOTE_COUNT:
+                return ratingDelta.getVoteCount(  ) > 0;
+
+            case SCORE_VALUE:
+                return ratingDelta.getScoreValue(  ) > 0;
+
+            case WILSON_SCORE:
+                return ( ratingDelta.getScorePositifsVotes(  ) > 0 ) || ( ratingDelta.getScoreNegativesVotes(  ) < 0 );
+
+            default:
+
+                // A cancelled vote may raise a mean by any amount
+                return ( ratingDelta.getVoteCount(  ) <= 0 ) ||
+                ( ( ratingDelta.getScoreValue(  ) / ratingDelta.getVoteCount(  ) ) >= _dFloor );
+        }
+    }
+
+    /**
+     * Compare two positions in the order of the database
+     * @param dValue1 the value of the metric of the first position
+     * @param nIdRating1 the rating id of the first position
+     * @param dValue2 the value of the metric of the second position
+     * @param nIdRating2 the rating id of the second position
+     * @return a negative number if the first position comes first, a
+     *         positive one if it comes last, 0 if they are the same
+     */
+    private static int comparePositions( double dValue1, int nIdRating1, double dValue2, int nIdRating2 )
+    {
+        int nCompare = Double.compare( dValue2, dValue1 );
+
+        if ( nCompare != 0 )
+        {
+            return nCompare;
+        }
+
+        // The ties are ordered on the rating ids, descending too
+        return ( nIdRating1 > nIdRating2 ) ? ( -1 ) : ( ( nIdRating1 == nIdRating2 ) ? 0 : 1 );
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2002-2014, Mairie de Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.extend.modules.rating.service.lock;
+
+import fr.paris.lutece.portal.service.util.AppPropertiesService;
+
+
+/**
+ *
+ * RatingLockService : the stripes the rated resources are spread over. The
+ * counters of the ratings are updated by atomic statements, so no lock is
+ * taken in the webapp : the stripes only group the votes of a batch, so that
+ * the votes on a resource are always written by the same transaction and each
+ * transaction locks the rows of a few resources only.
+ *
+ */
+public final class RatingLockService
+{
+    private static final String PROPERTY_LOCK_STRIPES = "extend-rating.lock.stripes";
+    private static final int DEFAULT_LOCK_STRIPES = 64;
+    private static final String CONSTANT_KEY_SEPARATOR = "_";
+    private static final int _nStripes = getStripeCount( AppPropertiesService.getPropertyInt( PROPERTY_LOCK_STRIPES,
+                DEFAULT_LOCK_STRIPES ) );
+
+    /**
+     * Private constructor
+     */
+    private RatingLockService(  )
+    {
+    }
+
+    /**
+     * Get the stripe of a resource. A given resource always gets the same
+     * stripe, two resources may share it.
+     * @param strIdExtendableResource the id of the extendable resource
+     * @param strExtendableResourceType the extendable resource type
+     * @return the index of the stripe of the resource
+     */
+    public static int getStripe( String strIdExtendableResource, String strExtendableResourceType )
+    {
+        int nHash = ( strExtendableResourceType + CONSTANT_KEY_SEPARATOR + strIdExtendableResource ).hashCode(  );
+
+        // Spread the hash bits so that close ids do not end on the same stripe
+        nHash ^= ( ( nHash >>> 20 ) ^ ( nHash >>> 12 ) );
+        nHash ^= ( ( nHash >>> 7 ) ^ ( nHash >>> 4 ) );
+
+        return ( nHash & 0x7fffffff ) % _nStripes;
+    }
+
+    /**
+     * Get the number of stripes
+     * @param nStripes the number of stripes set in the properties
+     * @return the number of stripes, the default one if the property is not
+     *         positive
+     */
+    private static int getStripeCount( int nStripes )
+    {
+        return ( nStripes > 0 ) ? nStripes : DEFAULT_LOCK_STRIPES;
+    }
+}
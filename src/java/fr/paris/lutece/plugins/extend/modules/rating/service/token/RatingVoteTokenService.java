@@ -0,0 +1,262 @@
+/*
+ * Copyright (c) 2002-2014, Mairie de Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.extend.modules.rating.service.token;
+
+import fr.paris.lutece.plugins.extend.modules.rating.business.token.IVoteTokenDAO;
+import fr.paris.lutece.plugins.extend.modules.rating.service.RatingPlugin;
+import fr.paris.lutece.portal.service.util.AppException;
+import fr.paris.lutece.portal.service.util.AppLogService;
+import fr.paris.lutece.portal.service.util.AppPropertiesService;
+
+import org.apache.commons.lang.StringUtils;
+
+import java.sql.Timestamp;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import javax.inject.Inject;
+
+
+/**
+ *
+ * RatingVoteTokenService : idempotency of the votes. Each rendered vote form
+ * holds a token, which can only be used by one vote. Double clicks and
+ * browser retries submit the same token again and are ignored.
+ * <br />
+ * The used tokens are kept in memory for a limited time and up to a maximum
+ * number. They can also be stored in the database, so that the retries sent
+ * to another webapp of a cluster are detected as well.
+ *
+ */
+public class RatingVoteTokenService
+{
+    /** The Constant BEAN_SERVICE. */
+    public static final String BEAN_SERVICE = "extend-rating.ratingVoteTokenService";
+    private static final String PROPERTY_MAX_SIZE = "extend-rating.voteToken.maxSize";
+    private static final String PROPERTY_TIME_TO_LIVE = "extend-rating.voteToken.timeToLive";
+    private static final String PROPERTY_DATABASE_ENABLED = "extend-rating.voteToken.database.enabled";
+    private static final int DEFAULT_MAX_SIZE = 100000;
+    private static final int DEFAULT_TIME_TO_LIVE = 3600;
+    private static final int MAX_TOKEN_LENGTH = 50;
+    private static final String THREAD_NAME = "extend-rating-vote-token-purge";
+    private final Map<String, Long> _mapUsedTokens = new LinkedHashMap<String, Long>(  );
+    @Inject
+    private IVoteTokenDAO _voteTokenDAO;
+    private int _nMaxSize;
+    private long _lTimeToLive;
+    private boolean _bDatabaseEnabled;
+    private ScheduledExecutorService _executor;
+
+    /**
+     * Read the configuration and start the purge of the database if needed
+     */
+    public void init(  )
+    {
+        _nMaxSize = Math.max( 1, AppPropertiesService.getPropertyInt( PROPERTY_MAX_SIZE, DEFAULT_MAX_SIZE ) );
+        _lTimeToLive = TimeUnit.SECONDS.toMillis( AppPropertiesService.getPropertyInt( PROPERTY_TIME_TO_LIVE,
+                    DEFAULT_TIME_TO_LIVE ) );
+        _bDatabaseEnabled = AppPropertiesService.getPropertyBoolean( PROPERTY_DATABASE_ENABLED, false );
+
+        if ( _bDatabaseEnabled )
+        {
+            _executor = Executors.newSingleThreadScheduledExecutor( new ThreadFactory(  )
+                    {
+                        @Override
+                        public Thread newThread( Runnable runnable )
+                        {
+                            Thread thread = new Thread( runnable, THREAD_NAME );
+                            thread.setDaemon( true );
+
+                            return thread;
+                        }
+                    } );
+            _executor.scheduleWithFixedDelay( new Runnable(  )
+                {
+                    @Override
+                    public void run(  )
+                    {
+                        purgeDatabase(  );
+                    }
+                }, _lTimeToLive, _lTimeToLive, TimeUnit.MILLISECONDS );
+        }
+    }
+
+    /**
+     * Stop the purge of the database
+     */
+    public void shutdown(  )
+    {
+        if ( _executor != null )
+        {
+            _executor.shutdownNow(  );
+        }
+    }
+
+    /**
+     * Generate a new vote token
+     * @return the token
+     */
+    public String generateToken(  )
+    {
+        return UUID.randomUUID(  ).toString(  );
+    }
+
+    /**
+     * Use a vote token. A token can only be used once during its time to
+     * live.
+     * @param strToken the token
+     * @return true if the token has not been used yet, false if the vote is a
+     *         duplicate
+     */
+    public boolean useToken( String strToken )
+    {
+        if ( StringUtils.isBlank( strToken ) || ( strToken.length(  ) > MAX_TOKEN_LENGTH ) )
+        {
+            return false;
+        }
+
+        long lNow = System.currentTimeMillis(  );
+
+        synchronized ( _mapUsedTokens )
+        {
+            removeExpiredTokens( lNow );
+
+            if ( _mapUsedTokens.containsKey( strToken ) )
+            {
+                return false;
+            }
+
+            _mapUsedTokens.put( strToken, lNow );
+
+            if ( _mapUsedTokens.size(  ) > _nMaxSize )
+            {
+                Iterator<String> iterator = _mapUsedTokens.keySet(  ).iterator(  );
+                iterator.next(  );
+                iterator.remove(  );
+            }
+        }
+
+        return !_bDatabaseEnabled || useTokenInDatabase( strToken, lNow );
+    }
+
+    /**
+     * Release a vote token used by a vote that could not be recorded, so that
+     * the retry of the vote is not taken for a duplicate
+     * @param strToken the token
+     */
+    public void releaseToken( String strToken )
+    {
+        if ( StringUtils.isBlank( strToken ) || ( strToken.length(  ) > MAX_TOKEN_LENGTH ) )
+        {
+            return;
+        }
+
+        synchronized ( _mapUsedTokens )
+        {
+            _mapUsedTokens.remove( strToken );
+        }
+
+        if ( _bDatabaseEnabled )
+        {
+            _voteTokenDAO.delete( strToken, RatingPlugin.getPlugin(  ) );
+        }
+    }
+
+    /**
+     * Remove the tokens whose time to live is over. The tokens are sorted by
+     * date of use, so only the first ones are checked.
+     * @param lNow the current time
+     */
+    private void removeExpiredTokens( long lNow )
+    {
+        Iterator<Entry<String, Long>> iterator = _mapUsedTokens.entrySet(  ).iterator(  );
+
+        while ( iterator.hasNext(  ) && ( ( lNow - iterator.next(  ).getValue(  ) ) > _lTimeToLive ) )
+        {
+            iterator.remove(  );
+        }
+    }
+
+    /**
+     * Store a token in the database
+     * @param strToken the token
+     * @param lNow the current time
+     * @return true if the token was not in the database yet
+     */
+    private boolean useTokenInDatabase( String strToken, long lNow )
+    {
+        if ( _voteTokenDAO.exists( strToken, RatingPlugin.getPlugin(  ) ) )
+        {
+            return false;
+        }
+
+        try
+        {
+            _voteTokenDAO.insert( strToken, new Timestamp( lNow ), RatingPlugin.getPlugin(  ) );
+        }
+        catch ( AppException e )
+        {
+            // The token has been inserted by another webapp in the meantime
+            AppLogService.debug( "Vote token already used : " + strToken );
+
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Delete the tokens whose time to live is over from the database
+     */
+    private void purgeDatabase(  )
+    {
+        try
+        {
+            _voteTokenDAO.deleteOlderThan( new Timestamp( System.currentTimeMillis(  ) - _lTimeToLive ),
+                RatingPlugin.getPlugin(  ) );
+        }
+        catch ( RuntimeException e )
+        {
+            AppLogService.error( "Unable to purge the vote tokens : " + e.getMessage(  ), e );
+        }
+    }
+}
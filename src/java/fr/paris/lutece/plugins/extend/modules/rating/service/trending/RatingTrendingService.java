@@ -0,0 +1,294 @@
+/*
+ * Copyright (c) 2002-2014, Mairie de Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.extend.modules.rating.service.trending;
+
+import fr.paris.lutece.plugins.extend.modules.rating.business.Rating;
+import fr.paris.lutece.portal.service.util.AppPropertiesService;
+
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+
+/**
+ *
+ * RatingTrendingService : the votes of the last hour, day and week on each
+ * resource, counted in memory from the votes made by this webapp, to rank
+ * the trending resources without reading the vote history. The number of
+ * resources followed per type is bounded : the resource that was voted on the
+ * longest time ago is forgotten first. The counters start empty when the
+ * webapp starts, and each webapp only counts its own votes.
+ *
+ */
+public class RatingTrendingService
+{
+    /** The Constant BEAN_SERVICE. */
+    public static final String BEAN_SERVICE = "extend-rating.ratingTrendingService";
+    private static final String PROPERTY_ENABLED = "extend-rating.trending.enabled";
+    private static final String PROPERTY_BUCKET_COUNT = "extend-rating.trending.bucketCount";
+    private static final String PROPERTY_MAX_RESOURCES = "extend-rating.trending.maxResources";
+    private static final int DEFAULT_BUCKET_COUNT = 12;
+    private static final int DEFAULT_MAX_RESOURCES = 10000;
+    private final boolean _bEnabled = AppPropertiesService.getPropertyBoolean( PROPERTY_ENABLED, true );
+    private final int _nBucketCount = Math.max( 1,
+            AppPropertiesService.getPropertyInt( PROPERTY_BUCKET_COUNT, DEFAULT_BUCKET_COUNT ) );
+    private final int _nMaxResources = Math.max( 1,
+            AppPropertiesService.getPropertyInt( PROPERTY_MAX_RESOURCES, DEFAULT_MAX_RESOURCES ) );
+    private final ConcurrentMap<String, Map<String, TrendingCounters>> _mapResourceTypes = new ConcurrentHashMap<String, Map<String, TrendingCounters>>(  );
+
+    /**
+     * Count votes on a resource, once the current transaction is committed
+     * @param ratingDelta the votes, as a rating whose counters are the values
+     *            to add. They are negative for cancelled votes.
+     * @param lTime the time of the votes in milliseconds. For cancelled votes,
+     *            the time they were made : they are only removed from the
+     *            windows that still count them.
+     */
+    public void add( final Rating ratingDelta, final long lTime )
+    {
+        if ( !_bEnabled )
+        {
+            return;
+        }
+
+        if ( TransactionSynchronizationManager.isSynchronizationActive(  ) )
+        {
+            TransactionSynchronizationManager.registerSynchronization( new TransactionSynchronizationAdapter(  )
+                {
+                    @Override
+                    public void afterCompletion( int nStatus )
+                    {
+                        if ( nStatus == STATUS_COMMITTED )
+                        {
+                            addCommitted( ratingDelta, lTime );
+                        }
+                    }
+                } );
+        }
+        else
+        {
+            addCommitted( ratingDelta, lTime );
+        }
+    }
+
+    /**
+     * Get the resources of a type that got the most votes over a window
+     * @param strExtendableResourceType the extendable resource type
+     * @param window the window
+     * @param nMaxItemsNumber the maximum number of resources to return
+     * @return the resources, the most voted first, as ratings whose counters
+     *         are the ones of the window : the number of votes and the sum of
+     *         their values
+     */
+    public List<Rating> findTrending( String strExtendableResourceType, TrendingWindow window, int nMaxItemsNumber )
+    {
+        Map<String, TrendingCounters> mapCounters = _mapResourceTypes.get( strExtendableResourceType );
+
+        if ( !_bEnabled || ( mapCounters == null ) || ( nMaxItemsNumber <= 0 ) )
+        {
+            return new ArrayList<Rating>(  );
+        }
+
+        long lNow = System.currentTimeMillis(  );
+        Comparator<Rating> comparator = new Comparator<Rating>(  )
+            {
+                @Override
+                public int compare( Rating rating1, Rating rating2 )
+                {
+                    int nCompare = rating2.getVoteCount(  ) - rating1.getVoteCount(  );
+
+                    if ( nCompare == 0 )
+                    {
+                        nCompare = Double.compare( rating2.getScoreValue(  ), rating1.getScoreValue(  ) );
+                    }
+
+                    return ( nCompare != 0 ) ? nCompare
+                                             : rating1.getIdExtendableResource(  )
+                                                      .compareTo( rating2.getIdExtendableResource(  ) );
+                }
+            };
+
+        // The followed resources are copied under the lock of the type, and ranked outside of it so that the
+        // votes on the type are not blocked meanwhile
+        String[] idExtendableResources;
+        TrendingCounters[] counters;
+
+        synchronized ( mapCounters )
+        {
+            idExtendableResources = new String[mapCounters.size(  )];
+            counters = new TrendingCounters[mapCounters.size(  )];
+
+            int nIndex = 0;
+
+            for ( Entry<String, TrendingCounters> entry : mapCounters.entrySet(  ) )
+            {
+                idExtendableResources[nIndex] = entry.getKey(  );
+                counters[nIndex] = entry.getValue(  );
+                nIndex++;
+            }
+        }
+
+        // The worst of the best resources found so far is at the head of the queue
+        PriorityQueue<Rating> queue = new PriorityQueue<Rating>( nMaxItemsNumber + 1,
+                Collections.reverseOrder( comparator ) );
+
+        for ( int nIndex = 0; nIndex < counters.length; nIndex++ )
+        {
+            int nVoteCount = counters[nIndex].getVoteCount( window, lNow );
+
+            if ( nVoteCount == 0 )
+            {
+                continue;
+            }
+
+            Rating rating = new Rating(  );
+            rating.setIdExtendableResource( idExtendableResources[nIndex] );
+            rating.setExtendableResourceType( strExtendableResourceType );
+            rating.setVoteCount( nVoteCount );
+            rating.setScoreValue( counters[nIndex].getScoreValue( window, lNow ) );
+            queue.add( rating );
+
+            if ( queue.size(  ) > nMaxItemsNumber )
+            {
+                queue.poll(  );
+            }
+        }
+
+        List<Rating> listRatings = new ArrayList<Rating>( queue );
+        Collections.sort( listRatings, comparator );
+
+        return listRatings;
+    }
+
+    /**
+     * Forget the votes on a resource
+     * @param strIdExtendableResource the id of the extendable resource
+     * @param strExtendableResourceType the extendable resource type
+     */
+    public void remove( String strIdExtendableResource, String strExtendableResourceType )
+    {
+        Map<String, TrendingCounters> mapCounters = _mapResourceTypes.get( strExtendableResourceType );
+
+        if ( mapCounters != null )
+        {
+            synchronized ( mapCounters )
+            {
+                mapCounters.remove( strIdExtendableResource );
+            }
+        }
+    }
+
+    /**
+     * Forget the votes on the resources of a type
+     * @param strExtendableResourceType the extendable resource type
+     */
+    public void removeAll( String strExtendableResourceType )
+    {
+        _mapResourceTypes.remove( strExtendableResourceType );
+    }
+
+    /**
+     * Count committed votes on a resource
+     * @param ratingDelta the votes
+     * @param lTime the time of the votes in milliseconds
+     */
+    private void addCommitted( Rating ratingDelta, long lTime )
+    {
+        Map<String, TrendingCounters> mapCounters = getCounters( ratingDelta.getExtendableResourceType(  ) );
+
+        synchronized ( mapCounters )
+        {
+            TrendingCounters counters = mapCounters.get( ratingDelta.getIdExtendableResource(  ) );
+
+            if ( counters == null )
+            {
+                if ( ratingDelta.getVoteCount(  ) <= 0 )
+                {
+                    // Nothing to cancel on a resource that is not followed
+                    return;
+                }
+
+                counters = new TrendingCounters( _nBucketCount );
+                mapCounters.put( ratingDelta.getIdExtendableResource(  ), counters );
+            }
+
+            counters.add( ratingDelta.getVoteCount(  ), ratingDelta.getScoreValue(  ), lTime );
+        }
+    }
+
+    /**
+     * Get the counters of the resources of a type, created empty if needed
+     * @param strExtendableResourceType the extendable resource type
+     * @return the counters keyed on the id of their resource, from the least
+     *         recently voted on. The map must be synchronized on.
+     */
+    private Map<String, TrendingCounters> getCounters( String strExtendableResourceType )
+    {
+        Map<String, TrendingCounters> mapCounters = _mapResourceTypes.get( strExtendableResourceType );
+
+        if ( mapCounters == null )
+        {
+            Map<String, TrendingCounters> mapNewCounters = new LinkedHashMap<String, TrendingCounters>( 16, 0.75f,
+                    true )
+                {
+                    private static final long serialVersionUID = 1L;
+
+                    @Override
+                    protected boolean removeEldestEntry( Map.Entry<String, TrendingCounters> eldest )
+                    {
+                        return size(  ) > _nMaxResources;
+                    }
+                };
+
+            mapCounters = _mapResourceTypes.putIfAbsent( strExtendableResourceType, mapNewCounters );
+
+            if ( mapCounters == null )
+            {
+                mapCounters = mapNewCounters;
+            }
+        }
+
+        return mapCounters;
+    }
+}
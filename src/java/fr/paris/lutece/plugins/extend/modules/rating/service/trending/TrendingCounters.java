@@ -0,0 +1,171 @@
+/*
+ * Copyright (c) 2002-2014, Mairie de Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.extend.modules.rating.service.trending;
+
+
+/**
+ *
+ * TrendingCounters : the votes on a resource over each trending window, kept
+ * in ring buffers of time buckets. A bucket is reused once its time has left
+ * the window : the epoch stored with it tells whether it is current.
+ *
+ */
+public class TrendingCounters
+{
+    private final int _nBucketCount;
+    private final int[][] _counts;
+    private final double[][] _scores;
+    private final long[][] _epochs;
+
+    /**
+     * Constructor
+     * @param nBucketCount the number of buckets of each window
+     */
+    public TrendingCounters( int nBucketCount )
+    {
+        int nWindowCount = TrendingWindow.values(  ).length;
+        _nBucketCount = nBucketCount;
+        _counts = new int[nWindowCount][nBucketCount];
+        _scores = new double[nWindowCount][nBucketCount];
+        _epochs = new long[nWindowCount][nBucketCount];
+    }
+
+    /**
+     * Add votes, or remove them if the values are negative. Votes are only
+     * removed from the bucket of the time they were made, if it still holds
+     * that time, and never below zero : cancelling votes that have left a
+     * window, or that have not been counted, does not change it.
+     * @param nVoteCount the number of votes
+     * @param dScoreValue the sum of the vote values
+     * @param lTime the time of the votes in milliseconds, the time they were
+     *            made for removed votes
+     */
+    public synchronized void add( int nVoteCount, double dScoreValue, long lTime )
+    {
+        for ( TrendingWindow window : TrendingWindow.values(  ) )
+        {
+            int nWindow = window.ordinal(  );
+            long lEpoch = getEpoch( window, lTime );
+            int nBucket = (int) ( lEpoch % _nBucketCount );
+
+            if ( _epochs[nWindow][nBucket] > lEpoch )
+            {
+                // The votes are too old for this window
+                continue;
+            }
+
+            if ( _epochs[nWindow][nBucket] != lEpoch )
+            {
+                if ( nVoteCount < 0 )
+                {
+                    // The removed votes have not been counted in this bucket
+                    continue;
+                }
+
+                // The bucket holds votes that have left the window
+                _epochs[nWindow][nBucket] = lEpoch;
+                _counts[nWindow][nBucket] = 0;
+                _scores[nWindow][nBucket] = 0;
+            }
+
+            _counts[nWindow][nBucket] += nVoteCount;
+            _scores[nWindow][nBucket] += dScoreValue;
+
+            if ( _counts[nWindow][nBucket] <= 0 )
+            {
+                // More votes removed than counted : they were made before the counters of the resource existed
+                _counts[nWindow][nBucket] = 0;
+                _scores[nWindow][nBucket] = 0;
+            }
+        }
+    }
+
+    /**
+     * Get the number of votes over a window
+     * @param window the window
+     * @param lNow the current time in milliseconds
+     * @return the number of votes, not negative
+     */
+    public synchronized int getVoteCount( TrendingWindow window, long lNow )
+    {
+        int nWindow = window.ordinal(  );
+        long lOldestEpoch = getEpoch( window, lNow ) - _nBucketCount;
+        int nVoteCount = 0;
+
+        for ( int nBucket = 0; nBucket < _nBucketCount; nBucket++ )
+        {
+            if ( _epochs[nWindow][nBucket] > lOldestEpoch )
+            {
+                nVoteCount += _counts[nWindow][nBucket];
+            }
+        }
+
+        return Math.max( 0, nVoteCount );
+    }
+
+    /**
+     * Get the sum of the vote values over a window
+     * @param window the window
+     * @param lNow the current time in milliseconds
+     * @return the sum of the vote values
+     */
+    public synchronized double getScoreValue( TrendingWindow window, long lNow )
+    {
+        int nWindow = window.ordinal(  );
+        long lOldestEpoch = getEpoch( window, lNow ) - _nBucketCount;
+        double dScoreValue = 0;
+
+        for ( int nBucket = 0; nBucket < _nBucketCount; nBucket++ )
+        {
+            if ( _epochs[nWindow][nBucket] > lOldestEpoch )
+            {
+                dScoreValue += _scores[nWindow][nBucket];
+            }
+        }
+
+        return dScoreValue;
+    }
+
+    /**
+     * Get the number of the bucket period a time falls in, counted from the
+     * epoch
+     * @param window the window
+     * @param lTime the time in milliseconds
+     * @return the number of the period
+     */
+    private long getEpoch( TrendingWindow window, long lTime )
+    {
+        return lTime / Math.max( 1L, window.getDuration(  ) / _nBucketCount );
+    }
+}
@@ -1,81 +1,82 @@
-/*
- * Copyright (c) 2002-2014, Mairie de Paris
- * All rights reserved.
- *
- * Redistribution and use in source and binary forms, with or without
- * modification, are permitted provided that the following conditions
- * are met:
- *
- *  1. Redistributions of source code must retain the above copyright notice
- *     and the following disclaimer.
- *
- *  2. Redistributions in binary form must reproduce the above copyright notice
- *     and the following disclaimer in the documentation and/or other materials
- *     provided with the distribution.
- *
- *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
- *     contributors may be used to endorse or promote products derived from
- *     this software without specific prior written permission.
- *
- * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
- * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
- * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
- * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
- * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
- * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
- * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
- * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
- * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
- * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
- * POSSIBILITY OF SUCH DAMAGE.
- *
- * License 1.0
- */
-package fr.paris.lutece.plugins.extend.modules.rating.service.type;
-
-import fr.paris.lutece.plugins.extend.modules.rating.business.type.VoteType;
-import fr.paris.lutece.plugins.extend.modules.rating.service.RatingPlugin;
-import fr.paris.lutece.util.ReferenceList;
-
-import org.springframework.transaction.annotation.Transactional;
-
-import java.util.List;
-
-
-/**
- * IVoteTypeService.
- */
-public interface IVoteTypeService
-{
-    /**
-     * Find by primary key.
-     *
-     * @param nIdVoteType the id type
-     * @param bGetTemplateContent the b get content
-     * @return the vote type
-     */
-    VoteType findByPrimaryKey( int nIdVoteType, boolean bGetTemplateContent );
-
-    /**
-     * Find all.
-     *
-     * @param bGetTemplateContent the b get content
-     * @return the list
-     */
-    List<VoteType> findAll( boolean bGetTemplateContent );
-
-    /**
-     * Find all.
-     *
-     * @return the reference list
-     */
-    ReferenceList findAll(  );
-
-    /**
-     * Update.
-     *
-     * @param voteType the vote type
-     */
-    @Transactional( RatingPlugin.TRANSACTION_MANAGER )
-    void update( VoteType voteType );
-}
+/*
+ * Copyright (c) 2002-2014, Mairie de Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.extend.modules.rating.service.type;
+
+import fr.paris.lutece.plugins.extend.modules.rating.business.type.VoteType;
+import fr.paris.lutece.plugins.extend.modules.rating.service.RatingPlugin;
+import fr.paris.lutece.util.ReferenceList;
+
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+
+/**
+ * IVoteTypeService.
+ */
+public interface IVoteTypeService
+{
+    /**
+     * Find by primary key.
+     *
+     * @param nIdVoteType the id type
+     * @param bGetTemplateContent the b get content
+     * @return the vote type
+     */
+    VoteType findByPrimaryKey( int nIdVoteType, boolean bGetTemplateContent );
+
+    /**
+     * Find all.
+     *
+     * @param bGetTemplateContent the b get content
+     * @return the list
+     */
+    List<VoteType> findAll( boolean bGetTemplateContent );
+
+    /**
+     * Find all.
+     *
+     * @return the reference list
+     */
+    ReferenceList findAll(  );
+
+    /**
+     * Update. The ranking scores of the ratings of the vote type are computed
+     * again if the prior of their Bayesian score changes.
+     *
+     * @param voteType the vote type
+     */
+    @Transactional( RatingPlugin.TRANSACTION_MANAGER )
+    void update( VoteType voteType );
+}
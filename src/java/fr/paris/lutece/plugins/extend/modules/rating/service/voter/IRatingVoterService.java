@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2002-2014, Mairie de Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.extend.modules.rating.service.voter;
+
+import fr.paris.lutece.plugins.extend.modules.rating.business.voter.RatingVoter;
+import fr.paris.lutece.plugins.extend.modules.rating.service.RatingPlugin;
+
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.servlet.http.HttpServletRequest;
+
+
+/**
+ * IRatingVoterService.
+ */
+public interface IRatingVoterService
+{
+    /**
+     * Get the key of the voter of a request : the guid of the connected user,
+     * or the IP address
+     * @param request the request
+     * @return the key of the voter
+     */
+    String getVoterKey( HttpServletRequest request );
+
+    /**
+     * Get the key of a voter
+     * @param strUserGuid the guid of the user, may be empty
+     * @param strIpAddress the IP address
+     * @return the key of the voter
+     */
+    String getVoterKey( String strUserGuid, String strIpAddress );
+
+    /**
+     * Get the votes of the voter of a request on the resources of a type. The
+     * context is kept in the request and reads each vote once, on demand : the
+     * votes done after a resource was read are not in the returned context.
+     * @param request the request
+     * @param strExtendableResourceType the extendable resource type
+     * @return the voter context
+     */
+    VoterContext getVoterContext( HttpServletRequest request, String strExtendableResourceType );
+
+    /**
+     * Forget the voter context kept in a request, so that the next call to
+     * {@link #getVoterContext(HttpServletRequest, String)} reads the votes
+     * done since it was loaded
+     * @param request the request
+     * @param strExtendableResourceType the extendable resource type
+     */
+    void clearVoterContext( HttpServletRequest request, String strExtendableResourceType );
+
+    /**
+     * Find the votes of a voter on a resource
+     * @param strIdExtendableResource the id of the extendable resource
+     * @param strExtendableResourceType the extendable resource type
+     * @param strVoterKey the key of the voter
+     * @return the votes of the voter, or null if the voter has not voted yet
+     */
+    RatingVoter findByVoter( String strIdExtendableResource, String strExtendableResourceType, String strVoterKey );
+
+    /**
+     * Add votes to the votes of a voter on a resource
+     * @param voter the votes to add : the last vote value and date, and the
+     *            number of votes
+     */
+    @Transactional( RatingPlugin.TRANSACTION_MANAGER )
+    void addVotes( RatingVoter voter );
+
+    /**
+     * Take back votes from the votes of a voter on a resource
+     * @param voter the votes to take back : the number of votes
+     */
+    @Transactional( RatingPlugin.TRANSACTION_MANAGER )
+    void removeVotes( RatingVoter voter );
+
+    /**
+     * Delete the votes of a voter on a resource
+     * @param strIdExtendableResource the id of the extendable resource
+     * @param strExtendableResourceType the extendable resource type
+     * @param strVoterKey the key of the voter
+     * @return true if the voter had voted on the resource, false otherwise
+     */
+    @Transactional( RatingPlugin.TRANSACTION_MANAGER )
+    boolean remove( String strIdExtendableResource, String strExtendableResourceType, String strVoterKey );
+
+    /**
+     * Delete the votes of all the voters on a resource
+     * @param strIdExtendableResource the id of the extendable resource
+     * @param strExtendableResourceType the extendable resource type
+     */
+    @Transactional( RatingPlugin.TRANSACTION_MANAGER )
+    void removeByResource( String strIdExtendableResource, String strExtendableResourceType );
+}
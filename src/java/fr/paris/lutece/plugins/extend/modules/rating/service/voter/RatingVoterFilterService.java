@@ -0,0 +1,182 @@
+/*
+ * Copyright (c) 2002-2014, Mairie de Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.extend.modules.rating.service.voter;
+
+import fr.paris.lutece.plugins.extend.modules.rating.business.voter.IRatingVoterDAO;
+import fr.paris.lutece.plugins.extend.modules.rating.business.voter.IVoterKeyHandler;
+import fr.paris.lutece.plugins.extend.modules.rating.service.RatingPlugin;
+import fr.paris.lutece.portal.service.init.StartUpService;
+import fr.paris.lutece.portal.service.util.AppLogService;
+import fr.paris.lutece.portal.service.util.AppPropertiesService;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.inject.Inject;
+
+
+/**
+ *
+ * RatingVoterFilterService : one Bloom filter of the voter keys per resource
+ * type, filled at startup from the votes of the voters and then by every vote.
+ * It tells without any query that a visitor has never voted on the resources
+ * of a type. Only the votes made by this webapp are added once it is started,
+ * so it must stay disabled when several webapps share the database.
+ *
+ */
+public class RatingVoterFilterService implements StartUpService
+{
+    /** The Constant BEAN_SERVICE. */
+    public static final String BEAN_SERVICE = "extend-rating.ratingVoterFilterService";
+    private static final String SERVICE_NAME = "Extend Rating Voter Filter Service";
+    private static final String PROPERTY_ENABLED = "extend-rating.voterFilter.enabled";
+    private static final String PROPERTY_EXPECTED_VOTERS = "extend-rating.voterFilter.expectedVoters";
+    private static final String PROPERTY_FALSE_POSITIVE_RATE = "extend-rating.voterFilter.falsePositiveRate";
+    private static final int DEFAULT_EXPECTED_VOTERS = 100000;
+    private static final double DEFAULT_FALSE_POSITIVE_RATE = 0.01;
+    private final boolean _bEnabled = AppPropertiesService.getPropertyBoolean( PROPERTY_ENABLED, false );
+    private final int _nExpectedVoters = AppPropertiesService.getPropertyInt( PROPERTY_EXPECTED_VOTERS,
+            DEFAULT_EXPECTED_VOTERS );
+    private final double _dFalsePositiveRate = getFalsePositiveRate(  );
+    private final ConcurrentMap<String, VoterBloomFilter> _mapFilters = new ConcurrentHashMap<String, VoterBloomFilter>(  );
+    private volatile boolean _bReady;
+    @Inject
+    private IRatingVoterDAO _ratingVoterDAO;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getName(  )
+    {
+        return SERVICE_NAME;
+    }
+
+    /**
+     * Fill the filters with the keys of the voters
+     */
+    @Override
+    public void process(  )
+    {
+        if ( !_bEnabled )
+        {
+            return;
+        }
+
+        long lStart = System.currentTimeMillis(  );
+
+        // The votes made meanwhile are added to the same filters
+        _ratingVoterDAO.selectVoterKeys( new IVoterKeyHandler(  )
+            {
+                @Override
+                public void handle( String strExtendableResourceType, String strVoterKey )
+                {
+                    add( strExtendableResourceType, strVoterKey );
+                }
+            }, RatingPlugin.getPlugin(  ) );
+
+        _bReady = true;
+        AppLogService.info( "Rating voter filters built for " + _mapFilters.size(  ) + " resource types in " +
+            ( System.currentTimeMillis(  ) - lStart ) + " ms" );
+    }
+
+    /**
+     * Add the key of a voter who has voted on a resource of a type
+     * @param strExtendableResourceType the extendable resource type
+     * @param strVoterKey the key of the voter
+     */
+    public void add( String strExtendableResourceType, String strVoterKey )
+    {
+        if ( !_bEnabled )
+        {
+            return;
+        }
+
+        VoterBloomFilter filter = _mapFilters.get( strExtendableResourceType );
+
+        if ( filter == null )
+        {
+            VoterBloomFilter newFilter = new VoterBloomFilter( _nExpectedVoters, _dFalsePositiveRate );
+            filter = _mapFilters.putIfAbsent( strExtendableResourceType, newFilter );
+
+            if ( filter == null )
+            {
+                filter = newFilter;
+            }
+        }
+
+        filter.add( strVoterKey );
+    }
+
+    /**
+     * Tell whether a voter may have voted on a resource of a type
+     * @param strExtendableResourceType the extendable resource type
+     * @param strVoterKey the key of the voter
+     * @return false if the voter has certainly never voted on a resource of
+     *         the type, true if the votes of the voter must be read
+     */
+    public boolean mightHaveVoted( String strExtendableResourceType, String strVoterKey )
+    {
+        if ( !_bEnabled || !_bReady )
+        {
+            return true;
+        }
+
+        VoterBloomFilter filter = _mapFilters.get( strExtendableResourceType );
+
+        return ( filter != null ) && filter.mightContain( strVoterKey );
+    }
+
+    /**
+     * Get the false positive rate from the properties
+     * @return the false positive rate
+     */
+    private static double getFalsePositiveRate(  )
+    {
+        String strRate = AppPropertiesService.getProperty( PROPERTY_FALSE_POSITIVE_RATE );
+
+        try
+        {
+            double dRate = ( strRate != null ) ? Double.parseDouble( strRate ) : DEFAULT_FALSE_POSITIVE_RATE;
+
+            return ( ( dRate > 0 ) && ( dRate < 1 ) ) ? dRate : DEFAULT_FALSE_POSITIVE_RATE;
+        }
+        catch ( NumberFormatException e )
+        {
+            AppLogService.error( "Invalid value for " + PROPERTY_FALSE_POSITIVE_RATE + " : " + strRate );
+
+            return DEFAULT_FALSE_POSITIVE_RATE;
+        }
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2002-2014, Mairie de Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.extend.modules.rating.service.voter;
+
+import fr.paris.lutece.plugins.extend.modules.rating.business.voter.IRatingVoterDAO;
+import fr.paris.lutece.plugins.extend.modules.rating.business.voter.RatingVoter;
+import fr.paris.lutece.plugins.extend.modules.rating.service.RatingPlugin;
+import fr.paris.lutece.portal.service.security.LuteceUser;
+import fr.paris.lutece.portal.service.security.SecurityService;
+
+import org.apache.commons.lang.StringUtils;
+
+import javax.inject.Inject;
+
+import javax.servlet.http.HttpServletRequest;
+
+
+/**
+ *
+ * RatingVoterService : the votes of each voter on each resource, kept up to
+ * date by the votes and their cancellations. It answers the eligibility
+ * checks without reading the extender histories.
+ *
+ */
+public class RatingVoterService implements IRatingVoterService
+{
+    /** The Constant BEAN_SERVICE. */
+    public static final String BEAN_SERVICE = "extend-rating.ratingVoterService";
+    private static final String ATTRIBUTE_VOTER_CONTEXT = "extend-rating.voterContext.";
+    @Inject
+    private IRatingVoterDAO _ratingVoterDAO;
+    @Inject
+    private RatingVoterFilterService _ratingVoterFilterService;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getVoterKey( HttpServletRequest request )
+    {
+        String strUserGuid = null;
+
+        if ( SecurityService.isAuthenticationEnable(  ) )
+        {
+            LuteceUser user = SecurityService.getInstance(  ).getRegisteredUser( request );
+
+            if ( user != null )
+            {
+                strUserGuid = user.getName(  );
+            }
+        }
+
+        return getVoterKey( strUserGuid, request.getRemoteAddr(  ) );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getVoterKey( String strUserGuid, String strIpAddress )
+    {
+        return StringUtils.isNotBlank( strUserGuid ) ? strUserGuid : StringUtils.defaultString( strIpAddress );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public VoterContext getVoterContext( HttpServletRequest request, String strExtendableResourceType )
+    {
+        String strAttribute = ATTRIBUTE_VOTER_CONTEXT + strExtendableResourceType;
+        VoterContext voterContext = (VoterContext) request.getAttribute( strAttribute );
+
+        if ( voterContext == null )
+        {
+            String strVoterKey = getVoterKey( request );
+            voterContext = new VoterContext( strExtendableResourceType, strVoterKey,
+                    _ratingVoterFilterService.mightHaveVoted( strExtendableResourceType, strVoterKey ),
+                    _ratingVoterDAO );
+            request.setAttribute( strAttribute, voterContext );
+        }
+
+        return voterContext;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void clearVoterContext( HttpServletRequest request, String strExtendableResourceType )
+    {
+        request.removeAttribute( ATTRIBUTE_VOTER_CONTEXT + strExtendableResourceType );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public RatingVoter findByVoter( String strIdExtendableResource, String strExtendableResourceType,
+        String strVoterKey )
+    {
+        return _ratingVoterDAO.load( strIdExtendableResource, strExtendableResourceType, strVoterKey,
+            RatingPlugin.getPlugin(  ) );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void addVotes( RatingVoter voter )
+    {
+        _ratingVoterDAO.addVotes( voter, RatingPlugin.getPlugin(  ) );
+        _ratingVoterFilterService.add( voter.getExtendableResourceType(  ), voter.getVoterKey(  ) );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void removeVotes( RatingVoter voter )
+    {
+        _ratingVoterDAO.removeVotes( voter, RatingPlugin.getPlugin(  ) );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean remove( String strIdExtendableResource, String strExtendableResourceType, String strVoterKey )
+    {
+        return _ratingVoterDAO.delete( strIdExtendableResource, strExtendableResourceType, strVoterKey,
+            RatingPlugin.getPlugin(  ) );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void removeByResource( String strIdExtendableResource, String strExtendableResourceType )
+    {
+        _ratingVoterDAO.deleteByResource( strIdExtendableResource, strExtendableResourceType,
+            RatingPlugin.getPlugin(  ) );
+    }
+}
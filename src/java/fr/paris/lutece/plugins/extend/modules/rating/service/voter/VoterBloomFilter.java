@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2002-2014, Mairie de Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.extend.modules.rating.service.voter;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+
+/**
+ *
+ * VoterBloomFilter : compact set of voter keys, that may answer that a key
+ * is present when it is not, but never that a key is absent when it has been
+ * added. Keys can be added concurrently, but not removed.
+ *
+ */
+public class VoterBloomFilter
+{
+    private static final int BITS_PER_WORD = 64;
+    private static final int FNV_OFFSET_BASIS = 0x811c9dc5;
+    private static final int FNV_PRIME = 0x01000193;
+    private final AtomicLongArray _words;
+    private final long _lBitCount;
+    private final int _nHashCount;
+
+    /**
+     * Constructor
+     * @param nExpectedKeys the number of keys the filter is sized for
+     * @param dFalsePositiveRate the rate of false positives wanted once the
+     *            expected number of keys is reached
+     */
+    public VoterBloomFilter( int nExpectedKeys, double dFalsePositiveRate )
+    {
+        // Optimal sizes : m = -n.ln(p) / ln(2)^2 bits and k = m/n.ln(2) hash functions
+        int nKeys = Math.max( nExpectedKeys, 1 );
+        double dLn2 = Math.log( 2 );
+        long lBitCount = (long) Math.ceil( ( -nKeys * Math.log( dFalsePositiveRate ) ) / ( dLn2 * dLn2 ) );
+        int nWordCount = (int) ( ( lBitCount + BITS_PER_WORD - 1 ) / BITS_PER_WORD );
+        _words = new AtomicLongArray( nWordCount );
+        _lBitCount = (long) nWordCount * BITS_PER_WORD;
+        _nHashCount = Math.max( 1, (int) Math.round( ( (double) _lBitCount / nKeys ) * dLn2 ) );
+    }
+
+    /**
+     * Add a key
+     * @param strKey the key
+     */
+    public void add( String strKey )
+    {
+        int nHash1 = strKey.hashCode(  );
+        int nHash2 = secondHash( strKey );
+
+        for ( int i = 0; i < _nHashCount; i++ )
+        {
+            long lBit = getBit( nHash1, nHash2, i );
+            int nWord = (int) ( lBit / BITS_PER_WORD );
+            long lMask = 1L << ( lBit % BITS_PER_WORD );
+            long lWord = _words.get( nWord );
+
+            while ( ( ( lWord & lMask ) == 0 ) && !_words.compareAndSet( nWord, lWord, lWord | lMask ) )
+            {
+                lWord = _words.get( nWord );
+            }
+        }
+    }
+
+    /**
+     * Tell whether a key may have been added
+     * @param strKey the key
+     * @return false if the key has never been added, true if it may have been
+     */
+    public boolean mightContain( String strKey )
+    {
+        int nHash1 = strKey.hashCode(  );
+        int nHash2 = secondHash( strKey );
+
+        for ( int i = 0; i < _nHashCount; i++ )
+        {
+            long lBit = getBit( nHash1, nHash2, i );
+
+            if ( ( _words.get( (int) ( lBit / BITS_PER_WORD ) ) & ( 1L << ( lBit % BITS_PER_WORD ) ) ) == 0 )
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Get the bit set by the i-th hash function, derived from two hashes
+     * @param nHash1 the first hash
+     * @param nHash2 the second hash
+     * @param i the index of the hash function
+     * @return the index of the bit
+     */
+    private long getBit( int nHash1, int nHash2, int i )
+    {
+        long lHash = nHash1 + ( (long) i * nHash2 );
+
+        return ( lHash & Long.MAX_VALUE ) % _lBitCount;
+    }
+
+    /**
+     * Second hash of a key (FNV-1a), independent from String.hashCode
+     * @param strKey the key
+     * @return the hash
+     */
+    private static int secondHash( String strKey )
+    {
+        int nHash = FNV_OFFSET_BASIS;
+
+        for ( int i = 0; i < strKey.length(  ); i++ )
+        {
+            nHash ^= strKey.charAt( i );
+            nHash *= FNV_PRIME;
+        }
+
+        // An odd step visits distinct bits
+        return nHash | 1;
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright (c) 2002-2014, Mairie de Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.extend.modules.rating.service.voter;
+
+import fr.paris.lutece.plugins.extend.modules.rating.business.voter.IRatingVoterDAO;
+import fr.paris.lutece.plugins.extend.modules.rating.business.voter.RatingVoter;
+import fr.paris.lutece.plugins.extend.modules.rating.service.RatingPlugin;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ *
+ * VoterContext : the votes of a voter on the resources of a type, shared by
+ * the checks and renders of a request. The votes are read on demand, resource
+ * by resource or for the resources of a page at once, and never for all the
+ * resources of the type : an anonymous voter is known by an IP address, which
+ * may be shared by many users.
+ *
+ */
+public class VoterContext
+{
+    private static final int VOTE_COUNT_UNKNOWN = -1;
+    private final String _strExtendableResourceType;
+    private final String _strVoterKey;
+    private final boolean _bMightHaveVoted;
+    private final IRatingVoterDAO _ratingVoterDAO;
+    private final Map<String, RatingVoter> _mapVoters = new HashMap<String, RatingVoter>(  );
+    private int _nVoteCount = VOTE_COUNT_UNKNOWN;
+
+    /**
+     * Constructor
+     * @param strExtendableResourceType the extendable resource type
+     * @param strVoterKey the key of the voter
+     * @param bMightHaveVoted false if the voter is known to have never voted
+     *            on a resource of the type, so that no vote is read
+     * @param ratingVoterDAO the DAO to read the votes with
+     */
+    public VoterContext( String strExtendableResourceType, String strVoterKey, boolean bMightHaveVoted,
+        IRatingVoterDAO ratingVoterDAO )
+    {
+        _strExtendableResourceType = strExtendableResourceType;
+        _strVoterKey = strVoterKey;
+        _bMightHaveVoted = bMightHaveVoted;
+        _ratingVoterDAO = ratingVoterDAO;
+
+        if ( !bMightHaveVoted )
+        {
+            _nVoteCount = 0;
+        }
+    }
+
+    /**
+     * Get the extendable resource type
+     * @return the extendable resource type
+     */
+    public String getExtendableResourceType(  )
+    {
+        return _strExtendableResourceType;
+    }
+
+    /**
+     * Get the key of the voter
+     * @return the key of the voter
+     */
+    public String getVoterKey(  )
+    {
+        return _strVoterKey;
+    }
+
+    /**
+     * Read at once the votes of the voter on some resources, typically the
+     * resources rendered in a page
+     * @param listIdExtendableResources the ids of the extendable resources
+     */
+    public void prefetch( Collection<String> listIdExtendableResources )
+    {
+        List<String> listIdToLoad = new ArrayList<String>(  );
+
+        for ( String strIdExtendableResource : listIdExtendableResources )
+        {
+            if ( !_mapVoters.containsKey( strIdExtendableResource ) )
+            {
+                // A resource without vote is kept with a null value
+                _mapVoters.put( strIdExtendableResource, null );
+
+                if ( _bMightHaveVoted )
+                {
+                    listIdToLoad.add( strIdExtendableResource );
+                }
+            }
+        }
+
+        if ( !listIdToLoad.isEmpty(  ) )
+        {
+            for ( RatingVoter voter : _ratingVoterDAO.loadByVoter( _strExtendableResourceType, _strVoterKey,
+                    listIdToLoad, RatingPlugin.getPlugin(  ) ) )
+            {
+                _mapVoters.put( voter.getIdExtendableResource(  ), voter );
+            }
+        }
+    }
+
+    /**
+     * Get the number of votes of the voter on the resources of the type
+     * @return the number of votes
+     */
+    public int getVoteCount(  )
+    {
+        if ( _nVoteCount == VOTE_COUNT_UNKNOWN )
+        {
+            _nVoteCount = _ratingVoterDAO.countVotes( _strExtendableResourceType, _strVoterKey,
+                    RatingPlugin.getPlugin(  ) );
+        }
+
+        return _nVoteCount;
+    }
+
+    /**
+     * Get the votes of the voter on a resource
+     * @param strIdExtendableResource the id of the extendable resource
+     * @return the votes of the voter, or null if the voter has not voted yet
+     */
+    public RatingVoter getVoter( String strIdExtendableResource )
+    {
+        if ( !_mapVoters.containsKey( strIdExtendableResource ) )
+        {
+            RatingVoter voter = null;
+
+            if ( _bMightHaveVoted )
+            {
+                voter = _ratingVoterDAO.load( strIdExtendableResource, _strExtendableResourceType, _strVoterKey,
+                        RatingPlugin.getPlugin(  ) );
+            }
+
+            _mapVoters.put( strIdExtendableResource, voter );
+        }
+
+        return _mapVoters.get( strIdExtendableResource );
+    }
+
+    /**
+     * Tell whether the voter has voted on a resource
+     * @param strIdExtendableResource the id of the extendable resource
+     * @return true if the voter has voted on the resource
+     */
+    public boolean hasVoted( String strIdExtendableResource )
+    {
+        return getVoter( strIdExtendableResource ) != null;
+    }
+}
@@ -1,339 +1,537 @@
-/*
- * Copyright (c) 2002-2014, Mairie de Paris
- * All rights reserved.
- *
- * Redistribution and use in source and binary forms, with or without
- * modification, are permitted provided that the following conditions
- * are met:
- *
- *  1. Redistributions of source code must retain the above copyright notice
- *     and the following disclaimer.
- *
- *  2. Redistributions in binary form must reproduce the above copyright notice
- *     and the following disclaimer in the documentation and/or other materials
- *     provided with the distribution.
- *
- *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
- *     contributors may be used to endorse or promote products derived from
- *     this software without specific prior written permission.
- *
- * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
- * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
- * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
- * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
- * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
- * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
- * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
- * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
- * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
- * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
- * POSSIBILITY OF SUCH DAMAGE.
- *
- * License 1.0
- */
-package fr.paris.lutece.plugins.extend.modules.rating.web.component;
-
-import com.fasterxml.jackson.databind.node.ObjectNode;
-import fr.paris.lutece.plugins.extend.business.extender.ResourceExtenderDTO;
-import fr.paris.lutece.plugins.extend.business.extender.config.IExtenderConfig;
-import fr.paris.lutece.plugins.extend.business.extender.history.ResourceExtenderHistory;
-import fr.paris.lutece.plugins.extend.business.extender.history.ResourceExtenderHistoryFilter;
-import fr.paris.lutece.plugins.extend.modules.rating.business.Rating;
-import fr.paris.lutece.plugins.extend.modules.rating.business.RatingHistory;
-import fr.paris.lutece.plugins.extend.modules.rating.business.config.RatingExtenderConfig;
-import fr.paris.lutece.plugins.extend.modules.rating.business.type.VoteType;
-import fr.paris.lutece.plugins.extend.modules.rating.service.IRatingHistoryService;
-import fr.paris.lutece.plugins.extend.modules.rating.service.IRatingService;
-import fr.paris.lutece.plugins.extend.modules.rating.service.extender.RatingResourceExtender;
-import fr.paris.lutece.plugins.extend.modules.rating.service.security.IRatingSecurityService;
-import fr.paris.lutece.plugins.extend.modules.rating.service.type.IVoteTypeService;
-import fr.paris.lutece.plugins.extend.modules.rating.util.constants.RatingConstants;
-import fr.paris.lutece.plugins.extend.service.extender.config.IResourceExtenderConfigService;
-import fr.paris.lutece.plugins.extend.service.extender.history.IResourceExtenderHistoryService;
-import fr.paris.lutece.plugins.extend.util.ExtendErrorException;
-import fr.paris.lutece.plugins.extend.util.JSONUtils;
-import fr.paris.lutece.plugins.extend.web.component.AbstractResourceExtenderComponent;
-import fr.paris.lutece.portal.service.admin.AdminUserService;
-import fr.paris.lutece.portal.service.i18n.I18nService;
-import fr.paris.lutece.portal.service.mailinglist.AdminMailingListService;
-import fr.paris.lutece.portal.service.security.LuteceUser;
-import fr.paris.lutece.portal.service.security.SecurityService;
-import fr.paris.lutece.portal.service.security.UserNotSignedException;
-import fr.paris.lutece.portal.service.template.AppTemplateService;
-import fr.paris.lutece.portal.service.util.AppLogService;
-import fr.paris.lutece.util.ReferenceList;
-import fr.paris.lutece.util.date.DateUtil;
-import fr.paris.lutece.util.html.HtmlTemplate;
-
-import org.apache.commons.collections.CollectionUtils;
-import org.apache.commons.lang.StringUtils;
-
-import java.util.HashMap;
-import java.util.List;
-import java.util.Locale;
-import java.util.Map;
-
-import javax.inject.Inject;
-import javax.inject.Named;
-import javax.servlet.http.HttpServletRequest;
-
-
-/**
- *
- * RatingResourceExtenderComponent
- *
- */
-public class RatingResourceExtenderComponent extends AbstractResourceExtenderComponent
-{
-    // TEMPLATES
-    private static final String TEMPLATE_RATING = "skin/plugins/extend/modules/rating/rating.html";
-    private static final String TEMPLATE_RATING_CONFIG = "admin/plugins/extend/modules/rating/rating_config.html";
-    private static final String TEMPLATE_RATING_INFO = "admin/plugins/extend/modules/rating/rating_info.html";
-    private static final String MARK_LOCALE = "locale";
-	// CONSTANTS
-    private static final String ORDER_BY_DATE_CREATION = " date_creation ";
-    
-    @Inject
-    private IRatingService _ratingService;
-    @Inject
-    @Named( RatingConstants.BEAN_CONFIG_SERVICE )
-    private IResourceExtenderConfigService _configService;
-    @Inject
-    private IVoteTypeService _voteTypeService;
-    @Inject
-    private IRatingSecurityService _ratingSecurityService;
-    @Inject 
-    private IResourceExtenderHistoryService _resourceExtenderHistoryService ;
-    @Inject 
-    private IRatingHistoryService _ratingHistoryService ;
-    /**
-     * {@inheritDoc}
-     */
-    @Override
-    public void buildXmlAddOn( String strIdExtendableResource, String strExtendableResourceType, String strParameters,
-        StringBuffer strXml )
-    {
-        // Nothing yet
-    }
-
-    /**
-     * {@inheritDoc}
-     */
-    @Override
-    public String getPageAddOn( String strIdExtendableResource, String strExtendableResourceType, String strParameters,
-        HttpServletRequest request )
-    {
-        RatingExtenderConfig config = _configService.find( RatingResourceExtender.RESOURCE_EXTENDER,
-                strIdExtendableResource, strExtendableResourceType );
-        LuteceUser user = SecurityService.getInstance(  ).getRegisteredUser( request );
-       
-
-        if ( config != null )
-        {
-            VoteType voteType = _voteTypeService.findByPrimaryKey( config.getIdVoteType(  ), true );
-
-            if ( voteType != null )
-            {
-                Rating rating = _ratingService.findByResource( strIdExtendableResource, strExtendableResourceType );
-                double dVoteValue = 0 ;
-
-                if ( user != null )
-                {
-                 ResourceExtenderHistoryFilter filter = new ResourceExtenderHistoryFilter(  );
-                 
-                 filter.setExtenderType( RatingResourceExtender.RESOURCE_EXTENDER );
-                 filter.setExtendableResourceType( strExtendableResourceType );
-                 filter.setIdExtendableResource( strIdExtendableResource );
-                 filter.setUserGuid( user.getName(  ) );
-                 filter.setAscSort( false );
-                 filter.setSortedAttributeName( ORDER_BY_DATE_CREATION );
-
-                 List<ResourceExtenderHistory> listHistories = _resourceExtenderHistoryService.findByFilter( filter );
-                 
-                 if ( CollectionUtils.isNotEmpty( listHistories ) && listHistories.get( 0 ) != null )
-                 {
-                	 long lHistoryExtenderId = listHistories.get( 0 ).getIdHistory( ) ;
-                	 RatingHistory ratingHistory = _ratingHistoryService.findByHistoryExtenderId( lHistoryExtenderId ) ;
-                	 
-                	 if( ratingHistory != null )
-                	 {
-                		 dVoteValue = ratingHistory.getVoteValue( ) ;
-                	 }
-                 }
-                }
-                
-                Map<String, Object> model = new HashMap<String, Object>(  );
-                model.put( RatingConstants.MARK_RATING, rating );
-                model.put( RatingConstants.MARK_ID_EXTENDABLE_RESOURCE, strIdExtendableResource );
-                model.put( RatingConstants.MARK_EXTENDABLE_RESOURCE_TYPE, strExtendableResourceType );
-                model.put( RatingConstants.MARK_SHOW, fetchShowParameter( strParameters ) );
-                model.put( RatingConstants.MARK_VOTE_VALUE, dVoteValue ) ;
-
-                if( !_ratingSecurityService.isVoteClosed(config))
-                {
-                
-	                try
-	                {
-	                    model.put( RatingConstants.MARK_CAN_VOTE,
-	                        _ratingSecurityService.canVote( request, strIdExtendableResource, strExtendableResourceType ) );
-	                }
-	                catch ( UserNotSignedException e )
-	                {
-	                    // In case of user not signed, he can vote but will be redirected to login page
-	                    model.put( RatingConstants.MARK_CAN_VOTE, true );
-	                }
-                
-	                model.put( RatingConstants.MARK_CAN_DELETE_VOTE,
-	                    _ratingSecurityService.canDeleteVote( request, strIdExtendableResource, strExtendableResourceType ) );
-	                
-	                model.put( RatingConstants.MARK_VOTE_CLOSED, false );
-                }
-                else
-                {
-                	model.put( RatingConstants.MARK_VOTE_CLOSED, true );
-                }
-	                
-	             
-                model.put( RatingConstants.MARK_RATING_HTML_CONTENT,
-		                    AppTemplateService.getTemplateFromStringFtl( voteType.getTemplateContent(  ),
-		                        request.getLocale(  ), model ).getHtml(  ) ); 
-                
-                HtmlTemplate template = AppTemplateService.getTemplate( TEMPLATE_RATING, request.getLocale(  ), model );
-
-                return template.getHtml(  );
-            }
-        }
-
-        return StringUtils.EMPTY;
-    }
-
-    /**
-     * {@inheritDoc}
-     */
-    @Override
-    public String getConfigHtml( ResourceExtenderDTO resourceExtender, Locale locale, HttpServletRequest request )
-    {
-        ReferenceList listIdsMailingList = new ReferenceList(  );
-        listIdsMailingList.addItem( -1,
-            I18nService.getLocalizedString( RatingConstants.PROPERTY_RATING_CONFIG_LABEL_NO_MAILING_LIST, locale ) );
-        listIdsMailingList.addAll( AdminMailingListService.getMailingLists( AdminUserService.getAdminUser( request ) ) );
-
-        Map<String, Object> model = new HashMap<String, Object>(  );
-        model.put( RatingConstants.MARK_RATING_CONFIG, _configService.find( resourceExtender.getIdExtender(  ) ) );
-        model.put( RatingConstants.MARK_LIST_IDS_MAILING_LIST, listIdsMailingList );
-        model.put( RatingConstants.MARK_LIST_IDS_VOTE_TYPE, _voteTypeService.findAll(  ) );
-        model.put( MARK_LOCALE, request.getLocale(  ) );
-
-        HtmlTemplate template = AppTemplateService.getTemplate( TEMPLATE_RATING_CONFIG, request.getLocale(  ), model );
-
-        return template.getHtml(  );
-    }
-
-    /**
-     * {@inheritDoc}
-     */
-    @Override
-    public IExtenderConfig getConfig( int nIdExtender )
-    {
-        return _configService.find( nIdExtender );
-    }
-
-    /**
-     * {@inheritDoc}
-     */
-    @Override
-    public String getInfoHtml( ResourceExtenderDTO resourceExtender, Locale locale, HttpServletRequest request )
-    {
-        if ( resourceExtender != null )
-        {
-            Map<String, Object> model = new HashMap<String, Object>(  );
-            model.put( RatingConstants.MARK_RATING,
-                _ratingService.findByResource( resourceExtender.getIdExtendableResource(  ),
-                    resourceExtender.getExtendableResourceType(  ) ) );
-
-            HtmlTemplate template = AppTemplateService.getTemplate( TEMPLATE_RATING_INFO, request.getLocale(  ), model );
-
-            return template.getHtml(  );
-        }
-
-        return StringUtils.EMPTY;
-    }
-
-    /**
-     * {@inheritDoc}
-     */
-    @Override
-    public void doSaveConfig( HttpServletRequest request, IExtenderConfig config )
-        throws ExtendErrorException
-    {
-        if ( request.getParameter( "limitedConnectedUser" ) == null )
-        {
-            ( (RatingExtenderConfig) config ).setLimitedConnectedUser( false );
-            ( (RatingExtenderConfig) config ).setDeleteVote( false );
-        }
-
-        if ( request.getParameter( "deleteVote" ) == null )
-        {
-            ( (RatingExtenderConfig) config ).setDeleteVote( false );
-        }
-
-        if ( StringUtils.isNotBlank( request.getParameter( "date_start" ) ) )
-        {
-            ( (RatingExtenderConfig) config ).setDateStart( DateUtil.formatTimestamp( request.getParameter( 
-                        "date_start" ), request.getLocale(  ) ) );
-        }
-        else
-        {
-            ( (RatingExtenderConfig) config ).setDateStart( null );
-        }
-
-        if ( StringUtils.isNotBlank( request.getParameter( "date_end" ) ) )
-        {
-            ( (RatingExtenderConfig) config ).setDateEnd( DateUtil.formatTimestamp( request.getParameter( "date_end" ),
-                    request.getLocale(  ) ) );
-        }
-        else
-        {
-            ( (RatingExtenderConfig) config ).setDateEnd( null );
-        }
-
-        _configService.update( config );
-    }
-
-    /**
-     * Fetch show parameter.
-     *
-     * @param strParameters the str parameters
-     * @return the string
-     */
-    private String fetchShowParameter( String strParameters )
-    {
-        String strShowParameter = StringUtils.EMPTY;
-
-        if( strParameters!=null &&  strParameters.contains(RatingConstants.JSON_KEY_SHOW))
-        {
-        	if(strParameters.length() > 5 && strParameters.charAt(1) != '"' && strParameters.contains(":")) {
-	            StringBuilder stringBuilder = new StringBuilder(strParameters);
-	            stringBuilder.insert(1, '"');
-	            stringBuilder.insert(stringBuilder.indexOf(":"), '"');
-	            strParameters = stringBuilder.toString();
-	        }
-	       
-	        ObjectNode jsonParameters = JSONUtils.parseParameters( strParameters );
-	        
-	        if ( jsonParameters != null )
-	        {
-	            if ( jsonParameters.has( RatingConstants.JSON_KEY_SHOW ) )
-	            {
-	                strShowParameter = jsonParameters.get( RatingConstants.JSON_KEY_SHOW ).asText( );
-	            }
-	            else 
-	            {
-	                AppLogService.debug( "No " + RatingConstants.JSON_KEY_SHOW + " found in " + jsonParameters );
-	            }
-	        }
-        }
-
-        return strShowParameter;
-    }
-}
+/*
+ * Copyright (c) 2002-2014, Mairie de Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.extend.modules.rating.web.component;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import fr.paris.lutece.plugins.extend.business.extender.ResourceExtenderDTO;
+import fr.paris.lutece.plugins.extend.business.extender.config.IExtenderConfig;
+import fr.paris.lutece.plugins.extend.modules.rating.business.Rating;
+import fr.paris.lutece.plugins.extend.modules.rating.business.config.RatingExtenderConfig;
+import fr.paris.lutece.plugins.extend.modules.rating.business.type.VoteType;
+import fr.paris.lutece.plugins.extend.modules.rating.business.voter.RatingVoter;
+import fr.paris.lutece.plugins.extend.modules.rating.service.IRatingService;
+import fr.paris.lutece.plugins.extend.modules.rating.service.cache.RatingConfigCacheService;
+import fr.paris.lutece.plugins.extend.modules.rating.service.cache.RatingFragmentCacheService;
+import fr.paris.lutece.plugins.extend.modules.rating.service.cache.VoteTypeCacheService;
+import fr.paris.lutece.plugins.extend.modules.rating.service.security.IRatingSecurityService;
+import fr.paris.lutece.plugins.extend.modules.rating.service.token.RatingVoteTokenService;
+import fr.paris.lutece.plugins.extend.modules.rating.service.type.IVoteTypeService;
+import fr.paris.lutece.plugins.extend.modules.rating.service.voter.IRatingVoterService;
+import fr.paris.lutece.plugins.extend.modules.rating.util.constants.RatingConstants;
+import fr.paris.lutece.plugins.extend.service.extender.config.IResourceExtenderConfigService;
+import fr.paris.lutece.plugins.extend.util.ExtendErrorException;
+import fr.paris.lutece.plugins.extend.util.JSONUtils;
+import fr.paris.lutece.plugins.extend.web.component.AbstractResourceExtenderComponent;
+import fr.paris.lutece.portal.service.admin.AdminUserService;
+import fr.paris.lutece.portal.service.i18n.I18nService;
+import fr.paris.lutece.portal.service.mailinglist.AdminMailingListService;
+import fr.paris.lutece.portal.service.security.LuteceUser;
+import fr.paris.lutece.portal.service.security.SecurityService;
+import fr.paris.lutece.portal.service.security.UserNotSignedException;
+import fr.paris.lutece.portal.service.template.AppTemplateService;
+import fr.paris.lutece.portal.service.util.AppLogService;
+import fr.paris.lutece.portal.service.util.AppPropertiesService;
+import fr.paris.lutece.util.ReferenceList;
+import fr.paris.lutece.util.date.DateUtil;
+import fr.paris.lutece.util.html.HtmlTemplate;
+
+import org.apache.commons.lang.StringUtils;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.servlet.http.HttpServletRequest;
+
+
+/**
+ *
+ * RatingResourceExtenderComponent
+ *
+ */
+public class RatingResourceExtenderComponent extends AbstractResourceExtenderComponent
+{
+    // TEMPLATES
+    private static final String TEMPLATE_RATING = "skin/plugins/extend/modules/rating/rating.html";
+    private static final String TEMPLATE_RATING_CONFIG = "admin/plugins/extend/modules/rating/rating_config.html";
+    private static final String TEMPLATE_RATING_INFO = "admin/plugins/extend/modules/rating/rating_info.html";
+    private static final String MARK_LOCALE = "locale";
+    private static final String PROPERTY_HYDRATION_ENABLED = "extend-rating.hydration.enabled";
+    private static final String ATTRIBUTE_PREFETCHED_RATINGS = "extend-rating.prefetchedRatings.";
+    private static final String CONSTANT_VOTE_TOKEN_PLACEHOLDER = "ratingVoteTokenPlaceholder";
+    private static final String CONSTANT_KEY_SEPARATOR = "|";
+    private static final String CONSTANT_NO_RATING = "-";
+
+    @Inject
+    private IRatingService _ratingService;
+    @Inject
+    @Named( RatingConstants.BEAN_CONFIG_SERVICE )
+    private IResourceExtenderConfigService _configService;
+    @Inject
+    private IVoteTypeService _voteTypeService;
+    @Inject
+    private IRatingSecurityService _ratingSecurityService;
+    @Inject
+    private IRatingVoterService _ratingVoterService;
+    @Inject
+    private RatingConfigCacheService _ratingConfigCacheService;
+    @Inject
+    private VoteTypeCacheService _voteTypeCacheService;
+    @Inject
+    private RatingFragmentCacheService _ratingFragmentCacheService;
+    @Inject
+    private RatingVoteTokenService _ratingVoteTokenService;
+    private final boolean _bHydration = AppPropertiesService.getPropertyBoolean( PROPERTY_HYDRATION_ENABLED, false );
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void buildXmlAddOn( String strIdExtendableResource, String strExtendableResourceType, String strParameters,
+        StringBuffer strXml )
+    {
+        // Nothing yet
+    }
+
+    /**
+     * Load at once the ratings of the resources that a page is about to
+     * render, and the votes of the current voter on them, so that
+     * {@link #getPageAddOn(String, String, String, HttpServletRequest)}
+     * does not query them one by one. They are kept for the current request
+     * only.
+     * @param listIdExtendableResources the ids of the extendable resources
+     * @param strExtendableResourceType the extendable resource type
+     * @param request the HTTP request
+     */
+    public void prefetchPageAddOns( Collection<String> listIdExtendableResources, String strExtendableResourceType,
+        HttpServletRequest request )
+    {
+        Map<String, Rating> mapRatings = _ratingService.findByResources( listIdExtendableResources,
+                strExtendableResourceType );
+        Map<String, Rating> mapPrefetchedRatings = getPrefetchedRatings( strExtendableResourceType, request );
+
+        if ( mapPrefetchedRatings == null )
+        {
+            mapPrefetchedRatings = new HashMap<String, Rating>(  );
+            request.setAttribute( ATTRIBUTE_PREFETCHED_RATINGS + strExtendableResourceType, mapPrefetchedRatings );
+        }
+
+        // The resources without rating are kept too, with a null rating
+        for ( String strIdExtendableResource : listIdExtendableResources )
+        {
+            mapPrefetchedRatings.put( strIdExtendableResource, mapRatings.get( strIdExtendableResource ) );
+        }
+
+        _ratingVoterService.getVoterContext( request, strExtendableResourceType ).prefetch( listIdExtendableResources );
+    }
+
+    /**
+     * Render at once the widgets of several resources of a type, as a listing
+     * page does. The ratings of the resources are loaded with set-based
+     * queries before the widgets are rendered, the configurations come from
+     * the configuration cache, and the parameters are parsed once.
+     * @param listIdExtendableResources the ids of the extendable resources
+     * @param strExtendableResourceType the extendable resource type
+     * @param strParameters the parameters, the same for all the resources
+     * @param request the HTTP request
+     * @return the HTML of the widgets keyed on the id of their resource, in
+     *         the order of the given ids. The HTML is empty for the resources
+     *         that have no rating extender.
+     */
+    public Map<String, String> getPageAddOns( Collection<String> listIdExtendableResources,
+        String strExtendableResourceType, String strParameters, HttpServletRequest request )
+    {
+        Map<String, String> mapHtml = new LinkedHashMap<String, String>(  );
+        Map<String, RatingExtenderConfig> mapConfigs = _ratingConfigCacheService.getConfigs( listIdExtendableResources,
+                strExtendableResourceType );
+
+        // The placeholders of the hydration need neither the ratings nor the votes
+        if ( !mapConfigs.isEmpty(  ) && !_bHydration )
+        {
+            prefetchPageAddOns( mapConfigs.keySet(  ), strExtendableResourceType, request );
+        }
+
+        String strShow = fetchShowParameter( strParameters );
+
+        for ( String strIdExtendableResource : listIdExtendableResources )
+        {
+            mapHtml.put( strIdExtendableResource,
+                buildPageAddOn( strIdExtendableResource, strExtendableResourceType,
+                    mapConfigs.get( strIdExtendableResource ), strShow, request ) );
+        }
+
+        return mapHtml;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getPageAddOn( String strIdExtendableResource, String strExtendableResourceType, String strParameters,
+        HttpServletRequest request )
+    {
+        RatingExtenderConfig config = _ratingConfigCacheService.getConfig( strIdExtendableResource,
+                strExtendableResourceType );
+
+        return buildPageAddOn( strIdExtendableResource, strExtendableResourceType, config,
+            ( config != null ) ? fetchShowParameter( strParameters ) : StringUtils.EMPTY, request );
+    }
+
+    /**
+     * Render the widget of a resource
+     * @param strIdExtendableResource the id of the extendable resource
+     * @param strExtendableResourceType the extendable resource type
+     * @param config the rating configuration of the resource, or null if it
+     *            has none
+     * @param strShow the show parameter
+     * @param request the HTTP request
+     * @return the HTML of the widget, or an empty string if the resource has
+     *         no configuration
+     */
+    private String buildPageAddOn( String strIdExtendableResource, String strExtendableResourceType,
+        RatingExtenderConfig config, String strShow, HttpServletRequest request )
+    {
+        LuteceUser user = SecurityService.getInstance(  ).getRegisteredUser( request );
+
+        if ( config != null )
+        {
+            VoteType voteType = _voteTypeCacheService.getVoteType( config.getIdVoteType(  ) );
+
+            if ( ( voteType != null ) && _bHydration )
+            {
+                // The same placeholder for every visitor, filled in by extend-rating.js
+                Map<String, Object> model = new HashMap<String, Object>(  );
+                model.put( RatingConstants.MARK_ID_EXTENDABLE_RESOURCE, strIdExtendableResource );
+                model.put( RatingConstants.MARK_EXTENDABLE_RESOURCE_TYPE, strExtendableResourceType );
+                model.put( RatingConstants.MARK_SHOW, strShow );
+                model.put( RatingConstants.MARK_HYDRATE, true );
+
+                return renderPageAddOn( voteType, model, request.getLocale(  ) );
+            }
+
+            if ( voteType != null )
+            {
+                Rating rating = getRating( strIdExtendableResource, strExtendableResourceType, request );
+                double dVoteValue = 0 ;
+
+                if ( user != null )
+                {
+                    RatingVoter voter = _ratingVoterService.getVoterContext( request, strExtendableResourceType )
+                                                           .getVoter( strIdExtendableResource );
+
+                    if ( voter != null )
+                    {
+                        dVoteValue = voter.getLastVoteValue(  );
+                    }
+                }
+                
+                Map<String, Object> model = new HashMap<String, Object>(  );
+                model.put( RatingConstants.MARK_RATING, rating );
+                model.put( RatingConstants.MARK_ID_EXTENDABLE_RESOURCE, strIdExtendableResource );
+                model.put( RatingConstants.MARK_EXTENDABLE_RESOURCE_TYPE, strExtendableResourceType );
+                model.put( RatingConstants.MARK_SHOW, strShow );
+                model.put( RatingConstants.MARK_VOTE_VALUE, dVoteValue ) ;
+
+                if( !_ratingSecurityService.isVoteClosed(config))
+                {
+                
+	                try
+	                {
+	                    model.put( RatingConstants.MARK_CAN_VOTE,
+	                        _ratingSecurityService.canVote( request, strIdExtendableResource, strExtendableResourceType ) );
+	                }
+	                catch ( UserNotSignedException e )
+	                {
+	                    // In case of user not signed, he can vote but will be redirected to login page
+	                    model.put( RatingConstants.MARK_CAN_VOTE, true );
+	                }
+                
+	                model.put( RatingConstants.MARK_CAN_DELETE_VOTE,
+	                    _ratingSecurityService.canDeleteVote( request, strIdExtendableResource, strExtendableResourceType ) );
+	                
+	                model.put( RatingConstants.MARK_VOTE_CLOSED, false );
+                }
+                else
+                {
+                	model.put( RatingConstants.MARK_VOTE_CLOSED, true );
+                }
+
+                // The widget of the anonymous visitors is the same for all of them, but for its vote token
+                if ( user == null )
+                {
+                    String strKey = getFragmentKey( voteType, rating, model, request.getLocale(  ) );
+                    String strHtml = _ratingFragmentCacheService.getHtml( strKey );
+
+                    if ( strHtml == null )
+                    {
+                        model.put( RatingConstants.MARK_VOTE_TOKEN, CONSTANT_VOTE_TOKEN_PLACEHOLDER );
+                        strHtml = renderPageAddOn( voteType, model, request.getLocale(  ) );
+                        _ratingFragmentCacheService.putHtml( strKey, strHtml );
+                    }
+
+                    return StringUtils.replace( strHtml, CONSTANT_VOTE_TOKEN_PLACEHOLDER,
+                        _ratingVoteTokenService.generateToken(  ) );
+                }
+
+                model.put( RatingConstants.MARK_VOTE_TOKEN, _ratingVoteTokenService.generateToken(  ) );
+
+                return renderPageAddOn( voteType, model, request.getLocale(  ) );
+            }
+        }
+
+        return StringUtils.EMPTY;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getConfigHtml( ResourceExtenderDTO resourceExtender, Locale locale, HttpServletRequest request )
+    {
+        ReferenceList listIdsMailingList = new ReferenceList(  );
+        listIdsMailingList.addItem( -1,
+            I18nService.getLocalizedString( RatingConstants.PROPERTY_RATING_CONFIG_LABEL_NO_MAILING_LIST, locale ) );
+        listIdsMailingList.addAll( AdminMailingListService.getMailingLists( AdminUserService.getAdminUser( request ) ) );
+
+        Map<String, Object> model = new HashMap<String, Object>(  );
+        model.put( RatingConstants.MARK_RATING_CONFIG, _configService.find( resourceExtender.getIdExtender(  ) ) );
+        model.put( RatingConstants.MARK_LIST_IDS_MAILING_LIST, listIdsMailingList );
+        model.put( RatingConstants.MARK_LIST_IDS_VOTE_TYPE, _voteTypeService.findAll(  ) );
+        model.put( MARK_LOCALE, request.getLocale(  ) );
+
+        HtmlTemplate template = AppTemplateService.getTemplate( TEMPLATE_RATING_CONFIG, request.getLocale(  ), model );
+
+        return template.getHtml(  );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public IExtenderConfig getConfig( int nIdExtender )
+    {
+        return _configService.find( nIdExtender );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getInfoHtml( ResourceExtenderDTO resourceExtender, Locale locale, HttpServletRequest request )
+    {
+        if ( resourceExtender != null )
+        {
+            Map<String, Object> model = new HashMap<String, Object>(  );
+            model.put( RatingConstants.MARK_RATING,
+                _ratingService.findByResource( resourceExtender.getIdExtendableResource(  ),
+                    resourceExtender.getExtendableResourceType(  ) ) );
+
+            HtmlTemplate template = AppTemplateService.getTemplate( TEMPLATE_RATING_INFO, request.getLocale(  ), model );
+
+            return template.getHtml(  );
+        }
+
+        return StringUtils.EMPTY;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void doSaveConfig( HttpServletRequest request, IExtenderConfig config )
+        throws ExtendErrorException
+    {
+        if ( request.getParameter( "limitedConnectedUser" ) == null )
+        {
+            ( (RatingExtenderConfig) config ).setLimitedConnectedUser( false );
+            ( (RatingExtenderConfig) config ).setDeleteVote( false );
+        }
+
+        if ( request.getParameter( "deleteVote" ) == null )
+        {
+            ( (RatingExtenderConfig) config ).setDeleteVote( false );
+        }
+
+        if ( StringUtils.isNotBlank( request.getParameter( "date_start" ) ) )
+        {
+            ( (RatingExtenderConfig) config ).setDateStart( DateUtil.formatTimestamp( request.getParameter( 
+                        "date_start" ), request.getLocale(  ) ) );
+        }
+        else
+        {
+            ( (RatingExtenderConfig) config ).setDateStart( null );
+        }
+
+        if ( StringUtils.isNotBlank( request.getParameter( "date_end" ) ) )
+        {
+            ( (RatingExtenderConfig) config ).setDateEnd( DateUtil.formatTimestamp( request.getParameter( "date_end" ),
+                    request.getLocale(  ) ) );
+        }
+        else
+        {
+            ( (RatingExtenderConfig) config ).setDateEnd( null );
+        }
+
+        _configService.update( config );
+        _ratingConfigCacheService.removeAll(  );
+    }
+
+    /**
+     * Fetch show parameter.
+     *
+     * @param strParameters the str parameters
+     * @return the string
+     */
+    private String fetchShowParameter( String strParameters )
+    {
+        String strShowParameter = StringUtils.EMPTY;
+
+        if( strParameters!=null &&  strParameters.contains(RatingConstants.JSON_KEY_SHOW))
+        {
+        	if(strParameters.length() > 5 && strParameters.charAt(1) != '"' && strParameters.contains(":")) {
+	            StringBuilder stringBuilder = new StringBuilder(strParameters);
+	            stringBuilder.insert(1, '"');
+	            stringBuilder.insert(stringBuilder.indexOf(":"), '"');
+	            strParameters = stringBuilder.toString();
+	        }
+	       
+	        ObjectNode jsonParameters = JSONUtils.parseParameters( strParameters );
+	        
+	        if ( jsonParameters != null )
+	        {
+	            if ( jsonParameters.has( RatingConstants.JSON_KEY_SHOW ) )
+	            {
+	                strShowParameter = jsonParameters.get( RatingConstants.JSON_KEY_SHOW ).asText( );
+	            }
+	            else 
+	            {
+	                AppLogService.debug( "No " + RatingConstants.JSON_KEY_SHOW + " found in " + jsonParameters );
+	            }
+	        }
+        }
+
+        return strShowParameter;
+    }
+
+    /**
+     * Render the widget of a resource
+     * @param voteType the vote type
+     * @param model the model
+     * @param locale the locale
+     * @return the HTML of the widget
+     */
+    private String renderPageAddOn( VoteType voteType, Map<String, Object> model, Locale locale )
+    {
+        model.put( RatingConstants.MARK_RATING_HTML_CONTENT,
+            _voteTypeCacheService.getTemplate( voteType, locale, model ).getHtml(  ) );
+
+        HtmlTemplate template = AppTemplateService.getTemplate( TEMPLATE_RATING, locale, model );
+
+        return template.getHtml(  );
+    }
+
+    /**
+     * Get the key of the widget of a resource in the fragment cache, made of
+     * all the values the render of an anonymous visitor depends on
+     * @param voteType the vote type
+     * @param rating the rating, or null if the resource has no rating
+     * @param model the model, without the vote token
+     * @param locale the locale
+     * @return the key
+     */
+    private static String getFragmentKey( VoteType voteType, Rating rating, Map<String, Object> model, Locale locale )
+    {
+        StringBuilder sbKey = new StringBuilder(  );
+        sbKey.append( model.get( RatingConstants.MARK_EXTENDABLE_RESOURCE_TYPE ) ).append( CONSTANT_KEY_SEPARATOR );
+        sbKey.append( model.get( RatingConstants.MARK_ID_EXTENDABLE_RESOURCE ) ).append( CONSTANT_KEY_SEPARATOR );
+        sbKey.append( voteType.getIdVoteType(  ) ).append( CONSTANT_KEY_SEPARATOR );
+        sbKey.append( model.get( RatingConstants.MARK_SHOW ) ).append( CONSTANT_KEY_SEPARATOR );
+        sbKey.append( model.get( RatingConstants.MARK_VOTE_CLOSED ) ).append( CONSTANT_KEY_SEPARATOR );
+        sbKey.append( model.get( RatingConstants.MARK_CAN_VOTE ) ).append( CONSTANT_KEY_SEPARATOR );
+        sbKey.append( model.get( RatingConstants.MARK_CAN_DELETE_VOTE ) ).append( CONSTANT_KEY_SEPARATOR );
+        sbKey.append( locale ).append( CONSTANT_KEY_SEPARATOR );
+
+        if ( rating != null )
+        {
+            sbKey.append( rating.getVoteCount(  ) ).append( CONSTANT_KEY_SEPARATOR );
+            sbKey.append( rating.getScoreValue(  ) ).append( CONSTANT_KEY_SEPARATOR );
+            sbKey.append( rating.getScorePositifsVotes(  ) ).append( CONSTANT_KEY_SEPARATOR );
+            sbKey.append( rating.getScoreNegativesVotes(  ) );
+        }
+        else
+        {
+            sbKey.append( CONSTANT_NO_RATING );
+        }
+
+        return sbKey.toString(  );
+    }
+
+    /**
+     * Get the rating of a resource, from the ratings prefetched for the
+     * request if it is one of them
+     * @param strIdExtendableResource the id of the extendable resource
+     * @param strExtendableResourceType the extendable resource type
+     * @param request the HTTP request
+     * @return the rating, or null if the resource has no rating
+     */
+    private Rating getRating( String strIdExtendableResource, String strExtendableResourceType,
+        HttpServletRequest request )
+    {
+        Map<String, Rating> mapPrefetchedRatings = getPrefetchedRatings( strExtendableResourceType, request );
+
+        if ( ( mapPrefetchedRatings != null ) && mapPrefetchedRatings.containsKey( strIdExtendableResource ) )
+        {
+            return mapPrefetchedRatings.get( strIdExtendableResource );
+        }
+
+        return _ratingService.findByResource( strIdExtendableResource, strExtendableResourceType );
+    }
+
+    /**
+     * Get the ratings prefetched for the request
+     * @param strExtendableResourceType the extendable resource type
+     * @param request the HTTP request
+     * @return the ratings keyed on the id of their resource, or null if none
+     *         was prefetched
+     */
+    @SuppressWarnings( "unchecked" )
+    private static Map<String, Rating> getPrefetchedRatings( String strExtendableResourceType,
+        HttpServletRequest request )
+    {
+        return (Map<String, Rating>) request.getAttribute( ATTRIBUTE_PREFETCHED_RATINGS + strExtendableResourceType );
+    }
+}
@@ -1,55 +1,105 @@
---
--- Structure for table extend_rating
---
-DROP TABLE IF EXISTS extend_rating;
-CREATE TABLE extend_rating (
-	id_rating INT DEFAULT 0 NOT NULL,
-	id_resource VARCHAR(100) DEFAULT '' NOT NULL,
-	resource_type VARCHAR(255) DEFAULT '' NOT NULL,
-	vote_count INT default 0 NOT NULL,
-	score_value DOUBLE default 0 NOT NULL,
-	score_positifs_votes INT default 0 NOT NULL,
-	score_negatives_votes INT default 0 NOT NULL,
-	PRIMARY KEY (id_rating)
-);
-
---
--- Structure for table extend_rating_config
---
-DROP TABLE IF EXISTS extend_rating_config;
-CREATE TABLE extend_rating_config (
-	id_extender INT DEFAULT 0 NOT NULL,
-	id_mailing_list INT DEFAULT -1 NOT NULL,
-	id_vote_type INT DEFAULT 1 NOT NULL,
-	is_unique_vote SMALLINT DEFAULT 0 NOT NULL,
-	nb_days_to_vote INT DEFAULT 0 NOT NULL,
-	is_connected INT DEFAULT 0 NOT NULL,
-	is_active INT DEFAULT 1 NOT NULL,
-	nb_vote_per_user INT DEFAULT 0 NOT NULL,
-	delete_vote INT DEFAULT 0 NOT NULL,
-	date_start TIMESTAMP DEFAULT NULL NULL,
-	date_end TIMESTAMP DEFAULT NULL NULL,
-	PRIMARY KEY (id_extender)
-);
-
---
--- Structure for table extend_rating_vote_type
---
-DROP TABLE IF EXISTS extend_rating_vote_type;
-CREATE TABLE extend_rating_vote_type (
-	id_vote_type INT DEFAULT 0 NOT NULL,
-	title VARCHAR(255) DEFAULT '' NOT NULL,
-	template_name VARCHAR(100) DEFAULT '' NOT NULL,
-	PRIMARY KEY (id_vote_type)
-);
-
---
--- Structure for table extend_rating_vote_history
---
-DROP TABLE IF EXISTS extend_rating_vote_history;
-CREATE TABLE extend_rating_vote_history (
-	id_vote_history INT DEFAULT 0 NOT NULL,
-	id_extender_history INT DEFAULT 0 NOT NULL,
-	vote_value DOUBLE DEFAULT 0 NOT NULL,
-	PRIMARY KEY (id_vote_history)
-);
+--
+-- Structure for table extend_rating
+--
+DROP TABLE IF EXISTS extend_rating;
+CREATE TABLE extend_rating (
+	id_rating INT DEFAULT 0 NOT NULL,
+	id_resource VARCHAR(100) DEFAULT '' NOT NULL,
+	resource_type VARCHAR(255) DEFAULT '' NOT NULL,
+	vote_count INT default 0 NOT NULL,
+	score_value DOUBLE default 0 NOT NULL,
+	score_positifs_votes INT default 0 NOT NULL,
+	score_negatives_votes INT default 0 NOT NULL,
+	version INT default 0 NOT NULL,
+	average_score DOUBLE default 0 NOT NULL,
+	wilson_score DOUBLE default 0 NOT NULL,
+	bayesian_score DOUBLE default 0 NOT NULL,
+	PRIMARY KEY (id_rating)
+);
+CREATE UNIQUE INDEX idx_extend_rating_resource ON extend_rating ( resource_type, id_resource );
+CREATE INDEX idx_extend_rating_vote_count ON extend_rating ( resource_type, vote_count, id_rating );
+CREATE INDEX idx_extend_rating_score_value ON extend_rating ( resource_type, score_value, id_rating );
+CREATE INDEX idx_extend_rating_average_score ON extend_rating ( resource_type, average_score, id_rating );
+CREATE INDEX idx_extend_rating_wilson_score ON extend_rating ( resource_type, wilson_score, id_rating );
+CREATE INDEX idx_extend_rating_bayesian_score ON extend_rating ( resource_type, bayesian_score, id_rating );
+
+--
+-- Structure for table extend_rating_config
+--
+DROP TABLE IF EXISTS extend_rating_config;
+CREATE TABLE extend_rating_config (
+	id_extender INT DEFAULT 0 NOT NULL,
+	id_mailing_list INT DEFAULT -1 NOT NULL,
+	id_vote_type INT DEFAULT 1 NOT NULL,
+	is_unique_vote SMALLINT DEFAULT 0 NOT NULL,
+	nb_days_to_vote INT DEFAULT 0 NOT NULL,
+	is_connected INT DEFAULT 0 NOT NULL,
+	is_active INT DEFAULT 1 NOT NULL,
+	nb_vote_per_user INT DEFAULT 0 NOT NULL,
+	delete_vote INT DEFAULT 0 NOT NULL,
+	date_start TIMESTAMP DEFAULT NULL NULL,
+	date_end TIMESTAMP DEFAULT NULL NULL,
+	PRIMARY KEY (id_extender)
+);
+
+--
+-- Structure for table extend_rating_vote_type
+--
+DROP TABLE IF EXISTS extend_rating_vote_type;
+CREATE TABLE extend_rating_vote_type (
+	id_vote_type INT DEFAULT 0 NOT NULL,
+	title VARCHAR(255) DEFAULT '' NOT NULL,
+	template_name VARCHAR(100) DEFAULT '' NOT NULL,
+	bayesian_prior_mean DOUBLE DEFAULT 0 NOT NULL,
+	bayesian_prior_weight DOUBLE DEFAULT 5 NOT NULL,
+	min_vote_value DOUBLE DEFAULT 0 NOT NULL,
+	max_vote_value DOUBLE DEFAULT 1 NOT NULL,
+	PRIMARY KEY (id_vote_type)
+);
+
+--
+-- Structure for table extend_rating_vote_history
+--
+DROP TABLE IF EXISTS extend_rating_vote_history;
+CREATE TABLE extend_rating_vote_history (
+	id_vote_history INT DEFAULT 0 NOT NULL,
+	id_extender_history INT DEFAULT 0 NOT NULL,
+	vote_value DOUBLE DEFAULT 0 NOT NULL,
+	PRIMARY KEY (id_vote_history)
+);
+
+--
+-- Structure for table extend_rating_sequence
+--
+DROP TABLE IF EXISTS extend_rating_sequence;
+CREATE TABLE extend_rating_sequence (
+	sequence_name VARCHAR(100) DEFAULT '' NOT NULL,
+	next_value INT DEFAULT 1 NOT NULL,
+	PRIMARY KEY (sequence_name)
+);
+
+--
+-- Structure for table extend_rating_vote_token
+--
+DROP TABLE IF EXISTS extend_rating_vote_token;
+CREATE TABLE extend_rating_vote_token (
+	vote_token VARCHAR(50) DEFAULT '' NOT NULL,
+	date_use TIMESTAMP NOT NULL,
+	PRIMARY KEY (vote_token)
+);
+CREATE INDEX idx_extend_rating_vote_token_date ON extend_rating_vote_token ( date_use );
+
+--
+-- Structure for table extend_rating_voter
+--
+DROP TABLE IF EXISTS extend_rating_voter;
+CREATE TABLE extend_rating_voter (
+	id_resource VARCHAR(100) DEFAULT '' NOT NULL,
+	resource_type VARCHAR(255) DEFAULT '' NOT NULL,
+	voter_key VARCHAR(100) DEFAULT '' NOT NULL,
+	last_vote_value DOUBLE default 0 NOT NULL,
+	last_vote_date TIMESTAMP NULL,
+	vote_count INT default 0 NOT NULL,
+	PRIMARY KEY (resource_type, id_resource, voter_key)
+);
+CREATE INDEX idx_extend_rating_voter_key ON extend_rating_voter ( resource_type, voter_key );
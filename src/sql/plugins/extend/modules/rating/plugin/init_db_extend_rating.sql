@@ -1,4 +1,7 @@
-INSERT INTO extend_rating_vote_type (id_vote_type, title, template_name) VALUES (1, 'Star', 'extend_rating_vote_type_star' );
-INSERT INTO extend_rating_vote_type (id_vote_type, title, template_name) VALUES (2, 'Thumb', 'extend_rating_vote_type_thumb' );
-INSERT INTO extend_rating_vote_type (id_vote_type, title, template_name) VALUES (3, 'Vote simple', 'extend_rating_vote_type_simple' );
-INSERT INTO extend_rating_config (id_extender,id_mailing_list,id_vote_type,is_unique_vote,nb_days_to_vote) VALUES (-1,-1,1,1,0); 
+INSERT INTO extend_rating_vote_type (id_vote_type, title, template_name, bayesian_prior_mean, bayesian_prior_weight, min_vote_value, max_vote_value) VALUES (1, 'Star', 'extend_rating_vote_type_star', 2.5, 5, 0, 4 );
+INSERT INTO extend_rating_vote_type (id_vote_type, title, template_name, bayesian_prior_mean, bayesian_prior_weight, min_vote_value, max_vote_value) VALUES (2, 'Thumb', 'extend_rating_vote_type_thumb', 0, 5, -1, 1 );
+INSERT INTO extend_rating_vote_type (id_vote_type, title, template_name, bayesian_prior_mean, bayesian_prior_weight, min_vote_value, max_vote_value) VALUES (3, 'Vote simple', 'extend_rating_vote_type_simple', 0, 5, 0, 1 );
+INSERT INTO extend_rating_config (id_extender,id_mailing_list,id_vote_type,is_unique_vote,nb_days_to_vote) VALUES (-1,-1,1,1,0);
+INSERT INTO extend_rating_sequence (sequence_name, next_value) VALUES ('extend_rating', 1);
+INSERT INTO extend_rating_sequence (sequence_name, next_value) VALUES ('extend_rating_vote_history', 1);
+INSERT INTO extend_rating_sequence (sequence_name, next_value) VALUES ('extend_resource_extender_history', 1);
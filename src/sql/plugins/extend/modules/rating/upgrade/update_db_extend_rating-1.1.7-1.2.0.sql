@@ -0,0 +1,130 @@
+--
+-- Merge the duplicated ratings of a resource into the oldest one, before the
+-- resource index is made unique
+--
+DROP TABLE IF EXISTS extend_rating_merge;
+CREATE TABLE extend_rating_merge AS
+	SELECT MIN( id_rating ) AS id_rating, id_resource, resource_type, SUM( vote_count ) AS vote_count, SUM( score_value ) AS score_value,
+	SUM( score_positifs_votes ) AS score_positifs_votes, SUM( score_negatives_votes ) AS score_negatives_votes
+	FROM extend_rating GROUP BY resource_type, id_resource HAVING COUNT(*) > 1;
+DELETE FROM extend_rating WHERE EXISTS ( SELECT id_rating FROM extend_rating_merge m
+	WHERE m.resource_type = extend_rating.resource_type AND m.id_resource = extend_rating.id_resource );
+INSERT INTO extend_rating ( id_rating, id_resource, resource_type, vote_count, score_value, score_positifs_votes, score_negatives_votes )
+	SELECT id_rating, id_resource, resource_type, vote_count, score_value, score_positifs_votes, score_negatives_votes FROM extend_rating_merge;
+DROP TABLE extend_rating_merge;
+
+--
+-- Index used to apply the vote deltas on the rating of a resource. It is
+-- unique so that two webapps cannot create the rating of a resource twice.
+--
+CREATE UNIQUE INDEX idx_extend_rating_resource ON extend_rating ( resource_type, id_resource );
+
+--
+-- Version of the ratings, used to detect the concurrent updates
+--
+ALTER TABLE extend_rating ADD COLUMN version INT default 0 NOT NULL;
+
+--
+-- Structure for table extend_rating_sequence
+--
+DROP TABLE IF EXISTS extend_rating_sequence;
+CREATE TABLE extend_rating_sequence (
+	sequence_name VARCHAR(100) DEFAULT '' NOT NULL,
+	next_value INT DEFAULT 1 NOT NULL,
+	PRIMARY KEY (sequence_name)
+);
+INSERT INTO extend_rating_sequence (sequence_name, next_value) SELECT 'extend_rating', COALESCE( MAX( id_rating ), 0 ) + 1 FROM extend_rating;
+INSERT INTO extend_rating_sequence (sequence_name, next_value) SELECT 'extend_rating_vote_history', COALESCE( MAX( id_vote_history ), 0 ) + 1 FROM extend_rating_vote_history;
+INSERT INTO extend_rating_sequence (sequence_name, next_value) SELECT 'extend_resource_extender_history', COALESCE( MAX( id_history ), 0 ) + 1 FROM extend_resource_extender_history;
+
+--
+-- Structure for table extend_rating_vote_token
+--
+DROP TABLE IF EXISTS extend_rating_vote_token;
+CREATE TABLE extend_rating_vote_token (
+	vote_token VARCHAR(50) DEFAULT '' NOT NULL,
+	date_use TIMESTAMP NOT NULL,
+	PRIMARY KEY (vote_token)
+);
+CREATE INDEX idx_extend_rating_vote_token_date ON extend_rating_vote_token ( date_use );
+
+--
+-- Vote token in the vote links of the vote types
+--
+UPDATE core_template SET template_value = REPLACE( template_value, 'DoVote.jsp?', 'DoVote.jsp?voteToken=${voteToken!}&amp;' ) WHERE template_name = 'extend_rating_vote_type_thumb';
+UPDATE core_template SET template_value = REPLACE( template_value, 'DoVote.jsp?', 'DoVote.jsp?voteToken=${voteToken!}&' ) WHERE template_name IN ( 'extend_rating_vote_type_star', 'extend_rating_vote_type_simple' );
+
+--
+-- Structure for table extend_rating_voter
+--
+DROP TABLE IF EXISTS extend_rating_voter;
+CREATE TABLE extend_rating_voter (
+	id_resource VARCHAR(100) DEFAULT '' NOT NULL,
+	resource_type VARCHAR(255) DEFAULT '' NOT NULL,
+	voter_key VARCHAR(100) DEFAULT '' NOT NULL,
+	last_vote_value DOUBLE default 0 NOT NULL,
+	last_vote_date TIMESTAMP NULL,
+	vote_count INT default 0 NOT NULL,
+	PRIMARY KEY (resource_type, id_resource, voter_key)
+);
+CREATE INDEX idx_extend_rating_voter_key ON extend_rating_voter ( resource_type, voter_key );
+INSERT INTO extend_rating_voter ( id_resource, resource_type, voter_key, last_vote_date, vote_count )
+	SELECT id_resource, resource_type, CASE WHEN user_guid IS NULL OR user_guid = '' THEN ip_address ELSE user_guid END, MAX( date_creation ), COUNT(*)
+	FROM extend_resource_extender_history WHERE extender_type = 'rating'
+	GROUP BY id_resource, resource_type, CASE WHEN user_guid IS NULL OR user_guid = '' THEN ip_address ELSE user_guid END;
+UPDATE extend_rating_voter SET last_vote_value = COALESCE( ( SELECT vh.vote_value FROM extend_rating_vote_history vh
+	INNER JOIN extend_resource_extender_history eh ON eh.id_history = vh.id_extender_history
+	WHERE eh.extender_type = 'rating' AND eh.id_resource = extend_rating_voter.id_resource AND eh.resource_type = extend_rating_voter.resource_type
+	AND CASE WHEN eh.user_guid IS NULL OR eh.user_guid = '' THEN eh.ip_address ELSE eh.user_guid END = extend_rating_voter.voter_key
+	ORDER BY eh.date_creation DESC, eh.id_history DESC LIMIT 1 ), 0 );
+
+--
+-- Index used to rank the ratings of a resource type on their number of votes,
+-- then on their rating id
+--
+CREATE INDEX idx_extend_rating_vote_count ON extend_rating ( resource_type, vote_count, id_rating );
+
+--
+-- Ranking scores of the ratings : average, lower bound of the Wilson score
+-- interval of the positive votes, Bayesian average with the default prior
+-- (mean 0, weight 5)
+--
+ALTER TABLE extend_rating ADD COLUMN average_score DOUBLE default 0 NOT NULL;
+ALTER TABLE extend_rating ADD COLUMN wilson_score DOUBLE default 0 NOT NULL;
+ALTER TABLE extend_rating ADD COLUMN bayesian_score DOUBLE default 0 NOT NULL;
+UPDATE extend_rating SET
+	average_score = CASE WHEN vote_count > 0 THEN score_value / vote_count ELSE 0 END,
+	wilson_score = CASE WHEN score_positifs_votes + score_negatives_votes > 0 THEN ( score_positifs_votes + 1.9208 - 1.96 * SQRT( score_positifs_votes * score_negatives_votes * 1.0 / ( score_positifs_votes + score_negatives_votes ) + 0.9604 ) ) / ( score_positifs_votes + score_negatives_votes + 3.8416 ) ELSE 0 END,
+	bayesian_score = ( 5 * 0 + score_value ) / ( vote_count + 5 );
+CREATE INDEX idx_extend_rating_average_score ON extend_rating ( resource_type, average_score, id_rating );
+CREATE INDEX idx_extend_rating_wilson_score ON extend_rating ( resource_type, wilson_score, id_rating );
+CREATE INDEX idx_extend_rating_bayesian_score ON extend_rating ( resource_type, bayesian_score, id_rating );
+
+--
+-- Prior of the Bayesian average of each vote type. The scores above have been
+-- computed with the default prior : the ratings are computed again when the
+-- prior of their vote type is modified.
+--
+ALTER TABLE extend_rating_vote_type ADD COLUMN bayesian_prior_mean DOUBLE DEFAULT 0 NOT NULL;
+ALTER TABLE extend_rating_vote_type ADD COLUMN bayesian_prior_weight DOUBLE DEFAULT 5 NOT NULL;
+
+--
+-- Range of the vote values of each vote type, checked by the import of votes
+--
+ALTER TABLE extend_rating_vote_type ADD COLUMN min_vote_value DOUBLE DEFAULT 0 NOT NULL;
+ALTER TABLE extend_rating_vote_type ADD COLUMN max_vote_value DOUBLE DEFAULT 1 NOT NULL;
+UPDATE extend_rating_vote_type SET min_vote_value = 0, max_vote_value = 4 WHERE id_vote_type = 1;
+UPDATE extend_rating_vote_type SET min_vote_value = -1, max_vote_value = 1 WHERE id_vote_type = 2;
+
+--
+-- Index used to rank the ratings of a resource type on their score, then on
+-- their rating id
+--
+CREATE INDEX idx_extend_rating_score_value ON extend_rating ( resource_type, score_value, id_rating );
+
+--
+-- Placeholders of the client-side hydration in the vote types
+--
+UPDATE core_template SET template_value = CONCAT( '<#if (hydrate!false)>\r\n<div class=\"extend-rating-hydrate\" data-id-extendable-resource=\"${idExtendableResource!}\" data-extendable-resource-type=\"${extendableResourceType!}\">\r\n	<#if show == \"all\" || show == \"vote\"><p>Note : <span class=\"extend-rating-average\"></span> (<span class=\"extend-rating-count\"></span>)</p></#if>\r\n	<div class=\"cancel extend-rating-cancel\" style=\"display:none;\"><a href=\"#\"> </a></div>\r\n	<#if show == \"all\" || show == \"actionVote\"><div class=\"extend-rating-vote\" style=\"display:none;\"> Votez : <a href=\"#\" data-vote-value=\"1\">1</a> <a href=\"#\" data-vote-value=\"2\">2</a> <a href=\"#\" data-vote-value=\"3\">3</a> <a href=\"#\" data-vote-value=\"4\">4</a></div></#if>\r\n	<div class=\"extend-rating-message\"></div>\r\n</div>\r\n<#else>', template_value, '</#if>' ) WHERE template_name = 'extend_rating_vote_type_star';
+UPDATE core_template SET template_value = CONCAT( '<#if (hydrate!false)>\r\n<div class=\"extend-rating-hydrate\" data-id-extendable-resource=\"${idExtendableResource!}\" data-extendable-resource-type=\"${extendableResourceType!}\">\r\n	<#if show == \"all\" || show == \"vote\"><p>#i18n{module.extend.rating.rating.labelLike} : <span class=\"extend-rating-positives\"></span></p><p>#i18n{module.extend.rating.rating.labelDislike} : <span class=\"extend-rating-negatives\"></span></p></#if>\r\n	<div class=\"cancel extend-rating-cancel\" style=\"display:none;\"><a href=\"#\"> </a></div>\r\n	<#if show == \"all\" || show == \"actionVote\"><div class=\"extend-rating-vote\" style=\"display:none;\"><label for=\"\">#i18n{module.extend.rating.rating.labelVote} :</label> <a href=\"#\" data-vote-value=\"-1\"><img src=\"images/local/skin/plugins/extend/modules/rating/vote_against.png\" title=\"#i18n{module.extend.rating.rating.labelVoteAgainst}\" alt=\"#i18n{module.extend.rating.rating.labelVoteAgainst}\"/></a> <a href=\"#\" data-vote-value=\"1\"><img src=\"images/local/skin/plugins/extend/modules/rating/vote_for.png\" title=\"#i18n{module.extend.rating.rating.labelVoteFor}\" alt=\"#i18n{module.extend.rating.rating.labelVoteFor}\"/></a></div></#if>\r\n	<div class=\"extend-rating-message\"></div>\r\n</div>\r\n<#else>', template_value, '</#if>' ) WHERE template_name = 'extend_rating_vote_type_thumb';
+UPDATE core_template SET template_value = CONCAT( '<#if (hydrate!false)>\r\n<div class=\"extend-rating-hydrate\" data-id-extendable-resource=\"${idExtendableResource!}\" data-extendable-resource-type=\"${extendableResourceType!}\">\r\n	<div class=\"extend-rating-cancel\" style=\"display:none;\"><a href=\"#\">J''annule mon vote</a></div>\r\n	<#if show == \"all\" || show == \"actionVote\"><div class=\"extend-rating-vote\" style=\"display:none;\"><a href=\"#\" data-vote-value=\"1\">Je vote pour</a></div></#if>\r\n	<div class=\"extend-rating-message\"></div>\r\n</div>\r\n<#else>', template_value, '</#if>' ) WHERE template_name = 'extend_rating_vote_type_simple';
@@ -0,0 +1,516 @@
+/*
+ * Copyright (c) 2002-2014, Mairie de Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.extend.modules.rating.business.key;
+
+import fr.paris.lutece.portal.service.database.PluginConnectionService;
+import fr.paris.lutece.portal.service.plugin.Plugin;
+import fr.paris.lutece.portal.service.plugin.PluginDefaultImplementation;
+import fr.paris.lutece.portal.service.util.AppException;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+
+/**
+ *
+ * HiLoPrimaryKeyAllocatorTest
+ *
+ */
+public class HiLoPrimaryKeyAllocatorTest
+{
+    private static final String SEQUENCE_RATING = "extend_rating";
+    private static final String SEQUENCE_HISTORY = "extend_rating_history";
+
+    /**
+     * The keys of a block are given in order, and a new block is reserved
+     * only once the previous one is used up
+     */
+    @Test
+    public void testNextKeyReservesBlocks(  )
+    {
+        SequenceTable table = new SequenceTable(  );
+        table.createSequence( SEQUENCE_RATING, 1 );
+
+        HiLoPrimaryKeyAllocator allocator = new HiLoPrimaryKeyAllocator( 3 );
+        Plugin plugin = table.getPlugin(  );
+
+        Assert.assertEquals( 1, allocator.nextKey( SEQUENCE_RATING, plugin ) );
+        Assert.assertEquals( 2, allocator.nextKey( SEQUENCE_RATING, plugin ) );
+        Assert.assertEquals( 3, allocator.nextKey( SEQUENCE_RATING, plugin ) );
+        Assert.assertEquals( 1, table.getReservationCount(  ) );
+
+        Assert.assertEquals( 4, allocator.nextKey( SEQUENCE_RATING, plugin ) );
+        Assert.assertEquals( 2, table.getReservationCount(  ) );
+        Assert.assertEquals( 7, table.getNextValue( SEQUENCE_RATING ) );
+        Assert.assertEquals( 0, table.getOpenConnectionCount(  ) );
+    }
+
+    /**
+     * Reserved keys follow the keys already given, and are never lower than
+     * the given minimum
+     */
+    @Test
+    public void testReserveKeys(  )
+    {
+        SequenceTable table = new SequenceTable(  );
+        table.createSequence( SEQUENCE_HISTORY, 1 );
+
+        HiLoPrimaryKeyAllocator allocator = new HiLoPrimaryKeyAllocator( 10 );
+        Plugin plugin = table.getPlugin(  );
+
+        Assert.assertEquals( 1, allocator.nextKey( SEQUENCE_HISTORY, plugin ) );
+        Assert.assertEquals( 11, allocator.reserveKeys( SEQUENCE_HISTORY, 5, 0, plugin ) );
+        Assert.assertEquals( 100, allocator.reserveKeys( SEQUENCE_HISTORY, 5, 100, plugin ) );
+        Assert.assertEquals( 105, allocator.reserveKeys( SEQUENCE_HISTORY, 5, 50, plugin ) );
+        Assert.assertEquals( 110, table.getNextValue( SEQUENCE_HISTORY ) );
+        Assert.assertEquals( 2, allocator.nextKey( SEQUENCE_HISTORY, plugin ) );
+        Assert.assertEquals( 0, table.getOpenConnectionCount(  ) );
+    }
+
+    /**
+     * Each sequence has its own blocks
+     */
+    @Test
+    public void testSequencesAreIndependent(  )
+    {
+        SequenceTable table = new SequenceTable(  );
+        table.createSequence( SEQUENCE_RATING, 1 );
+        table.createSequence( SEQUENCE_HISTORY, 100 );
+
+        HiLoPrimaryKeyAllocator allocator = new HiLoPrimaryKeyAllocator( 10 );
+        Plugin plugin = table.getPlugin(  );
+
+        Assert.assertEquals( 1, allocator.nextKey( SEQUENCE_RATING, plugin ) );
+        Assert.assertEquals( 100, allocator.nextKey( SEQUENCE_HISTORY, plugin ) );
+        Assert.assertEquals( 2, allocator.nextKey( SEQUENCE_RATING, plugin ) );
+        Assert.assertEquals( 101, allocator.nextKey( SEQUENCE_HISTORY, plugin ) );
+    }
+
+    /**
+     * Two webapps sharing the database never give the same key
+     */
+    @Test
+    public void testAllocatorsSharingTheTable(  )
+    {
+        SequenceTable table = new SequenceTable(  );
+        table.createSequence( SEQUENCE_RATING, 1 );
+
+        HiLoPrimaryKeyAllocator allocator1 = new HiLoPrimaryKeyAllocator( 4 );
+        HiLoPrimaryKeyAllocator allocator2 = new HiLoPrimaryKeyAllocator( 4 );
+        Plugin plugin = table.getPlugin(  );
+        Set<Integer> setKeys = new HashSet<Integer>(  );
+
+        for ( int i = 0; i < 25; i++ )
+        {
+            Assert.assertTrue( setKeys.add( allocator1.nextKey( SEQUENCE_RATING, plugin ) ) );
+            Assert.assertTrue( setKeys.add( allocator2.nextKey( SEQUENCE_RATING, plugin ) ) );
+        }
+    }
+
+    /**
+     * Threads drawing keys at the same time never get the same key, and no
+     * key of the reserved blocks is skipped
+     * @throws InterruptedException if interrupted
+     */
+    @Test
+    public void testConcurrentNextKey(  ) throws InterruptedException
+    {
+        SequenceTable table = new SequenceTable(  );
+        table.createSequence( SEQUENCE_RATING, 1 );
+
+        final HiLoPrimaryKeyAllocator allocator = new HiLoPrimaryKeyAllocator( 7 );
+        final Plugin plugin = table.getPlugin(  );
+        final List<Integer> listKeys = Collections.synchronizedList( new ArrayList<Integer>(  ) );
+        final int nKeysPerThread = 500;
+        Thread[] threads = new Thread[8];
+
+        for ( int i = 0; i < threads.length; i++ )
+        {
+            threads[i] = new Thread(  )
+                    {
+                        @Override
+                        public void run(  )
+                        {
+                            for ( int j = 0; j < nKeysPerThread; j++ )
+                            {
+                                listKeys.add( allocator.nextKey( SEQUENCE_RATING, plugin ) );
+                            }
+                        }
+                    };
+            threads[i].start(  );
+        }
+
+        for ( Thread thread : threads )
+        {
+            thread.join(  );
+        }
+
+        int nKeyCount = threads.length * nKeysPerThread;
+        Set<Integer> setKeys = new HashSet<Integer>( listKeys );
+        Assert.assertEquals( nKeyCount, setKeys.size(  ) );
+
+        for ( int nKey = 1; nKey <= nKeyCount; nKey++ )
+        {
+            Assert.assertTrue( "Missing key " + nKey, setKeys.contains( nKey ) );
+        }
+    }
+
+    /**
+     * A missing sequence is reported, and the connection is rolled back and
+     * given back
+     */
+    @Test
+    public void testUnknownSequence(  )
+    {
+        SequenceTable table = new SequenceTable(  );
+        HiLoPrimaryKeyAllocator allocator = new HiLoPrimaryKeyAllocator( 5 );
+
+        try
+        {
+            allocator.nextKey( SEQUENCE_RATING, table.getPlugin(  ) );
+            Assert.fail( "The sequence does not exist" );
+        }
+        catch ( AppException e )
+        {
+            Assert.assertEquals( 1, table.getRollbackCount(  ) );
+            Assert.assertEquals( 0, table.getOpenConnectionCount(  ) );
+        }
+    }
+
+    /**
+     * Minimal in memory extend_rating_sequence table, reached through JDBC
+     * proxies. A reservation only reaches the table when it is committed.
+     */
+    private static final class SequenceTable
+    {
+        private final Map<String, Integer> _mapNextValues = new HashMap<String, Integer>(  );
+        private int _nReservationCount;
+        private int _nRollbackCount;
+        private int _nOpenConnectionCount;
+        private final Object _lock = new Object(  );
+        private boolean _bTableLocked;
+
+        /**
+         * Create a sequence
+         * @param strSequenceName the name of the sequence
+         * @param nNextValue the next value of the sequence
+         */
+        synchronized void createSequence( String strSequenceName, int nNextValue )
+        {
+            _mapNextValues.put( strSequenceName, nNextValue );
+        }
+
+        synchronized int getNextValue( String strSequenceName )
+        {
+            return _mapNextValues.get( strSequenceName );
+        }
+
+        synchronized int getReservationCount(  )
+        {
+            return _nReservationCount;
+        }
+
+        synchronized int getRollbackCount(  )
+        {
+            return _nRollbackCount;
+        }
+
+        synchronized int getOpenConnectionCount(  )
+        {
+            return _nOpenConnectionCount;
+        }
+
+        /**
+         * Get a plugin whose connections reach this table
+         * @return the plugin
+         */
+        Plugin getPlugin(  )
+        {
+            final PluginConnectionService connectionService = new PluginConnectionService(  )
+                {
+                    @Override
+                    public Connection getConnection(  )
+                    {
+                        synchronized ( SequenceTable.this )
+                        {
+                            _nOpenConnectionCount++;
+                        }
+
+                        return newConnection(  );
+                    }
+
+                    @Override
+                    public void freeConnection( Connection connection )
+                    {
+                        synchronized ( SequenceTable.this )
+                        {
+                            _nOpenConnectionCount--;
+                        }
+                    }
+                };
+
+            return new PluginDefaultImplementation(  )
+                {
+                    @Override
+                    public PluginConnectionService getConnectionService(  )
+                    {
+                        return connectionService;
+                    }
+                };
+        }
+
+        /**
+         * Create a connection. The table is locked from the first update of
+         * a transaction to its end, as the sequence row would be.
+         * @return the connection
+         */
+        private Connection newConnection(  )
+        {
+            final Map<String, Integer> mapPendingValues = new HashMap<String, Integer>(  );
+
+            return proxy( Connection.class,
+                new InvocationHandler(  )
+                {
+                    private boolean _bLocked;
+
+                    @Override
+                    public Object invoke( Object proxy, Method method, Object[] args )
+                    {
+                        String strMethod = method.getName(  );
+
+                        if ( "prepareStatement".equals( strMethod ) )
+                        {
+                            if ( ( (String) args[0] ).trim(  ).startsWith( "UPDATE" ) && !_bLocked )
+                            {
+                                lock(  );
+                                _bLocked = true;
+                            }
+
+                            return newStatement( (String) args[0], mapPendingValues );
+                        }
+
+                        if ( "commit".equals( strMethod ) || "rollback".equals( strMethod ) )
+                        {
+                            synchronized ( SequenceTable.this )
+                            {
+                                if ( "commit".equals( strMethod ) )
+                                {
+                                    _mapNextValues.putAll( mapPendingValues );
+                                    _nReservationCount += mapPendingValues.size(  );
+                                }
+                                else
+                                {
+                                    _nRollbackCount++;
+                                }
+                            }
+
+                            mapPendingValues.clear(  );
+
+                            if ( _bLocked )
+                            {
+                                _bLocked = false;
+                                unlock(  );
+                            }
+
+                            return null;
+                        }
+
+                        if ( "getAutoCommit".equals( strMethod ) )
+                        {
+                            return Boolean.TRUE;
+                        }
+
+                        return null;
+                    }
+                } );
+        }
+
+        /**
+         * Create a statement on the sequence table
+         * @param strSql the SQL statement
+         * @param mapPendingValues the values updated by the transaction
+         * @return the statement
+         */
+        private PreparedStatement newStatement( final String strSql, final Map<String, Integer> mapPendingValues )
+        {
+            final Object[] params = new Object[4];
+
+            return proxy( PreparedStatement.class,
+                new InvocationHandler(  )
+                {
+                    @Override
+                    public Object invoke( Object proxy, Method method, Object[] args )
+                    {
+                        String strMethod = method.getName(  );
+
+                        if ( strMethod.startsWith( "set" ) )
+                        {
+                            params[(Integer) args[0] - 1] = args[1];
+
+                            return null;
+                        }
+
+                        if ( "executeUpdate".equals( strMethod ) )
+                        {
+                            Integer nValue = getValue( (String) params[3], mapPendingValues );
+
+                            if ( nValue == null )
+                            {
+                                return 0;
+                            }
+
+                            mapPendingValues.put( (String) params[3],
+                                Math.max( nValue, (Integer) params[0] ) + (Integer) params[2] );
+
+                            return 1;
+                        }
+
+                        if ( "executeQuery".equals( strMethod ) )
+                        {
+                            return newResultSet( getValue( (String) params[0], mapPendingValues ) );
+                        }
+
+                        return null;
+                    }
+                } );
+        }
+
+        /**
+         * Create a result set of one row and one column
+         * @param nValue the value
+         * @return the result set
+         */
+        private ResultSet newResultSet( final Integer nValue )
+        {
+            return proxy( ResultSet.class,
+                new InvocationHandler(  )
+                {
+                    @Override
+                    public Object invoke( Object proxy, Method method, Object[] args )
+                    {
+                        if ( "next".equals( method.getName(  ) ) )
+                        {
+                            return nValue != null;
+                        }
+
+                        if ( "getInt".equals( method.getName(  ) ) )
+                        {
+                            return nValue;
+                        }
+
+                        return null;
+                    }
+                } );
+        }
+
+        /**
+         * Get the value of a sequence seen by a transaction
+         * @param strSequenceName the name of the sequence
+         * @param mapPendingValues the values updated by the transaction
+         * @return the value, or null if the sequence does not exist
+         */
+        private synchronized Integer getValue( String strSequenceName, Map<String, Integer> mapPendingValues )
+        {
+            Integer nValue = mapPendingValues.get( strSequenceName );
+
+            return ( nValue != null ) ? nValue : _mapNextValues.get( strSequenceName );
+        }
+
+        /**
+         * Wait for the end of the transaction that updated the table
+         */
+        private void lock(  )
+        {
+            synchronized ( _lock )
+            {
+                while ( _bTableLocked )
+                {
+                    try
+                    {
+                        _lock.wait(  );
+                    }
+                    catch ( InterruptedException e )
+                    {
+                        Thread.currentThread(  ).interrupt(  );
+
+                        return;
+                    }
+                }
+
+                _bTableLocked = true;
+            }
+        }
+
+        /**
+         * Release the table at the end of a transaction
+         */
+        private void unlock(  )
+        {
+            synchronized ( _lock )
+            {
+                _bTableLocked = false;
+                _lock.notifyAll(  );
+            }
+        }
+
+        /**
+         * Create a JDBC proxy
+         * @param <T> the JDBC interface
+         * @param clazz the JDBC interface
+         * @param handler the handler of the calls
+         * @return the proxy
+         */
+        private static <T> T proxy( Class<T> clazz, InvocationHandler handler )
+        {
+            return clazz.cast( Proxy.newProxyInstance( HiLoPrimaryKeyAllocatorTest.class.getClassLoader(  ),
+                    new Class<?>[] { clazz }, handler ) );
+        }
+    }
+}
@@ -0,0 +1,259 @@
+/*
+ * Copyright (c) 2002-2014, Mairie de Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.extend.modules.rating.service.leaderboard;
+
+import fr.paris.lutece.plugins.extend.modules.rating.business.BayesianPrior;
+import fr.paris.lutece.plugins.extend.modules.rating.business.Rating;
+import fr.paris.lutece.plugins.extend.modules.rating.business.RatingMetric;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+
+/**
+ *
+ * RatingTopKTest
+ *
+ */
+public class RatingTopKTest
+{
+    private static final String RESOURCE_TYPE = "DOCUMENT";
+    private static final BayesianPrior PRIOR = new BayesianPrior( 0, 5 );
+
+    /**
+     * A type with fewer ratings than the capacity is fully held
+     */
+    @Test
+    public void testAllRatingsHeld(  )
+    {
+        RatingTopK topK = new RatingTopK( RatingMetric.VOTE_COUNT, 5 );
+        topK.load( Arrays.asList( getRating( "1", 10 ), getRating( "2", 5 ), getRating( "3", 1 ) ) );
+
+        assertIds( topK.getTop( 0, 10 ), "1", "2", "3" );
+        assertIds( topK.getTop( 1, 1 ), "2" );
+    }
+
+    /**
+     * The ratings with the same value are ordered on their rating id,
+     * descending, as the database does
+     */
+    @Test
+    public void testTiesOrderedById(  )
+    {
+        RatingTopK topK = new RatingTopK( RatingMetric.VOTE_COUNT, 5 );
+        topK.load( new ArrayList<Rating>(  ) );
+        topK.update( getRating( "1", 5 ) );
+        topK.update( getRating( "3", 5 ) );
+        topK.update( getRating( "2", 5 ) );
+
+        assertIds( topK.getTop( 0, 3 ), "3", "2", "1" );
+    }
+
+    /**
+     * A resource tied with the floor is held only if it comes before the
+     * floor in the order of the database, so that the answers do not depend
+     * on the order of the updates
+     */
+    @Test
+    public void testTiesAtTheFloor(  )
+    {
+        RatingTopK topK = new RatingTopK( RatingMetric.VOTE_COUNT, 2 );
+        topK.load( Arrays.asList( getRating( "5", 10 ), getRating( "3", 5 ) ) );
+
+        // Comes after the floor ( 5, "3" ) : a resource that is not held may come before it
+        topK.update( getRating( "2", 5 ) );
+        assertIds( topK.getTop( 0, 2 ), "5", "3" );
+
+        // Comes before the floor : held, and ( 5, "3" ) is dropped
+        topK.update( getRating( "4", 5 ) );
+        assertIds( topK.getTop( 0, 2 ), "5", "4" );
+
+        // The floor moves up to the dropped ( 5, "4" )
+        topK.update( getRating( "9", 5 ) );
+        assertIds( topK.getTop( 0, 2 ), "5", "9" );
+        topK.update( getRating( "6", 5 ) );
+        assertIds( topK.getTop( 0, 2 ), "5", "9" );
+    }
+
+    /**
+     * A held rating that goes past the floor requires to load the ratings
+     * again
+     */
+    @Test
+    public void testRatingGoingPastTheFloor(  )
+    {
+        RatingTopK topK = new RatingTopK( RatingMetric.VOTE_COUNT, 2 );
+        topK.load( Arrays.asList( getRating( "1", 10 ), getRating( "2", 5 ) ) );
+        topK.update( getRating( "1", 3 ) );
+
+        Assert.assertNull( topK.getTop( 0, 2 ) );
+        assertIds( topK.getTop( 0, 1 ), "2" );
+
+        topK.invalidate(  );
+        Assert.assertNull( topK.getTop( 0, 1 ) );
+    }
+
+    /**
+     * A removed rating is no longer held
+     */
+    @Test
+    public void testRemovedRating(  )
+    {
+        RatingTopK topK = new RatingTopK( RatingMetric.VOTE_COUNT, 5 );
+        topK.load( Arrays.asList( getRating( "1", 10 ), getRating( "2", 5 ) ) );
+        topK.update( getRating( "1", 0 ) );
+
+        assertIds( topK.getTop( 0, 5 ), "2" );
+    }
+
+    /**
+     * A delta is added to the held rating, and its scores are computed again
+     */
+    @Test
+    public void testDeltaOnHeldRating(  )
+    {
+        RatingTopK topK = new RatingTopK( RatingMetric.AVERAGE_SCORE, 5 );
+        Rating rating = getRating( "1", 2 );
+        rating.setScoreValue( 4 );
+        topK.load( Arrays.asList( rating, getRating( "2", 1 ) ) );
+
+        Assert.assertTrue( topK.applyDelta( getRating( "1", 1, 4 ), PRIOR ) );
+
+        Rating newRating = topK.getTop( 0, 1 ).get( 0 );
+        Assert.assertEquals( 3, newRating.getVoteCount(  ) );
+        Assert.assertEquals( 8, newRating.getScoreValue(  ), 0.001 );
+        Assert.assertEquals( 8.0 / 3, newRating.getStoredAverageScore(  ), 0.001 );
+        Assert.assertEquals( 8.0 / 8, newRating.getBayesianScore(  ), 0.001 );
+
+        // The held rating is not modified
+        Assert.assertEquals( 2, rating.getVoteCount(  ) );
+    }
+
+    /**
+     * When all the ratings of the type are held, a delta on another resource
+     * is its first rating, which must be read to get its id
+     */
+    @Test
+    public void testDeltaOnNewResource(  )
+    {
+        RatingTopK topK = new RatingTopK( RatingMetric.VOTE_COUNT, 5 );
+        topK.load( Arrays.asList( getRating( "1", 1 ) ) );
+
+        Assert.assertFalse( topK.applyDelta( getRating( "2", 2, 2 ), PRIOR ) );
+        topK.update( getRating( "2", 2 ) );
+        assertIds( topK.getTop( 0, 5 ), "2", "1" );
+    }
+
+    /**
+     * A delta on a resource that is not held is ignored if it cannot bring
+     * the resource up to the floor, and must be read otherwise
+     */
+    @Test
+    public void testDeltaOnResourceNotHeld(  )
+    {
+        RatingTopK topKCount = new RatingTopK( RatingMetric.VOTE_COUNT, 1 );
+        topKCount.load( Arrays.asList( getRating( "1", 10 ) ) );
+
+        Assert.assertFalse( topKCount.applyDelta( getRating( "2", 1, 1 ), PRIOR ) );
+        Assert.assertTrue( topKCount.applyDelta( getRating( "2", -1, -1 ), PRIOR ) );
+
+        Rating rating = getRating( "1", 2 );
+        rating.setScoreValue( 6 );
+        rating.computeScores( PRIOR );
+
+        RatingTopK topKAverage = new RatingTopK( RatingMetric.AVERAGE_SCORE, 1 );
+        topKAverage.load( Arrays.asList( rating ) );
+
+        // The new average is between the old one, not above 3, and the vote
+        Assert.assertTrue( topKAverage.applyDelta( getRating( "2", 1, 2 ), PRIOR ) );
+        Assert.assertFalse( topKAverage.applyDelta( getRating( "2", 1, 4 ), PRIOR ) );
+
+        // A cancelled vote may raise an average by any amount
+        Assert.assertFalse( topKAverage.applyDelta( getRating( "2", -1, -1 ), PRIOR ) );
+        assertIds( topKAverage.getTop( 0, 1 ), "1" );
+    }
+
+    /**
+     * Build a rating
+     * @param strIdExtendableResource the id of the extendable resource
+     * @param nVoteCount the number of votes
+     * @return the rating
+     */
+    private static Rating getRating( String strIdExtendableResource, int nVoteCount )
+    {
+        return getRating( strIdExtendableResource, nVoteCount, 0 );
+    }
+
+    /**
+     * Build a rating
+     * @param strIdExtendableResource the id of the extendable resource
+     * @param nVoteCount the number of votes
+     * @param dScoreValue the sum of the vote values
+     * @return the rating
+     */
+    private static Rating getRating( String strIdExtendableResource, int nVoteCount, double dScoreValue )
+    {
+        Rating rating = new Rating(  );
+        rating.setIdRating( Integer.parseInt( strIdExtendableResource ) );
+        rating.setIdExtendableResource( strIdExtendableResource );
+        rating.setExtendableResourceType( RESOURCE_TYPE );
+        rating.setVoteCount( nVoteCount );
+        rating.setScoreValue( dScoreValue );
+
+        return rating;
+    }
+
+    /**
+     * Check the resources of a list of ratings
+     * @param listRatings the ratings
+     * @param strIds the expected ids of the resources, in order
+     */
+    private static void assertIds( List<Rating> listRatings, String... strIds )
+    {
+        Assert.assertNotNull( listRatings );
+
+        List<String> listIds = new ArrayList<String>(  );
+
+        for ( Rating rating : listRatings )
+        {
+            listIds.add( rating.getIdExtendableResource(  ) );
+        }
+
+        Assert.assertEquals( Arrays.asList( strIds ), listIds );
+    }
+}
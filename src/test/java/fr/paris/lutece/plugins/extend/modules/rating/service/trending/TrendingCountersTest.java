@@ -0,0 +1,221 @@
+/*
+ * Copyright (c) 2002-2014, Mairie de Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.extend.modules.rating.service.trending;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+
+/**
+ *
+ * TrendingCountersTest
+ *
+ */
+public class TrendingCountersTest
+{
+    private static final int BUCKET_COUNT = 12;
+    private static final long MINUTE = 60000L;
+    private static final long HOUR = TrendingWindow.HOUR.getDuration(  );
+    private static final long DAY = TrendingWindow.DAY.getDuration(  );
+
+    // A time at the start of a bucket of every window
+    private static final long START = 100 * TrendingWindow.WEEK.getDuration(  );
+    private static final double DELTA = 0.0001;
+
+    /**
+     * The votes are counted in every window
+     */
+    @Test
+    public void testVotesCountedInEveryWindow(  )
+    {
+        TrendingCounters counters = new TrendingCounters( BUCKET_COUNT );
+        counters.add( 1, 4, START );
+        counters.add( 1, 2, START + MINUTE );
+
+        for ( TrendingWindow window : TrendingWindow.values(  ) )
+        {
+            Assert.assertEquals( 2, counters.getVoteCount( window, START + ( 2 * MINUTE ) ) );
+            Assert.assertEquals( 6, counters.getScoreValue( window, START + ( 2 * MINUTE ) ), DELTA );
+        }
+    }
+
+    /**
+     * The votes leave each window once its duration has elapsed
+     */
+    @Test
+    public void testVotesLeaveTheWindow(  )
+    {
+        TrendingCounters counters = new TrendingCounters( BUCKET_COUNT );
+        counters.add( 1, 3, START );
+
+        Assert.assertEquals( 1, counters.getVoteCount( TrendingWindow.HOUR, ( START + HOUR ) - 1 ) );
+        Assert.assertEquals( 0, counters.getVoteCount( TrendingWindow.HOUR, START + HOUR ) );
+        Assert.assertEquals( 0, counters.getScoreValue( TrendingWindow.HOUR, START + HOUR ), DELTA );
+        Assert.assertEquals( 1, counters.getVoteCount( TrendingWindow.DAY, START + HOUR ) );
+        Assert.assertEquals( 1, counters.getVoteCount( TrendingWindow.WEEK, START + HOUR ) );
+        Assert.assertEquals( 0, counters.getVoteCount( TrendingWindow.DAY, START + DAY ) );
+        Assert.assertEquals( 1, counters.getVoteCount( TrendingWindow.WEEK, START + DAY ) );
+    }
+
+    /**
+     * A bucket whose votes have left the window is reused for the new votes
+     */
+    @Test
+    public void testBucketReused(  )
+    {
+        TrendingCounters counters = new TrendingCounters( BUCKET_COUNT );
+        counters.add( 1, 3, START );
+        counters.add( 1, 2, START + HOUR );
+
+        Assert.assertEquals( 1, counters.getVoteCount( TrendingWindow.HOUR, START + HOUR ) );
+        Assert.assertEquals( 2, counters.getScoreValue( TrendingWindow.HOUR, START + HOUR ), DELTA );
+        Assert.assertEquals( 2, counters.getVoteCount( TrendingWindow.DAY, START + HOUR ) );
+    }
+
+    /**
+     * A cancelled vote is removed from the bucket of the time it was made
+     */
+    @Test
+    public void testCancelRemovesVote(  )
+    {
+        TrendingCounters counters = new TrendingCounters( BUCKET_COUNT );
+        counters.add( 1, 3, START );
+        counters.add( 1, 2, START + ( 10 * MINUTE ) );
+        counters.add( -1, -3, START );
+
+        for ( TrendingWindow window : TrendingWindow.values(  ) )
+        {
+            Assert.assertEquals( 1, counters.getVoteCount( window, START + ( 20 * MINUTE ) ) );
+            Assert.assertEquals( 2, counters.getScoreValue( window, START + ( 20 * MINUTE ) ), DELTA );
+        }
+    }
+
+    /**
+     * Cancelling the votes of a user made in several buckets removes each of
+     * them from its own bucket, and keeps the votes of the other users
+     */
+    @Test
+    public void testCancelOfVotesInSeveralBuckets(  )
+    {
+        TrendingCounters counters = new TrendingCounters( BUCKET_COUNT );
+
+        // A user votes twice, in two buckets of the hour window, another user votes in the second one
+        counters.add( 1, 3, START );
+        counters.add( 1, 4, START + ( 10 * MINUTE ) );
+        counters.add( 1, 2, START + ( 10 * MINUTE ) );
+
+        // The cancel removes the votes of the user at the time each one was made
+        counters.add( -1, -3, START );
+        counters.add( -1, -4, START + ( 10 * MINUTE ) );
+
+        for ( TrendingWindow window : TrendingWindow.values(  ) )
+        {
+            Assert.assertEquals( 1, counters.getVoteCount( window, START + ( 20 * MINUTE ) ) );
+            Assert.assertEquals( 2, counters.getScoreValue( window, START + ( 20 * MINUTE ) ), DELTA );
+        }
+    }
+
+    /**
+     * Cancelling a vote that has left a window does not remove the votes that
+     * replaced it in its bucket
+     */
+    @Test
+    public void testCancelOfVoteThatLeftTheWindow(  )
+    {
+        TrendingCounters counters = new TrendingCounters( BUCKET_COUNT );
+        counters.add( 1, 3, START );
+        counters.add( 1, 2, START + HOUR );
+        counters.add( -1, -3, START );
+
+        Assert.assertEquals( 1, counters.getVoteCount( TrendingWindow.HOUR, START + HOUR ) );
+        Assert.assertEquals( 2, counters.getScoreValue( TrendingWindow.HOUR, START + HOUR ), DELTA );
+        Assert.assertEquals( 1, counters.getVoteCount( TrendingWindow.DAY, START + HOUR ) );
+        Assert.assertEquals( 2, counters.getScoreValue( TrendingWindow.DAY, START + HOUR ), DELTA );
+    }
+
+    /**
+     * Cancelling a vote that has not been counted changes nothing
+     */
+    @Test
+    public void testCancelOfVoteNotCounted(  )
+    {
+        TrendingCounters counters = new TrendingCounters( BUCKET_COUNT );
+        counters.add( -1, -3, START );
+
+        Assert.assertEquals( 0, counters.getVoteCount( TrendingWindow.HOUR, START ) );
+        Assert.assertEquals( 0, counters.getScoreValue( TrendingWindow.HOUR, START ), DELTA );
+
+        counters.add( 1, 2, START );
+        counters.add( -1, -4, START + ( 10 * MINUTE ) );
+
+        Assert.assertEquals( 1, counters.getVoteCount( TrendingWindow.HOUR, START + ( 10 * MINUTE ) ) );
+        Assert.assertEquals( 2, counters.getScoreValue( TrendingWindow.HOUR, START + ( 10 * MINUTE ) ), DELTA );
+    }
+
+    /**
+     * A bucket never counts fewer than zero votes
+     */
+    @Test
+    public void testCancelClampedToZero(  )
+    {
+        TrendingCounters counters = new TrendingCounters( BUCKET_COUNT );
+        counters.add( 1, 4, START );
+        counters.add( -2, -5, START );
+
+        Assert.assertEquals( 0, counters.getVoteCount( TrendingWindow.HOUR, START ) );
+        Assert.assertEquals( 0, counters.getScoreValue( TrendingWindow.HOUR, START ), DELTA );
+
+        counters.add( 1, 1, START );
+
+        Assert.assertEquals( 1, counters.getVoteCount( TrendingWindow.HOUR, START ) );
+        Assert.assertEquals( 1, counters.getScoreValue( TrendingWindow.HOUR, START ), DELTA );
+    }
+
+    /**
+     * The windows are ordered from the shortest to the longest, and each one
+     * is split in buckets of a whole number of milliseconds
+     */
+    @Test
+    public void testWindows(  )
+    {
+        long lPreviousDuration = 0;
+
+        for ( TrendingWindow window : TrendingWindow.values(  ) )
+        {
+            Assert.assertTrue( window.getDuration(  ) > lPreviousDuration );
+            Assert.assertEquals( 0, window.getDuration(  ) % BUCKET_COUNT );
+            lPreviousDuration = window.getDuration(  );
+        }
+    }
+}
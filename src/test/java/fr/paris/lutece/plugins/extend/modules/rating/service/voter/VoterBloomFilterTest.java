@@ -0,0 +1,186 @@
+/*
+ * Copyright (c) 2002-2014, Mairie de Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.extend.modules.rating.service.voter;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+
+/**
+ *
+ * VoterBloomFilterTest
+ *
+ */
+public class VoterBloomFilterTest
+{
+    private static final int EXPECTED_KEYS = 10000;
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+
+    /**
+     * An empty filter contains no key
+     */
+    @Test
+    public void testEmptyFilter(  )
+    {
+        VoterBloomFilter filter = new VoterBloomFilter( EXPECTED_KEYS, FALSE_POSITIVE_RATE );
+
+        Assert.assertFalse( filter.mightContain( "192.168.0.1" ) );
+        Assert.assertFalse( filter.mightContain( "" ) );
+    }
+
+    /**
+     * A key that has been added is always found
+     */
+    @Test
+    public void testNoFalseNegative(  )
+    {
+        VoterBloomFilter filter = new VoterBloomFilter( EXPECTED_KEYS, FALSE_POSITIVE_RATE );
+
+        for ( int i = 0; i < EXPECTED_KEYS; i++ )
+        {
+            filter.add( "user" + i );
+        }
+
+        for ( int i = 0; i < EXPECTED_KEYS; i++ )
+        {
+            Assert.assertTrue( filter.mightContain( "user" + i ) );
+        }
+    }
+
+    /**
+     * Once the expected number of keys is added, the rate of false positives
+     * stays close to the wanted one
+     */
+    @Test
+    public void testFalsePositiveRate(  )
+    {
+        VoterBloomFilter filter = new VoterBloomFilter( EXPECTED_KEYS, FALSE_POSITIVE_RATE );
+
+        for ( int i = 0; i < EXPECTED_KEYS; i++ )
+        {
+            filter.add( "user" + i );
+        }
+
+        int nFalsePositives = 0;
+        int nTries = 100000;
+
+        for ( int i = 0; i < nTries; i++ )
+        {
+            if ( filter.mightContain( "guest" + i ) )
+            {
+                nFalsePositives++;
+            }
+        }
+
+        // Twice the wanted rate leaves room for the hash quality
+        Assert.assertTrue( "false positive rate " + ( (double) nFalsePositives / nTries ),
+            nFalsePositives < ( 2 * FALSE_POSITIVE_RATE * nTries ) );
+    }
+
+    /**
+     * A filter sized for no key still works
+     */
+    @Test
+    public void testDegenerateSize(  )
+    {
+        VoterBloomFilter filter = new VoterBloomFilter( 0, FALSE_POSITIVE_RATE );
+        filter.add( "admin" );
+
+        Assert.assertTrue( filter.mightContain( "admin" ) );
+    }
+
+    /**
+     * Keys added by concurrent threads are all found, even when they set bits
+     * of the same words
+     * @throws InterruptedException if interrupted
+     */
+    @Test
+    public void testConcurrentAdds(  ) throws InterruptedException
+    {
+        // A small filter makes the threads update the same words
+        final VoterBloomFilter filter = new VoterBloomFilter( 100, FALSE_POSITIVE_RATE );
+        final int nThreadCount = 8;
+        final int nKeysPerThread = 2000;
+        final CountDownLatch latchStart = new CountDownLatch( 1 );
+        List<Thread> listThreads = new ArrayList<Thread>(  );
+
+        for ( int t = 0; t < nThreadCount; t++ )
+        {
+            final int nThread = t;
+            Thread thread = new Thread( new Runnable(  )
+                    {
+                        @Override
+                        public void run(  )
+                        {
+                            try
+                            {
+                                latchStart.await(  );
+                            }
+                            catch ( InterruptedException e )
+                            {
+                                Thread.currentThread(  ).interrupt(  );
+
+                                return;
+                            }
+
+                            for ( int i = 0; i < nKeysPerThread; i++ )
+                            {
+                                filter.add( "thread" + nThread + "-" + i );
+                            }
+                        }
+                    } );
+            listThreads.add( thread );
+            thread.start(  );
+        }
+
+        latchStart.countDown(  );
+
+        for ( Thread thread : listThreads )
+        {
+            thread.join(  );
+        }
+
+        for ( int t = 0; t < nThreadCount; t++ )
+        {
+            for ( int i = 0; i < nKeysPerThread; i++ )
+            {
+                Assert.assertTrue( filter.mightContain( "thread" + t + "-" + i ) );
+            }
+        }
+    }
+}
@@ -1,64 +1,154 @@
-
-function displayId(baliseId) {
-	if (document.getElementById && document.getElementById(baliseId) != null) {
-		document.getElementById(baliseId).style.visibility = 'visible';
-		document.getElementById(baliseId).style.display = 'block';
-	}
-}
-
-function hideId(baliseId) {
-	if (document.getElementById && document.getElementById(baliseId) != null) {
-		document.getElementById(baliseId).style.visibility = 'hidden';
-		document.getElementById(baliseId).style.display = 'none';
-	}
-}
-
-function getElementById(id) {
-	if (document.getElementById)
-		return document.getElementById(id);
-	if (document.all)
-		return eval("document.all." + id);
-	return null;
-}
-
-function display(id, value) {
-	var panel = getElementById(id);
-	panel.style.display = value;
-}
-
-function doDisplay(id) {
-	displayId("div" + id);
-}
-function hide(id) {
-	hideId("div" + id);
-
-}
-
-function doCheckboxEffect(isChecked, id) {
-	if (isChecked) {
-		doDisplay(id);
-
-	} else {
-		hide(id);
-	}
-}
-$(document).ready( function() {
-	$(".resource-vote-star-rating-javascript-disable").hide();
-	$(".resource-vote-star-rating").show();
-
-});
-
-$( function() {
-	$('.star-rating').rating( {
-		callback : function(value, link) {
-			// 'this' is the hidden form element holding the current value
-			// 'value' is the value selected
-			// 'element' points to the link element that received the click.
-			// To submit the form automatically:
-			this.form.voteValue.value = value;
-			if (value != '') {
-				this.form.submit();
-			}
-		}
-	});
-});
+
+function displayId(baliseId) {
+	if (document.getElementById && document.getElementById(baliseId) != null) {
+		document.getElementById(baliseId).style.visibility = 'visible';
+		document.getElementById(baliseId).style.display = 'block';
+	}
+}
+
+function hideId(baliseId) {
+	if (document.getElementById && document.getElementById(baliseId) != null) {
+		document.getElementById(baliseId).style.visibility = 'hidden';
+		document.getElementById(baliseId).style.display = 'none';
+	}
+}
+
+function getElementById(id) {
+	if (document.getElementById)
+		return document.getElementById(id);
+	if (document.all)
+		return eval("document.all." + id);
+	return null;
+}
+
+function display(id, value) {
+	var panel = getElementById(id);
+	panel.style.display = value;
+}
+
+function doDisplay(id) {
+	displayId("div" + id);
+}
+function hide(id) {
+	hideId("div" + id);
+
+}
+
+function doCheckboxEffect(isChecked, id) {
+	if (isChecked) {
+		doDisplay(id);
+
+	} else {
+		hide(id);
+	}
+}
+$(document).ready( function() {
+	$(".resource-vote-star-rating-javascript-disable").hide();
+	$(".resource-vote-star-rating").show();
+
+});
+
+$( function() {
+	$('.star-rating').rating( {
+		callback : function(value, link) {
+			// 'this' is the hidden form element holding the current value
+			// 'value' is the value selected
+			// 'element' points to the link element that received the click.
+			// To submit the form automatically:
+			this.form.voteValue.value = value;
+			if (value != '') {
+				this.form.submit();
+			}
+		}
+	});
+});
+
+/*
+ * Client-side hydration of the rating placeholders, so that the host page can
+ * be cached as a whole. A placeholder looks like :
+ *
+ * <div class="extend-rating-hydrate" data-id-extendable-resource="1" data-extendable-resource-type="DOCUMENT">
+ *   <span class="extend-rating-average"></span> (<span class="extend-rating-count"></span>)
+ *   <div class="extend-rating-vote">
+ *     <a href="#" data-vote-value="1">+</a> <a href="#" data-vote-value="-1">-</a>
+ *   </div>
+ *   <div class="extend-rating-cancel"><a href="#">Cancel my vote</a></div>
+ *   <div class="extend-rating-closed"></div>
+ *   <div class="extend-rating-message"></div>
+ * </div>
+ *
+ * The vote type templates output such a placeholder when the property
+ * extend-rating.hydration.enabled is true.
+ */
+var extendRatingBaseUrl = 'jsp/site/plugins/extend/modules/rating/';
+
+function extendRatingRender(placeholder, state) {
+	placeholder.data('voteToken', state.voteToken);
+	placeholder.find('.extend-rating-average').text(state.averageScore);
+	placeholder.find('.extend-rating-count').text(state.voteCount);
+	placeholder.find('.extend-rating-positives').text(state.scorePositifsVotes);
+	placeholder.find('.extend-rating-negatives').text(state.scoreNegativesVotes);
+	placeholder.find('.extend-rating-vote').toggle(state.canVote && !state.voteClosed);
+	placeholder.find('.extend-rating-cancel').toggle(state.canDeleteVote);
+	placeholder.find('.extend-rating-closed').toggle(state.voteClosed);
+	placeholder.find('[data-vote-value]').each(function() {
+		$(this).toggleClass('extend-rating-voted', state.voteValue != 0 && $(this).data('vote-value') == state.voteValue);
+	});
+	placeholder.find('.extend-rating-message').text(state.message ? state.message : '');
+}
+
+function extendRatingHydrate(placeholder) {
+	$.getJSON(extendRatingBaseUrl + 'GetRatingJson.jsp', {
+		idExtendableResource : placeholder.data('id-extendable-resource'),
+		extendableResourceType : placeholder.data('extendable-resource-type')
+	}, function(state) {
+		if (state.status == 'ok') {
+			extendRatingRender(placeholder, state);
+		}
+	});
+}
+
+function extendRatingHandle(placeholder, state) {
+	if (state.redirectUrl) {
+		window.location.href = state.redirectUrl;
+	} else if (state.status == 'ok' || state.status == 'duplicate') {
+		extendRatingRender(placeholder, state);
+	} else {
+		placeholder.find('.extend-rating-message').text(state.message ? state.message : '');
+	}
+}
+
+function extendRatingVote(placeholder, voteValue) {
+	$.post(extendRatingBaseUrl + 'DoVoteJson.jsp', {
+		idExtendableResource : placeholder.data('id-extendable-resource'),
+		extendableResourceType : placeholder.data('extendable-resource-type'),
+		voteValue : voteValue,
+		voteToken : placeholder.data('voteToken')
+	}, function(state) {
+		extendRatingHandle(placeholder, state);
+	}, 'json');
+}
+
+function extendRatingCancelVote(placeholder) {
+	$.post(extendRatingBaseUrl + 'DoCancelVoteJson.jsp', {
+		idExtendableResource : placeholder.data('id-extendable-resource'),
+		extendableResourceType : placeholder.data('extendable-resource-type')
+	}, function(state) {
+		extendRatingHandle(placeholder, state);
+	}, 'json');
+}
+
+$(function() {
+	$('.extend-rating-hydrate').each(function() {
+		var placeholder = $(this);
+		extendRatingHydrate(placeholder);
+		placeholder.on('click', '[data-vote-value]', function(event) {
+			event.preventDefault();
+			extendRatingVote(placeholder, $(this).data('vote-value'));
+		});
+		placeholder.on('click', '.extend-rating-cancel a', function(event) {
+			event.preventDefault();
+			extendRatingCancelVote(placeholder);
+		});
+	});
+});
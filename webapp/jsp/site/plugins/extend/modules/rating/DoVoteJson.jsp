@@ -0,0 +1,6 @@
+<%@ page contentType="application/json; charset=UTF-8" trimDirectiveWhitespaces="true" %>
+<jsp:useBean id="ratingJspBean" scope="request" class="fr.paris.lutece.plugins.extend.modules.rating.web.RatingJspBean" />
+<%
+	response.setHeader( "Cache-Control", "no-cache, no-store" );
+%>
+<%= ratingJspBean.doVoteJson( request ) %>